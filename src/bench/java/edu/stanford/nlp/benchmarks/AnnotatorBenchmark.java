@@ -0,0 +1,82 @@
+package edu.stanford.nlp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.Annotator;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+/**
+ * Measures a single annotator in isolation.  Before each invocation a fresh
+ * document is run through the annotator's prerequisites, outside the timed
+ * region, and the benchmark then times only the annotator itself.
+ * <p>
+ * Run with {@code -prof gc} (the default in the {@code benchmarks} Maven
+ * profile) to also report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AnnotatorBenchmark {
+
+  @Param({"tokenize", "ssplit", "pos", "lemma", "ner", "parse", "depparse", "dcoref"})
+  public String annotator;
+
+  @Param({"sample.txt", "Chapter_1"})
+  public String fixture;
+
+  private String text;
+  private int[] sentencesAndTokens;
+  private StanfordCoreNLP prerequisites;
+  private Annotator target;
+  private Annotation document;
+
+  @Setup(Level.Trial)
+  public void loadModels() {
+    text = BenchmarkFixtures.load(fixture);
+    sentencesAndTokens = BenchmarkFixtures.countSentencesAndTokens(text);
+    String before = BenchmarkFixtures.prerequisites(annotator);
+    String annotators = before.isEmpty() ? annotator : before + ',' + annotator;
+    // Building the full pipeline puts the target annotator in the shared pool
+    new StanfordCoreNLP(BenchmarkFixtures.pipelineProperties(annotators));
+    target = StanfordCoreNLP.getExistingAnnotator(annotator);
+    if (target == null) {
+      throw new IllegalStateException("Annotator " + annotator + " was not created");
+    }
+    if ( ! before.isEmpty()) {
+      prerequisites = new StanfordCoreNLP(BenchmarkFixtures.pipelineProperties(before));
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void prepareDocument() {
+    document = new Annotation(text);
+    if (prerequisites != null) {
+      prerequisites.annotate(document);
+    }
+  }
+
+  @Benchmark
+  public Annotation annotate(SentenceCounters counters) {
+    target.annotate(document);
+    counters.add(sentencesAndTokens);
+    return document;
+  }
+
+}
@@ -0,0 +1,82 @@
+package edu.stanford.nlp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * Text fixtures and pipeline configuration shared by the benchmarks.
+ * <p>
+ * Fixtures are plain text files checked into the project root
+ * ({@code sample.txt}, a short news paragraph, and {@code Chapter_1}, a chapter
+ * of a novel), so that results are comparable between releases.  They are
+ * read relative to the directory given by the {@code corenlp.bench.fixtures}
+ * system property, which defaults to the working directory.
+ */
+public class BenchmarkFixtures {
+
+  private BenchmarkFixtures() {} // static methods
+
+  /** The annotators each benchmarked annotator needs to have run first. */
+  private static final Map<String, String> PREREQUISITES = Generics.newHashMap();
+  static {
+    PREREQUISITES.put("tokenize", "");
+    PREREQUISITES.put("ssplit", "tokenize");
+    PREREQUISITES.put("pos", "tokenize,ssplit");
+    PREREQUISITES.put("lemma", "tokenize,ssplit,pos");
+    PREREQUISITES.put("ner", "tokenize,ssplit,pos,lemma");
+    PREREQUISITES.put("parse", "tokenize,ssplit");
+    PREREQUISITES.put("depparse", "tokenize,ssplit,pos");
+    PREREQUISITES.put("dcoref", "tokenize,ssplit,pos,lemma,ner,parse");
+  }
+
+  /** Reads the named fixture as UTF-8 text. */
+  public static String load(String fixture) {
+    File file = new File(System.getProperty("corenlp.bench.fixtures", "."), fixture);
+    try {
+      return IOUtils.slurpFile(file.getPath(), "utf-8");
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read benchmark fixture " + file.getAbsolutePath(), e);
+    }
+  }
+
+  /** The comma separated annotators that must run before {@code annotator}, possibly empty. */
+  public static String prerequisites(String annotator) {
+    String prerequisites = PREREQUISITES.get(annotator);
+    if (prerequisites == null) {
+      throw new IllegalArgumentException("No benchmark configuration for annotator " + annotator);
+    }
+    return prerequisites;
+  }
+
+  /** Pipeline properties for the given annotators, with the default models. */
+  public static Properties pipelineProperties(String annotators) {
+    Properties props = new Properties();
+    props.setProperty("annotators", annotators);
+    return props;
+  }
+
+  /**
+   * Returns the number of sentences and tokens in {@code text}, as found by
+   * tokenize and ssplit, so that benchmarks can report per-sentence and
+   * per-token rates.
+   */
+  public static int[] countSentencesAndTokens(String text) {
+    StanfordCoreNLP pipeline = new StanfordCoreNLP(pipelineProperties("tokenize,ssplit"));
+    Annotation document = new Annotation(text);
+    pipeline.annotate(document);
+    List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
+    return new int[] { sentences.size(), document.get(CoreAnnotations.TokensAnnotation.class).size() };
+  }
+
+}
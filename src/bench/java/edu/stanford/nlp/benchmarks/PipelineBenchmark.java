@@ -0,0 +1,63 @@
+package edu.stanford.nlp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+/**
+ * Measures complete pipelines end to end, from raw text to an annotated
+ * document, for the configurations most commonly deployed.
+ * <p>
+ * Run with {@code -prof gc} (the default in the {@code benchmarks} Maven
+ * profile) to also report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PipelineBenchmark {
+
+  @Param({"tokenize,ssplit,pos,lemma,ner",
+          "tokenize,ssplit,pos,depparse",
+          "tokenize,ssplit,pos,lemma,ner,parse,dcoref"})
+  public String annotators;
+
+  @Param({"sample.txt", "Chapter_1"})
+  public String fixture;
+
+  private String text;
+  private int[] sentencesAndTokens;
+  private StanfordCoreNLP pipeline;
+
+  @Setup(Level.Trial)
+  public void loadModels() {
+    text = BenchmarkFixtures.load(fixture);
+    sentencesAndTokens = BenchmarkFixtures.countSentencesAndTokens(text);
+    pipeline = new StanfordCoreNLP(BenchmarkFixtures.pipelineProperties(annotators));
+  }
+
+  @Benchmark
+  public Annotation annotate(SentenceCounters counters) {
+    Annotation document = new Annotation(text);
+    pipeline.annotate(document);
+    counters.add(sentencesAndTokens);
+    return document;
+  }
+
+}
@@ -0,0 +1,32 @@
+package edu.stanford.nlp.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH results counting the sentences and tokens annotated.  In
+ * throughput mode they are reported as sentences and tokens per unit time; in
+ * average time mode as the latency per sentence and per token.
+ */
+@State(Scope.Thread)
+@AuxCounters
+public class SentenceCounters {
+
+  public long sentences;
+  public long tokens;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    sentences = 0;
+    tokens = 0;
+  }
+
+  void add(int[] sentencesAndTokens) {
+    sentences += sentencesAndTokens[0];
+    tokens += sentencesAndTokens[1];
+  }
+
+}
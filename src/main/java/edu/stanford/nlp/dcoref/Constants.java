@@ -110,6 +110,9 @@ public class Constants {
 
   public static final String ALLOW_REPARSING_PROP = "dcoref.allowReparsing";
 
+  /** Number of threads used to find and process the mentions of the sentences of a document */
+  public static final String THREADS_PROP = "dcoref.threads";
+
   public static final int MONITOR_DIST_CMD_FINISHED_WAIT_MILLIS = 60000;
 
 
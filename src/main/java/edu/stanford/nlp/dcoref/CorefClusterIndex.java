@@ -0,0 +1,78 @@
+package edu.stanford.nlp.dcoref;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * Indexes of the coref clusters of a {@link Document} by the head words and
+ * the lowercased span strings of their mentions, so that a sieve can find
+ * the clusters it could possibly link a mention to without comparing it
+ * with every antecedent.  {@link SieveCoreferenceSystem} builds one at the
+ * start of each sieve pass and keeps it up to date with {@link #merge} as
+ * clusters are merged.
+ *
+ * @see edu.stanford.nlp.dcoref.sievepasses.DeterministicCorefSieve#antecedentFilter
+ */
+public class CorefClusterIndex {
+
+  private final Map<String, Set<Integer>> clustersByHead = Generics.newHashMap();
+  private final Map<String, Set<Integer>> clustersBySpan = Generics.newHashMap();
+
+  public CorefClusterIndex(Collection<CorefCluster> clusters) {
+    for (CorefCluster cluster : clusters) {
+      add(cluster, cluster.clusterID);
+    }
+  }
+
+  private void add(CorefCluster cluster, int clusterID) {
+    for (Mention m : cluster.corefMentions) {
+      add(clustersByHead, m.headString, clusterID);
+      add(clustersBySpan, m.lowercaseNormalizedSpanString(), clusterID);
+    }
+  }
+
+  private static void add(Map<String, Set<Integer>> index, String key, int clusterID) {
+    Set<Integer> ids = index.get(key);
+    if (ids == null) {
+      ids = Generics.newHashSet(2);
+      index.put(key, ids);
+    }
+    ids.add(clusterID);
+  }
+
+  private static void remove(Map<String, Set<Integer>> index, String key, int clusterID) {
+    Set<Integer> ids = index.get(key);
+    if (ids != null) {
+      ids.remove(clusterID);
+      if (ids.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  /** Records that the mentions of {@code from} now belong to {@code to}. */
+  public void merge(CorefCluster to, CorefCluster from) {
+    for (Mention m : from.corefMentions) {
+      remove(clustersByHead, m.headString, from.clusterID);
+      remove(clustersBySpan, m.lowercaseNormalizedSpanString(), from.clusterID);
+    }
+    add(from, to.clusterID);
+  }
+
+  /** The IDs of the clusters with a mention whose head is {@code headString}. */
+  public Set<Integer> clustersWithHead(String headString) {
+    Set<Integer> ids = clustersByHead.get(headString);
+    return ids == null ? Collections.<Integer>emptySet() : ids;
+  }
+
+  /** The IDs of the clusters with a mention whose lowercased span is {@code span}. */
+  public Set<Integer> clustersWithSpan(String span) {
+    Set<Integer> ids = clustersBySpan.get(span);
+    return ids == null ? Collections.<Integer>emptySet() : ids;
+  }
+
+}
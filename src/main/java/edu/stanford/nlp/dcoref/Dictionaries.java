@@ -16,9 +16,11 @@ import edu.stanford.nlp.io.RuntimeIOException;
 import edu.stanford.nlp.pipeline.DefaultPaths;
 import edu.stanford.nlp.stats.ClassicCounter;
 import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.util.CompactPhraseMap;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.PropertiesUtils;
+import edu.stanford.nlp.util.SharedResources;
 
 /** Provides accessors for various grammatical, semantic, and world knowledge
  *  lexicons and word lists primarily used by the Sieve coreference system,
@@ -198,23 +200,27 @@ public class Dictionaries {
   private final Set<String> adjectiveNation = Generics.newHashSet();
 
   public final Set<String> countries = Generics.newHashSet();
-  public final Set<String> statesAndProvinces = Generics.newHashSet();
 
-  public final Set<String> neutralWords = Generics.newHashSet();
-  public final Set<String> femaleWords = Generics.newHashSet();
-  public final Set<String> maleWords = Generics.newHashSet();
+  // The word lists and dictionaries below are loaded through SharedResources and shared
+  // by every Dictionaries (dcoref or hcoref) made from the same files, so they must not be modified.
 
-  public final Set<String> pluralWords = Generics.newHashSet();
-  public final Set<String> singularWords = Generics.newHashSet();
+  public final Set<String> statesAndProvinces;
 
-  public final Set<String> inanimateWords = Generics.newHashSet();
-  public final Set<String> animateWords = Generics.newHashSet();
+  public final Set<String> neutralWords;
+  public final Set<String> femaleWords;
+  public final Set<String> maleWords;
 
-  public final Map<List<String>, Gender> genderNumber = Generics.newHashMap();
+  public final Set<String> pluralWords;
+  public final Set<String> singularWords;
 
-  public final ArrayList<Counter<Pair<String, String>>> corefDict = new ArrayList<Counter<Pair<String, String>>>(4);
-  public final Counter<Pair<String, String>> corefDictPMI = new ClassicCounter<Pair<String, String>>();
-  public final Map<String,Counter<String>> NE_signatures = Generics.newHashMap();
+  public final Set<String> inanimateWords;
+  public final Set<String> animateWords;
+
+  public final Map<List<String>, Gender> genderNumber;
+
+  public final ArrayList<Counter<Pair<String, String>>> corefDict;
+  public final Counter<Pair<String, String>> corefDictPMI;
+  public final Map<String,Counter<String>> NE_signatures;
 
   private void setPronouns() {
     for(String s: animatePronouns){
@@ -317,53 +323,6 @@ public class Dictionaries {
     return adjectiveNation.contains(token.toLowerCase(Locale.ENGLISH));
   }
 
-  private static void getWordsFromFile(String filename, Set<String> resultSet, boolean lowercase) throws IOException {
-    if(filename==null) {
-      return ;
-    }
-    BufferedReader reader = IOUtils.readerFromString(filename);
-    while(reader.ready()) {
-      if(lowercase) resultSet.add(reader.readLine().toLowerCase());
-      else resultSet.add(reader.readLine());
-    }
-    IOUtils.closeIgnoringExceptions(reader);
-  }
-
-  private void loadAnimacyLists(String animateWordsFile, String inanimateWordsFile) {
-    try {
-      getWordsFromFile(animateWordsFile, animateWords, false);
-      getWordsFromFile(inanimateWordsFile, inanimateWords, false);
-    } catch (IOException e) {
-      throw new RuntimeIOException(e);
-    }
-  }
-
-  private void loadGenderLists(String maleWordsFile, String neutralWordsFile, String femaleWordsFile) {
-    try {
-      getWordsFromFile(maleWordsFile, maleWords, false);
-      getWordsFromFile(neutralWordsFile, neutralWords, false);
-      getWordsFromFile(femaleWordsFile, femaleWords, false);
-    } catch (IOException e) {
-      throw new RuntimeIOException(e);
-    }
-  }
-
-  private void loadNumberLists(String pluralWordsFile, String singularWordsFile) {
-    try {
-      getWordsFromFile(pluralWordsFile, pluralWords, false);
-      getWordsFromFile(singularWordsFile, singularWords, false);
-    } catch (IOException e) {
-      throw new RuntimeIOException(e);
-    }
-  }
-  private void loadStatesLists(String file) {
-    try {
-      getWordsFromFile(file, statesAndProvinces, true);
-    } catch (IOException e) {
-      throw new RuntimeIOException(e);
-    }
-  }
-
   private void loadCountriesLists(String file) {
     try{
       BufferedReader reader = IOUtils.readerFromString(file);
@@ -382,23 +341,16 @@ public class Dictionaries {
    * The list is converted from raw text and numbers to a serialized
    * map, which saves quite a bit of time loading.
    * See edu.stanford.nlp.dcoref.util.ConvertGenderFile
+   * <br>
+   * The map has millions of keys, so it is kept as a {@link CompactPhraseMap}.
    */
-  private void loadGenderNumber(String file, String neutralWordsFile) {
-    try {
-      getWordsFromFile(neutralWordsFile, neutralWords, false);
-    } catch (IOException e) {
-      throw new RuntimeIOException("Couldn't load " + neutralWordsFile);
-    }
-    try {
-      Map<List<String>, Gender> temp = IOUtils.readObjectFromURLOrClasspathOrFileSystem(file);
-      genderNumber.putAll(temp);
-    } catch (IOException | ClassNotFoundException e) {
-      throw new RuntimeIOException("Couldn't load " + file);
-    }
+  private static Map<List<String>, Gender> loadGenderNumber(String file) throws IOException, ClassNotFoundException {
+    Map<List<String>, Gender> temp = IOUtils.readObjectFromURLOrClasspathOrFileSystem(file);
+    return CompactPhraseMap.copyOf(temp);
   }
 
-  private static void loadCorefDict(String[] file,
-      ArrayList<Counter<Pair<String, String>>> dict) {
+  private static ArrayList<Counter<Pair<String, String>>> loadCorefDict(String[] file) {
+    ArrayList<Counter<Pair<String, String>>> dict = new ArrayList<Counter<Pair<String, String>>>(4);
 
     for(int i = 0; i < 4; i++){
       dict.add(new ClassicCounter<Pair<String, String>>());
@@ -420,6 +372,7 @@ public class Dictionaries {
         IOUtils.closeIgnoringExceptions(reader);
       }
     }
+    return dict;
   }
 
   private static void loadCorefDictPMI(String file, Counter<Pair<String, String>> dict) {
@@ -551,17 +504,39 @@ public class Dictionaries {
       String signaturesFile) {
     loadDemonymLists(demonymWords);
     loadStateAbbreviation(statesWords);
-    if(Constants.USE_ANIMACY_LIST) loadAnimacyLists(animateWords, inanimateWords);
-    loadGenderLists(maleWords, neutralWords, femaleWords);
-    loadNumberLists(pluralWords, singularWords);
-    loadGenderNumber(genderNumber, neutralWords);
+    if(Constants.USE_ANIMACY_LIST) {
+      this.animateWords = SharedResources.wordSet(animateWords, false);
+      this.inanimateWords = SharedResources.wordSet(inanimateWords, false);
+    } else {
+      this.animateWords = Collections.emptySet();
+      this.inanimateWords = Collections.emptySet();
+    }
+    this.maleWords = SharedResources.wordSet(maleWords, false);
+    this.neutralWords = SharedResources.wordSet(neutralWords, false);
+    this.femaleWords = SharedResources.wordSet(femaleWords, false);
+    this.pluralWords = SharedResources.wordSet(pluralWords, false);
+    this.singularWords = SharedResources.wordSet(singularWords, false);
+    this.genderNumber = SharedResources.get("dcoref.genderNumber", genderNumber, Dictionaries::loadGenderNumber);
     loadCountriesLists(countries);
-    loadStatesLists(states);
+    this.statesAndProvinces = SharedResources.wordSet(states, true);
     setPronouns();
     if(loadCorefDict){
-      loadCorefDict(corefDictFiles, corefDict);
-      loadCorefDictPMI(corefDictPMIFile, corefDictPMI);
-      loadSignatures(signaturesFile, NE_signatures);
+      // the same files are read the same way by hcoref, so the kinds are shared with it
+      corefDict = SharedResources.get("coref.dict", String.join(",", corefDictFiles), files -> loadCorefDict(corefDictFiles));
+      corefDictPMI = SharedResources.get("coref.dictPMI", corefDictPMIFile, file -> {
+        Counter<Pair<String, String>> dict = new ClassicCounter<Pair<String, String>>();
+        loadCorefDictPMI(file, dict);
+        return dict;
+      });
+      NE_signatures = SharedResources.get("coref.signatures", signaturesFile, file -> {
+        Map<String, Counter<String>> sigs = Generics.newHashMap();
+        loadSignatures(file, sigs);
+        return sigs;
+      });
+    } else {
+      corefDict = new ArrayList<Counter<Pair<String, String>>>(4);
+      corefDictPMI = new ClassicCounter<Pair<String, String>>();
+      NE_signatures = Generics.newHashMap();
     }
   }
 
@@ -272,16 +272,12 @@ public class Document implements Serializable {
   public void mergeIncompatibles(CorefCluster to, CorefCluster from) {
     List<Pair<Pair<Integer,Integer>, Pair<Integer,Integer>>> replacements =
             new ArrayList<Pair<Pair<Integer,Integer>, Pair<Integer,Integer>>>();
-    for (Pair<Integer, Integer> p : incompatibleClusters) {
-      Integer other = null;
-      if (p.first == from.clusterID) {
-        other = p.second;
-      } else if (p.second == from.clusterID) {
-        other = p.first;
-      }
-      if (other != null && other != to.clusterID) {
+    // Only look at the pairs that include from, rather than at every pair
+    for (Integer other : pairedClusters(incompatibleClusters, from.clusterID)) {
+      if (other != to.clusterID) {
         int cid1 = Math.min(other, to.clusterID);
         int cid2 = Math.max(other, to.clusterID);
+        Pair<Integer,Integer> p = Pair.makePair(Math.min(other, from.clusterID), Math.max(other, from.clusterID));
         replacements.add(Pair.makePair(p, Pair.makePair(cid1, cid2)));
       }
     }
@@ -291,25 +287,42 @@ public class Document implements Serializable {
     }
   }
 
+  /** The clusters that {@code clusterID} is paired with in {@code pairs}, as either the first or the second key. */
+  private static List<Integer> pairedClusters(TwoDimensionalSet<Integer, Integer> pairs, int clusterID) {
+    List<Integer> paired = new ArrayList<Integer>();
+    if (pairs.firstKeySet().contains(clusterID)) {
+      paired.addAll(pairs.secondKeySet(clusterID));
+    }
+    for (Integer first : pairs.firstKeySet()) {
+      if (first != clusterID && pairs.contains(first, clusterID)) {
+        paired.add(first);
+      }
+    }
+    return paired;
+  }
+
   public void mergeAcronymCache(CorefCluster to, CorefCluster from) {
     TwoDimensionalSet<Integer, Integer> replacements = TwoDimensionalSet.hashSet();
-    for (Integer first : acronymCache.firstKeySet()) {
-      for (Integer second : acronymCache.get(first).keySet()) {
-        if (acronymCache.get(first, second)) {
-          Integer other = null;
-          if (first == from.clusterID) {
-            other = second;
-          } else if (second == from.clusterID) {
-            other = first;
-          }
-          if (other != null && other != to.clusterID) {
-            int cid1 = Math.min(other, to.clusterID);
-            int cid2 = Math.max(other, to.clusterID);
-            replacements.add(cid1, cid2);
-          }
+    List<Integer> others = new ArrayList<Integer>();
+    if (acronymCache.containsKey(from.clusterID)) {
+      for (Map.Entry<Integer, Boolean> entry : acronymCache.get(from.clusterID).entrySet()) {
+        if (entry.getValue()) {
+          others.add(entry.getKey());
         }
       }
     }
+    for (Integer first : acronymCache.firstKeySet()) {
+      if (first != from.clusterID && acronymCache.contains(first, from.clusterID) && acronymCache.get(first, from.clusterID)) {
+        others.add(first);
+      }
+    }
+    for (Integer other : others) {
+      if (other != to.clusterID) {
+        int cid1 = Math.min(other, to.clusterID);
+        int cid2 = Math.max(other, to.clusterID);
+        replacements.add(cid1, cid2);
+      }
+    }
     for (Integer first : replacements.firstKeySet()) {
       for (Integer second : replacements.secondKeySet(first)) {
         acronymCache.put(first, second, true);
@@ -151,6 +151,7 @@ public class Mention implements CoreAnnotation<Mention>, Serializable {
 
   transient private String spanString = null;
   transient private String lowercaseNormalizedSpanString = null;
+  transient private String phraseBeforeClause = null;
 
   @Override
   public Class<Mention> getType() {
@@ -184,7 +185,7 @@ public class Mention implements CoreAnnotation<Mention>, Serializable {
 //    synchronized(this) {
       if (lowercaseNormalizedSpanString == null) {
         // We always normalize to lowercase!!!
-        lowercaseNormalizedSpanString = spanString.toLowerCase();
+        lowercaseNormalizedSpanString = spanToString().toLowerCase();
       }
 //    }
     return lowercaseNormalizedSpanString;
@@ -380,7 +381,10 @@ public class Mention implements CoreAnnotation<Mention>, Serializable {
     }
 
     Method meth = semantics.wordnet.getClass().getDeclaredMethod("findSynset", List.class);
-    synsets = meth.invoke(semantics.wordnet, new Object[]{preprocessedTerms});
+    // mentions may be processed in parallel, and the WordNet lookup is not known to be thread-safe
+    synchronized (semantics) {
+      synsets = meth.invoke(semantics.wordnet, new Object[]{preprocessedTerms});
+    }
 
     if(this.isPronominal()) return;
   }
@@ -1008,6 +1012,13 @@ public class Mention implements CoreAnnotation<Mention>, Serializable {
 
   /** Remove any clause after headword */
   public String removePhraseAfterHead(){
+    if (phraseBeforeClause == null) {
+      phraseBeforeClause = computePhraseAfterHeadRemoved();
+    }
+    return phraseBeforeClause;
+  }
+
+  private String computePhraseAfterHeadRemoved() {
     String removed ="";
     int posComma = -1;
     int posWH = -1;
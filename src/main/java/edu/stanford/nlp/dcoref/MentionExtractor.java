@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import edu.stanford.nlp.classify.LogisticClassifier;
 import edu.stanford.nlp.ling.CoreLabel;
@@ -45,6 +46,7 @@ import edu.stanford.nlp.trees.tregex.TregexPattern;
 import edu.stanford.nlp.util.CoreMap;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.Pair;
+import edu.stanford.nlp.util.concurrent.ParallelLoop;
 
 /**
  * Generic mention extractor from a corpus.
@@ -67,6 +69,7 @@ public class MentionExtractor {
   public CorefMentionFinder mentionFinder;
   protected StanfordCoreNLP stanfordProcessor;
   protected LogisticClassifier<String, String> singletonPredictor;
+  private ForkJoinPool pool;
 
   /** The maximum mention ID: for preventing duplicated mention ID assignment */
   protected int maxID = -1;
@@ -85,6 +88,14 @@ public class MentionExtractor {
     this.mentionFinder = mentionFinder;
   }
 
+  /**
+   * Sets the pool in which {@link #arrange} processes the sentences of a
+   * document in parallel, or null (the default) to process them one by one.
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
   /**
    * Extracts the info relevant for coref from the next document in the corpus
    * @return List of mentions found in each sentence ordered according to the tree traversal.
@@ -160,84 +171,92 @@ public class MentionExtractor {
       boolean doMergeLabels) throws Exception {
 
     List<List<Mention>> orderedMentionsBySentence = new ArrayList<List<Mention>>();
+    for (int sent = 0, sz = words.size(); sent < sz; sent ++) {
+      orderedMentionsBySentence.add(null);
+    }
 
     //
     // traverse all sentences and process each individual one
+    // sentences are independent, so this is done in parallel if there is a pool
     //
-    for (int sent = 0, sz = words.size(); sent < sz; sent ++) {
-      List<CoreLabel> sentence = words.get(sent);
-      Tree tree = trees.get(sent);
-      List<Mention> mentions = unorderedMentions.get(sent);
-      Map<String, List<Mention>> mentionsToTrees = Generics.newHashMap();
-
-      // merge the parse tree of the entire sentence with the sentence words
-      if(doMergeLabels) mergeLabels(tree, sentence);
-
-      //
-      // set the surface information and the syntactic info in each mention
-      // startIndex and endIndex MUST be set before!
-      //
-      for (Mention mention: mentions) {
-        mention.contextParseTree = tree;
-        mention.sentenceWords = sentence;
-        mention.originalSpan = new ArrayList<CoreLabel>(mention.sentenceWords.subList(mention.startIndex, mention.endIndex));
-        if(!((CoreLabel)tree.label()).has(CoreAnnotations.BeginIndexAnnotation.class)) tree.indexSpans(0);
-        if(mention.headWord==null) {
-          Tree headTree = ((RuleBasedCorefMentionFinder) mentionFinder).findSyntacticHead(mention, tree, sentence);
-          mention.headWord = (CoreLabel)headTree.label();
-          mention.headIndex = mention.headWord.get(CoreAnnotations.IndexAnnotation.class) - 1;
-        }
-        if(mention.mentionSubTree==null) {
-          // mentionSubTree = highest NP that has the same head
-          Tree headTree = tree.getLeaves().get(mention.headIndex);
-          if (headTree == null) { throw new RuntimeException("Missing head tree for a mention!"); }
-          Tree t = headTree;
-          while ((t = t.parent(tree)) != null) {
-            if (t.headTerminal(headFinder) == headTree && t.value().equals("NP")) {
-              mention.mentionSubTree = t;
-            } else if(mention.mentionSubTree != null){
-              break;
-            }
-          }
-          if (mention.mentionSubTree == null) {
-            mention.mentionSubTree = headTree;
+    ParallelLoop.run(pool, words.size(), sent ->
+        orderedMentionsBySentence.set(sent, arrange(words.get(sent), trees.get(sent), unorderedMentions.get(sent), doMergeLabels)));
+    return orderedMentionsBySentence;
+  }
+
+  /**
+   * Sets the Mention fields required for coref in the mentions of one sentence.
+   * @return The mentions ordered according to the tree traversal
+   */
+  private List<Mention> arrange(List<CoreLabel> sentence, Tree tree, List<Mention> mentions, boolean doMergeLabels) throws Exception {
+    Map<String, List<Mention>> mentionsToTrees = Generics.newHashMap();
+
+    // merge the parse tree of the entire sentence with the sentence words
+    if(doMergeLabels) mergeLabels(tree, sentence);
+
+    //
+    // set the surface information and the syntactic info in each mention
+    // startIndex and endIndex MUST be set before!
+    //
+    for (Mention mention: mentions) {
+      mention.contextParseTree = tree;
+      mention.sentenceWords = sentence;
+      mention.originalSpan = new ArrayList<CoreLabel>(mention.sentenceWords.subList(mention.startIndex, mention.endIndex));
+      if(!((CoreLabel)tree.label()).has(CoreAnnotations.BeginIndexAnnotation.class)) tree.indexSpans(0);
+      if(mention.headWord==null) {
+        Tree headTree = ((RuleBasedCorefMentionFinder) mentionFinder).findSyntacticHead(mention, tree, sentence);
+        mention.headWord = (CoreLabel)headTree.label();
+        mention.headIndex = mention.headWord.get(CoreAnnotations.IndexAnnotation.class) - 1;
+      }
+      if(mention.mentionSubTree==null) {
+        // mentionSubTree = highest NP that has the same head
+        Tree headTree = tree.getLeaves().get(mention.headIndex);
+        if (headTree == null) { throw new RuntimeException("Missing head tree for a mention!"); }
+        Tree t = headTree;
+        while ((t = t.parent(tree)) != null) {
+          if (t.headTerminal(headFinder) == headTree && t.value().equals("NP")) {
+            mention.mentionSubTree = t;
+          } else if(mention.mentionSubTree != null){
+            break;
           }
         }
-
-        List<Mention> mentionsForTree = mentionsToTrees.get(treeToKey(mention.mentionSubTree));
-        if(mentionsForTree == null){
-          mentionsForTree = new ArrayList<Mention>();
-          mentionsToTrees.put(treeToKey(mention.mentionSubTree), mentionsForTree);
+        if (mention.mentionSubTree == null) {
+          mention.mentionSubTree = headTree;
         }
-        mentionsForTree.add(mention);
+      }
 
-        // generates all fields required for coref, such as gender, number, etc.
-        mention.process(dictionaries, semantics, this, singletonPredictor);
+      List<Mention> mentionsForTree = mentionsToTrees.get(treeToKey(mention.mentionSubTree));
+      if(mentionsForTree == null){
+        mentionsForTree = new ArrayList<Mention>();
+        mentionsToTrees.put(treeToKey(mention.mentionSubTree), mentionsForTree);
       }
+      mentionsForTree.add(mention);
 
-      //
-      // Order all mentions in tree-traversal order
-      //
-      List<Mention> orderedMentions = new ArrayList<Mention>();
-      orderedMentionsBySentence.add(orderedMentions);
-
-      // extract all mentions in tree traversal order (alternative: tree.postOrderNodeList())
-      for (Tree t : tree.preOrderNodeList()) {
-        List<Mention> lm = mentionsToTrees.get(treeToKey(t));
-        if(lm != null){
-          for(Mention m: lm){
-            orderedMentions.add(m);
-          }
+      // generates all fields required for coref, such as gender, number, etc.
+      mention.process(dictionaries, semantics, this, singletonPredictor);
+    }
+
+    //
+    // Order all mentions in tree-traversal order
+    //
+    List<Mention> orderedMentions = new ArrayList<Mention>();
+
+    // extract all mentions in tree traversal order (alternative: tree.postOrderNodeList())
+    for (Tree t : tree.preOrderNodeList()) {
+      List<Mention> lm = mentionsToTrees.get(treeToKey(t));
+      if(lm != null){
+        for(Mention m: lm){
+          orderedMentions.add(m);
         }
       }
-
-      //
-      // find appositions, predicate nominatives, relative pronouns in this sentence
-      //
-      findSyntacticRelations(tree, orderedMentions);
-      assert(mentions.size() == orderedMentions.size());
     }
-    return orderedMentionsBySentence;
+
+    //
+    // find appositions, predicate nominatives, relative pronouns in this sentence
+    //
+    findSyntacticRelations(tree, orderedMentions);
+    assert(mentions.size() == orderedMentions.size());
+    return orderedMentions;
   }
 
   /**
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Pattern;
 
 import edu.stanford.nlp.ling.CoreAnnotations;
@@ -32,6 +33,7 @@ import edu.stanford.nlp.util.CoreMap;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.IntPair;
 import edu.stanford.nlp.util.StringUtils;
+import edu.stanford.nlp.util.concurrent.ParallelLoop;
 
 public class RuleBasedCorefMentionFinder implements CorefMentionFinder {
 
@@ -42,14 +44,22 @@ public class RuleBasedCorefMentionFinder implements CorefMentionFinder {
 
   private final boolean allowReparsing;
 
+  /** If not null, sentences are searched for mentions in parallel in this pool */
+  private final ForkJoinPool pool;
+
   public RuleBasedCorefMentionFinder() {
     this(Constants.ALLOW_REPARSING);
   }
 
   public RuleBasedCorefMentionFinder(boolean allowReparsing) {
+    this(allowReparsing, null);
+  }
+
+  public RuleBasedCorefMentionFinder(boolean allowReparsing, ForkJoinPool pool) {
     SieveCoreferenceSystem.logger.fine("Using SEMANTIC HEAD FINDER!!!!!!!!!!!!!!!!!!!");
     this.headFinder = new SemanticHeadFinder();
     this.allowReparsing = allowReparsing;
+    this.pool = pool;
   }
 
   /** When mention boundaries are given */
@@ -86,21 +96,19 @@ public class RuleBasedCorefMentionFinder implements CorefMentionFinder {
   @Override
   public List<List<Mention>> extractPredictedMentions(Annotation doc, int maxID, Dictionaries dict) {
 //    this.maxID = _maxID;
+    List<CoreMap> sentences = doc.get(CoreAnnotations.SentencesAnnotation.class);
     List<List<Mention>> predictedMentions = new ArrayList<List<Mention>>();
-    for (CoreMap s : doc.get(CoreAnnotations.SentencesAnnotation.class)) {
-
-      List<Mention> mentions = new ArrayList<Mention>();
-      predictedMentions.add(mentions);
-      Set<IntPair> mentionSpanSet = Generics.newHashSet();
-      Set<IntPair> namedEntitySpanSet = Generics.newHashSet();
+    for (int i = 0; i < sentences.size(); i++) {
+      predictedMentions.add(new ArrayList<Mention>());
+    }
 
-      extractPremarkedEntityMentions(s, mentions, mentionSpanSet, namedEntitySpanSet);
-      extractNamedEntityMentions(s, mentions, mentionSpanSet, namedEntitySpanSet);
-      extractNPorPRP(s, mentions, mentionSpanSet, namedEntitySpanSet);
-      extractEnumerations(s, mentions, mentionSpanSet, namedEntitySpanSet);
-      findHead(s, mentions);
-      setBarePlural(mentions);
-      removeSpuriousMentions(s, mentions, dict);
+    // sentences are independent, so they can be done in parallel; mention IDs are assigned afterwards
+    try {
+      ParallelLoop.run(pool, sentences.size(), i -> extractPredictedMentions(sentences.get(i), predictedMentions.get(i), dict));
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
     }
 
     // assign mention IDs
@@ -109,6 +117,19 @@ public class RuleBasedCorefMentionFinder implements CorefMentionFinder {
     return predictedMentions;
   }
 
+  private void extractPredictedMentions(CoreMap s, List<Mention> mentions, Dictionaries dict) {
+    Set<IntPair> mentionSpanSet = Generics.newHashSet();
+    Set<IntPair> namedEntitySpanSet = Generics.newHashSet();
+
+    extractPremarkedEntityMentions(s, mentions, mentionSpanSet, namedEntitySpanSet);
+    extractNamedEntityMentions(s, mentions, mentionSpanSet, namedEntitySpanSet);
+    extractNPorPRP(s, mentions, mentionSpanSet, namedEntitySpanSet);
+    extractEnumerations(s, mentions, mentionSpanSet, namedEntitySpanSet);
+    findHead(s, mentions);
+    setBarePlural(mentions);
+    removeSpuriousMentions(s, mentions, dict);
+  }
+
   protected static void assignMentionIDs(List<List<Mention>> predictedMentions, int maxID) {
     for(List<Mention> mentions : predictedMentions) {
       for(Mention m : mentions) {
@@ -448,7 +469,7 @@ public class RuleBasedCorefMentionFinder implements CorefMentionFinder {
     return sents.get(0).get(TreeCoreAnnotations.TreeAnnotation.class);
   }
 
-  private Annotator getParser() {
+  private synchronized Annotator getParser() {
     if(parserProcessor == null){
       Annotator parser = StanfordCoreNLP.getExistingAnnotator("parse");
       if (parser == null) {
@@ -48,6 +48,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -76,6 +77,7 @@ import edu.stanford.nlp.util.IntTuple;
 import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.StringUtils;
 import edu.stanford.nlp.util.SystemUtils;
+import edu.stanford.nlp.util.concurrent.ParallelLoop;
 import edu.stanford.nlp.util.logging.NewlineLogFormatter;
 
 
@@ -395,6 +397,7 @@ public class SieveCoreferenceSystem {
     if(mentionExtractor == null){
       throw new RuntimeException("No input file specified!");
     }
+    mentionExtractor.setThreadPool(ParallelLoop.sharedPool(Integer.parseInt(props.getProperty(Constants.THREADS_PROP, "1"))));
     if (!Constants.USE_GOLD_MENTIONS) {
       // Set mention finder
       String mentionFinderClass = props.getProperty(Constants.MENTION_FINDER_PROP);
@@ -881,6 +884,8 @@ public class SieveCoreferenceSystem {
     additionalCorrectLinksCount = 0;
     additionalLinksCount = 0;
 
+    CorefClusterIndex clusterIndex = new CorefClusterIndex(corefClusters.values());
+
     for (int sentI = 0; sentI < orderedMentionsBySentence.size(); sentI++) {
       List<Mention> orderedMentions = orderedMentionsBySentence.get(sentI);
 
@@ -893,20 +898,25 @@ public class SieveCoreferenceSystem {
           continue;
         }
 
+        // antecedents which this sieve can tell cannot match, without trying them
+        Predicate<Mention> antecedentFilter = sieve.antecedentFilter(corefClusters.get(m1.corefClusterID), clusterIndex);
+
         LOOP:
           for (int sentJ = sentI; sentJ >= 0; sentJ--) {
+            if(maxSentDist != -1 && sentI - sentJ > maxSentDist) break;
             List<Mention> l = sieve.getOrderedAntecedents(sentJ, sentI, orderedMentions, orderedMentionsBySentence, m1, mentionI, corefClusters, dictionaries);
-            if(maxSentDist != -1 && sentI - sentJ > maxSentDist) continue;
 
             // Sort mentions by length whenever we have two mentions beginning at the same position and having the same head
-            for(int i = 0; i < l.size(); i++) {
-              for(int j = 0; j < l.size(); j++) {
-                if(l.get(i).headString.equals(l.get(j).headString) &&
-                    l.get(i).startIndex == l.get(j).startIndex &&
-                    l.get(i).sameSentence(l.get(j)) && j > i &&
-                    l.get(i).spanToString().length() > l.get(j).spanToString().length()) {
-                  logger.finest("FLIPPED: "+l.get(i).spanToString()+"("+i+"), "+l.get(j).spanToString()+"("+j+")");
-                  l.set(j, l.set(i, l.get(j)));
+            if (hasSameStartAndHead(l)) {
+              for(int i = 0; i < l.size(); i++) {
+                for(int j = 0; j < l.size(); j++) {
+                  if(l.get(i).headString.equals(l.get(j).headString) &&
+                      l.get(i).startIndex == l.get(j).startIndex &&
+                      l.get(i).sameSentence(l.get(j)) && j > i &&
+                      l.get(i).spanToString().length() > l.get(j).spanToString().length()) {
+                    logger.finest("FLIPPED: "+l.get(i).spanToString()+"("+i+"), "+l.get(j).spanToString()+"("+j+")");
+                    l.set(j, l.set(i, l.get(j)));
+                  }
                 }
               }
             }
@@ -936,6 +946,8 @@ public class SieveCoreferenceSystem {
                 continue;
               }
 
+              if (antecedentFilter != null && ! antecedentFilter.test(m2)) continue;
+
               if (sieve.coreferent(document, c1, c2, m1, m2, dictionaries, roleSet, semantics)) {
 
                 // print logs for analysis
@@ -945,6 +957,7 @@ public class SieveCoreferenceSystem {
 
                 int removeID = c1.clusterID;
                 CorefCluster.mergeClusters(c2, c1);
+                clusterIndex.merge(c2, c1);
                 document.mergeIncompatibles(c2, c1);
                 document.mergeAcronymCache(c2, c1);
 //                logger.warning("Removing cluster " + removeID + ", merged with " + c2.getClusterID());
@@ -981,6 +994,29 @@ public class SieveCoreferenceSystem {
     //Redwood.endTrack("Coreference: sieve " + sieve.getClass().getSimpleName());
   }
 
+  /**
+   * Whether two antecedents in {@code l} start at the same position of the
+   * same sentence and have the same head, so that they may need reordering
+   * by length.  This is rare, and checking for it takes linear time.
+   */
+  private static boolean hasSameStartAndHead(List<Mention> l) {
+    Map<String, List<Mention>> byHead = Generics.newHashMap();
+    for (Mention m : l) {
+      List<Mention> sameHead = byHead.get(m.headString);
+      if (sameHead == null) {
+        sameHead = new ArrayList<Mention>(1);
+        byHead.put(m.headString, sameHead);
+      }
+      for (Mention other : sameHead) {
+        if (other.startIndex == m.startIndex && other.sameSentence(m)) {
+          return true;
+        }
+      }
+      sameHead.add(m);
+    }
+    return false;
+  }
+
   /** Remove singletons, appositive, predicate nominatives, relative pronouns */
   private static void postProcessing(Document document) {
     Set<Mention> removeSet = Generics.newHashSet();
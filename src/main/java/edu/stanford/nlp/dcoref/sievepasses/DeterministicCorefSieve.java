@@ -34,10 +34,12 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 
 import edu.stanford.nlp.dcoref.Constants;
 import edu.stanford.nlp.dcoref.CorefCluster;
+import edu.stanford.nlp.dcoref.CorefClusterIndex;
 import edu.stanford.nlp.dcoref.Dictionaries;
 import edu.stanford.nlp.dcoref.Dictionaries.MentionType;
 import edu.stanford.nlp.dcoref.Dictionaries.Number;
@@ -51,6 +53,7 @@ import edu.stanford.nlp.dcoref.SieveCoreferenceSystem;
 import edu.stanford.nlp.dcoref.SieveOptions;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.Generics;
 
 /**
  *  Base class for a Coref Sieve.
@@ -437,6 +440,91 @@ public abstract class DeterministicCorefSieve  {
     return ret;
   }
 
+  /**
+   * Returns a test which is false only for candidate antecedents that this
+   * sieve would certainly not link to {@code mentionCluster}, and for which
+   * {@link #coreferent} would have no side effects, so that they can be
+   * skipped.  Returns null if every candidate has to be tried, which is the
+   * case unless the only rules this sieve can match on are exact string
+   * match, relaxed exact string match and strict head match, and the
+   * sieve does not override {@link #coreferent}.
+   *
+   * @param mentionCluster The cluster of the mention being resolved
+   * @param index The current clusters of the document, by head and span
+   */
+  public Predicate<Mention> antecedentFilter(CorefCluster mentionCluster, CorefClusterIndex index) {
+    if ( ! hasFilterableRules()) {
+      return null;
+    }
+    Mention mention = mentionCluster.getRepresentativeMention();
+    Set<Integer> candidateClusters = Generics.newHashSet();
+    if (flags.USE_EXACTSTRINGMATCH) {
+      // see Rules.entityExactStringMatch
+      for (Mention m : mentionCluster.getCorefMentions()) {
+        String span = m.lowercaseNormalizedSpanString();
+        candidateClusters.addAll(index.clustersWithSpan(span));
+        candidateClusters.addAll(index.clustersWithSpan(span + " 's"));
+        if (span.endsWith(" 's")) {
+          candidateClusters.addAll(index.clustersWithSpan(span.substring(0, span.length() - 3)));
+        }
+      }
+    }
+    if (flags.USE_INCLUSION_HEADMATCH) {
+      // see Rules.entityHeadsAgree
+      candidateClusters.addAll(index.clustersWithHead(mention.headString));
+    }
+    String phrase = flags.USE_RELAXED_EXACTSTRINGMATCH ? mention.removePhraseAfterHead() : "";
+    boolean iWithinI = flags.USE_iwithini;
+    return ant -> {
+      if (candidateClusters.contains(ant.corefClusterID)) {
+        return true;
+      }
+      // Rules.entityRelaxedExactStringMatch
+      if ( ! phrase.isEmpty()) {
+        String antPhrase = ant.removePhraseAfterHead();
+        if (antPhrase.equals(phrase) || antPhrase.equals(phrase + " 's") || phrase.equals(antPhrase + " 's")) {
+          return true;
+        }
+      }
+      // an i-within-i antecedent makes coreferent() record an incompatibility
+      return iWithinI && mention.sameSentence(ant);
+    };
+  }
+
+  /** Whether coreferent() can only return true through the rules handled by antecedentFilter. */
+  private boolean hasFilterableRules() {
+    if ( ! flags.USE_EXACTSTRINGMATCH && ! flags.USE_RELAXED_EXACTSTRINGMATCH && ! flags.USE_INCLUSION_HEADMATCH) {
+      return false;
+    }
+    if (flags.USE_DISCOURSEMATCH || flags.USE_NAME_MATCH || flags.USE_APPOSITION || flags.USE_PREDICATENOMINATIVES ||
+        flags.USE_ACRONYM || flags.USE_RELATIVEPRONOUN || flags.USE_DEMONYM || flags.USE_ROLEAPPOSITION ||
+        flags.USE_RELAXED_HEADMATCH || flags.USE_WN_HYPERNYM || flags.USE_WN_SYNONYM || flags.USE_ALIAS ||
+        flags.USE_COREF_DICT || flags.DO_PRONOUN || flags.USE_ROLE_SKIP) {
+      return false;
+    }
+    // the discourse constraints in coreferent() record incompatibilities for any pair of clusters
+    if (Constants.USE_DISCOURSE_CONSTRAINTS && ! flags.USE_EXACTSTRINGMATCH && ! flags.USE_RELAXED_EXACTSTRINGMATCH
+        && ! flags.USE_APPOSITION && ! flags.USE_WORDS_INCLUSION) {
+      return false;
+    }
+    return usesDefaultCoreferent();
+  }
+
+  private Boolean defaultCoreferent; // computed lazily
+
+  private boolean usesDefaultCoreferent() {
+    if (defaultCoreferent == null) {
+      try {
+        Method method = getClass().getMethod("coreferent", Document.class, CorefCluster.class, CorefCluster.class,
+            Mention.class, Mention.class, Dictionaries.class, Set.class, Semantics.class);
+        defaultCoreferent = method.getDeclaringClass() == DeterministicCorefSieve.class;
+      } catch (NoSuchMethodException e) {
+        defaultCoreferent = false;
+      }
+    }
+    return defaultCoreferent;
+  }
+
   /**
    * Orders the antecedents for the given mention (m1)
    * @param antecedentSentence
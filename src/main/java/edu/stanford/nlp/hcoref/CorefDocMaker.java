@@ -5,6 +5,7 @@ import java.io.ObjectInputStream;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 
 import edu.stanford.nlp.classify.LogisticClassifier;
 import edu.stanford.nlp.hcoref.data.Dictionaries;
@@ -49,6 +50,8 @@ public class CorefDocMaker {
   StanfordCoreNLP corenlp;
   final TreeLemmatizer treeLemmatizer;
   LogisticClassifier<String, String> singletonPredictor;
+  /** if not null, the mentions of different sentences are processed in parallel in this pool */
+  ForkJoinPool pool;
   
   public CorefDocMaker(Properties props, Dictionaries dictionaries) throws ClassNotFoundException, IOException {
     this.props = props;
@@ -170,7 +173,7 @@ public class CorefDocMaker {
     if(input.goldMentions!=null) findGoldMentionHeads(doc);
     
     // document preprocessing: initialization (assign ID), mention processing (gender, number, type, etc), speaker extraction, etc
-    Preprocessor.preprocess(doc, dict, singletonPredictor, headFinder);
+    Preprocessor.preprocess(doc, dict, singletonPredictor, headFinder, pool);
     
     return doc;
   }
@@ -25,6 +25,7 @@ public class CorefProperties {
   public static final String SCORE_PROP = "hcoref.doScore";
   public static final String PARSER_PROP = "hcoref.useConstituencyTree";
   public static final String THREADS_PROP = "hcoref.threadCount";
+  public static final String INTRA_DOC_THREADS_PROP = "hcoref.intraDocThreadCount";    // threads working on one document
   public static final String INPUT_TYPE_PROP = "hcoref.input.type";
   public static final String POSTPROCESSING_PROP = "hcoref.postprocessing";
   public static final String MD_TYPE_PROP = "hcoref.md.type";
@@ -158,6 +159,9 @@ public class CorefProperties {
   public static int getThreadCounts(Properties props) {
     return PropertiesUtils.getInt(props, THREADS_PROP, Runtime.getRuntime().availableProcessors());
   }
+  public static int getIntraDocThreadCounts(Properties props) {
+    return PropertiesUtils.getInt(props, INTRA_DOC_THREADS_PROP, 1);
+  }
   public static String getPathScorer(Properties props) {
     return PropertiesUtils.getString(props, PATH_SCORER_PROP, "/scr/nlp/data/conll-2012/scorer/v8.01/scorer.pl");
   }
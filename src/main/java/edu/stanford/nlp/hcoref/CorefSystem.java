@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 
 import edu.stanford.nlp.hcoref.data.CorefChain;
@@ -17,6 +18,7 @@ import edu.stanford.nlp.hcoref.data.CorefCluster;
 import edu.stanford.nlp.hcoref.data.Dictionaries;
 import edu.stanford.nlp.hcoref.data.Document;
 import edu.stanford.nlp.hcoref.data.Mention;
+import edu.stanford.nlp.hcoref.sieve.RFSieve;
 import edu.stanford.nlp.hcoref.sieve.Sieve;
 import edu.stanford.nlp.hcoref.sieve.Sieve.ClassifierType;
 import edu.stanford.nlp.pipeline.Annotation;
@@ -24,6 +26,7 @@ import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.StringUtils;
 import edu.stanford.nlp.util.concurrent.MulticoreWrapper;
+import edu.stanford.nlp.util.concurrent.ParallelLoop;
 import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
 import edu.stanford.nlp.util.logging.Redwood;
 import edu.stanford.nlp.util.logging.RedwoodConfiguration;
@@ -49,6 +52,13 @@ public class CorefSystem {
     dictionaries = new Dictionaries(props);
 
     docMaker = new CorefDocMaker(props, dictionaries);
+
+    // one pool for the sentences and the mention pairs within a document
+    ForkJoinPool pool = ParallelLoop.sharedPool(CorefProperties.getIntraDocThreadCounts(props));
+    docMaker.pool = pool;
+    for(Sieve sieve : sieves) {
+      if(sieve instanceof RFSieve) ((RFSieve) sieve).pool = pool;
+    }
   }
   
   public Dictionaries dictionaries() { return dictionaries; }
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 import edu.stanford.nlp.classify.LogisticClassifier;
 import edu.stanford.nlp.hcoref.data.CorefCluster;
@@ -42,6 +43,7 @@ import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.IntPair;
 import edu.stanford.nlp.util.IntTuple;
 import edu.stanford.nlp.util.Pair;
+import edu.stanford.nlp.util.concurrent.ParallelLoop;
 import edu.stanford.nlp.util.logging.Redwood;
 
 /** 
@@ -57,9 +59,17 @@ public class Preprocessor {
    * @throws Exception 
    */
   public static void preprocess(Document doc, Dictionaries dict, LogisticClassifier<String, String> singletonPredictor, HeadFinder headFinder) throws Exception {
+    preprocess(doc, dict, singletonPredictor, headFinder, null);
+  }
+
+  /** 
+   * fill missing information in document, processing the mentions of different sentences in parallel in {@code pool} if it is not null
+   * @throws Exception 
+   */
+  public static void preprocess(Document doc, Dictionaries dict, LogisticClassifier<String, String> singletonPredictor, HeadFinder headFinder, ForkJoinPool pool) throws Exception {
     
     // assign mention IDs, find twin mentions, fill mention positions, sentNum, headpositions
-    initializeMentions(doc, dict, singletonPredictor, headFinder);
+    initializeMentions(doc, dict, singletonPredictor, headFinder, pool);
     
     // mention reordering
     mentionReordering(doc, headFinder);
@@ -145,11 +155,11 @@ public class Preprocessor {
 
   /** assign mention IDs, find twin mentions, fill mention positions, initialize coref clusters, etc 
    * @throws Exception */
-  private static void initializeMentions(Document doc, Dictionaries dict, LogisticClassifier<String, String> singletonPredictor, HeadFinder headFinder) throws Exception {
+  private static void initializeMentions(Document doc, Dictionaries dict, LogisticClassifier<String, String> singletonPredictor, HeadFinder headFinder, ForkJoinPool pool) throws Exception {
     boolean hasGold = (doc.goldMentions != null);
     assignMentionIDs(doc);
     if(hasGold) findTwinMentions(doc, true);
-    fillMentionInfo(doc, dict, singletonPredictor, headFinder);
+    fillMentionInfo(doc, dict, singletonPredictor, headFinder, pool);
     doc.allPositions = Generics.newHashMap(doc.positions);    // allPositions retain all mentions even after postprocessing
   }
 
@@ -265,7 +275,7 @@ public class Preprocessor {
    * @throws Exception 
    */
   private static void fillMentionInfo(Document doc, Dictionaries dict, 
-      LogisticClassifier<String, String> singletonPredictor, HeadFinder headFinder) throws Exception {
+      LogisticClassifier<String, String> singletonPredictor, HeadFinder headFinder, ForkJoinPool pool) throws Exception {
     List<CoreMap> sentences = doc.annotation.get(SentencesAnnotation.class);
     
     for(int i = 0; i < doc.predictedMentions.size(); i ++){
@@ -289,7 +299,12 @@ public class Preprocessor {
 //        m.sentenceWords = sentence.get(TokensAnnotation.class);
         m.basicDependency = sentence.get(BasicDependenciesAnnotation.class);
         m.collapsedDependency = sentence.get(CollapsedDependenciesAnnotation.class);
-        
+      }
+    }
+
+    // mention attributes only depend on the mention's own sentence, so sentences can be processed in parallel
+    ParallelLoop.run(pool, doc.predictedMentions.size(), i -> {
+      for (Mention m : doc.predictedMentions.get(i)) {
         m.process(dict, null, singletonPredictor);
         
         // mentionSubTree (highest NP that has the same head) if constituency tree available
@@ -309,7 +324,7 @@ public class Preprocessor {
           }
         }
       }
-    }
+    });
     
     
     boolean hasGold = (doc.goldMentions != null);
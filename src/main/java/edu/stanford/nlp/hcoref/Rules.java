@@ -136,7 +136,7 @@ public class Rules {
 
   public static boolean entityIsAcronym(Document document, CorefCluster mentionCluster, CorefCluster potentialAntecedent) {
     Pair<Integer, Integer> idPair = Pair.makePair(Math.min(mentionCluster.clusterID, potentialAntecedent.clusterID), Math.max(mentionCluster.clusterID, potentialAntecedent.clusterID));
-    if(!document.acronymCache.containsKey(idPair)) {
+    return document.acronymCache.computeIfAbsent(idPair, p -> {
       boolean isAcronym = false;
       for(Mention m : mentionCluster.corefMentions){
         if(m.isPronominal()) continue;
@@ -144,9 +144,8 @@ public class Rules {
           if(isAcronym(m.originalSpan, ant.originalSpan)) isAcronym = true;
         }
       }
-      document.acronymCache.put(idPair, isAcronym);
-    }
-    return document.acronymCache.get(idPair);
+      return isAcronym;
+    });
   }
 
   public static boolean isAcronym(List<CoreLabel> first, List<CoreLabel> second) {
@@ -19,9 +19,11 @@ import edu.stanford.nlp.math.ArrayMath;
 import edu.stanford.nlp.pipeline.DefaultPaths;
 import edu.stanford.nlp.stats.ClassicCounter;
 import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.util.CompactPhraseMap;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.PropertiesUtils;
+import edu.stanford.nlp.util.SharedResources;
 
 public class Dictionaries {
 
@@ -106,11 +108,14 @@ public class Dictionaries {
   public final Set<String> inanimateWords = Generics.newHashSet();
   public final Set<String> animateWords = Generics.newHashSet();
 
-  public final Map<List<String>, Gender> genderNumber = Generics.newHashMap();
+  // The dictionaries below are loaded through SharedResources and shared by every
+  // Dictionaries (dcoref or hcoref) made from the same files, so they must not be modified.
 
-  public final ArrayList<Counter<Pair<String, String>>> corefDict = new ArrayList<Counter<Pair<String, String>>>(4);
-  public final Counter<Pair<String, String>> corefDictPMI = new ClassicCounter<Pair<String, String>>();
-  public final Map<String,Counter<String>> NE_signatures = Generics.newHashMap();
+  public final Map<List<String>, Gender> genderNumber;
+
+  public final ArrayList<Counter<Pair<String, String>>> corefDict;
+  public final Counter<Pair<String, String>> corefDictPMI;
+  public final Map<String,Counter<String>> NE_signatures;
 
   private void readWordLists(Locale lang) {
     switch (lang.getLanguage()) {
@@ -388,11 +393,11 @@ public class Dictionaries {
 */
   /**
    * Load Bergsma and Lin (2006) gender and number list.
-   *
+   * The map has millions of keys, so it is kept as a {@link CompactPhraseMap}.
    */
-  private void loadGenderNumber(String file, String neutralWordsFile) {
+  private static Map<List<String>, Gender> loadGenderNumber(String file) {
+    Map<List<String>, Gender> genderNumber = Generics.newHashMap();
     try {
-      getWordsFromFile(neutralWordsFile, neutralWords, false);
       BufferedReader reader = IOUtils.readerFromString(file);
       for (String line; (line = reader.readLine()) != null; ) {
         String[] split = line.split("\t");
@@ -424,6 +429,7 @@ public class Dictionaries {
     } catch (IOException e) {
       throw new RuntimeIOException(e);
     }
+    return CompactPhraseMap.copyOf(genderNumber);
   }
   public void loadChineseGenderNumberAnimacy(String file) {
     for (String line : IOUtils.readLines(file)) {
@@ -461,8 +467,8 @@ public class Dictionaries {
     }
   }
 
-  private static void loadCorefDict(String[] file,
-      ArrayList<Counter<Pair<String, String>>> dict) {
+  private static ArrayList<Counter<Pair<String, String>>> loadCorefDict(String[] file) {
+    ArrayList<Counter<Pair<String, String>>> dict = new ArrayList<Counter<Pair<String, String>>>(4);
 
     for(int i = 0; i < 4; i++){
       dict.add(new ClassicCounter<Pair<String, String>>());
@@ -484,6 +490,7 @@ public class Dictionaries {
         IOUtils.closeIgnoringExceptions(reader);
       }
     }
+    return dict;
   }
 
   private static void loadCorefDictPMI(String file, Counter<Pair<String, String>> dict) {
@@ -666,14 +673,32 @@ public class Dictionaries {
     loadAnimacyLists(animateWords, inanimateWords);
     loadGenderLists(maleWords, neutralWords, femaleWords);
     loadNumberLists(pluralWords, singularWords);
-    loadGenderNumber(genderNumber, neutralWords);
+    try {
+      getWordsFromFile(neutralWords, this.neutralWords, false);
+    } catch (IOException e) {
+      throw new RuntimeIOException(e);
+    }
+    this.genderNumber = SharedResources.get("hcoref.genderNumber", genderNumber, Dictionaries::loadGenderNumber);
     loadCountriesLists(countries);
     loadStatesLists(states);
     setPronouns();
     if(loadCorefDict){
-      loadCorefDict(corefDictFiles, corefDict);
-      loadCorefDictPMI(corefDictPMIFile, corefDictPMI);
-      loadSignatures(signaturesFile, NE_signatures);
+      // the same files are read the same way by dcoref, so the kinds are shared with it
+      corefDict = SharedResources.get("coref.dict", String.join(",", corefDictFiles), files -> loadCorefDict(corefDictFiles));
+      corefDictPMI = SharedResources.get("coref.dictPMI", corefDictPMIFile, file -> {
+        Counter<Pair<String, String>> dict = new ClassicCounter<Pair<String, String>>();
+        loadCorefDictPMI(file, dict);
+        return dict;
+      });
+      NE_signatures = SharedResources.get("coref.signatures", signaturesFile, file -> {
+        Map<String, Counter<String>> sigs = Generics.newHashMap();
+        loadSignatures(file, sigs);
+        return sigs;
+      });
+    } else {
+      corefDict = new ArrayList<Counter<Pair<String, String>>>(4);
+      corefDictPMI = new ClassicCounter<Pair<String, String>>();
+      NE_signatures = Generics.newHashMap();
     }
   }
 
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import edu.stanford.nlp.hcoref.docreader.CoNLLDocumentReader;
 import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
@@ -138,7 +139,8 @@ public class Document implements Serializable {
     speakerPairs = Generics.newHashSet();
     incompatibles = Generics.newHashSet();
     incompatibleClusters = Generics.newHashSet();
-    acronymCache = Generics.newHashMap();    
+    // concurrent, as the RF sieve scores the antecedents of a mention in parallel
+    acronymCache = new ConcurrentHashMap<Pair<Integer, Integer>, Boolean>();
   }
 
   public Document(Annotation anno, List<List<Mention>> predictedMentions, List<List<Mention>> goldMentions) {
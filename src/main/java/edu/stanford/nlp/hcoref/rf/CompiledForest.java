@@ -0,0 +1,158 @@
+package edu.stanford.nlp.hcoref.rf;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * A {@link RandomForest} flattened into parallel arrays for scoring.  Each
+ * node of each tree is a position in the arrays: the feature it splits on
+ * (or -1 at a leaf), its split point (or the probability of true at a leaf),
+ * and the positions of its two children.  Features are numbered densely in
+ * the order the trees first use them, so a feature vector only has an entry
+ * for each feature that some split tests.
+ * <p>
+ * Scores are exactly those of {@link RandomForest#probabilityOfTrue(Counter)}.
+ * The arrays are a snapshot of the trees; {@link RandomForest#compiled()}
+ * rebuilds them if the trees are replaced.
+ */
+public class CompiledForest {
+
+  /** The features tested by some split, numbered by their position in a feature vector */
+  private final Index<String> featureIndex;
+
+  private final int[] roots;
+  private final int[] feature;
+  private final float[] split;
+  private final int[] left;
+  private final int[] right;
+
+  /** The tree roots this was compiled from, to tell whether the forest has changed */
+  private final DecisionTreeNode[] sourceRoots;
+
+  CompiledForest(RandomForest forest) {
+    featureIndex = new HashIndex<String>();
+    sourceRoots = new DecisionTreeNode[forest.trees.length];
+    roots = new int[forest.trees.length];
+
+    // number the nodes, each tree's nodes following its root
+    List<DecisionTreeNode> nodes = new ArrayList<DecisionTreeNode>();
+    List<DecisionTree> nodeTrees = new ArrayList<DecisionTree>();
+    Map<DecisionTreeNode, Integer> positions = new IdentityHashMap<DecisionTreeNode, Integer>();
+    for (int t = 0; t < forest.trees.length; t++) {
+      DecisionTree tree = forest.trees[t];
+      sourceRoots[t] = tree.root;
+      roots[t] = nodes.size();
+      positions.put(tree.root, nodes.size());
+      nodes.add(tree.root);
+      nodeTrees.add(tree);
+      for (int i = roots[t]; i < nodes.size(); i++) {
+        DecisionTreeNode node = nodes.get(i);
+        if ( ! node.isLeaf()) {
+          for (DecisionTreeNode child : node.children) {
+            positions.put(child, nodes.size());
+            nodes.add(child);
+            nodeTrees.add(tree);
+          }
+        }
+      }
+    }
+
+    int numNodes = nodes.size();
+    feature = new int[numNodes];
+    split = new float[numNodes];
+    left = new int[numNodes];
+    right = new int[numNodes];
+    for (int i = 0; i < numNodes; i++) {
+      DecisionTreeNode node = nodes.get(i);
+      split[i] = node.split;
+      if (node.isLeaf()) {
+        feature[i] = -1;
+      } else {
+        feature[i] = featureIndex.addToIndex(nodeTrees.get(i).featureIndex.get(node.idx));
+        left[i] = positions.get(node.children[0]);
+        right[i] = positions.get(node.children[1]);
+      }
+    }
+  }
+
+  /** Whether this was compiled from the current trees of {@code forest}. */
+  boolean isFor(RandomForest forest) {
+    if (forest.trees.length != sourceRoots.length) {
+      return false;
+    }
+    for (int t = 0; t < sourceRoots.length; t++) {
+      if (forest.trees[t].root != sourceRoots[t]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** The features of a feature vector, in order. */
+  public Index<String> featureIndex() {
+    return featureIndex;
+  }
+
+  /** The length of a feature vector. */
+  public int numFeatures() {
+    return featureIndex.size();
+  }
+
+  /** The feature vector for {@code features}; features that no split tests are left out. */
+  public double[] toVector(Counter<String> features) {
+    double[] vector = new double[featureIndex.size()];
+    for (Map.Entry<String, Double> entry : features.entrySet()) {
+      int f = featureIndex.indexOf(entry.getKey());
+      if (f >= 0) {
+        vector[f] = entry.getValue();
+      }
+    }
+    return vector;
+  }
+
+  public double probabilityOfTrue(Counter<String> features) {
+    return probabilityOfTrue(toVector(features));
+  }
+
+  /** The forest's probability of true for one feature vector. */
+  public double probabilityOfTrue(double[] vector) {
+    double probTrue = 0;
+    for (int root : roots) {
+      probTrue += leafValue(root, vector);
+    }
+    return probTrue / roots.length;
+  }
+
+  /**
+   * The forest's probability of true for each of several feature vectors.
+   * Each tree is applied to all the vectors before moving on to the next,
+   * which keeps one tree's nodes in cache at a time.
+   */
+  public double[] probabilityOfTrue(double[][] vectors) {
+    double[] probTrue = new double[vectors.length];
+    for (int root : roots) {
+      for (int i = 0; i < vectors.length; i++) {
+        probTrue[i] += leafValue(root, vectors[i]);
+      }
+    }
+    for (int i = 0; i < vectors.length; i++) {
+      probTrue[i] /= roots.length;
+    }
+    return probTrue;
+  }
+
+  private double leafValue(int node, double[] vector) {
+    int f;
+    while ((f = feature[node]) >= 0) {
+      node = (vector[f] < split[node]) ? left[node] : right[node];
+    }
+    return split[node];
+  }
+
+}
@@ -12,19 +12,27 @@ public class RandomForest implements Serializable {
   public final DecisionTree[] trees;
   public final Index<String> featureIndex;
   
+  private transient volatile CompiledForest compiled;
+  
   public RandomForest(Index<String> featureIndex, int numTrees) {
     this.featureIndex = featureIndex;
     this.trees = new DecisionTree[numTrees];
   }
   
+  /** The trees flattened for scoring, compiled when first needed and again whenever the trees are replaced */
+  public CompiledForest compiled() {
+    CompiledForest c = compiled;
+    if (c == null || ! c.isFor(this)) {
+      c = new CompiledForest(this);
+      compiled = c;
+    }
+    return c;
+  }
+  
   public double probabilityOfTrue(RVFDatum<Boolean,String> datum) {
     return probabilityOfTrue(datum.asFeaturesCounter());
   }
   public double probabilityOfTrue(Counter<String> features) {
-    double probTrue = 0;
-    for (DecisionTree tree : trees) {
-      probTrue += tree.probabilityOfTrue(features);
-    }
-    return probTrue / trees.length;
+    return compiled().probabilityOfTrue(features);
   }
 }
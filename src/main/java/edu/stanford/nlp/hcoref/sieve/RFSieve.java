@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import edu.stanford.nlp.hcoref.CorefPrinter;
 import edu.stanford.nlp.hcoref.CorefProperties;
@@ -23,6 +24,7 @@ import edu.stanford.nlp.hcoref.data.Document;
 import edu.stanford.nlp.hcoref.data.Document.DocType;
 import edu.stanford.nlp.hcoref.data.Mention;
 import edu.stanford.nlp.hcoref.md.RuleBasedCorefMentionFinder;
+import edu.stanford.nlp.hcoref.rf.CompiledForest;
 import edu.stanford.nlp.hcoref.rf.RandomForest;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreAnnotations.SpeakerAnnotation;
@@ -34,6 +36,7 @@ import edu.stanford.nlp.stats.Counter;
 import edu.stanford.nlp.stats.Counters;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.concurrent.ParallelLoop;
 
 public class RFSieve extends Sieve {
   
@@ -44,6 +47,9 @@ public class RFSieve extends Sieve {
   
   /** the probability threshold for merging two mentions */
   public double thresMerge;
+
+  /** if not null, the candidate antecedents of a mention are scored in parallel in this pool */
+  public transient ForkJoinPool pool;
   
   // constructor for RF sieve
   public RFSieve(RandomForest rf, Properties props, String sievename) {
@@ -58,7 +64,8 @@ public class RFSieve extends Sieve {
 
     Counter<Integer> probs = new ClassicCounter<Integer>();  
     
-    int mentionDist = 0;
+    // collect the candidate antecedents first: the mention distance of each depends on the ones before it
+    List<Mention> antecedents = new ArrayList<Mention>();
     for(int sentDist=0 ; sentDist <= Math.min(this.maxSentDist, sentIdx) ; sentDist++) {
       List<Mention> candidates = getOrderedAntecedents(m, sentIdx-sentDist, mIdx, document.predictedMentions, dict);
       
@@ -73,18 +80,25 @@ public class RFSieve extends Sieve {
         }
         
         if(sentDist==0 && m.appearEarlierThan(candidate)) continue;   // ignore cataphora
-        mentionDist++;
-
-        RVFDatum<Boolean, String> datum = extractDatum(m, candidate, document, mentionDist, dict, props, sievename);
-        
-        double probTrue = 0;
-        if(this.classifierType == ClassifierType.RF) {
-          probTrue = this.rf.probabilityOfTrue(datum);
-        }
-        
-        probs.setCount(candidate.mentionID, probTrue);
+        antecedents.add(candidate);
       }
     }
+
+    // the pairs are done in parallel: extracting the features of a pair only reads the document,
+    // apart from the acronym cache, which is a ConcurrentHashMap filled with computeIfAbsent
+    double[] probTrue = new double[antecedents.size()];
+    if(this.classifierType == ClassifierType.RF) {
+      CompiledForest forest = this.rf.compiled();
+      double[][] vectors = new double[antecedents.size()][];
+      ParallelLoop.run(pool, antecedents.size(), i -> {
+        RVFDatum<Boolean, String> datum = extractDatum(m, antecedents.get(i), document, i+1, dict, props, sievename);
+        vectors[i] = forest.toVector(datum.asFeaturesCounter());
+      });
+      probTrue = forest.probabilityOfTrue(vectors);
+    }
+    for(int i = 0 ; i < probTrue.length ; i++) {
+      probs.setCount(antecedents.get(i).mentionID, probTrue[i]);
+    }
     
     if(CorefProperties.debug(props)) {
       sbLog.append(CorefPrinter.printErrorLog(m, document, probs, mIdx, dict, this));
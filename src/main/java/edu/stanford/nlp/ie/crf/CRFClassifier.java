@@ -142,6 +142,35 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
   /** Parameter weights of the classifier. */
   double[][] weights;
 
+  /**
+   * The weights and feature index, if this classifier was loaded from a
+   * memory mapped model.  In that case {@code weights} is null, and the
+   * classifier can classify and have its weights read (through
+   * {@link #weightsForReading()}), but not be trained or have its weights changed.
+   */
+  MappedCRFModel mappedModel;
+
+  /**
+   * The weights, copied onto the heap if this classifier was loaded from a
+   * memory mapped model.  Changes to the copy are not seen by the classifier.
+   */
+  private double[][] weightsForReading() {
+    return (weights == null && mappedModel != null) ? mappedModel.weightsArray() : weights;
+  }
+
+  /** Throws an IllegalStateException if this classifier's weights are memory mapped, and so can't be changed. */
+  private void checkWeightsWritable() {
+    if (weights == null && mappedModel != null) {
+      throw new IllegalStateException("The weights of a memory mapped CRFClassifier can't be changed");
+    }
+  }
+
+  /**
+   * Decoder for the first-order Viterbi fast path, built lazily from
+   * {@code labelIndices} and {@code classIndex} and rebuilt if either is replaced.
+   */
+  private transient volatile FirstOrderViterbiDecoder viterbiDecoder;
+
   /** index the features of CRF */
   Index<String> featureIndex;
   /** caches the featureIndex */
@@ -210,6 +239,13 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
    * @return number of weights
    */
   public int getNumWeights() {
+    if (weights == null && mappedModel != null) {
+      int numWeights = 0;
+      for (int i = 0; i < mappedModel.numFeatures(); i++) {
+        numWeights += mappedModel.numWeights(i);
+      }
+      return numWeights;
+    }
     if (weights == null) return 0;
     int numWeights = 0;
     for (double[] wts : weights) {
@@ -262,6 +298,7 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
    * @param scale The scale to multiply by
    */
   public void scaleWeights(double scale) {
+    checkWeightsWritable();
     for (int i = 0; i < weights.length; i++) {
       for (int j = 0; j < weights[i].length; j++) {
         weights[i][j] *= scale;
@@ -346,6 +383,8 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
    * @param weight
    */
   public void combine(CRFClassifier<IN> crf, double weight) {
+    checkWeightsWritable();
+    crf.checkWeightsWritable();
     Timing timer = new Timing();
 
     // Check the CRFClassifiers are compatible
@@ -1216,6 +1255,10 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
       return document;
     }
 
+    FirstOrderViterbiDecoder decoder = firstOrderViterbiDecoder();
+    if (decoder != null) {
+      return classifyFirstOrder(document, documentToDataAndLabels(document), decoder);
+    }
     SequenceModel model = getSequenceModel(document);
     return classifyMaxEnt(document, model);
   }
@@ -1224,10 +1267,44 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
     if (document.isEmpty()) {
       return document;
     }
+    FirstOrderViterbiDecoder decoder = firstOrderViterbiDecoder();
+    if (decoder != null) {
+      return classifyFirstOrder(document, documentDataAndLabels, decoder);
+    }
     SequenceModel model = getSequenceModel(documentDataAndLabels, document);
     return classifyMaxEnt(document, model);
   }
 
+  /**
+   * Returns the decoder for the allocation-free first-order Viterbi path, or
+   * null if this classifier needs the general {@link TestSequenceModel} path:
+   * Beam inference, a label dictionary, or a window size other than 2.
+   */
+  private FirstOrderViterbiDecoder firstOrderViterbiDecoder() {
+    if (windowSize != 2 || labelDictionary != null || labelIndices == null || labelIndices.size() != 2 ||
+        (flags.inferenceType != null && ! flags.inferenceType.equalsIgnoreCase("Viterbi"))) {
+      return null;
+    }
+    FirstOrderViterbiDecoder decoder = viterbiDecoder;
+    if (decoder == null || ! decoder.isFor(labelIndices, classIndex)) {
+      int backgroundIndex = classIndex.indexOf(flags.backgroundSymbol);
+      if (backgroundIndex < 0) {
+        return null;
+      }
+      decoder = new FirstOrderViterbiDecoder(labelIndices, classIndex, backgroundIndex);
+      viterbiDecoder = decoder;
+    }
+    return decoder;
+  }
+
+  private List<IN> classifyFirstOrder(List<IN> document, Triple<int[][][], int[], double[][][]> documentDataAndLabels,
+                                      FirstOrderViterbiDecoder decoder) {
+    int[] bestSequence = decoder.bestSequence(documentDataAndLabels.first(), documentDataAndLabels.third(),
+        getCliquePotentialFunctionForTest());
+    setAnswers(document, bestSequence, 0);
+    return document;
+  }
+
   private List<IN> classifyMaxEnt(List<IN> document, SequenceModel model) {
     if (document.isEmpty()) {
       return document;
@@ -1247,19 +1324,27 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
     }
 
     int[] bestSequence = tagInference.bestSequence(model);
+    setAnswers(document, bestSequence, windowSize - 1);
+    return document;
+  }
 
+  /**
+   * Sets the AnswerAnnotation of each token from the class indices in
+   * {@code bestSequence}, starting at {@code offset}.  The sequence is in
+   * model order, so it is reversed if {@code flags.useReverse} is set.
+   */
+  private void setAnswers(List<IN> document, int[] bestSequence, int offset) {
     if (flags.useReverse) {
       Collections.reverse(document);
     }
     for (int j = 0, docSize = document.size(); j < docSize; j++) {
       IN wi = document.get(j);
-      String guess = classIndex.get(bestSequence[j + windowSize - 1]);
+      String guess = classIndex.get(bestSequence[j + offset]);
       wi.set(CoreAnnotations.AnswerAnnotation.class, guess);
     }
     if (flags.useReverse) {
       Collections.reverse(document);
     }
-    return document;
   }
 
   public List<IN> classifyGibbs(List<IN> document) throws ClassNotFoundException, SecurityException,
@@ -2396,6 +2481,7 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
 
     pw.printf("<windowSize> %d </windowSize>%n", windowSize);
 
+    double[][] weights = weightsForReading();
     pw.printf("weights.length=\t%d%n", weights.length);
     for (double[] ws : weights) {
       ArrayList<Double> list = new ArrayList<Double>();
@@ -2470,7 +2556,7 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
     ObjectOutputStream oos = null;
     try {
       oos = IOUtils.writeStreamFromString(serializePath);
-      oos.writeObject(weights);
+      oos.writeObject(weightsForReading());
       System.err.println("done.");
     } catch (Exception e) {
       System.err.println("Failed");
@@ -2578,7 +2664,7 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
         oos.writeObject(ff);
       }
       oos.writeInt(windowSize);
-      oos.writeObject(weights);
+      oos.writeObject(weightsForReading());
       // oos.writeObject(WordShapeClassifier.getKnownLowerCaseWords());
 
       oos.writeObject(knownLCWords);
@@ -2620,6 +2706,32 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
     if (flags.useEmbedding) {
       embeddings = (Map<String, double[]>) ois.readObject();
     }
+    readFeatureFactories(ois);
+
+    if (props != null) {
+      flags.setProperties(props, false);
+    }
+
+    reinit();
+
+    windowSize = ois.readInt();
+    weights = (double[][]) ois.readObject();
+
+    // WordShapeClassifier.setKnownLowerCaseWords((Set) ois.readObject());
+    knownLCWords = (Set<String>) ois.readObject();
+
+    if (flags.labelDictionaryCutoff > 0) {
+      labelDictionary = (LabelDictionary) ois.readObject();
+    }
+
+    if (VERBOSE) {
+      System.err.println("windowSize=" + windowSize);
+      System.err.println("flags=\n" + flags);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readFeatureFactories(ObjectInputStream ois) throws IOException, ClassNotFoundException {
     Object featureFactory = ois.readObject();
     if (featureFactory instanceof List) {
       featureFactories = ErasureUtils.uncheckedCast(featureFactories);
@@ -2638,6 +2750,60 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
         featureFactories.add((FeatureFactory) featureFactory);
       }
     }
+  }
+
+  /**
+   * Serialize the classifier to the given path as a {@link MappedCRFModel},
+   * which can later be loaded by memory mapping it rather than deserializing
+   * it.  Everything except the weights and feature index is Java serialized
+   * into the model's metadata block.
+   */
+  public void serializeMappedClassifier(String serializePath) {
+    System.err.print("Serializing memory mapped classifier to " + serializePath + "...");
+    try {
+      ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(metadata);
+      oos.writeObject(labelIndices);
+      oos.writeObject(classIndex);
+      oos.writeObject(flags);
+      if (flags.useEmbedding) {
+        oos.writeObject(embeddings);
+      }
+      // see serializeClassifier(ObjectOutputStream) for why these are written one by one
+      oos.writeObject(featureFactories.size());
+      for (FeatureFactory ff : featureFactories) {
+        oos.writeObject(ff);
+      }
+      oos.writeInt(windowSize);
+      oos.writeObject(knownLCWords);
+      if (labelDictionary != null) {
+        oos.writeObject(labelDictionary);
+      }
+      oos.close();
+
+      MappedCRFModel.write(new File(serializePath), metadata.toByteArray(), featureIndex, weightsForReading());
+      System.err.println("done.");
+    } catch (IOException e) {
+      throw new RuntimeIOException("Failed to save classifier", e);
+    }
+  }
+
+  /**
+   * Loads a classifier from a {@link MappedCRFModel}.  The weights and
+   * feature index are read directly from the model as they are needed.
+   *
+   * @param props If non-null, any properties it specifies override those in the model
+   */
+  @SuppressWarnings("unchecked")
+  public void loadMappedClassifier(MappedCRFModel model, Properties props) throws IOException, ClassNotFoundException {
+    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(model.metadata()));
+    labelIndices = (List<Index<CRFLabel>>) ois.readObject();
+    classIndex = (Index<String>) ois.readObject();
+    flags = (SeqClassifierFlags) ois.readObject();
+    if (flags.useEmbedding) {
+      embeddings = (Map<String, double[]>) ois.readObject();
+    }
+    readFeatureFactories(ois);
 
     if (props != null) {
       flags.setProperties(props, false);
@@ -2646,21 +2812,85 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
     reinit();
 
     windowSize = ois.readInt();
-    weights = (double[][]) ois.readObject();
-
-    // WordShapeClassifier.setKnownLowerCaseWords((Set) ois.readObject());
     knownLCWords = (Set<String>) ois.readObject();
-
     if (flags.labelDictionaryCutoff > 0) {
       labelDictionary = (LabelDictionary) ois.readObject();
     }
 
+    mappedModel = model;
+    featureIndex = model.featureIndex();
+    weights = null;
+    cliquePotentialFunction = model.cliquePotentialFunction();
+
     if (VERBOSE) {
       System.err.println("windowSize=" + windowSize);
       System.err.println("flags=\n" + flags);
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <br>
+   * Memory mapped models (see {@link MappedCRFModel}) are recognized and read
+   * onto the heap, since a stream cannot be mapped.
+   */
+  @Override
+  public void loadClassifier(InputStream in, Properties props) throws IOException, ClassCastException,
+      ClassNotFoundException {
+    if ( ! in.markSupported()) {
+      in = new BufferedInputStream(in);
+    }
+    if (MappedCRFModel.isMappedModel(in)) {
+      loadMappedClassifier(MappedCRFModel.read(in), props);
+    } else {
+      super.loadClassifier(in, props);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <br>
+   * A memory mapped model (see {@link MappedCRFModel}) in the file system is
+   * mapped even if the same path is also on the classpath.
+   */
+  @Override
+  public void loadClassifier(String loadPath, Properties props) throws ClassCastException, IOException, ClassNotFoundException {
+    File file = new File(loadPath);
+    if (MappedCRFModel.isMappedModel(file)) {
+      loadClassifier(file, props);
+    } else {
+      super.loadClassifier(loadPath, props);
+    }
+  }
+
+  @Override
+  public void loadClassifierNoExceptions(String loadPath, Properties props) {
+    File file = new File(loadPath);
+    if (MappedCRFModel.isMappedModel(file)) {
+      loadClassifierNoExceptions(file, props);
+    } else {
+      super.loadClassifierNoExceptions(loadPath, props);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <br>
+   * Memory mapped models (see {@link MappedCRFModel}) are recognized and mapped
+   * read-only rather than read.
+   */
+  @Override
+  public void loadClassifier(File file, Properties props) throws ClassCastException, IOException,
+      ClassNotFoundException {
+    if (MappedCRFModel.isMappedModel(file)) {
+      Timing.startDoing("Mapping classifier from " + file.getAbsolutePath());
+      loadMappedClassifier(MappedCRFModel.map(file), props);
+      Timing.endDoing();
+    } else {
+      super.loadClassifier(file, props);
+    }
+  }
+
   /**
    * This is used to load the default supplied classifier stored within the jar
    * file. THIS FUNCTION WILL ONLY WORK IF THE CODE WAS LOADED FROM A JAR FILE
@@ -2763,6 +2993,7 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
   }
 
   public void writeWeights(PrintStream p) {
+    double[][] weights = weightsForReading();
     for (String feature : featureIndex) {
       int index = featureIndex.indexOf(feature);
       // line.add(feature+"["+(-p)+"]");
@@ -2780,6 +3011,7 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
 
   public Map<String, Counter<String>> topWeights() {
     Map<String, Counter<String>> w = new HashMap<String, Counter<String>>();
+    double[][] weights = weightsForReading();
     for (String feature : featureIndex) {
       int index = featureIndex.indexOf(feature);
       // line.add(feature+"["+(-p)+"]");
@@ -3022,6 +3254,10 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
       crf.serializeTextClassifier(serializeToText);
     }
 
+    if (crf.flags.serializeToMapped != null) {
+      crf.serializeMappedClassifier(crf.flags.serializeToMapped);
+    }
+
     if (testFile != null) {
       // todo: Change testFile to call testFiles with a singleton list
       DocumentReaderAndWriter<CoreLabel> readerAndWriter = crf.defaultReaderAndWriter();
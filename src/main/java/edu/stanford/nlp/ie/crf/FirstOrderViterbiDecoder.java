@@ -0,0 +1,220 @@
+package edu.stanford.nlp.ie.crf;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.stanford.nlp.util.Index;
+
+/**
+ * Exact Viterbi decoding for first-order (window size 2) linear-chain CRFs
+ * that works directly on clique potentials.
+ * <p>
+ * The general test-time path builds a calibrated {@link CRFCliqueTree} of
+ * {@link FactorTable}s, wraps it in a {@link TestSequenceModel} and hands it to
+ * {@link edu.stanford.nlp.sequences.ExactBestSequenceFinder}, which allocates
+ * fresh score and trace arrays for every document.  Calibration is not needed
+ * to find the best sequence: the conditional log probabilities used there differ
+ * from the summed clique potentials only by the log partition function.  This
+ * decoder therefore computes the node and edge potentials of each position into
+ * a flat {@code numClasses * numClasses} table and runs Viterbi over them,
+ * keeping all of its buffers in a per-thread scratch area that grows to the
+ * longest document seen and is then reused.  Ties are broken the same way as
+ * in {@code ExactBestSequenceFinder}.
+ * <p>
+ * Instances are immutable apart from the per-thread scratch space and may be
+ * shared between threads.
+ */
+class FirstOrderViterbiDecoder {
+
+  private final List<Index<CRFLabel>> labelIndices;
+  private final Index<String> classIndex;
+
+  private final int numClasses;
+  private final int backgroundIndex;
+
+  /** Class of each node clique label in {@code labelIndices.get(0)}. */
+  private final int[] nodeLabels;
+
+  /** Flat {@code prev * numClasses + cur} slot of each edge clique label in {@code labelIndices.get(1)}. */
+  private final int[] edgeLabels;
+
+  private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+    @Override
+    protected Scratch initialValue() {
+      return new Scratch(numClasses);
+    }
+  };
+
+  FirstOrderViterbiDecoder(List<Index<CRFLabel>> labelIndices, Index<String> classIndex, int backgroundIndex) {
+    if (labelIndices.size() != 2) {
+      throw new IllegalArgumentException("First-order decoding needs node and edge cliques, but got " + labelIndices.size() + " clique sizes");
+    }
+    this.labelIndices = labelIndices;
+    this.classIndex = classIndex;
+    this.numClasses = classIndex.size();
+    this.backgroundIndex = backgroundIndex;
+
+    Index<CRFLabel> nodeIndex = labelIndices.get(0);
+    nodeLabels = new int[nodeIndex.size()];
+    for (int k = 0; k < nodeLabels.length; k++) {
+      nodeLabels[k] = nodeIndex.get(k).getLabel()[0];
+    }
+    Index<CRFLabel> edgeIndex = labelIndices.get(1);
+    edgeLabels = new int[edgeIndex.size()];
+    for (int k = 0; k < edgeLabels.length; k++) {
+      int[] label = edgeIndex.get(k).getLabel();
+      edgeLabels[k] = label[0] * numClasses + label[1];
+    }
+  }
+
+  /** Whether this decoder was built from these label and class indices, which it does not copy. */
+  boolean isFor(List<Index<CRFLabel>> labelIndices, Index<String> classIndex) {
+    return this.labelIndices == labelIndices && this.classIndex == classIndex && numClasses == classIndex.size();
+  }
+
+  /**
+   * Finds the highest scoring label sequence for one document.
+   *
+   * @param data Feature indices as produced by {@code documentToDataAndLabels}:
+   *          {@code data[position][cliqueSize - 1][m]}
+   * @param featureVals Feature values in the same layout, or {@code null}
+   * @param cliquePotentialFunc Scores a clique labeling
+   * @return The best class index for each position.  The array belongs to the
+   *          calling thread's scratch space: it is only valid until the next call
+   *          on this thread, and may be longer than {@code data.length}.
+   */
+  int[] bestSequence(int[][][] data, double[][][] featureVals, CliquePotentialFunction cliquePotentialFunc) {
+    int length = data.length;
+    int C = numClasses;
+    Scratch s = scratch.get();
+    s.ensureLength(length);
+    double[] potentials = s.potentials;
+    double[] score = s.score;
+    double[] nextScore = s.nextScore;
+    int[] trace = s.trace;
+    int[] best = s.best;
+
+    // Position 0: the previous label is the background padding symbol
+    computePotentials(data, featureVals, cliquePotentialFunc, 0, s);
+    System.arraycopy(potentials, backgroundIndex * C, score, 0, C);
+
+    int bestPrev = backgroundIndex;
+    int bestCur = -1;
+    if (length == 1) {
+      double bestFinal = Double.NEGATIVE_INFINITY;
+      for (int cur = 0; cur < C; cur++) {
+        if (score[cur] > bestFinal) {
+          bestFinal = score[cur];
+          bestCur = cur;
+        }
+      }
+    }
+
+    for (int pos = 1; pos < length; pos++) {
+      computePotentials(data, featureVals, cliquePotentialFunc, pos, s);
+      if (pos < length - 1) {
+        int traceBase = pos * C;
+        for (int cur = 0; cur < C; cur++) {
+          double bestScore = Double.NEGATIVE_INFINITY;
+          int arg = 0;
+          for (int prev = 0; prev < C; prev++) {
+            double candidate = score[prev] + potentials[prev * C + cur];
+            if (candidate > bestScore) {
+              bestScore = candidate;
+              arg = prev;
+            }
+          }
+          nextScore[cur] = bestScore;
+          trace[traceBase + cur] = arg;
+        }
+        double[] tmp = score;
+        score = nextScore;
+        nextScore = tmp;
+      } else {
+        // The last position picks the best (prev, cur) pair in the same order
+        // as ExactBestSequenceFinder scans its final products.
+        double bestFinal = Double.NEGATIVE_INFINITY;
+        for (int prev = 0; prev < C; prev++) {
+          for (int cur = 0; cur < C; cur++) {
+            double candidate = score[prev] + potentials[prev * C + cur];
+            if (candidate > bestFinal) {
+              bestFinal = candidate;
+              bestPrev = prev;
+              bestCur = cur;
+            }
+          }
+        }
+      }
+    }
+
+    if (bestCur < 0) {
+      bestCur = 0;
+    }
+    best[length - 1] = bestCur;
+    if (length > 1) {
+      best[length - 2] = bestPrev;
+      for (int pos = length - 2; pos > 0; pos--) {
+        best[pos - 1] = trace[pos * C + best[pos]];
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Fills {@code s.potentials[prev * numClasses + cur]} with the summed node and
+   * edge clique potentials at {@code pos}, using negative infinity for
+   * labelings not seen in training, as {@link FactorTable} does.
+   */
+  private void computePotentials(int[][][] data, double[][][] featureVals, CliquePotentialFunction cliquePotentialFunc,
+                                 int pos, Scratch s) {
+    int[][] cliques = data[pos];
+    double[][] vals = featureVals == null ? null : featureVals[pos];
+    double[] node = s.node;
+    double[] potentials = s.potentials;
+
+    Arrays.fill(node, Double.NEGATIVE_INFINITY);
+    double[] nodeVals = vals == null ? null : vals[0];
+    for (int k = 0; k < nodeLabels.length; k++) {
+      node[nodeLabels[k]] = cliquePotentialFunc.computeCliquePotential(1, k, cliques[0], nodeVals, pos);
+    }
+
+    Arrays.fill(potentials, Double.NEGATIVE_INFINITY);
+    double[] edgeVals = vals == null ? null : vals[1];
+    for (int k = 0; k < edgeLabels.length; k++) {
+      potentials[edgeLabels[k]] = cliquePotentialFunc.computeCliquePotential(2, k, cliques[1], edgeVals, pos);
+    }
+    for (int prev = 0, i = 0; prev < numClasses; prev++) {
+      for (int cur = 0; cur < numClasses; cur++, i++) {
+        potentials[i] += node[cur];
+      }
+    }
+  }
+
+  /** Per-thread buffers, grown to the longest document seen. */
+  private static class Scratch {
+
+    final double[] node;
+    final double[] potentials;
+    double[] score;
+    double[] nextScore;
+    int[] trace = new int[0];
+    int[] best = new int[0];
+
+    Scratch(int numClasses) {
+      node = new double[numClasses];
+      potentials = new double[numClasses * numClasses];
+      score = new double[numClasses];
+      nextScore = new double[numClasses];
+    }
+
+    void ensureLength(int length) {
+      if (best.length < length) {
+        int capacity = Math.max(length, best.length * 2);
+        best = new int[capacity];
+        trace = new int[capacity * node.length];
+      }
+    }
+
+  }
+
+}
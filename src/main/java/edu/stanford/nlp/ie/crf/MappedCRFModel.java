@@ -0,0 +1,519 @@
+package edu.stanford.nlp.ie.crf;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * The weights and feature index of a {@link CRFClassifier} stored in a flat
+ * layout which can be memory-mapped read-only.  Loading such a model only
+ * reads the small metadata block (flags, label indices, feature factories,
+ * ...); the weights and feature strings stay in the page cache, are paged in
+ * as they are used, and are shared by every JVM on the host which maps the
+ * same file.
+ * <br>
+ * The file is laid out as follows (all numbers big-endian):
+ * <pre>
+ *   long     magic number
+ *   int      format version
+ *   int      length of the metadata block, then the block itself
+ *            (the rest of the classifier, Java serialized)
+ *   int      number of features n
+ *   int      number of hash table slots h (a power of two)
+ *   long     number of weights w
+ *   long     number of feature characters c
+ *   padding to a multiple of 8 bytes
+ *   int[n+1] offset of each feature's row in the weights
+ *   int[n+1] offset of each feature's string in the characters
+ *   int[h]   open addressing hash table from String.hashCode() to feature index, -1 if empty
+ *   padding to a multiple of 8 bytes
+ *   double[w] the weight rows, concatenated
+ *   char[c]   the feature strings, concatenated
+ * </pre>
+ * Write a model in this format with
+ * {@code java edu.stanford.nlp.ie.crf.CRFClassifier -loadClassifier model.ser.gz -serializeToMapped model.crf.mmap};
+ * {@link CRFClassifier} recognizes the format when loading.
+ *
+ * @see CRFClassifier#serializeMappedClassifier(String)
+ */
+public class MappedCRFModel {
+
+  /** "CRFMMAP1" */
+  private static final long MAGIC = 0x4352464d4d415031L;
+  private static final int VERSION = 1;
+
+  private final byte[] metadata;
+  private final int numFeatures;
+  private final int hashMask;
+
+  private final IntBuffer weightOffsets;
+  private final IntBuffer featureOffsets;
+  private final IntBuffer hashSlots;
+  private final DoubleBuffer weights;
+  private final CharBuffer features;
+
+  private MappedCRFModel(byte[] metadata, int numFeatures, int hashSize,
+                         ByteBuffer ints, ByteBuffer weights, ByteBuffer features) {
+    this.metadata = metadata;
+    this.numFeatures = numFeatures;
+    this.hashMask = hashSize - 1;
+
+    IntBuffer intBuffer = ints.asIntBuffer();
+    this.weightOffsets = slice(intBuffer, 0, numFeatures + 1);
+    this.featureOffsets = slice(intBuffer, numFeatures + 1, numFeatures + 1);
+    this.hashSlots = slice(intBuffer, 2 * (numFeatures + 1), hashSize);
+    this.weights = weights.asDoubleBuffer();
+    this.features = features.asCharBuffer();
+  }
+
+  private static IntBuffer slice(IntBuffer buffer, int start, int length) {
+    IntBuffer duplicate = buffer.duplicate();
+    duplicate.position(start);
+    duplicate.limit(start + length);
+    return duplicate.slice();
+  }
+
+  /** The serialized rest of the classifier */
+  byte[] metadata() {
+    return metadata;
+  }
+
+  public int numFeatures() {
+    return numFeatures;
+  }
+
+  /** The weight of the given feature for the given label of its clique */
+  public double weight(int feature, int label) {
+    return weights.get(weightOffsets.get(feature) + label);
+  }
+
+  /** The number of labels which the given feature has a weight for */
+  public int numWeights(int feature) {
+    return weightOffsets.get(feature + 1) - weightOffsets.get(feature);
+  }
+
+  /** Copies the weights onto the heap in the usual {@code double[feature][label]} form */
+  public double[][] weightsArray() {
+    double[][] result = new double[numFeatures][];
+    for (int i = 0; i < numFeatures; i++) {
+      result[i] = new double[numWeights(i)];
+      for (int j = 0; j < result[i].length; j++) {
+        result[i][j] = weight(i, j);
+      }
+    }
+    return result;
+  }
+
+  /** The feature with the given index */
+  public String feature(int index) {
+    int start = featureOffsets.get(index);
+    int end = featureOffsets.get(index + 1);
+    char[] chars = new char[end - start];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = features.get(start + i);
+    }
+    return new String(chars);
+  }
+
+  /** The index of the given feature, or -1 if it is not a feature of the model */
+  public int indexOf(String feature) {
+    for (int slot = slot(feature.hashCode(), hashMask); ; slot = (slot + 1) & hashMask) {
+      int index = hashSlots.get(slot);
+      if (index < 0) {
+        return -1;
+      }
+      if (featureEquals(index, feature)) {
+        return index;
+      }
+    }
+  }
+
+  private boolean featureEquals(int index, String feature) {
+    int start = featureOffsets.get(index);
+    int end = featureOffsets.get(index + 1);
+    if (end - start != feature.length()) {
+      return false;
+    }
+    for (int i = 0; i < feature.length(); i++) {
+      if (features.get(start + i) != feature.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int slot(int hash, int mask) {
+    hash ^= (hash >>> 16);
+    hash *= 0x85ebca6b;
+    hash ^= (hash >>> 13);
+    return hash & mask;
+  }
+
+  /** A read-only {@link Index} view of the model's features */
+  public Index<String> featureIndex() {
+    return new FeatureIndex(this);
+  }
+
+  /** A clique potential function reading the weights straight from the model */
+  public CliquePotentialFunction cliquePotentialFunction() {
+    return (cliqueSize, labelIndex, cliqueFeatures, featureVal, posInSent) -> {
+      double output = 0.0;
+      for (int m = 0; m < cliqueFeatures.length; m++) {
+        double dotProd = weight(cliqueFeatures[m], labelIndex);
+        if (featureVal != null) {
+          dotProd *= featureVal[m];
+        }
+        output += dotProd;
+      }
+      return output;
+    };
+  }
+
+
+  /**
+   * Returns whether the given file starts with the magic number of this format.
+   */
+  public static boolean isMappedModel(File file) {
+    if ( ! file.isFile() || file.length() < 8) {
+      return false;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      return raf.readLong() == MAGIC;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns whether the given stream starts with the magic number of this
+   * format, without consuming anything.  The stream must support mark().
+   */
+  public static boolean isMappedModel(InputStream in) throws IOException {
+    in.mark(8);
+    try {
+      byte[] bytes = new byte[8];
+      int read = 0;
+      for (int n; read < 8 && (n = in.read(bytes, read, 8 - read)) > 0; ) {
+        read += n;
+      }
+      return read == 8 && ByteBuffer.wrap(bytes).getLong() == MAGIC;
+    } finally {
+      in.reset();
+    }
+  }
+
+  /**
+   * Maps the given file read-only.  Only the header and metadata are read.
+   */
+  public static MappedCRFModel map(File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      Header header = Header.read(raf);
+      long position = header.length;
+      FileChannel channel = raf.getChannel();
+      ByteBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, position, header.intsLength());
+      position += header.intsLength() + header.intsPadding();
+      ByteBuffer weights = channel.map(FileChannel.MapMode.READ_ONLY, position, header.weightsLength());
+      position += header.weightsLength();
+      ByteBuffer features = channel.map(FileChannel.MapMode.READ_ONLY, position, header.featuresLength());
+      // the mappings stay valid after the channel is closed
+      return new MappedCRFModel(header.metadata, header.numFeatures, header.hashSize, ints, weights, features);
+    }
+  }
+
+  /**
+   * Reads a model in this format from a stream onto the heap, for when the
+   * model is not a file which can be mapped (e.g., it is inside a jar).
+   * The stream is not closed.
+   */
+  public static MappedCRFModel read(InputStream in) throws IOException {
+    DataInputStream dis = new DataInputStream(in);
+    Header header = Header.read(dis);
+    ByteBuffer ints = readFully(dis, header.intsLength());
+    readFully(dis, header.intsPadding());
+    ByteBuffer weights = readFully(dis, header.weightsLength());
+    ByteBuffer features = readFully(dis, header.featuresLength());
+    return new MappedCRFModel(header.metadata, header.numFeatures, header.hashSize, ints, weights, features);
+  }
+
+  private static ByteBuffer readFully(DataInputStream in, long length) throws IOException {
+    byte[] bytes = new byte[(int) length];
+    in.readFully(bytes);
+    return ByteBuffer.wrap(bytes);
+  }
+
+  /**
+   * Writes a model in this format.
+   *
+   * @param file The file to write
+   * @param metadata The serialized rest of the classifier, returned later by {@link #metadata()}
+   * @param featureIndex The features of the classifier
+   * @param weights The weights of the classifier, one row per feature
+   */
+  public static void write(File file, byte[] metadata, Index<String> featureIndex, double[][] weights) throws IOException {
+    int numFeatures = featureIndex.size();
+    if (weights.length != numFeatures) {
+      throw new IllegalArgumentException("Have " + numFeatures + " features but " + weights.length + " rows of weights");
+    }
+
+    long numWeights = 0;
+    long numChars = 0;
+    int[] weightOffsets = new int[numFeatures + 1];
+    int[] featureOffsets = new int[numFeatures + 1];
+    for (int i = 0; i < numFeatures; i++) {
+      numWeights += weights[i].length;
+      numChars += featureIndex.get(i).length();
+      if (numWeights > Integer.MAX_VALUE / 8 || numChars > Integer.MAX_VALUE / 2) {
+        throw new IllegalArgumentException("Model is too large to be memory mapped");
+      }
+      weightOffsets[i + 1] = (int) numWeights;
+      featureOffsets[i + 1] = (int) numChars;
+    }
+
+    int hashSize = Integer.highestOneBit(Math.max(numFeatures, 1) * 2 - 1) << 1;
+    int[] hashSlots = new int[hashSize];
+    Arrays.fill(hashSlots, -1);
+    for (int i = 0; i < numFeatures; i++) {
+      int slot = slot(featureIndex.get(i).hashCode(), hashSize - 1);
+      while (hashSlots[slot] >= 0) {
+        slot = (slot + 1) & (hashSize - 1);
+      }
+      hashSlots[slot] = i;
+    }
+
+    Header header = new Header(metadata, numFeatures, hashSize, numWeights, numChars);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      header.write(out);
+      for (int offset : weightOffsets) out.writeInt(offset);
+      for (int offset : featureOffsets) out.writeInt(offset);
+      for (int slot : hashSlots) out.writeInt(slot);
+      for (int i = 0; i < header.intsPadding(); i++) out.writeByte(0);
+      for (double[] row : weights) {
+        for (double weight : row) out.writeDouble(weight);
+      }
+      for (int i = 0; i < numFeatures; i++) {
+        out.writeChars(featureIndex.get(i));
+      }
+    }
+  }
+
+
+  private static class Header {
+    /** magic, version, metadata length, numFeatures, hashSize, numWeights, numChars */
+    private static final int FIXED_LENGTH = 8 + 4 + 4 + 4 + 4 + 8 + 8;
+
+    final byte[] metadata;
+    final int numFeatures;
+    final int hashSize;
+    final long numWeights;
+    final long numChars;
+    /** Bytes taken by the header, including the padding after it */
+    final long length;
+
+    Header(byte[] metadata, int numFeatures, int hashSize, long numWeights, long numChars) {
+      this.metadata = metadata;
+      this.numFeatures = numFeatures;
+      this.hashSize = hashSize;
+      this.numWeights = numWeights;
+      this.numChars = numChars;
+      this.length = align(FIXED_LENGTH + metadata.length);
+    }
+
+    long intsLength() {
+      return 4L * (2 * (numFeatures + 1) + hashSize);
+    }
+
+    long intsPadding() {
+      return align(intsLength()) - intsLength();
+    }
+
+    long weightsLength() {
+      return 8L * numWeights;
+    }
+
+    long featuresLength() {
+      return 2L * numChars;
+    }
+
+    private static long align(long length) {
+      return (length + 7) & ~7L;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeLong(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(metadata.length);
+      out.write(metadata);
+      out.writeInt(numFeatures);
+      out.writeInt(hashSize);
+      out.writeLong(numWeights);
+      out.writeLong(numChars);
+      for (long i = out.size(); i < length; i++) {
+        out.writeByte(0);
+      }
+    }
+
+    static Header read(DataInput in) throws IOException {
+      if (in.readLong() != MAGIC) {
+        throw new IOException("Not a memory mapped CRF model");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported memory mapped CRF model version " + version);
+      }
+      byte[] metadata = new byte[in.readInt()];
+      in.readFully(metadata);
+      Header header = new Header(metadata, in.readInt(), in.readInt(), in.readLong(), in.readLong());
+      in.skipBytes((int) (header.length - FIXED_LENGTH - metadata.length));
+      return header;
+    }
+  }
+
+
+  /**
+   * A read-only Index over the features of a mapped model.  It is
+   * serialized as an ordinary {@link HashIndex}.
+   */
+  private static class FeatureIndex extends AbstractCollection<String> implements Index<String> {
+    private final transient MappedCRFModel model;
+
+    FeatureIndex(MappedCRFModel model) {
+      this.model = model;
+    }
+
+    @Override
+    public int size() {
+      return model.numFeatures();
+    }
+
+    @Override
+    public String get(int i) {
+      if (i < 0 || i >= size()) {
+        throw new ArrayIndexOutOfBoundsException("Index " + i + " outside the bounds [0," + size() + ")");
+      }
+      return model.feature(i);
+    }
+
+    @Override
+    public int indexOf(String o) {
+      return model.indexOf(o);
+    }
+
+    @Override
+    public int addToIndex(String o) {
+      int index = indexOf(o);
+      if (index < 0) {
+        throw new UnsupportedOperationException("A memory mapped feature index is read-only");
+      }
+      return index;
+    }
+
+    @Override
+    @Deprecated
+    public int indexOf(String o, boolean add) {
+      return add ? addToIndex(o) : indexOf(o);
+    }
+
+    @Override
+    public List<String> objectsList() {
+      List<String> objects = new ArrayList<String>(size());
+      for (String feature : this) {
+        objects.add(feature);
+      }
+      return objects;
+    }
+
+    @Override
+    public Collection<String> objects(int[] indices) {
+      List<String> objects = new ArrayList<String>(indices.length);
+      for (int index : indices) {
+        objects.add(get(index));
+      }
+      return objects;
+    }
+
+    @Override
+    public boolean isLocked() {
+      return true;
+    }
+
+    @Override
+    public void lock() { }
+
+    @Override
+    public void unlock() {
+      throw new UnsupportedOperationException("A memory mapped feature index is read-only");
+    }
+
+    @Override
+    public void saveToWriter(Writer out) throws IOException {
+      for (int i = 0, sz = size(); i < sz; i++) {
+        out.write(i + "=" + get(i) + '\n');
+      }
+    }
+
+    @Override
+    public void saveToFilename(String s) {
+      new HashIndex<String>((Index<String>) this).saveToFilename(s);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return (o instanceof String) && indexOf((String) o) >= 0;
+    }
+
+    @Override
+    public boolean add(String s) {
+      return indexOf(s, true) < 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<String>() {
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+          return next < size();
+        }
+
+        @Override
+        public String next() {
+          if ( ! hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return get(next++);
+        }
+      };
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+      return new HashIndex<String>((Index<String>) this);
+    }
+
+    private static final long serialVersionUID = 1L;
+  }
+
+}
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Properties;
 
@@ -54,8 +55,12 @@ import edu.stanford.nlp.util.Generics;
  * already been tokenized.  So, for example, with our usual English tokenization, things like genitives
  * and commas at the end of words will be separated in the input and matched as a separate token.
  *
- * This class isn't implemented very efficiently, since every regex is evaluated at every token position.
- * So it can and does get quite slow if you have a lot of patterns in your NER rules.
+ * The entries are compiled when the classifier is created.  Entries all of whose tokens are plain
+ * strings (e.g., a gazetteer of names) are stored in a trie over tokens, so the cost of matching them
+ * does not grow with the number of entries.  Entries with real regular expressions are indexed by the
+ * first character of the literal prefix of their first token, if it has one, so each regex is only tried
+ * where its first token could match.  Regexes with no literal prefix (e.g. {@code [A-Z].*}) are still
+ * tried at every token position, so such rules should be kept few.
  * {@code TokensRegex} is a more general framework to provide the functionality of this class.
  * But at present we still use this class.
  *
@@ -66,6 +71,8 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
 
   private final List<Entry> entries;
 
+  private final EntryIndex index;
+
   private final Set<String> myLabels;
 
   private final boolean ignoreCase;
@@ -116,6 +123,7 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
     }
 
     this.ignoreCase = ignoreCase;
+    index = new EntryIndex(entries, ignoreCase);
     myLabels = Generics.newHashSet();
     // Can always override background or none.
     myLabels.add(flags.backgroundSymbol);
@@ -158,6 +166,7 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
     }
 
     this.ignoreCase = ignoreCase;
+    index = new EntryIndex(entries, ignoreCase);
     myLabels = Generics.newHashSet();
     // Can always override background or none.
     myLabels.add(flags.backgroundSymbol);
@@ -170,7 +179,6 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
 
   private static class Entry implements Comparable<Entry> {
     public List<Pattern> regex; // the regex, tokenized by splitting on white space
-    public List<String> exact = new ArrayList<String>();
     public String type; // the associated type
     public Set<String> overwritableTypes;
     public double priority;
@@ -180,14 +188,6 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
       this.type = type.intern();
       this.overwritableTypes = overwritableTypes;
       this.priority = priority;
-      // Efficiency shortcut
-      for (Pattern p : regex) {
-        if (p.toString().matches("[a-zA-Z0-9]+")) {
-          exact.add(p.toString());
-        } else {
-          exact.add(null);
-        }
-      }
     }
 
     /** If the given priorities are equal, an entry whose regex has more tokens is assigned
@@ -225,25 +225,23 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
 
   @Override
   public List<CoreLabel> classify(List<CoreLabel> document) {
-    // This is pretty deathly slow. It loops over each entry, and then loops over each document token for it.
-    // We could gain by compiling into disjunctions patterns for the same class with the same priorities and restrictions?
-    for (Entry entry : entries) {
-      int start = 0; // the index of the token from which we begin our search each iteration
-      while (true) {
-        // only search the part of the document that we haven't yet considered
-        // System.err.println("REGEX FIND MATCH FOR " + entry.regex.toString());
-        start = findStartIndex(entry, document, start, myLabels, this.ignoreCase);
-        if (start < 0) break; // no match found
-
-        // make sure we annotate only valid POS tags
-        if (containsValidPos(document, start, start + entry.regex.size())) {
-          // annotate each matching token
-          for (int i = start; i < start + entry.regex.size(); i++) {
-            CoreLabel token = document.get(i);
-            token.set(CoreAnnotations.AnswerAnnotation.class, entry.type);
-          }
+    // The index finds every position at which each entry's patterns match.  Those matches are then
+    // applied in the order of a scan over each entry in turn, and over the document for each entry,
+    // so that higher priority entries still claim their tokens first.
+    long[] matches = index.findMatches(document);
+    for (long match : matches) {
+      Entry entry = entries.get((int) (match >>> 32));
+      int start = (int) match;
+      int end = start + entry.regex.size();
+      if ( ! canLabel(entry, document, start, end)) continue;
+
+      // make sure we annotate only valid POS tags
+      if (containsValidPos(document, start, end)) {
+        // annotate each matching token
+        for (int i = start; i < end; i++) {
+          CoreLabel token = document.get(i);
+          token.set(CoreAnnotations.AnswerAnnotation.class, entry.type);
         }
-        start++;
       }
     }
     return document;
@@ -303,46 +301,210 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
   }
 
   /**
-   * Checks if the entry's regex sequence is contained in the tokenized document, starting the search
-   * from index searchStart. Also requires that each token's current NER-type be overwritable,
-   * and that each token has not yet been Answer-annotated.
-   *
-   * @param entry
-   * @param document
-   * @return on success, the index of the first token in the matching sequence, otherwise -1
+   * Checks that the tokens matched by an entry may be labeled: each token's current NER-type must be
+   * overwritable, and no token may have been Answer-annotated yet.
+   */
+  private boolean canLabel(Entry entry, List<CoreLabel> document, int start, int end) {
+    for (int i = start; i < end; i++) {
+      CoreLabel token = document.get(i);
+      if (token.get(CoreAnnotations.AnswerAnnotation.class) != null) {
+        return false;
+      }
+      String NERType = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
+      if ( ! (entry.overwritableTypes.contains(NERType) || myLabels.contains(NERType))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  /**
+   * The entries compiled for matching.  Entries made up only of literal tokens are stored in a trie
+   * keyed by (possibly case-folded) words.  Other entries are bucketed by the first character of the
+   * literal prefix of their first token, or kept in a list to try everywhere if there is no such prefix.
+   * <br>
+   * Case folding only lower cases ASCII letters, which is exactly the case insensitivity of a
+   * Pattern compiled with {@link Pattern#CASE_INSENSITIVE} and without UNICODE_CASE.
    */
-  private static int findStartIndex(Entry entry, List<CoreLabel> document, int searchStart, Set<String> myLabels, boolean ignoreCase) {
-    List<Pattern> regex = entry.regex;
-    int rSize = regex.size();
-    // System.err.println("REGEX FIND MATCH FOR " + regex.toString() + " length: " + rSize);
-
-    for (int start = searchStart, end = document.size() - regex.size(); start <= end; start++) {
-      boolean failed = false;
-      for (int i = 0; i < rSize; i++) {
-        Pattern pattern = regex.get(i);
-        String exact = entry.exact.get(i);
-        CoreLabel token = document.get(start + i);
-        String NERType = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
-        String currentType = token.get(CoreAnnotations.AnswerAnnotation.class);
-
-        if (
-            currentType != null ||
-            (exact != null && ! (ignoreCase ? exact.equalsIgnoreCase(token.word()) : exact.equals(token.word()))) ||
-            ! (entry.overwritableTypes.contains(NERType) || myLabels.contains(NERType))  ||
-            ! pattern.matcher(token.word()).matches()  // last, as this is likely the expensive operation
-            ) {
-          failed = true;
-          break;
+  private static class EntryIndex {
+
+    private static final String REGEX_META_CHARACTERS = "\\[](){}.*+?^$|";
+
+    private static class TrieNode {
+      final Map<String, TrieNode> children = Generics.newHashMap();
+      final List<Integer> entries = new ArrayList<Integer>(1);
+    }
+
+    private final List<Entry> entries;
+    private final boolean ignoreCase;
+
+    private final TrieNode literalEntries = new TrieNode();
+    private final Map<Character, List<Integer>> regexEntriesByFirstChar = Generics.newHashMap();
+    private final List<Integer> unindexedRegexEntries = new ArrayList<Integer>();
+    /** The literal prefix of the first token of each regex entry; null for literal entries */
+    private final String[] prefixes;
+
+    EntryIndex(List<Entry> entries, boolean ignoreCase) {
+      this.entries = entries;
+      this.ignoreCase = ignoreCase;
+      this.prefixes = new String[entries.size()];
+      for (int i = 0; i < entries.size(); i++) {
+        List<Pattern> regex = entries.get(i).regex;
+        boolean literal = true;
+        for (Pattern p : regex) {
+          if ( ! isLiteral(p.pattern())) {
+            literal = false;
+            break;
+          }
+        }
+        if (literal) {
+          TrieNode node = literalEntries;
+          for (Pattern p : regex) {
+            String word = fold(p.pattern());
+            TrieNode child = node.children.get(word);
+            if (child == null) {
+              child = new TrieNode();
+              node.children.put(word, child);
+            }
+            node = child;
+          }
+          node.entries.add(i);
+        } else {
+          String prefix = fold(literalPrefix(regex.get(0).pattern()));
+          prefixes[i] = prefix;
+          if (prefix.isEmpty()) {
+            unindexedRegexEntries.add(i);
+          } else {
+            List<Integer> bucket = regexEntriesByFirstChar.get(prefix.charAt(0));
+            if (bucket == null) {
+              bucket = new ArrayList<Integer>();
+              regexEntriesByFirstChar.put(prefix.charAt(0), bucket);
+            }
+            bucket.add(i);
+          }
+        }
+      }
+    }
+
+    private static boolean isLiteral(String regex) {
+      for (int i = 0; i < regex.length(); i++) {
+        if (REGEX_META_CHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns a string which every match of the regex must start with.  This is the text up to the
+     * first metacharacter, less its last character if that is made optional by a quantifier.
+     * Alternation anywhere in the regex means there is no such prefix.
+     */
+    private static String literalPrefix(String regex) {
+      if (regex.indexOf('|') >= 0) {
+        return "";
+      }
+      int end = 0;
+      while (end < regex.length() && REGEX_META_CHARACTERS.indexOf(regex.charAt(end)) < 0) {
+        end++;
+      }
+      if (end > 0 && end < regex.length() && "?*{".indexOf(regex.charAt(end)) >= 0) {
+        end--;
+      }
+      return regex.substring(0, end);
+    }
+
+    private String fold(String word) {
+      if ( ! ignoreCase) {
+        return word;
+      }
+      char[] chars = null;
+      for (int i = 0; i < word.length(); i++) {
+        char c = word.charAt(i);
+        if (c >= 'A' && c <= 'Z') {
+          if (chars == null) {
+            chars = word.toCharArray();
+          }
+          chars[i] = (char) (c + ('a' - 'A'));
+        }
+      }
+      return (chars == null) ? word : new String(chars);
+    }
+
+    /**
+     * Finds every position at which each entry's patterns match the words of the document,
+     * ignoring the labels of the tokens.
+     *
+     * @return The matches, each packed as the entry's index in the high 32 bits and the start
+     *         token's index in the low 32 bits, in ascending order
+     */
+    long[] findMatches(List<CoreLabel> document) {
+      int size = document.size();
+      String[] words = new String[size];
+      for (int i = 0; i < size; i++) {
+        words[i] = fold(document.get(i).word());
+      }
+
+      Matches matches = new Matches();
+      for (int start = 0; start < size; start++) {
+        TrieNode node = literalEntries;
+        for (int i = start; i < size; i++) {
+          node = node.children.get(words[i]);
+          if (node == null) break;
+          for (int entry : node.entries) {
+            matches.add(entry, start);
+          }
         }
+
+        if ( ! words[start].isEmpty()) {
+          List<Integer> bucket = regexEntriesByFirstChar.get(words[start].charAt(0));
+          if (bucket != null) {
+            addRegexMatches(bucket, document, words, start, matches);
+          }
+        }
+        addRegexMatches(unindexedRegexEntries, document, words, start, matches);
+      }
+      return matches.sorted();
+    }
+
+    private void addRegexMatches(List<Integer> candidates, List<CoreLabel> document, String[] words, int start, Matches matches) {
+      for (int entry : candidates) {
+        List<Pattern> regex = entries.get(entry).regex;
+        if (start + regex.size() > words.length || ! words[start].startsWith(prefixes[entry])) {
+          continue;
+        }
+        boolean matched = true;
+        for (int i = 0; i < regex.size(); i++) {
+          if ( ! regex.get(i).matcher(document.get(start + i).word()).matches()) {
+            matched = false;
+            break;
+          }
+        }
+        if (matched) {
+          matches.add(entry, start);
+        }
+      }
+    }
+
+    /** A growable list of packed (entry, start) pairs */
+    private static class Matches {
+      private long[] matches = new long[16];
+      private int size = 0;
+
+      void add(int entry, int start) {
+        if (size == matches.length) {
+          matches = Arrays.copyOf(matches, size * 2);
+        }
+        matches[size++] = ((long) entry << 32) | start;
       }
-      if (! failed) {
-        // System.err.print("MATCHED REGEX:");
-        // for(int i = start; i < start + regex.size(); i ++) System.err.print(" " + document.get(i).word());
-        // System.err.println();
-        return start;
+
+      long[] sorted() {
+        long[] result = Arrays.copyOf(matches, size);
+        Arrays.sort(result);
+        return result;
       }
     }
-    return -1;
   }
 
 
@@ -0,0 +1,343 @@
+package edu.stanford.nlp.ling;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * Compact storage for the tokens of a document.  The annotations that
+ * nearly every token has are stored by column: the character offsets and
+ * indices in int arrays, and the word, value, original text, whitespace,
+ * tag, lemma and named entity tag as ids into a table of the document's
+ * distinct strings (so that, for instance, a word that is also the token's
+ * value and original text is stored once, and each tag once per document).
+ * <p>
+ * The tokens are {@link CoreLabel}s that read and write these columns, and
+ * keep any other annotations in their own arrays as usual, so they can be
+ * used by any annotator.  A value that a column can't hold (a null, or a
+ * value of the wrong type) is also kept in the token's arrays.  Tokens are
+ * serialized as ordinary CoreLabels.
+ * <p>
+ * Different tokens can be annotated by different threads at once, as by
+ * multithreaded annotators, but one token must not be changed by two
+ * threads at once.  The string table keeps every string that has been
+ * stored, including ones that have since been replaced.
+ *
+ * @see #compact(List)
+ */
+public class CompactTokens {
+
+  /** The annotations stored as strings, in column order */
+  private static final Class<?>[] STRING_KEYS = {
+      CoreAnnotations.TextAnnotation.class,
+      CoreAnnotations.ValueAnnotation.class,
+      CoreAnnotations.OriginalTextAnnotation.class,
+      CoreAnnotations.BeforeAnnotation.class,
+      CoreAnnotations.AfterAnnotation.class,
+      CoreAnnotations.PartOfSpeechAnnotation.class,
+      CoreAnnotations.LemmaAnnotation.class,
+      CoreAnnotations.NamedEntityTagAnnotation.class,
+  };
+
+  /** The annotations stored as ints, in column order after the string columns */
+  private static final Class<?>[] INT_KEYS = {
+      CoreAnnotations.CharacterOffsetBeginAnnotation.class,
+      CoreAnnotations.CharacterOffsetEndAnnotation.class,
+      CoreAnnotations.IndexAnnotation.class,
+      CoreAnnotations.SentenceIndexAnnotation.class,
+  };
+
+  private static final Class<?>[] COLUMN_KEYS = new Class<?>[STRING_KEYS.length + INT_KEYS.length];
+  private static final Map<Class<?>, Integer> COLUMNS = new IdentityHashMap<Class<?>, Integer>();
+  static {
+    System.arraycopy(STRING_KEYS, 0, COLUMN_KEYS, 0, STRING_KEYS.length);
+    System.arraycopy(INT_KEYS, 0, COLUMN_KEYS, STRING_KEYS.length, INT_KEYS.length);
+    for (int column = 0; column < COLUMN_KEYS.length; column++) {
+      COLUMNS.put(COLUMN_KEYS[column], column);
+    }
+  }
+
+  /** Marks an empty string column, which otherwise holds 1 + the index of the string */
+  private static final int NO_STRING = 0;
+  /** Marks an empty int column.  A token with this value keeps it in its arrays. */
+  private static final int NO_INT = Integer.MIN_VALUE;
+
+  /** [column][token] */
+  private final int[][] columns;
+  private final Index<String> strings;
+  private final List<CoreLabel> tokens;
+
+  /**
+   * Makes storage for this many tokens with no annotations, which are
+   * given by {@link #tokens()}.
+   */
+  public CompactTokens(int size) {
+    this(size, new HashIndex<String>());
+  }
+
+  /**
+   * Makes storage for this many tokens with no annotations, keeping their
+   * strings in the given table, which may be shared by several documents
+   * (and so keep the strings of all of them).
+   */
+  public CompactTokens(int size, Index<String> strings) {
+    this.strings = strings;
+    columns = new int[COLUMN_KEYS.length][size];
+    for (int column = STRING_KEYS.length; column < COLUMN_KEYS.length; column++) {
+      Arrays.fill(columns[column], NO_INT);
+    }
+    List<CoreLabel> tokens = new ArrayList<CoreLabel>(size);
+    for (int i = 0; i < size; i++) {
+      tokens.add(new Token(this, i));
+    }
+    this.tokens = tokens;
+  }
+
+  /**
+   * Returns compact copies of these tokens, with all their annotations.
+   * The copies can be used in place of the tokens, e.g. as the
+   * TokensAnnotation of a document, as long as nothing else refers to the
+   * original tokens.  The list returned can be changed.
+   */
+  @SuppressWarnings("unchecked")
+  public static List<CoreLabel> compact(List<? extends CoreMap> tokens) {
+    CompactTokens compact = new CompactTokens(tokens.size());
+    for (int i = 0; i < tokens.size(); i++) {
+      CoreMap token = tokens.get(i);
+      CoreLabel copy = compact.tokens.get(i);
+      for (Class key : token.keySet()) {
+        copy.set(key, token.get(key));
+      }
+    }
+    return new ArrayList<CoreLabel>(compact.tokens);
+  }
+
+  /** The tokens, in order.  The list can't be changed. */
+  public List<CoreLabel> tokens() {
+    return Collections.unmodifiableList(tokens);
+  }
+
+  public int size() {
+    return tokens.size();
+  }
+
+  /** The number of distinct strings stored. */
+  public int numStrings() {
+    return strings.size();
+  }
+
+  private static int column(Class<?> key) {
+    Integer column = COLUMNS.get(key);
+    return column == null ? -1 : column;
+  }
+
+  private boolean has(int column, int token) {
+    int code = columns[column][token];
+    return column < STRING_KEYS.length ? code != NO_STRING : code != NO_INT;
+  }
+
+  /** The value in a column for a token, or null if there is none. */
+  private Object value(int column, int token) {
+    int code = columns[column][token];
+    if (column < STRING_KEYS.length) {
+      return code == NO_STRING ? null : strings.get(code - 1);
+    } else {
+      return code == NO_INT ? null : Integer.valueOf(code);
+    }
+  }
+
+  /**
+   * Stores a value in a column for a token, if the column can hold it.
+   *
+   * @return Whether the value was stored
+   */
+  private boolean put(int column, int token, Object value) {
+    if (column < STRING_KEYS.length) {
+      if ( ! (value instanceof String)) {
+        return false;
+      }
+      columns[column][token] = strings.addToIndex((String) value) + 1;
+    } else {
+      if ( ! (value instanceof Integer) || (Integer) value == NO_INT) {
+        return false;
+      }
+      columns[column][token] = (Integer) value;
+    }
+    return true;
+  }
+
+  private void clear(int column, int token) {
+    columns[column][token] = column < STRING_KEYS.length ? NO_STRING : NO_INT;
+  }
+
+
+  /** A token whose column annotations are in a {@link CompactTokens}. */
+  private static class Token extends CoreLabel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CompactTokens store;
+    private final int index;
+
+    Token(CompactTokens store, int index) {
+      super(0);
+      this.store = store;
+      this.index = index;
+    }
+
+    @Override
+    protected boolean entriesInArrays() {
+      return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE get(Class<? extends Key<VALUE>> key) {
+      int column = column(key);
+      if (column >= 0 && store.has(column, index)) {
+        return (VALUE) store.value(column, index);
+      }
+      return super.get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE set(Class<? extends Key<VALUE>> key, VALUE value) {
+      int column = column(key);
+      if (column < 0) {
+        return super.set(key, value);
+      }
+      VALUE old = (VALUE) store.value(column, index);
+      if (store.put(column, index, value)) {
+        VALUE removed = super.remove(key);
+        return old != null ? old : removed;
+      }
+      store.clear(column, index);
+      VALUE replaced = super.set(key, value);
+      return old != null ? old : replaced;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE remove(Class<? extends Key<VALUE>> key) {
+      int column = column(key);
+      if (column >= 0 && store.has(column, index)) {
+        VALUE old = (VALUE) store.value(column, index);
+        store.clear(column, index);
+        return old;
+      }
+      return super.remove(key);
+    }
+
+    @Override
+    public <VALUE> boolean has(Class<? extends Key<VALUE>> key) {
+      int column = column(key);
+      return (column >= 0 && store.has(column, index)) || super.has(key);
+    }
+
+    @Override
+    public <VALUE> boolean containsKey(Class<? extends Key<VALUE>> key) {
+      return has(key);
+    }
+
+    private int columnsSet() {
+      int n = 0;
+      for (int column = 0; column < COLUMN_KEYS.length; column++) {
+        if (store.has(column, index)) {
+          n++;
+        }
+      }
+      return n;
+    }
+
+    @Override
+    public int size() {
+      return columnsSet() + super.size();
+    }
+
+    /** The keys of the columns set, then of the entries in the arrays. */
+    @Override
+    public Set<Class<?>> keySet() {
+      return new AbstractSet<Class<?>>() {
+        @Override
+        public Iterator<Class<?>> iterator() {
+          List<Class<?>> keys = new ArrayList<Class<?>>(Token.this.size());
+          for (int column = 0; column < COLUMN_KEYS.length; column++) {
+            if (store.has(column, index)) {
+              keys.add(COLUMN_KEYS[column]);
+            }
+          }
+          keys.addAll(Token.super.keySet());
+          return new Iterator<Class<?>>() {
+            private int i; // = 0;
+
+            @Override
+            public boolean hasNext() {
+              return i < keys.size();
+            }
+
+            @Override
+            public Class<?> next() {
+              if (i >= keys.size()) {
+                throw new NoSuchElementException("CompactTokens keySet iterator exhausted");
+              }
+              return keys.get(i++);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void remove() {
+              Token.this.remove((Class) keys.get(i - 1));
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return Token.this.size();
+        }
+      };
+    }
+
+    /** The same as the hash code of an ArrayCoreMap with the same entries. */
+    @Override
+    public int hashCode() {
+      int hashCode = super.hashCode();
+      for (int column = 0; column < COLUMN_KEYS.length; column++) {
+        if (store.has(column, index)) {
+          hashCode += COLUMN_KEYS[column].hashCode() * 37 + store.value(column, index).hashCode();
+        }
+      }
+      return hashCode;
+    }
+
+    @Override
+    public String toShorterString(String... what) {
+      return new ArrayCoreMap(this).toShorterString(what);
+    }
+
+    @Override
+    public String toShortString(char separator, String... what) {
+      return new ArrayCoreMap(this).toShortString(separator, what);
+    }
+
+    /** Tokens are serialized as ordinary CoreLabels, without the rest of the document. */
+    private Object writeReplace() {
+      return new CoreLabel(this);
+    }
+
+  }
+
+}
@@ -49,6 +49,8 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
   private boolean keepTags = false;
   private final Class tokensAnnotationKey;
   private final Map<Integer, Stage<T>> stages;
+  /* Tells when no rule can match an annotation (null if the rules are not known) */
+  private ExtractRuleTrigger trigger;
 
   /**
    * Describes one stage of extraction.
@@ -131,6 +133,7 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
     this.stages = new HashMap<Integer, Stage<T>>();//Generics.newHashMap();
     this.env = env;
     this.tokensAnnotationKey = EnvLookup.getDefaultTokensAnnotationKey(env);
+    this.trigger = new ExtractRuleTrigger(tokensAnnotationKey);
   }
 
   /**
@@ -174,6 +177,9 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
           if (SequenceMatchRules.FILTER_RULE_TYPE.equals(aer.ruleType)) {
             stage.addFilterRule(aer);
           } else {
+            if (trigger != null) {
+              trigger.add(aer);
+            }
             if (aer.isComposite) {
 //            if (SequenceMatchRules.COMPOSITE_RULE_TYPE.equals(aer.ruleType)) {
               stage.addCompositeRule(aer);
@@ -204,6 +210,7 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
     stage.basicExtractRule = basicExtractRule;
     stage.compositeExtractRule = compositeExtractRule;
     stage.filterRule = filterRule;
+    this.trigger = null;
     this.stages.clear();
     this.stages.put(1, stage);
   }
@@ -381,7 +388,7 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
     int iters = 0;
     while (!done) {
       List<T> newExprs = new ArrayList<T>();
-      boolean extracted = compositeExtractRule.extract(merged, newExprs);
+      boolean extracted = extract(compositeExtractRule, merged, newExprs);
       if (extracted) {
         annotateExpressions(merged, newExprs);
         newExprs = MatchedExpression.removeNullValues(newExprs);
@@ -407,6 +414,22 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
     return new Pair<List<? extends CoreMap>, List<T>>(merged, matchedExpressions);
   }
 
+  /**
+   * Applies the rules of a stage, sharing the results of their node patterns on each token
+   * (see {@link NodeMatchCache}), so each token is tested once per distinct node pattern.
+   */
+  private static <I,O> boolean extract(SequenceMatchRules.ExtractRule<I,O> rule, I in, List<O> out)
+  {
+    boolean scoped = NodeMatchCache.beginScope();
+    try {
+      return rule.extract(in, out);
+    } finally {
+      if (scoped) {
+        NodeMatchCache.endScope();
+      }
+    }
+  }
+
   private static class CompositeMatchState<T> {
     List<? extends CoreMap> merged;
     List<T> matched;
@@ -423,6 +446,13 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
   {
     // Extract potential expressions
     List<T> matchedExpressions = new ArrayList<T>();
+    if (trigger != null && !trigger.test(annotation)) {
+      // No rule can match anything, so skip the stages
+      if (!keepTags) {
+        cleanupTags(annotation);
+      }
+      return matchedExpressions;
+    }
     List<Integer> stageIds = new ArrayList<Integer>(stages.keySet());
     Collections.sort(stageIds);
     for (int stageId:stageIds) {
@@ -432,7 +462,7 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
         matchedExpressions.clear();
       }
       if (basicExtractRule != null) {
-        basicExtractRule.extract(annotation, matchedExpressions);
+        extract(basicExtractRule, annotation, matchedExpressions);
         annotateExpressions(annotation, matchedExpressions);
         matchedExpressions = MatchedExpression.removeNullValues(matchedExpressions);
         matchedExpressions = MatchedExpression.removeNested(matchedExpressions);
@@ -0,0 +1,263 @@
+package edu.stanford.nlp.ling.tokensregex;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.util.*;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Quick test of whether any of the rules of a {@link CoreMapExpressionExtractor} could match
+ * an annotation, so that annotations with nothing to extract (for instance sentences with no
+ * temporal words, for SUTime) can be skipped without running each rule.
+ * <p>
+ * A token pattern can only match if some token matches one of its required node patterns
+ * (see {@link SequencePattern#findRequiredNodePatterns}), so the test checks each token against
+ * the required node patterns of all the rules over the same tokens at once.  Node patterns that
+ * test for a literal word are looked up in a lexicon rather than tried one by one.  Text pattern
+ * rules are tested by searching for their regex, and token patterns without required node
+ * patterns (for instance if they are made of multi-node patterns) by searching for a match.
+ * If there is a rule that can not be tested any of these ways, the test always passes.
+ * <p>
+ * The test is conservative: if no rule can match, no rule could have extracted anything.
+ * If nothing is extracted by the first stage, the tokens are unchanged for the later stages,
+ * so the test covers all stages.
+ *
+ * @see SequenceMatchRules.AnnotationExtractRule#tokensPattern
+ * @see SequenceMatchRules.AnnotationExtractRule#textPattern
+ */
+public class ExtractRuleTrigger implements Predicate<CoreMap> {
+
+  /** Annotation key for the tokens that composite rules are applied to */
+  private final Class<?> tokensAnnotationKey;
+
+  /** Whether some rule can't be tested for, so every annotation has to be tried */
+  private boolean alwaysTriggered = false;
+
+  /** Required node patterns of token rules, by the annotation key of the tokens (CoreMap.class for the annotation itself) */
+  private final Map<Class<?>, RequiredNodes> tokenRules = new LinkedHashMap<Class<?>, RequiredNodes>();
+
+  /** Token rules whose required node patterns are not known, by the annotation key of the tokens */
+  private final Map<Class<?>, List<SequenceMatchRules.AnnotationExtractRule<?, ?>>> otherTokenRules =
+          new LinkedHashMap<Class<?>, List<SequenceMatchRules.AnnotationExtractRule<?, ?>>>();
+
+  /** Regexes of text rules, by the annotation key of the text */
+  private final Map<Class<?>, List<Pattern>> textRules = new LinkedHashMap<Class<?>, List<Pattern>>();
+
+  public ExtractRuleTrigger(Class<?> tokensAnnotationKey) {
+    this.tokensAnnotationKey = tokensAnnotationKey;
+  }
+
+  /** Adds a rule that the test must allow for. */
+  public void add(SequenceMatchRules.AnnotationExtractRule<?, ?> rule) {
+    if (rule.tokensPattern != null) {
+      Class<?> key;
+      if (rule.isComposite) {
+        key = tokensAnnotationKey;
+      } else {
+        key = (rule.annotationField != null)? rule.annotationField: CoreMap.class;
+      }
+      List<NodePattern<CoreMap>> required = rule.tokensPattern.findRequiredNodePatterns(ExtractRuleTrigger::cost);
+      if (required == null) {
+        List<SequenceMatchRules.AnnotationExtractRule<?, ?>> rules = otherTokenRules.get(key);
+        if (rules == null) {
+          otherTokenRules.put(key, rules = new ArrayList<SequenceMatchRules.AnnotationExtractRule<?, ?>>());
+        }
+        rules.add(rule);
+        return;
+      }
+      RequiredNodes requiredNodes = tokenRules.get(key);
+      if (requiredNodes == null) {
+        tokenRules.put(key, requiredNodes = new RequiredNodes());
+      }
+      for (NodePattern<CoreMap> pattern:required) {
+        requiredNodes.add(pattern);
+      }
+    } else if (rule.textPattern != null && rule.annotationField != null) {
+      List<Pattern> patterns = textRules.get(rule.annotationField);
+      if (patterns == null) {
+        textRules.put(rule.annotationField, patterns = new ArrayList<Pattern>());
+      }
+      patterns.add(rule.textPattern);
+    } else {
+      alwaysTriggered = true;
+    }
+  }
+
+  /** Annotations that nearly every token has, so that tests on them are not selective */
+  private static final Set<Class<?>> TOKEN_TAGS = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+          CoreAnnotations.PartOfSpeechAnnotation.class,
+          CoreAnnotations.LemmaAnnotation.class,
+          CoreAnnotations.NamedEntityTagAnnotation.class));
+
+  /**
+   * Rough cost of requiring a node pattern, as how often it is likely to match a token.
+   * Tests on annotations that few tokens have (such as numbers, or the expressions matched
+   * by an earlier stage) are the most selective, then tests on the token text, then tests
+   * on tags every token has.  Tests for a missing annotation and negated tests match most tokens.
+   */
+  private static double cost(NodePattern<CoreMap> pattern) {
+    if (pattern instanceof CoreMapNodePattern) {
+      // All the annotation patterns have to match
+      double cost = 100;
+      for (Pair<?, ?> p:((CoreMapNodePattern) pattern).getAnnotationPatterns()) {
+        if (p.second instanceof CoreMapNodePattern.NilAnnotationPattern) {
+          continue;
+        } else if (p.first == CoreAnnotations.TextAnnotation.class) {
+          cost = Math.min(cost, 2);
+        } else if (TOKEN_TAGS.contains(p.first)) {
+          cost = Math.min(cost, 10);
+        } else {
+          cost = Math.min(cost, 1);
+        }
+      }
+      return cost;
+    } else if (pattern instanceof NodePattern.ConjNodePattern) {
+      double cost = 100;
+      for (NodePattern<CoreMap> p:((NodePattern.ConjNodePattern<CoreMap>) pattern).nodePatterns) {
+        cost = Math.min(cost, cost(p));
+      }
+      return cost;
+    } else if (pattern instanceof NodePattern.DisjNodePattern) {
+      double cost = 0;
+      for (NodePattern<CoreMap> p:((NodePattern.DisjNodePattern<CoreMap>) pattern).nodePatterns) {
+        cost = Math.max(cost, cost(p));
+      }
+      return cost;
+    } else if (pattern instanceof NodePattern.NegateNodePattern || pattern == NodePattern.ANY_NODE) {
+      return 100;
+    }
+    return 10;
+  }
+
+  /** Whether a test has to be made for every annotation. */
+  public boolean isAlwaysTriggered() {
+    return alwaysTriggered;
+  }
+
+  /**
+   * Returns false if none of the rules added can match the annotation.
+   */
+  @Override
+  public boolean test(CoreMap annotation) {
+    if (alwaysTriggered) {
+      return true;
+    }
+    for (Map.Entry<Class<?>, List<Pattern>> entry:textRules.entrySet()) {
+      Object text = getAnnotation(annotation, entry.getKey());
+      if (text instanceof String) {
+        for (Pattern pattern:entry.getValue()) {
+          if (pattern.matcher((String) text).find()) {
+            return true;
+          }
+        }
+      }
+    }
+    for (Map.Entry<Class<?>, RequiredNodes> entry:tokenRules.entrySet()) {
+      List<? extends CoreMap> tokens = getTokens(annotation, entry.getKey());
+      if (tokens != null && entry.getValue().matchesAny(tokens)) {
+        return true;
+      }
+    }
+    for (Map.Entry<Class<?>, List<SequenceMatchRules.AnnotationExtractRule<?, ?>>> entry:otherTokenRules.entrySet()) {
+      List<? extends CoreMap> tokens = getTokens(annotation, entry.getKey());
+      if (tokens != null) {
+        for (SequenceMatchRules.AnnotationExtractRule<?, ?> rule:entry.getValue()) {
+          SequencePattern<CoreMap> pattern = rule.tokensPattern;
+          SequenceMatcher<CoreMap> m = pattern.getMatcher(tokens);
+          if (rule.matchFindType != null) {
+            m.setFindType(rule.matchFindType);
+          }
+          m.setMatchWithResult(rule.matchWithResults);
+          if (m.find()) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /** The value of the annotation with the given key, whatever its type. */
+  @SuppressWarnings("unchecked")
+  private static Object getAnnotation(CoreMap annotation, Class<?> key) {
+    return annotation.get((Class<? extends TypesafeMap.Key<Object>>) key);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<? extends CoreMap> getTokens(CoreMap annotation, Class<?> key) {
+    if (key == CoreMap.class) {
+      return Collections.singletonList(annotation);
+    } else {
+      return (List<? extends CoreMap>) getAnnotation(annotation, key);
+    }
+  }
+
+  /**
+   * Folds the case of each character the way {@link String#equalsIgnoreCase} compares them,
+   *  so that two strings are equal ignoring case exactly when their folded forms are equal.
+   */
+  private static String foldCase(String str) {
+    char[] chars = new char[str.length()];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(str.charAt(i)));
+    }
+    return new String(chars);
+  }
+
+  /**
+   * The distinct required node patterns of the rules over one list of tokens.
+   */
+  private static class RequiredNodes {
+    /** Words matched by literal patterns over the token text */
+    final Set<String> words = new HashSet<String>();
+    /** Case folded words matched by case insensitive literal patterns over the token text */
+    final Set<String> foldedWords = new HashSet<String>();
+    /** All other patterns */
+    final List<NodePattern<CoreMap>> patterns = new ArrayList<NodePattern<CoreMap>>();
+    final Set<NodePattern<CoreMap>> seen = Collections.newSetFromMap(new IdentityHashMap<NodePattern<CoreMap>, Boolean>());
+
+    void add(NodePattern<CoreMap> pattern) {
+      if (!seen.add(pattern)) {
+        return;
+      }
+      if (pattern instanceof CoreMapNodePattern) {
+        List<? extends Pair<?, ?>> annotationPatterns = ((CoreMapNodePattern) pattern).getAnnotationPatterns();
+        if (annotationPatterns.size() == 1
+            && annotationPatterns.get(0).first == CoreAnnotations.TextAnnotation.class
+            && annotationPatterns.get(0).second instanceof CoreMapNodePattern.StringAnnotationPattern) {
+          CoreMapNodePattern.StringAnnotationPattern p = (CoreMapNodePattern.StringAnnotationPattern) annotationPatterns.get(0).second;
+          if (!p.normalize()) {
+            if (p.ignoreCase()) {
+              foldedWords.add(foldCase(p.getString()));
+            } else {
+              words.add(p.getString());
+            }
+            return;
+          }
+        }
+      }
+      patterns.add(pattern);
+    }
+
+    boolean matchesAny(List<? extends CoreMap> tokens) {
+      for (CoreMap token:tokens) {
+        if (token == null) continue;
+        if (!words.isEmpty() || !foldedWords.isEmpty()) {
+          Object text = token.get(CoreAnnotations.TextAnnotation.class);
+          if (text instanceof String && (words.contains(text) || foldedWords.contains(foldCase((String) text)))) {
+            return true;
+          }
+        }
+        for (NodePattern<CoreMap> pattern:patterns) {
+          if (pattern.match(token)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+
+}
@@ -69,17 +69,7 @@ public class MultiPatternMatcher<T> {
   public List<SequenceMatchResult<T>> findNonOverlapping(List<? extends T> elements,
                                                          Comparator<? super SequenceMatchResult> cmp)
   {
-    Collection<SequencePattern<T>> triggered = getTriggeredPatterns(elements);
-    List<SequenceMatchResult<T>> all = new ArrayList<SequenceMatchResult<T>>();
-    int i = 0;
-    for (SequencePattern<T> p:triggered) {
-      SequenceMatcher<T> m = p.getMatcher(elements);
-      m.setOrder(i);
-      while (m.find()) {
-        all.add(m.toBasicSequenceMatchResult());
-      }
-      i++;
-    }
+    List<SequenceMatchResult<T>> all = findAll(elements, null);
     List<SequenceMatchResult<T>> res = IntervalTree.getNonOverlapping( all, SequenceMatchResult.TO_INTERVAL, cmp);
     Collections.sort(res, SequenceMatchResult.OFFSET_COMPARATOR);
 
@@ -96,18 +86,7 @@ public class MultiPatternMatcher<T> {
    */
   public List<SequenceMatchResult<T>> find(List<? extends T> elements, SequenceMatcher.FindType findType)
   {
-    Collection<SequencePattern<T>> triggered = getTriggeredPatterns(elements);
-    List<SequenceMatchResult<T>> all = new ArrayList<SequenceMatchResult<T>>();
-    int i = 0;
-    for (SequencePattern<T> p:triggered) {
-      SequenceMatcher<T> m = p.getMatcher(elements);
-      m.setFindType(findType);
-      m.setOrder(i);
-      while (m.find()) {
-        all.add(m.toBasicSequenceMatchResult());
-      }
-      i++;
-    }
+    List<SequenceMatchResult<T>> all = findAll(elements, findType);
     List<SequenceMatchResult<T>> res = IntervalTree.getNonOverlapping( all, SequenceMatchResult.TO_INTERVAL, SequenceMatchResult.DEFAULT_COMPARATOR);
     Collections.sort(res, SequenceMatchResult.OFFSET_COMPARATOR);
 
@@ -139,17 +118,7 @@ public class MultiPatternMatcher<T> {
   public List<SequenceMatchResult<T>> findNonOverlappingMaxScore(List<? extends T> elements,
                                                                  Function<? super SequenceMatchResult, Double> scorer)
   {
-    Collection<SequencePattern<T>> triggered = getTriggeredPatterns(elements);
-    List<SequenceMatchResult<T>> all = new ArrayList<SequenceMatchResult<T>>();
-    int i = 0;
-    for (SequencePattern<T> p:triggered) {
-      SequenceMatcher<T> m = p.getMatcher(elements);
-      m.setOrder(i);
-      while (m.find()) {
-        all.add(m.toBasicSequenceMatchResult());
-      }
-      i++;
-    }
+    List<SequenceMatchResult<T>> all = findAll(elements, null);
     List<SequenceMatchResult<T>> res = IntervalTree.getNonOverlappingMaxScore( all, SequenceMatchResult.TO_INTERVAL, scorer);
     Collections.sort(res, SequenceMatchResult.OFFSET_COMPARATOR);
 
@@ -174,6 +143,39 @@ public class MultiPatternMatcher<T> {
     return Iterables.chain(allMatches);
   }
 
+  /**
+   * Applies each triggered pattern over the sequence and returns all their matches, in pattern order.
+   * The patterns share the results of their node patterns on each element (see {@link NodeMatchCache}).
+   * @param elements input sequence to match against
+   * @param findType type of search for each pattern (null for the matcher's default)
+   * @return list of match results
+   */
+  private List<SequenceMatchResult<T>> findAll(List<? extends T> elements, SequenceMatcher.FindType findType)
+  {
+    boolean scoped = NodeMatchCache.beginScope();
+    try {
+      Collection<SequencePattern<T>> triggered = getTriggeredPatterns(elements);
+      List<SequenceMatchResult<T>> all = new ArrayList<SequenceMatchResult<T>>();
+      int i = 0;
+      for (SequencePattern<T> p:triggered) {
+        SequenceMatcher<T> m = p.getMatcher(elements);
+        if (findType != null) {
+          m.setFindType(findType);
+        }
+        m.setOrder(i);
+        while (m.find()) {
+          all.add(m.toBasicSequenceMatchResult());
+        }
+        i++;
+      }
+      return all;
+    } finally {
+      if (scoped) {
+        NodeMatchCache.endScope();
+      }
+    }
+  }
+
   /**
    * Given a sequence, return the collection of patterns that are triggered by the sequence
    *   (these patterns are the ones that may potentially match a subsequence in the sequence)
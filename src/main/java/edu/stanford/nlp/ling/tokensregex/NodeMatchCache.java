@@ -0,0 +1,95 @@
+package edu.stanford.nlp.ling.tokensregex;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers which nodes of a sequence each {@link NodePattern} matches, so that
+ * when many {@link SequencePattern}s are run over the same sequence (as the
+ * rules of a {@link CoreMapExpressionExtractor} stage are), each node is tested
+ * at most once against each distinct node pattern, rather than once per rule.
+ * Node patterns are told apart by identity, so rules share results for the
+ * node patterns they share (for instance through an {@link Env} variable).
+ * <p>
+ * Caches only exist within a scope, opened on the current thread with
+ * {@link #beginScope()} and closed with {@link #endScope()}.  While a scope is
+ * open, the sequences matched and the annotations of their nodes must not change.
+ *
+ * @param <T> The type of the nodes
+ */
+public class NodeMatchCache<T> {
+
+  private static final byte UNKNOWN = 0;
+  private static final byte MATCHED = 1;
+  private static final byte NOT_MATCHED = 2;
+
+  /** The caches of the open scope of each thread, by sequence identity */
+  private static final ThreadLocal<Map<List<?>, NodeMatchCache<?>>> scopes = new ThreadLocal<Map<List<?>, NodeMatchCache<?>>>();
+
+  private final List<? extends T> elements;
+
+  /** For each node pattern, whether it matches each node, or UNKNOWN if not yet tested */
+  private final Map<NodePattern<T>, byte[]> results = new IdentityHashMap<NodePattern<T>, byte[]>();
+
+  private NodeMatchCache(List<? extends T> elements) {
+    this.elements = elements;
+  }
+
+  /**
+   * Opens a scope on the current thread, unless one is already open.
+   * @return true if a scope was opened, in which case the caller must close it with {@link #endScope()}
+   */
+  public static boolean beginScope() {
+    if (scopes.get() != null) {
+      return false;
+    }
+    scopes.set(new IdentityHashMap<List<?>, NodeMatchCache<?>>());
+    return true;
+  }
+
+  /** Closes the current thread's scope, dropping its caches. */
+  public static void endScope() {
+    scopes.remove();
+  }
+
+  /** The cache for {@code elements} in the current thread's scope, or null if no scope is open. */
+  @SuppressWarnings("unchecked")
+  static <T> NodeMatchCache<T> forSequence(List<? extends T> elements) {
+    Map<List<?>, NodeMatchCache<?>> caches = scopes.get();
+    if (caches == null) {
+      return null;
+    }
+    NodeMatchCache<T> cache = (NodeMatchCache<T>) caches.get(elements);
+    if (cache == null) {
+      cache = new NodeMatchCache<T>(elements);
+      caches.put(elements, cache);
+    }
+    return cache;
+  }
+
+  /** Whether node {@code i} is not null and matches {@code pattern}. */
+  boolean matches(NodePattern<T> pattern, int i) {
+    byte[] matched = results.get(pattern);
+    if (matched == null) {
+      matched = new byte[elements.size()];
+      results.put(pattern, matched);
+    }
+    if (matched[i] == UNKNOWN) {
+      T node = elements.get(i);
+      matched[i] = (node != null && pattern.match(node)) ? MATCHED : NOT_MATCHED;
+    }
+    return matched[i] == MATCHED;
+  }
+
+  /** Whether node {@code i} matches any of {@code patterns}. */
+  boolean matchesAny(List<NodePattern<T>> patterns, int i) {
+    for (NodePattern<T> pattern : patterns) {
+      if (matches(pattern, i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
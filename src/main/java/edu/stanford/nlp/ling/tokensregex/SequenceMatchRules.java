@@ -213,6 +213,10 @@ public class SequenceMatchRules {
     public boolean active = true;
     /** Actual rule performing the extraction (converting annotation to MatchedExpression) */
     public ExtractRule<S, T> extractRule;
+    /** Pattern over tokens that the rule matches, if it is a token or composite rule (see {@link ExtractRuleTrigger}) */
+    public TokenSequencePattern tokensPattern;
+    /** Pattern over text that the rule finds, if it is a text rule (see {@link ExtractRuleTrigger}) */
+    public Pattern textPattern;
     public Predicate<T> filterRule;
 
     public void update(Env env, Map<String, Object> attributes) {
@@ -425,6 +429,7 @@ public class SequenceMatchRules {
       r.extractRule = new SequencePatternExtractRule<CoreMap, MatchedExpression>(pattern,
                       new SequenceMatchedExpressionExtractor( valueExtractor, r.matchedExpressionGroup), r.matchFindType, r.matchWithResults);
       r.filterRule = new AnnotationMatchedFilter(valueExtractor);
+      r.tokensPattern = pattern;
     }
 
     protected AnnotationExtractRule create(Env env, SequencePattern.PatternExpr expr, Expression result)
@@ -495,6 +500,7 @@ public class SequenceMatchRules {
 
       }
       r.filterRule = new AnnotationMatchedFilter(valueExtractor);
+      r.tokensPattern = pattern;
     }
 
     protected AnnotationExtractRule create(Env env, SequencePattern.PatternExpr expr, Expression result)
@@ -539,6 +545,7 @@ public class SequenceMatchRules {
               new StringPatternExtractRule<MatchedExpression>(pattern,
                       new StringMatchedExpressionExtractor( valueExtractor, r.matchedExpressionGroup)));
       r.filterRule = new AnnotationMatchedFilter(valueExtractor);
+      r.textPattern = pattern;
     }
 
     protected AnnotationExtractRule create(Env env, String expr, Expression result)
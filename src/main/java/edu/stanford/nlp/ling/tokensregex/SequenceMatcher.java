@@ -92,6 +92,9 @@ public class SequenceMatcher<T> extends BasicSequenceMatchResult<T> {
   // Branching limit for searching with back tracking. Higher value makes the search faster but uses more memory.
   int branchLimit = 2;
 
+  // Results of node patterns on the elements, shared with other matchers over the same elements (null if none)
+  NodeMatchCache<T> nodeMatchCache;
+
   protected SequenceMatcher(SequencePattern<T> pattern, List<? extends T> elements)
   {
     this.pattern = pattern;
@@ -106,6 +109,7 @@ public class SequenceMatcher<T> extends BasicSequenceMatchResult<T> {
     this.score = pattern.weight;
     this.varGroupBindings = pattern.varGroupBindings;
     matchedGroups = new MatchedGroup[pattern.totalGroups];
+    this.nodeMatchCache = NodeMatchCache.forSequence(elements);
   }
 
   public void setBranchLimit(int blimit){
@@ -338,6 +342,9 @@ public class SequenceMatcher<T> extends BasicSequenceMatchResult<T> {
       match = findMatchStart(start, false);
     } else {
       for (int i = start; i < regionEnd; i++) {
+        if (!canStartAt(i)) {
+          continue;
+        }
         match = findMatchStart(i, false);
         if (match) {
           break;
@@ -354,6 +361,19 @@ public class SequenceMatcher<T> extends BasicSequenceMatchResult<T> {
     return match;
   }
 
+  /**
+   * Returns false if no match can start at index i, because none of the node patterns that can
+   * match the first node of the pattern matches that element.
+   * Only known when there is a node match cache for the elements.
+   */
+  private boolean canStartAt(int i)
+  {
+    if (nodeMatchCache == null || matchWithResult || pattern.firstNodePatterns == null) {
+      return true;
+    }
+    return nodeMatchCache.matchesAny(pattern.firstNodePatterns, i);
+  }
+
   /**
    * Searches for pattern in the region starting
    *  at the next index
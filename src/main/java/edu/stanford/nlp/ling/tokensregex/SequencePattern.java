@@ -8,6 +8,7 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Generic Sequence Pattern for regular expressions.
@@ -103,6 +104,9 @@ public class SequencePattern<T> implements Serializable {
   State root;
   int totalGroups = 0;
 
+  // Node patterns one of which must match the first node of any match (null if a match can start some other way)
+  transient List<NodePattern<T>> firstNodePatterns;
+
   // binding of group number to variable name
   VarGroupBindings varGroupBindings;
 
@@ -131,6 +135,7 @@ public class SequencePattern<T> implements Serializable {
     Frag f = nodeSequencePattern.build();
     f.connect(MATCH_STATE);
     this.root = f.start;
+    this.firstNodePatterns = findFirstNodePatterns(root);
     varGroupBindings = new VarGroupBindings(totalGroups+1);
     nodeSequencePattern.updateBindings(varGroupBindings);
   }
@@ -214,7 +219,7 @@ public class SequencePattern<T> implements Serializable {
     while (!todo.isEmpty()) {
       State state = todo.poll();
       if (state instanceof NodePatternState) {
-        NodePattern<T> pattern = ((NodePatternState) state).pattern;
+        NodePattern<T> pattern = ((NodePatternState) state).pattern();
         OUT res = filter.apply(pattern);
         if (res != null) return res;
       }
@@ -227,6 +232,104 @@ public class SequencePattern<T> implements Serializable {
     return null;
   }
 
+  /**
+   * Finds the node patterns that can consume the first node of a match, by following the states
+   * that consume nothing from the root.  Returns null if any other kind of state can be reached
+   * that way (for instance if the pattern can match an empty sequence), since a match could then
+   * start without any of the node patterns matching.
+   */
+  private static <T> List<NodePattern<T>> findFirstNodePatterns(State root) {
+    List<NodePattern<T>> patterns = new ArrayList<NodePattern<T>>();
+    Set<NodePattern<T>> seenPatterns = Collections.newSetFromMap(new IdentityHashMap<NodePattern<T>, Boolean>());
+    Queue<State> todo = new LinkedList<State>();
+    Set<State> seen = new HashSet<State>();
+    todo.add(root);
+    seen.add(root);
+    while (!todo.isEmpty()) {
+      State state = todo.poll();
+      if (state instanceof NodePatternState) {
+        NodePattern<T> pattern = ((NodePatternState) state).pattern();
+        if (seenPatterns.add(pattern)) {
+          patterns.add(pattern);
+        }
+        continue;
+      }
+      Class<?> stateClass = state.getClass();
+      if (stateClass != State.class && stateClass != GroupStartState.class
+              && stateClass != GroupEndState.class && stateClass != ValueState.class) {
+        return null;
+      }
+      if (state.next != null) {
+        for (State s: state.next) {
+          if (!seen.contains(s)) { seen.add(s); todo.add(s); }
+        }
+      }
+    }
+    return patterns;
+  }
+
+  /**
+   * Returns node patterns one of which must match some node of any match of this pattern, or null
+   * if there are none (for instance if the pattern can match an empty sequence).  When there is a
+   * choice, as with the elements of a sequence, the choice whose node patterns have the lowest
+   * maximum cost is returned (the last one, if there are ties).
+   * @param cost Cost of each node pattern, such as how likely it is to match a node
+   */
+  public List<NodePattern<T>> findRequiredNodePatterns(ToDoubleFunction<NodePattern<T>> cost) {
+    return findRequiredNodePatterns(patternExpr, cost);
+  }
+
+  private static <T> List<NodePattern<T>> findRequiredNodePatterns(PatternExpr expr, ToDoubleFunction<NodePattern<T>> cost) {
+    if (expr instanceof NodePatternExpr) {
+      return Collections.singletonList(((NodePatternExpr) expr).<T>nodePattern());
+    } else if (expr instanceof GroupPatternExpr) {
+      return findRequiredNodePatterns(((GroupPatternExpr) expr).pattern, cost);
+    } else if (expr instanceof ValuePatternExpr) {
+      return findRequiredNodePatterns(((ValuePatternExpr) expr).expr, cost);
+    } else if (expr instanceof RepeatPatternExpr) {
+      RepeatPatternExpr repeat = (RepeatPatternExpr) expr;
+      return (repeat.minMatch > 0)? findRequiredNodePatterns(repeat.pattern, cost): null;
+    } else if (expr instanceof OrPatternExpr) {
+      // Need the node patterns of every alternative
+      List<NodePattern<T>> patterns = new ArrayList<NodePattern<T>>();
+      Set<NodePattern<T>> seen = Collections.newSetFromMap(new IdentityHashMap<NodePattern<T>, Boolean>());
+      for (PatternExpr p:((OrPatternExpr) expr).patterns) {
+        List<NodePattern<T>> required = findRequiredNodePatterns(p, cost);
+        if (required == null) {
+          return null;
+        }
+        for (NodePattern<T> pattern:required) {
+          if (seen.add(pattern)) {
+            patterns.add(pattern);
+          }
+        }
+      }
+      return patterns;
+    } else if (expr instanceof SequencePatternExpr || expr instanceof AndPatternExpr) {
+      // Any element will do, since all of them have to match
+      List<PatternExpr> children = (expr instanceof SequencePatternExpr)?
+              ((SequencePatternExpr) expr).patterns: ((AndPatternExpr) expr).patterns;
+      List<NodePattern<T>> best = null;
+      double bestCost = Double.POSITIVE_INFINITY;
+      for (int i = children.size() - 1; i >= 0; i--) {
+        List<NodePattern<T>> required = findRequiredNodePatterns(children.get(i), cost);
+        if (required != null) {
+          double c = Double.NEGATIVE_INFINITY;
+          for (NodePattern<T> pattern:required) {
+            c = Math.max(c, cost.applyAsDouble(pattern));
+          }
+          if (best == null || c < bestCost) {
+            best = required;
+            bestCost = c;
+          }
+        }
+      }
+      return best;
+    } else {
+      return null;
+    }
+  }
+
   // Parses string to PatternExpr
   public static interface Parser<T> {
     public SequencePattern.PatternExpr parseSequence(Env env, String s) throws Exception;
@@ -309,6 +412,12 @@ public class SequencePattern<T> implements Serializable {
       this.nodePattern = nodePattern;
     }
 
+    /** The node pattern, typed for the elements it is matched against */
+    @SuppressWarnings("unchecked")
+    <T> NodePattern<T> nodePattern() {
+      return (NodePattern<T>) nodePattern;
+    }
+
     @Override
     protected Frag build()
     {
@@ -1288,6 +1397,12 @@ public class SequencePattern<T> implements Serializable {
       this.pattern = p;
     }
 
+    /** The node pattern, typed for the elements it is matched against */
+    @SuppressWarnings("unchecked")
+    <T> NodePattern<T> pattern() {
+      return (NodePattern<T>) pattern;
+    }
+
     @Override
     protected <T> boolean match(int bid, SequenceMatcher.MatchedStates<T> matchedStates, boolean consume, State prevState)
     {
@@ -1308,7 +1423,10 @@ public class SequencePattern<T> implements Serializable {
             return false;
           }
         } else {
-          if (node != null && pattern.match(node)) {
+          NodeMatchCache<T> cache = matchedStates.matcher.nodeMatchCache;
+          boolean matched = (cache != null)? cache.matches(this.<T>pattern(), matchedStates.curPosition)
+                  : (node != null && pattern.match(node));
+          if (matched) {
             // If matched, need to add next states to the queue of states to be processed
             matchedStates.addStates(bid, next);
             return true;
@@ -1766,6 +1884,7 @@ public class SequencePattern<T> implements Serializable {
     Frag f = patternExpr.build();
     f.connect(MATCH_STATE);
     this.root = f.start;
+    this.firstNodePatterns = findFirstNodePatterns(root);
     varGroupBindings = new VarGroupBindings(totalGroups+1);
     patternExpr.updateBindings(varGroupBindings);
   }
@@ -31,6 +31,42 @@ public class BinaryGrammar implements Serializable, Iterable<BinaryRule> {
   private transient Map<BinaryRule,BinaryRule> ruleMap;
   // for super speed! (maybe)
   private transient boolean[] synthetic;
+  private transient CompiledRules compiledRulesWithLC;
+  private transient CompiledRules compiledRulesWithRC;
+
+  /**
+   * The split rules of each state, stored as parallel arrays rather than as
+   * BinaryRule objects, so that the inner loop of parsing reads them
+   * sequentially.  The rules of state s are at indices starts[s] up to
+   * starts[s + 1], in the same order as in the splitRules arrays, and
+   * children holds the child of each rule other than s.
+   * The scores are those the rules had when {@link #splitRules()} was called.
+   */
+  static final class CompiledRules {
+    final int[] starts;
+    final int[] parents;
+    final int[] children;
+    final float[] scores;
+
+    CompiledRules(BinaryRule[][] rules, boolean byLeftChild) {
+      starts = new int[rules.length + 1];
+      for (int state = 0; state < rules.length; state++) {
+        starts[state + 1] = starts[state] + rules[state].length;
+      }
+      int numRules = starts[rules.length];
+      parents = new int[numRules];
+      children = new int[numRules];
+      scores = new float[numRules];
+      for (int state = 0, i = 0; state < rules.length; state++) {
+        for (BinaryRule rule : rules[state]) {
+          parents[i] = rule.parent;
+          children[i] = byLeftChild ? rule.rightChild : rule.leftChild;
+          scores[i] = rule.score;
+          i++;
+        }
+      }
+    }
+  }
 
 
   public int numRules() {
@@ -104,6 +140,18 @@ public class BinaryGrammar implements Serializable, Iterable<BinaryRule> {
       // parent accessor
       //      splitRulesWithParent[state] = toBRArray(rulesWithParent[state]);
     }
+    compiledRulesWithLC = new CompiledRules(splitRulesWithLC, true);
+    compiledRulesWithRC = new CompiledRules(splitRulesWithRC, false);
+  }
+
+  /** The rules of {@link #splitRulesWithLC}, for all states, as parallel arrays. */
+  CompiledRules compiledRulesWithLC() {
+    return compiledRulesWithLC;
+  }
+
+  /** The rules of {@link #splitRulesWithRC}, for all states, as parallel arrays. */
+  CompiledRules compiledRulesWithRC() {
+    return compiledRulesWithRC;
   }
 
   public BinaryRule[] splitRulesWithLC(int state) {
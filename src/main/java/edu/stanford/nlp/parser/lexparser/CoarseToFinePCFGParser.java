@@ -0,0 +1,422 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.stanford.nlp.util.Index;
+import edu.stanford.nlp.util.RuntimeInterruptedException;
+
+/** Prunes the PCFG chart with a coarse-to-fine pass before filling it in.
+ *  The sentence is first parsed, inside and outside, with the grammar
+ *  projected onto basic categories (see {@link ProjectedGrammar}).  A state
+ *  is then only built over a span if the best coarse parse which has the
+ *  state's basic category over that span has a log probability within
+ *  {@code coarseToFineThreshold} of the best coarse parse.  Since the
+ *  projected grammar's rules have the best score of the rules projected onto
+ *  them, the coarse scores are upper bounds, and states that can't be part
+ *  of any parse are always pruned.
+ *  <p>
+ *  Score arrays are only allocated for the spans that have some state left,
+ *  from a pool of arrays kept between sentences.  All pruned spans share one
+ *  array of negative infinities, which is never written to.
+ *  If the pruned chart has no parse, the sentence is parsed again without
+ *  pruning, so pruning can change which parse is found but doesn't make
+ *  parsing fail.  Nothing is pruned with length normalization or when
+ *  tags may span several words, nor when parsing lattices.
+ */
+public class CoarseToFinePCFGParser extends ExhaustivePCFGParser {
+
+  private final ProjectedGrammar coarseGrammar;
+  private final UnaryGrammar coarseUG;
+  private final int numCoarseStates;
+  /** The coarse state of each state */
+  private final int[] projection;
+
+  /** Whether the options allow pruning the chart */
+  private final boolean pruningAllowed;
+  /** Set while parsing a lattice, whose edges can cover any span */
+  private boolean denseChart = false;
+
+  /** Inside and outside scores of the coarse grammar: start idx, end idx, coarse state -> logProb */
+  private float[][][] coarseIScore;
+  private float[][][] coarseOScore;
+  private int coarseArraySize = 0;
+
+  /** States over a span are pruned if their coarse score is below this; negative infinity means no pruning */
+  private float cutoff = Float.NEGATIVE_INFINITY;
+  private boolean[] allowedCoarse;
+  private boolean[] allowedFine;
+
+  /** The span score array shared by all pruned spans */
+  private float[] prunedCell;
+  /** Span score arrays not being used for the current sentence */
+  private final List<float[]> freeCells = new ArrayList<float[]>();
+
+  public CoarseToFinePCFGParser(BinaryGrammar bg, UnaryGrammar ug, Lexicon lex, Options op, Index<String> stateIndex, Index<String> wordIndex, Index<String> tagIndex, ProjectedGrammar coarseGrammar) {
+    super(bg, ug, lex, op, stateIndex, wordIndex, tagIndex);
+    this.coarseGrammar = coarseGrammar;
+    coarseUG = coarseGrammar.targetUG();
+    numCoarseStates = coarseGrammar.numStates();
+    projection = new int[numStates];
+    for (int state = 0; state < numStates; state++) {
+      projection[state] = coarseGrammar.project(state);
+    }
+    pruningAllowed = ! op.testOptions.lengthNormalization && op.testOptions.maxSpanForTags <= 1;
+    allowedCoarse = new boolean[numCoarseStates];
+    allowedFine = new boolean[numStates];
+  }
+
+  private boolean pruning() {
+    return pruningAllowed && ! denseChart;
+  }
+
+  @Override
+  public boolean parse(Lattice lr) {
+    denseChart = true;
+    try {
+      if (iScore != null) {
+        allocateAllCells();
+      }
+      return super.parse(lr);
+    } finally {
+      denseChart = false;
+    }
+  }
+
+  @Override
+  protected void createArrays(int length) {
+    freeCells.clear();
+    prunedCell = new float[numStates];
+    Arrays.fill(prunedCell, Float.NEGATIVE_INFINITY);
+    super.createArrays(length);
+  }
+
+  @Override
+  public void releaseArrays() {
+    super.releaseArrays();
+    freeCells.clear();
+    coarseIScore = coarseOScore = null;
+    coarseArraySize = 0;
+  }
+
+  @Override
+  public long arrayBytes() {
+    return super.arrayBytes() + 8L * numCoarseStates * coarseArraySize * (coarseArraySize + 1) / 2;
+  }
+
+  /** Counts the arrays allocated for spans, including those in the pool. */
+  @Override
+  long chartCells() {
+    if (iScore == null) {
+      return 0;
+    }
+    long cells = freeCells.size();
+    for (int start = 0; start < iScore.length; start++) {
+      for (int end = start + 1; end < iScore[start].length; end++) {
+        if (iScore[start][end] != prunedCell) {
+          cells++;
+        }
+        if (oScore != null && oScore[start][end] != prunedCell) {
+          cells++;
+        }
+      }
+    }
+    return cells;
+  }
+
+  /** Allocates arrays only for single words.  The arrays of longer spans
+   *  are taken from the pool as they are needed.
+   */
+  @Override
+  float[][][] createChart(int length) {
+    if ( ! pruning()) {
+      return super.createChart(length);
+    }
+    float[][][] chart = new float[length][length + 1][];
+    for (int start = 0; start < length; start++) {
+      chart[start][start + 1] = new float[numStates];
+      for (int end = start + 2; end <= length; end++) {
+        chart[start][end] = prunedCell;
+      }
+    }
+    return chart;
+  }
+
+  /** Returns the arrays of spans longer than a word to the pool before
+   *  wiping the chart.
+   */
+  @Override
+  void wipeChart() {
+    if ( ! pruning()) {
+      super.wipeChart();
+      return;
+    }
+    for (int start = 0; start < iScore.length; start++) {
+      for (int end = start + 2; end < iScore[start].length; end++) {
+        releaseCell(iScore, start, end);
+        releaseCell(oScore, start, end);
+      }
+    }
+    for (int start = 0; start < length; start++) {
+      Arrays.fill(iScore[start][start + 1], Float.NEGATIVE_INFINITY);
+      if (oScore != null) {
+        Arrays.fill(oScore[start][start + 1], Float.NEGATIVE_INFINITY);
+      }
+    }
+  }
+
+  private void releaseCell(float[][][] chart, int start, int end) {
+    if (chart == null || chart[start][end] == prunedCell) {
+      return;
+    }
+    freeCells.add(chart[start][end]);
+    chart[start][end] = prunedCell;
+  }
+
+  private void allocateCell(int start, int end) {
+    if (iScore[start][end] == prunedCell) {
+      iScore[start][end] = newCell();
+    }
+    if (oScore != null && oScore[start][end] == prunedCell) {
+      oScore[start][end] = newCell();
+    }
+  }
+
+  private float[] newCell() {
+    float[] cell = freeCells.isEmpty() ? new float[numStates] : freeCells.remove(freeCells.size() - 1);
+    Arrays.fill(cell, Float.NEGATIVE_INFINITY);
+    return cell;
+  }
+
+  private void allocateAllCells() {
+    for (int start = 0; start < iScore.length; start++) {
+      for (int end = start + 2; end < iScore[start].length; end++) {
+        allocateCell(start, end);
+      }
+    }
+  }
+
+  @Override
+  void doInsideScores() {
+    cutoff = Float.NEGATIVE_INFINITY;
+    if ( ! pruning()) {
+      super.doInsideScores();
+      return;
+    }
+    if (length > coarseArraySize) {
+      createCoarseArrays(length);
+    }
+    int goal = stateIndex.indexOf(goalStr);
+    int coarseGoal = projection[goal];
+    doCoarseInsideScores();
+    float coarseBest = coarseIScore[0][length][coarseGoal];
+    allocateCell(0, length);
+    if (coarseBest == Float.NEGATIVE_INFINITY) {
+      // the coarse scores are upper bounds, so there is no parse
+      return;
+    }
+    doCoarseOutsideScores(coarseGoal);
+    cutoff = coarseBest + (float) op.testOptions.coarseToFineThreshold;
+
+    int spans = 0;
+    int built = 0;
+    for (int diff = 2; diff <= length; diff++) {
+      if (Thread.interrupted()) {
+        throw new RuntimeInterruptedException();
+      }
+      for (int start = 0; start < ((diff == length) ? 1: length - diff); start++) {
+        int end = start + diff;
+        spans++;
+        if (findAllowedStates(start, end)) {
+          allocateCell(start, end);
+          doInsideChartCell(diff, start);
+          built++;
+        }
+      }
+    }
+    if (op.testOptions.verbose) {
+      System.err.println("Coarse-to-fine parsing built " + built + " of " + spans + " spans");
+    }
+
+    if (iScore[0][length][goal] == Float.NEGATIVE_INFINITY) {
+      if (op.testOptions.verbose) {
+        System.err.println("Coarse-to-fine: pruned chart has no parse; parsing without pruning");
+      }
+      cutoff = Float.NEGATIVE_INFINITY;
+      for (int diff = 2; diff <= length; diff++) {
+        for (int start = 0; start < ((diff == length) ? 1: length - diff); start++) {
+          allocateCell(start, start + diff);
+        }
+      }
+      super.doInsideScores();
+    }
+  }
+
+  /** Marks the coarse states allowed over a span.
+   *
+   *  @return Whether any state is allowed over the span
+   */
+  private boolean findAllowedStates(int start, int end) {
+    float[] iS = coarseIScore[start][end];
+    float[] oS = coarseOScore[start][end];
+    boolean any = false;
+    for (int state = 0; state < numCoarseStates; state++) {
+      allowedCoarse[state] = iS[state] + oS[state] >= cutoff;
+      any |= allowedCoarse[state];
+    }
+    return any || (start == 0 && end == length);
+  }
+
+  /** The states whose coarse state was found allowed by the last call of
+   *  {@link #findAllowedStates}, which is for the span being built.
+   */
+  @Override
+  boolean[] allowedStates(int start, int end) {
+    if (cutoff == Float.NEGATIVE_INFINITY) {
+      return null;
+    }
+    for (int state = 0; state < numStates; state++) {
+      allowedFine[state] = allowedCoarse[projection[state]];
+    }
+    return allowedFine;
+  }
+
+  private void createCoarseArrays(int length) {
+    coarseIScore = new float[length][length + 1][];
+    coarseOScore = new float[length][length + 1][];
+    for (int start = 0; start < length; start++) {
+      for (int end = start + 1; end <= length; end++) {
+        coarseIScore[start][end] = new float[numCoarseStates];
+        coarseOScore[start][end] = new float[numCoarseStates];
+      }
+    }
+    coarseArraySize = length;
+  }
+
+  /** Fills in the coarse inside scores.  The scores of single words are
+   *  the best scores of the states of the full grammar, which have
+   *  already been found.  Constraints are not applied, as they only
+   *  remove parses.
+   */
+  private void doCoarseInsideScores() {
+    for (int start = 0; start < length; start++) {
+      for (int end = start + 1; end <= length; end++) {
+        Arrays.fill(coarseIScore[start][end], Float.NEGATIVE_INFINITY);
+      }
+    }
+    for (int start = 0; start < length; start++) {
+      float[] fine = iScore[start][start + 1];
+      float[] coarse = coarseIScore[start][start + 1];
+      for (int state = 0; state < numStates; state++) {
+        int coarseState = projection[state];
+        if (fine[state] > coarse[coarseState]) {
+          coarse[coarseState] = fine[state];
+        }
+      }
+    }
+    for (int diff = 2; diff <= length; diff++) {
+      for (int start = 0; start < ((diff == length) ? 1: length - diff); start++) {
+        int end = start + diff;
+        float[] iS = coarseIScore[start][end];
+        for (int split = start + 1; split < end; split++) {
+          float[] leftIS = coarseIScore[start][split];
+          float[] rightIS = coarseIScore[split][end];
+          for (int leftState = 0; leftState < numCoarseStates; leftState++) {
+            float lS = leftIS[leftState];
+            if (lS == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            for (BinaryRule rule : coarseGrammar.rulesWithLC(leftState)) {
+              float rS = rightIS[rule.rightChild];
+              if (rS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              float tot = lS + rS + rule.score;
+              if (tot > iS[rule.parent]) {
+                iS[rule.parent] = tot;
+              }
+            }
+          }
+        }
+        for (int state = 0; state < numCoarseStates; state++) {
+          float cS = iS[state];
+          if (cS == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          for (UnaryRule ur : coarseUG.closedRulesByChild(state)) {
+            float tot = cS + ur.score;
+            if (tot > iS[ur.parent]) {
+              iS[ur.parent] = tot;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /** Fills in the coarse outside scores of the spans which are part of
+   *  some coarse parse.
+   */
+  private void doCoarseOutsideScores(int coarseGoal) {
+    for (int start = 0; start < length; start++) {
+      for (int end = start + 1; end <= length; end++) {
+        Arrays.fill(coarseOScore[start][end], Float.NEGATIVE_INFINITY);
+      }
+    }
+    coarseOScore[0][length][coarseGoal] = 0.0f;
+    for (int diff = length; diff >= 2; diff--) {
+      for (int start = 0; start < ((diff == length) ? 1: length - diff); start++) {
+        int end = start + diff;
+        float[] iS = coarseIScore[start][end];
+        float[] oS = coarseOScore[start][end];
+        for (int state = 0; state < numCoarseStates; state++) {
+          float pS = oS[state];
+          if (pS == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          for (UnaryRule ur : coarseUG.closedRulesByParent(state)) {
+            if (iS[ur.child] == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            float tot = pS + ur.score;
+            if (tot > oS[ur.child]) {
+              oS[ur.child] = tot;
+            }
+          }
+        }
+        for (int split = start + 1; split < end; split++) {
+          float[] leftIS = coarseIScore[start][split];
+          float[] rightIS = coarseIScore[split][end];
+          float[] leftOS = coarseOScore[start][split];
+          float[] rightOS = coarseOScore[split][end];
+          for (int leftState = 0; leftState < numCoarseStates; leftState++) {
+            float lS = leftIS[leftState];
+            if (lS == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            for (BinaryRule rule : coarseGrammar.rulesWithLC(leftState)) {
+              float pS = oS[rule.parent];
+              if (pS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              float rS = rightIS[rule.rightChild];
+              if (rS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              float totL = pS + rule.score + rS;
+              if (totL > leftOS[leftState]) {
+                leftOS[leftState] = totL;
+              }
+              float totR = pS + rule.score + lS;
+              if (totR > rightOS[rule.rightChild]) {
+                rightOS[rule.rightChild] = totR;
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+}
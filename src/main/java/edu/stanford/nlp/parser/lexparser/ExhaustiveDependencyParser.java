@@ -772,11 +772,44 @@ public class ExhaustiveDependencyParser implements Scorer, KBestViterbiParser {
     tf = new LabeledScoredTreeFactory();
   }
 
-  private void createArrays(int length) {
+  private void clearArrays() {
     iScoreH = oScoreH = headStop = iScoreHSum = null;
     iPossibleByL = iPossibleByR = oPossibleByL = oPossibleByR = null;
     headScore = null;
     rawDistance = binDistance = null;
+  }
+
+  /** The size of the chart arrays: sentences of up to arraySize words
+   *  (including the boundary symbol) are parsed without making them again.
+   */
+  public int arraySize() {
+    return arraySize;
+  }
+
+  /** Approximately how many bytes the chart arrays take up. */
+  public long arrayBytes() {
+    if (arraySize == 0) {
+      return 0;
+    }
+    long tagNum = dg.numTagBins();
+    long spans = (long) (arraySize + 1) * (arraySize + 1);
+    long bytes = 4L * (iScoreHSum == null ? 3 : 4) * spans * tagNum; // iScoreH, oScoreH, headStop
+    bytes += 4L * spans * tagNum; // the four possible arrays, of booleans
+    bytes += 8L * spans; // the distances
+    bytes += 4L * dg.numDistBins() * arraySize * tagNum * arraySize * tagNum; // headScore
+    return bytes;
+  }
+
+  /** Drops the chart arrays, so that their memory can be reclaimed.
+   *  They are made again when the next sentence is parsed.
+   */
+  public void releaseArrays() {
+    clearArrays();
+    arraySize = 0;
+  }
+
+  private void createArrays(int length) {
+    clearArrays();
 
     int tagNum = dg.numTagBins(); //tagIndex.size();
 
@@ -84,6 +84,8 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
 
   protected int[][][] wordsInSpan; // number of words in span with this state
 
+  private float[] scoresBySplit; // [split]: the inside scores of one child state of a binary rule, used in doInsideChartCell
+
   protected boolean[][] oFilteredStart; // [start][state]; only used by unused outsideRuleFilter
   protected boolean[][] oFilteredEnd; // [end][state]; only used by unused outsideRuleFilter
 
@@ -419,17 +421,7 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
     if (Thread.interrupted()) {
       throw new RuntimeInterruptedException();
     }
-    for (int start = 0; start < length; start++) {
-      for (int end = start + 1; end <= length; end++) {
-        Arrays.fill(iScore[start][end], Float.NEGATIVE_INFINITY);
-        if (op.doDep && ! op.testOptions.useFastFactored) {
-          Arrays.fill(oScore[start][end], Float.NEGATIVE_INFINITY);
-        }
-        if (op.testOptions.lengthNormalization) {
-          Arrays.fill(wordsInSpan[start][end], 1);
-        }
-      }
-    }
+    wipeChart();
     if (Thread.interrupted()) {
       throw new RuntimeInterruptedException();
     }
@@ -830,6 +822,23 @@ oScore[split][end][br.rightChild] = totR;
     }
   }
 
+  /** Sets the inside and outside scores of every category over every span
+   *  to negative infinity, before the sentence is parsed.
+   */
+  void wipeChart() {
+    for (int start = 0; start < length; start++) {
+      for (int end = start + 1; end <= length; end++) {
+        Arrays.fill(iScore[start][end], Float.NEGATIVE_INFINITY);
+        if (op.doDep && ! op.testOptions.useFastFactored) {
+          Arrays.fill(oScore[start][end], Float.NEGATIVE_INFINITY);
+        }
+        if (op.testOptions.lengthNormalization) {
+          Arrays.fill(wordsInSpan[start][end], 1);
+        }
+      }
+    }
+  }
+
   /** Fills in the iScore array of each category over each span
    *  of length 2 or more.
    */
@@ -849,12 +858,22 @@ oScore[split][end][br.rightChild] = totR;
   } // end doInsideScores()
 
 
-  private void doInsideChartCell(final int diff, final int start) {
+  /** The states which may be built over a span by binary rules, indexed by
+   *  state, or null if any state may be.  Unary rules are not restricted, as
+   *  extractBestParse relies on the states of a unary chain all being built.
+   *  All states may be built unless a subclass prunes the chart.
+   */
+  boolean[] allowedStates(int start, int end) {
+    return null;
+  }
+
+  void doInsideChartCell(final int diff, final int start) {
     final boolean lengthNormalization = op.testOptions.lengthNormalization;
     if (spillGuts) {
       tick("Binaries for span " + diff + " start " + start + " ...");
     }
     int end = start + diff;
+    final boolean[] allowed = allowedStates(start, end);
 
     final List<ParserConstraint> constraints = getConstraints();
     if (constraints != null) {
@@ -874,16 +893,38 @@ oScore[split][end][br.rightChild] = totR;
     int[] wideLExtent_end = wideLExtent[end];
     float[][] iScore_start = iScore[start];
     float[] iScore_start_end = iScore_start[end];
+    // the rules are read from parallel arrays, and the scores of the child
+    // shared by the rules of a state are copied into scoresBySplit, so that
+    // the loop over split points reads one of its two scores sequentially
+    final float[] scoresBySplit = this.scoresBySplit;
+    final BinaryGrammar.CompiledRules rulesWithLC = bg.compiledRulesWithLC();
+    final int[] lcStarts = rulesWithLC.starts;
+    final int[] lcParents = rulesWithLC.parents;
+    final int[] lcRightChildren = rulesWithLC.children;
+    final float[] lcScores = rulesWithLC.scores;
 
     for (int leftState = 0; leftState < numStates; leftState++) {
       int narrowR = narrowRExtent_start[leftState];
       if (narrowR >= end) {  // can this left constituent leave space for a right constituent?
         continue;
       }
-      BinaryRule[] leftRules = bg.splitRulesWithLC(leftState);
-      //      if (spillGuts) System.out.println("Found " + leftRules.length + " left rules for state " + stateIndex.get(leftState));
-      for (BinaryRule rule : leftRules) {
-        int rightChild = rule.rightChild;
+      int firstRule = lcStarts[leftState];
+      int endRule = lcStarts[leftState + 1];
+      if (firstRule == endRule) {
+        continue;
+      }
+      // all the splits are gathered, as the extents of leftState change
+      // when it is also the parent of one of its rules
+      for (int split = narrowR; split < end; split++) {
+        scoresBySplit[split] = iScore_start[split][leftState];
+      }
+      //      if (spillGuts) System.out.println("Found " + (endRule - firstRule) + " left rules for state " + stateIndex.get(leftState));
+      for (int r = firstRule; r < endRule; r++) {
+        int parentState = lcParents[r];
+        if (allowed != null && ! allowed[parentState]) {
+          continue;
+        }
+        int rightChild = lcRightChildren[r];
         int narrowL = narrowLExtent_end[rightChild];
         if (narrowL < narrowR) { // can this right constituent fit next to the left constituent?
           continue;
@@ -899,14 +940,26 @@ oScore[split][end][br.rightChild] = totR;
         if (min > max) { // can this left constituent stretch far enough to reach the right constituent?
           continue;
         }
-        float pS = rule.score;
-        int parentState = rule.parent;
+        float pS = lcScores[r];
         float oldIScore = iScore_start_end[parentState];
         float bestIScore = oldIScore;
         boolean foundBetter;  // always set below for this rule
         //System.out.println("Min "+min+" max "+max+" start "+start+" end "+end);
 
-        if ( ! lengthNormalization) {
+        if ( ! lengthNormalization && constraints == null && ! spillGuts) {
+          // find the split that can use this rule to make the max score
+          for (int split = min; split <= max; split++) {
+            float lS = scoresBySplit[split];
+            if (lS == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            float tot = pS + lS + iScore[split][end][rightChild];
+            if (tot > bestIScore) {
+              bestIScore = tot;
+            }
+          } // for split point
+          foundBetter = bestIScore > oldIScore;
+        } else if ( ! lengthNormalization) {
           // find the split that can use this rule to make the max score
           for (int split = min; split <= max; split++) {
 
@@ -948,7 +1001,7 @@ oScore[split][end][br.rightChild] = totR;
               continue;
             }
             float tot = pS + lS + rS;
-            if (spillGuts) { System.err.println("Rule " + rule + " over [" + start + "," + end + ") has log score " + tot + " from L[" + stateIndex.get(leftState) + "=" + leftState + "] = "+ lS  + " R[" + stateIndex.get(rightChild) + "=" + rightChild + "] =  " + rS); }
+            if (spillGuts) { System.err.println("Rule " + stateIndex.get(parentState) + " -> " + stateIndex.get(leftState) + " " + stateIndex.get(rightChild) + " over [" + start + "," + end + ") has log score " + tot + " from L[" + stateIndex.get(leftState) + "=" + leftState + "] = "+ lS  + " R[" + stateIndex.get(rightChild) + "=" + rightChild + "] =  " + rS); }
             if (tot > bestIScore) {
               bestIScore = tot;
             }
@@ -1000,20 +1053,35 @@ oScore[split][end][br.rightChild] = totR;
             }
           }
         } // end if foundBetter
-      } // end for leftRules
+      } // end for rules with left child
     } // end for leftState
     // do right restricted rules
+    final BinaryGrammar.CompiledRules rulesWithRC = bg.compiledRulesWithRC();
+    final int[] rcStarts = rulesWithRC.starts;
+    final int[] rcParents = rulesWithRC.parents;
+    final int[] rcLeftChildren = rulesWithRC.children;
+    final float[] rcScores = rulesWithRC.scores;
     for (int rightState = 0; rightState < numStates; rightState++) {
       int narrowL = narrowLExtent_end[rightState];
       if (narrowL <= start) {
         continue;
       }
-      BinaryRule[] rightRules = bg.splitRulesWithRC(rightState);
-      //      if (spillGuts) System.out.println("Found " + rightRules.length + " right rules for state " + stateIndex.get(rightState));
-      for (BinaryRule rule : rightRules) {
-        //      if (spillGuts) System.out.println("Considering rule for " + start + " to " + end + ": " + rightRules[i]);
+      int firstRule = rcStarts[rightState];
+      int endRule = rcStarts[rightState + 1];
+      if (firstRule == endRule) {
+        continue;
+      }
+      for (int split = start + 1; split <= narrowL; split++) {
+        scoresBySplit[split] = iScore[split][end][rightState];
+      }
+      //      if (spillGuts) System.out.println("Found " + (endRule - firstRule) + " right rules for state " + stateIndex.get(rightState));
+      for (int r = firstRule; r < endRule; r++) {
+        int parentState = rcParents[r];
+        if (allowed != null && ! allowed[parentState]) {
+          continue;
+        }
 
-        int leftChild = rule.leftChild;
+        int leftChild = rcLeftChildren[r];
         int narrowR = narrowRExtent_start[leftChild];
         if (narrowR > narrowL) {
           continue;
@@ -1029,13 +1097,25 @@ oScore[split][end][br.rightChild] = totR;
         if (min > max) {
           continue;
         }
-        float pS = rule.score;
-        int parentState = rule.parent;
+        float pS = rcScores[r];
         float oldIScore = iScore_start_end[parentState];
         float bestIScore = oldIScore;
         boolean foundBetter; // always initialized below
         //System.out.println("Start "+start+" end "+end+" min "+min+" max "+max);
-        if ( ! lengthNormalization) {
+        if ( ! lengthNormalization && constraints == null && ! spillGuts) {
+          // find the split that can use this rule to make the max score
+          for (int split = min; split <= max; split++) {
+            float rS = scoresBySplit[split];
+            if (rS == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            float tot = pS + iScore_start[split][leftChild] + rS;
+            if (tot > bestIScore) {
+              bestIScore = tot;
+            }
+          } // end for split
+          foundBetter = bestIScore > oldIScore;
+        } else if ( ! lengthNormalization) {
           // find the split that can use this rule to make the max score
           for (int split = min; split <= max; split++) {
 
@@ -1130,7 +1210,7 @@ oScore[split][end][br.rightChild] = totR;
             }
           }
         } // end if foundBetter
-      } // for rightRules
+      } // for rules with right child
     } // for rightState
     if (spillGuts) {
       tick("Unaries for span " + diff + "...");
@@ -2169,6 +2249,43 @@ oScore[split][end][br.rightChild] = totR;
   }
 
 
+  /** The size of the chart arrays: sentences of up to arraySize words
+   *  (including the boundary symbol) are parsed without making them again.
+   */
+  public int arraySize() {
+    return arraySize;
+  }
+
+  /** Approximately how many bytes the chart arrays take up. */
+  public long arrayBytes() {
+    if (arraySize == 0) {
+      return 0;
+    }
+    // the four extent arrays, and the cells of the chart
+    return 16L * (arraySize + 1) * numStates + 4L * numStates * chartCells();
+  }
+
+  /** The number of arrays of numStates scores allocated for the chart. */
+  long chartCells() {
+    long cells = (long) arraySize * (arraySize + 1) / 2;
+    long total = cells;
+    if (oScore != null) {
+      total += cells;
+    }
+    if (wordsInSpan != null) {
+      total += cells;
+    }
+    return total;
+  }
+
+  /** Drops the chart arrays, so that their memory can be reclaimed.
+   *  They are made again when the next sentence is parsed.
+   */
+  public void releaseArrays() {
+    clearArrays();
+    arraySize = 0;
+  }
+
   public void nudgeDownArraySize() {
     try {
       if (arraySize > 2) {
@@ -2211,21 +2328,11 @@ oScore[split][end][br.rightChild] = totR;
     // allocate just the parts of iScore and oScore used (end > start, etc.)
     // todo: with some modifications to doInsideScores, we wouldn't need to allocate iScore[i,length] for i != 0 and i != length
     //    System.out.println("initializing iScore arrays with length " + length + " and numStates " + numStates);
-    iScore = new float[length][length + 1][];
-    for (int start = 0; start < length; start++) {
-      for (int end = start + 1; end <= length; end++) {
-        iScore[start][end] = new float[numStates];
-      }
-    }
+    iScore = createChart(length);
     //    System.out.println("finished initializing iScore arrays");
     if (op.doDep && !op.testOptions.useFastFactored) {
       //      System.out.println("initializing oScore arrays with length " + length + " and numStates " + numStates);
-      oScore = new float[length][length + 1][];
-      for (int start = 0; start < length; start++) {
-        for (int end = start + 1; end <= length; end++) {
-          oScore[start][end] = new float[numStates];
-        }
-      }
+      oScore = createChart(length);
       // System.out.println("finished initializing oScore arrays");
     }
     narrowRExtent = new int[length][numStates];
@@ -2239,6 +2346,7 @@ oScore[split][end][br.rightChild] = totR;
       oPossibleByR = new boolean[length + 1][numStates];
     }
     tags = new boolean[length][numTags];
+    scoresBySplit = new float[length + 1];
 
     if (op.testOptions.lengthNormalization) {
       wordsInSpan = new int[length][length + 1][];
@@ -2251,11 +2359,26 @@ oScore[split][end][br.rightChild] = totR;
     //    System.out.println("ExhaustivePCFGParser constructor finished.");
   }
 
+  /** Allocates an array of scores by state for each span of a chart of
+   *  this length (i.e., chart[start][end] for each end &gt; start).
+   */
+  float[][][] createChart(int length) {
+    float[][][] chart = new float[length][length + 1][];
+    for (int start = 0; start < length; start++) {
+      for (int end = start + 1; end <= length; end++) {
+        chart[start][end] = new float[numStates];
+      }
+    }
+    return chart;
+  }
+
   private void clearArrays() {
     iScore = oScore = null;
+    wordsInSpan = null;
     iPossibleByL = iPossibleByR = oPossibleByL = oPossibleByR = null;
     oFilteredEnd = oFilteredStart = null;
     tags = null;
+    scoresBySplit = null;
     narrowRExtent = wideRExtent = narrowLExtent = wideLExtent = null;
   }
 
@@ -102,6 +102,27 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
 
   public Reranker reranker; // = null;
 
+  /** The PCFG projected onto basic categories, for coarse-to-fine parsing.  Made when first needed. */
+  private transient volatile ProjectedGrammar coarseGrammar; // = null;
+
+  /**
+   * The PCFG projected onto basic categories, which is shared by the
+   * queries of this parser that parse coarse-to-fine.
+   */
+  ProjectedGrammar coarseGrammar() {
+    ProjectedGrammar grammar = coarseGrammar;
+    if (grammar == null || ! grammar.isFor(bg, ug)) {
+      synchronized (this) {
+        grammar = coarseGrammar;
+        if (grammar == null || ! grammar.isFor(bg, ug)) {
+          grammar = new ProjectedGrammar(bg, ug, stateIndex, treebankLanguagePack());
+          coarseGrammar = grammar;
+        }
+      }
+    }
+    return grammar;
+  }
+
   @Override
   public TreebankLangParserParams getTLPParams() { return op.tlpParams; }
 
@@ -291,8 +312,11 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
    * an X tree is returned instead of barfing.
    */
   public Tree parse(List<? extends HasWord> lst) {
+    return parse(lst, parserQuery());
+  }
+
+  private static Tree parse(List<? extends HasWord> lst, ParserQuery pq) {
     try {
-      ParserQuery pq = parserQuery();
       if (pq.parse(lst)) {
         Tree bestparse = pq.getBestParse();
         // -10000 denotes unknown words
@@ -310,22 +334,41 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
 
   public List<Tree> parseMultiple(final List<? extends List<? extends HasWord>> sentences) {
     List<Tree> trees = new ArrayList<Tree>();
+    ParserQueryPool pool = queryPool();
     for (List<? extends HasWord> sentence : sentences) {
-      trees.add(parse(sentence));
+      trees.add(parse(sentence, pool));
     }
     return trees;
   }
 
+  /** A pool of queries for parsing many sentences, or null if queries can't be reused. */
+  private ParserQueryPool queryPool() {
+    return (reranker == null) ? new ParserQueryPool(this, ParserQueryPool.DEFAULT_MEMORY_BUDGET) : null;
+  }
+
+  private Tree parse(List<? extends HasWord> sentence, ParserQueryPool pool) {
+    if (pool == null) {
+      return parse(sentence);
+    }
+    LexicalizedParserQuery pq = pool.acquire(sentence.size());
+    try {
+      return parse(sentence, pq);
+    } finally {
+      pool.release(pq);
+    }
+  }
+
   /**
    * Will launch multiple threads which calls <code>parse</code> on
    * each of the <code>sentences</code> in order, returning the
    * resulting parse trees in the same order.
    */
   public List<Tree> parseMultiple(final List<? extends List<? extends HasWord>> sentences, final int nthreads) {
+    final ParserQueryPool pool = queryPool();
     MulticoreWrapper<List<? extends HasWord>, Tree> wrapper = new MulticoreWrapper<List<? extends HasWord>, Tree>(nthreads, new ThreadsafeProcessor<List<? extends HasWord>, Tree>() {
         @Override
         public Tree process(List<? extends HasWord> sentence) {
-          return parse(sentence);
+          return parse(sentence, pool);
         }
         @Override
         public ThreadsafeProcessor<List<? extends HasWord>, Tree> newInstance() {
@@ -125,6 +125,8 @@ public class LexicalizedParserQuery implements ParserQuery {
     if (op.doPCFG) {
       if (op.testOptions.iterativeCKY) {
         pparser = new IterativeCKYPCFGParser(bg, ug, lex, op, stateIndex, wordIndex, tagIndex);
+      } else if (op.testOptions.coarseToFine) {
+        pparser = new CoarseToFinePCFGParser(bg, ug, lex, op, stateIndex, wordIndex, tagIndex, parser.coarseGrammar());
       } else {
         pparser = new ExhaustivePCFGParser(bg, ug, lex, op, stateIndex, wordIndex, tagIndex);
       }
@@ -652,6 +654,45 @@ public class LexicalizedParserQuery implements ParserQuery {
     return bparser;
   }
 
+  /** The length of the longest sentence that the charts of the parsers can
+   *  hold without being made again, or 0 if they haven't been made.
+   */
+  public int chartCapacity() {
+    int capacity = Integer.MAX_VALUE;
+    if (pparser != null) {
+      capacity = Math.min(capacity, pparser.arraySize());
+    }
+    if (dparser != null) {
+      capacity = Math.min(capacity, dparser.arraySize());
+    }
+    // one place is taken by the boundary symbol
+    return capacity == Integer.MAX_VALUE ? 0 : Math.max(capacity - 1, 0);
+  }
+
+  /** Approximately how many bytes the charts of the parsers take up. */
+  public long chartBytes() {
+    long bytes = 0;
+    if (pparser != null) {
+      bytes += pparser.arrayBytes();
+    }
+    if (dparser != null) {
+      bytes += dparser.arrayBytes();
+    }
+    return bytes;
+  }
+
+  /** Drops the charts of the parsers, so that their memory can be
+   *  reclaimed.  They are made again when the next sentence is parsed.
+   */
+  public void releaseCharts() {
+    if (pparser != null) {
+      pparser.releaseArrays();
+    }
+    if (dparser != null) {
+      dparser.releaseArrays();
+    }
+  }
+
   /** Adds a sentence final punctuation mark to sentences that lack one.
    *  This method adds a period (the first sentence final punctuation word
    *  in a parser language pack) to sentences that don't have one within
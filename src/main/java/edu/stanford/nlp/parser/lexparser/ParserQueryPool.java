@@ -0,0 +1,123 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pool of {@link LexicalizedParserQuery}s for one parser, so that the
+ * charts of a query can be reused from one sentence to the next rather than
+ * made again for each sentence, while bounding the memory kept in the charts
+ * of queries that aren't in use.
+ * <p>
+ * Idle queries are kept by the size class of their charts (for sentences of
+ * up to 16, 32, 64 or 128 words, or longer).  A sentence is given a query of
+ * its own size class if there is one, else one of a smaller class (whose
+ * charts grow), so short sentences are parsed with small charts and the
+ * charts made for long sentences are left idle.  When the charts of idle
+ * queries take more memory than the budget, the charts of queries in the
+ * largest classes are dropped first.  So a rare long sentence doesn't
+ * permanently enlarge the charts of every thread.
+ * <p>
+ * Each query taken with {@link #acquire} must be given back with
+ * {@link #release} and then not used.  A pool can be shared by threads.
+ */
+public class ParserQueryPool {
+
+  /** A default memory budget of 256 MB */
+  public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+
+  /** Sentences of up to SIZE_CLASS_LIMITS[i] words are in size class i; longer ones are in the last class */
+  private static final int[] SIZE_CLASS_LIMITS = { 16, 32, 64, 128 };
+
+  private final LexicalizedParser parser;
+  private final long memoryBudget;
+
+  /** Idle queries by size class of their charts, most recently used first.  Queries without charts are in class 0. */
+  private final List<Deque<LexicalizedParserQuery>> idle;
+  /** The chart bytes of each idle query */
+  private final Map<LexicalizedParserQuery,Long> idleChartBytes = new IdentityHashMap<LexicalizedParserQuery,Long>();
+  private long idleBytes = 0;
+
+  /**
+   * @param parser The parser to make queries of
+   * @param memoryBudget The most bytes to keep in the charts of idle queries.
+   *     If 0 or less, no charts are kept.
+   */
+  public ParserQueryPool(LexicalizedParser parser, long memoryBudget) {
+    this.parser = parser;
+    this.memoryBudget = memoryBudget;
+    idle = new ArrayList<Deque<LexicalizedParserQuery>>();
+    for (int i = 0; i <= SIZE_CLASS_LIMITS.length; i++) {
+      idle.add(new ArrayDeque<LexicalizedParserQuery>());
+    }
+  }
+
+  private static int sizeClass(int length) {
+    for (int i = 0; i < SIZE_CLASS_LIMITS.length; i++) {
+      if (length <= SIZE_CLASS_LIMITS[i]) {
+        return i;
+      }
+    }
+    return SIZE_CLASS_LIMITS.length;
+  }
+
+  /** Returns a query for parsing a sentence of this many words. */
+  public LexicalizedParserQuery acquire(int length) {
+    synchronized (this) {
+      for (int sizeClass = sizeClass(length); sizeClass >= 0; sizeClass--) {
+        LexicalizedParserQuery query = idle.get(sizeClass).pollFirst();
+        if (query != null) {
+          idleBytes -= idleChartBytes.remove(query);
+          return query;
+        }
+      }
+    }
+    return parser.lexicalizedParserQuery();
+  }
+
+  /** Gives back a query taken from this pool, which must then not be used. */
+  public void release(LexicalizedParserQuery query) {
+    long bytes = query.chartBytes();
+    if (bytes > memoryBudget) {
+      query.releaseCharts();
+      bytes = 0;
+    }
+    synchronized (this) {
+      idle.get(bytes == 0 ? 0 : sizeClass(query.chartCapacity())).addFirst(query);
+      idleChartBytes.put(query, bytes);
+      idleBytes += bytes;
+      // drop the charts of the largest, then least recently used, idle queries
+      List<LexicalizedParserQuery> emptied = new ArrayList<LexicalizedParserQuery>();
+      for (int sizeClass = idle.size() - 1; sizeClass >= 0 && idleBytes > memoryBudget; sizeClass--) {
+        for (Iterator<LexicalizedParserQuery> it = idle.get(sizeClass).descendingIterator(); it.hasNext() && idleBytes > memoryBudget; ) {
+          LexicalizedParserQuery idleQuery = it.next();
+          long idleQueryBytes = idleChartBytes.get(idleQuery);
+          if (idleQueryBytes == 0) {
+            continue;
+          }
+          idleQuery.releaseCharts();
+          idleChartBytes.put(idleQuery, 0L);
+          idleBytes -= idleQueryBytes;
+          if (sizeClass > 0) {
+            it.remove();
+            emptied.add(idleQuery);
+          }
+        }
+      }
+      for (LexicalizedParserQuery emptiedQuery : emptied) {
+        idle.get(0).addLast(emptiedQuery);
+      }
+    }
+  }
+
+  /** The bytes kept in the charts of idle queries. */
+  public synchronized long idleChartBytes() {
+    return idleBytes;
+  }
+
+}
@@ -0,0 +1,132 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.nlp.trees.TreebankLanguagePack;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/** A projection of a PCFG onto the basic categories of its states (as
+ *  given by {@link TreebankLanguagePack#basicCategory}), so that, for
+ *  instance, NP^S and NP^VP both become NP, and intermediate states of
+ *  binarization such as "@NP| DT JJ" become @NP.
+ *  <p>
+ *  Each rule of the projected grammar has the best score of the rules
+ *  that project onto it.  So the best projected parse over a span is at
+ *  least as good as the best parse over that span that projects onto it,
+ *  which lets the projected grammar be used to bound the scores of the
+ *  full grammar, as in {@link CoarseToFinePCFGParser}.
+ */
+class ProjectedGrammar implements GrammarProjection {
+
+  private final BinaryGrammar sourceBG;
+  private final UnaryGrammar sourceUG;
+  private final BinaryGrammar targetBG;
+  private final UnaryGrammar targetUG;
+  private final Index<String> targetIndex;
+
+  /** The projected state of each state of the source grammar */
+  private final int[] projection;
+
+  /** The binary rules of the projected grammar, by left child */
+  private final BinaryRule[][] rulesWithLC;
+
+  ProjectedGrammar(BinaryGrammar bg, UnaryGrammar ug, Index<String> stateIndex, TreebankLanguagePack tlp) {
+    sourceBG = bg;
+    sourceUG = ug;
+    int numStates = stateIndex.size();
+    projection = new int[numStates];
+    targetIndex = new HashIndex<String>();
+    for (int state = 0; state < numStates; state++) {
+      projection[state] = targetIndex.addToIndex(tlp.basicCategory(stateIndex.get(state)));
+    }
+
+    Map<UnaryRule,UnaryRule> unaries = Generics.newHashMap();
+    for (UnaryRule ur : ug.rules()) {
+      UnaryRule projected = new UnaryRule(projection[ur.parent], projection[ur.child], ur.score);
+      if (projected.parent == projected.child) {
+        continue;
+      }
+      UnaryRule best = unaries.get(projected);
+      if (best == null) {
+        unaries.put(projected, projected);
+      } else if (projected.score > best.score) {
+        best.score = projected.score;
+      }
+    }
+    targetUG = new UnaryGrammar(targetIndex);
+    for (UnaryRule ur : unaries.keySet()) {
+      targetUG.addRule(ur);
+    }
+    targetUG.purgeRules();
+
+    Map<BinaryRule,BinaryRule> binaries = Generics.newHashMap();
+    for (BinaryRule br : bg.rules()) {
+      BinaryRule projected = new BinaryRule(projection[br.parent], projection[br.leftChild], projection[br.rightChild], br.score);
+      BinaryRule best = binaries.get(projected);
+      if (best == null) {
+        binaries.put(projected, projected);
+      } else if (projected.score > best.score) {
+        best.score = projected.score;
+      }
+    }
+    targetBG = new BinaryGrammar(targetIndex);
+    for (BinaryRule br : binaries.keySet()) {
+      targetBG.addRule(br);
+    }
+    targetBG.splitRules();
+
+    rulesWithLC = new BinaryRule[targetIndex.size()][];
+    for (int state = 0; state < rulesWithLC.length; state++) {
+      List<BinaryRule> rules = targetBG.ruleListByLeftChild(state);
+      rulesWithLC[state] = rules.toArray(new BinaryRule[rules.size()]);
+    }
+  }
+
+  /** Whether this is the projection of these grammars. */
+  boolean isFor(BinaryGrammar bg, UnaryGrammar ug) {
+    return sourceBG == bg && sourceUG == ug;
+  }
+
+  /** The number of states of the projected grammar. */
+  int numStates() {
+    return targetIndex.size();
+  }
+
+  Index<String> targetIndex() {
+    return targetIndex;
+  }
+
+  /** All the binary rules of the projected grammar with this left child. */
+  BinaryRule[] rulesWithLC(int state) {
+    return rulesWithLC[state];
+  }
+
+  @Override
+  public int project(int state) {
+    return projection[state];
+  }
+
+  @Override
+  public UnaryGrammar sourceUG() {
+    return sourceUG;
+  }
+
+  @Override
+  public BinaryGrammar sourceBG() {
+    return sourceBG;
+  }
+
+  @Override
+  public UnaryGrammar targetUG() {
+    return targetUG;
+  }
+
+  @Override
+  public BinaryGrammar targetBG() {
+    return targetBG;
+  }
+
+}
@@ -65,6 +65,21 @@ public class TestOptions implements Serializable {
   /** If true, use faster iterative deepening CKY algorithm. */
   public boolean iterativeCKY = false;
 
+  /**
+   * If true, first parse with the PCFG projected onto basic categories, and
+   * then only build the states of the full PCFG that could be part of a
+   * good coarse parse.  See {@link CoarseToFinePCFGParser}.
+   */
+  public boolean coarseToFine = false;
+
+  /**
+   * When parsing coarse-to-fine, states are pruned from a span if the best
+   * coarse parse using their basic category over that span has a log
+   * probability more than this far below the best coarse parse.
+   * A more negative threshold prunes less.
+   */
+  public double coarseToFineThreshold = -10.0;
+
   /**
    * The maximum sentence length (including punctuation, etc.) to parse.
    */
@@ -5,6 +5,7 @@ import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.concurrent.MulticoreWrapper;
 import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -705,6 +706,120 @@ public class Classifier {
     return scores;
   }
 
+  /**
+   * Scratch space for {@link #computeScores(Classifier.ScoreBuffers, int)},
+   * sized for a maximum batch. A single instance can be reused for
+   * every transition of a parse, so that scoring a batch allocates
+   * nothing; it must not be shared between threads.
+   */
+  static class ScoreBuffers {
+
+    /** Row {@code b} holds the feature vector of the {@code b}-th configuration in the batch */
+    final int[][] features;
+
+    /** Row {@code b} receives the output layer values for the {@code b}-th configuration */
+    final double[][] scores;
+
+    private final double[][] hidden;
+
+    // (row, feature position) pairs whose activations are not in the saved table
+    private final int[] missedRows;
+    private final int[] missedPositions;
+
+    ScoreBuffers(int capacity, int numTokens, int hiddenSize, int numLabels) {
+      features = new int[capacity][numTokens];
+      scores = new double[capacity][numLabels];
+      hidden = new double[capacity][hiddenSize];
+      missedRows = new int[capacity * numTokens];
+      missedPositions = new int[capacity * numTokens];
+    }
+
+    int capacity() {
+      return features.length;
+    }
+  }
+
+  /**
+   * Create scratch space for scoring batches of up to {@code capacity}
+   * configurations at once.
+   */
+  ScoreBuffers newScoreBuffers(int capacity) {
+    return new ScoreBuffers(capacity, config.numTokens, config.hiddenSize, numLabels);
+  }
+
+  /**
+   * Feed the first {@code batchSize} feature vectors in
+   * {@code buffers.features} forward through the network, leaving the
+   * output layer values in the corresponding rows of
+   * {@code buffers.scores}.
+   * <p>
+   * This computes the same function as {@link #computeScores(int[])},
+   * but treats the batch as one matrix: the saved activations are
+   * gathered first, and the remaining features are multiplied through
+   * {@code W1} and {@code W2} one weight row at a time across the
+   * whole batch, so each row is brought into cache once per batch
+   * rather than once per configuration.  As the hidden layer terms are
+   * added in a different order, the scores may differ from those of
+   * {@link #computeScores(int[])} in the last bits.
+   */
+  void computeScores(ScoreBuffers buffers, int batchSize) {
+    int[][] features = buffers.features;
+    double[][] hidden = buffers.hidden;
+    int numMissed = 0;
+
+    for (int b = 0; b < batchSize; ++b) {
+      int[] feature = features[b];
+      double[] h = hidden[b];
+      Arrays.fill(h, 0, config.hiddenSize, 0.0);
+      for (int j = 0; j < feature.length; ++j) {
+        Integer id = preMap.get(feature[j] * config.numTokens + j);
+        if (id != null) {
+          double[] s = saved[id];
+          for (int i = 0; i < config.hiddenSize; ++i)
+            h[i] += s[i];
+        } else {
+          buffers.missedRows[numMissed] = b;
+          buffers.missedPositions[numMissed] = j;
+          ++numMissed;
+        }
+      }
+    }
+
+    for (int i = 0; i < config.hiddenSize; ++i) {
+      double[] w = W1[i];
+      for (int m = 0; m < numMissed; ++m) {
+        int b = buffers.missedRows[m];
+        int j = buffers.missedPositions[m];
+        double[] e = E[features[b][j]];
+        int offset = j * config.embeddingSize;
+        double sum = 0.0;
+        for (int k = 0; k < config.embeddingSize; ++k)
+          sum += w[offset + k] * e[k];
+        hidden[b][i] += sum;
+      }
+    }
+
+    for (int b = 0; b < batchSize; ++b) {
+      double[] h = hidden[b];
+      for (int i = 0; i < config.hiddenSize; ++i) {
+        h[i] += b1[i];
+        h[i] = h[i] * h[i] * h[i];  // cube nonlinearity
+      }
+    }
+
+    double[][] scores = buffers.scores;
+    for (int i = 0; i < numLabels; ++i) {
+      double[] w = W2[i];
+      for (int b = 0; b < batchSize; ++b) {
+        double[] h = hidden[b];
+        double sum = 0.0;
+        for (int j = 0; j < config.hiddenSize; ++j)
+          sum += w[j] * h[j];
+        scores[b][i] = sum;
+      }
+    }
+  }
+
   public double[][] getW1() {
     return W1;
   }
@@ -0,0 +1,162 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import java.util.List;
+
+/**
+ * Receives the features produced by a {@link FeatureFactory}.
+ * <br>
+ * Each feature is described piece by piece, as in
+ * <code>collector.start("S0WT-").append(word).append('-').append(tag).finish()</code>,
+ * rather than as one concatenated String.  This lets the parser
+ * decide what a feature becomes: the training code keeps the
+ * Strings, while the parsing code only needs a hash of each feature
+ * and so never has to build the String at all.
+ *
+ * @see StringFeatureCollector
+ * @see HashedFeatureCollector
+ */
+public abstract class FeatureCollector {
+  /** Begins a new feature whose text starts with <code>prefix</code> */
+  public abstract FeatureCollector start(String prefix);
+
+  /** Appends more text to the current feature */
+  public abstract FeatureCollector append(String piece);
+
+  /** Appends one character to the current feature */
+  public abstract FeatureCollector append(char c);
+
+  /** Appends the String value of <code>piece</code> to the current feature */
+  public FeatureCollector append(Object piece) {
+    return append(String.valueOf(piece));
+  }
+
+  /** Completes the current feature */
+  public abstract void finish();
+
+  /** Adds a feature which is known in its entirety */
+  public void add(String feature) {
+    start(feature).finish();
+  }
+
+
+  /**
+   * Collects features as Strings in the given list.
+   */
+  public static class StringFeatureCollector extends FeatureCollector {
+    private final List<String> features;
+    private final StringBuilder current = new StringBuilder();
+
+    public StringFeatureCollector(List<String> features) {
+      this.features = features;
+    }
+
+    @Override
+    public FeatureCollector start(String prefix) {
+      current.setLength(0);
+      current.append(prefix);
+      return this;
+    }
+
+    @Override
+    public FeatureCollector append(String piece) {
+      current.append(piece);
+      return this;
+    }
+
+    @Override
+    public FeatureCollector append(char c) {
+      current.append(c);
+      return this;
+    }
+
+    @Override
+    public void finish() {
+      features.add(current.toString());
+    }
+
+    @Override
+    public void add(String feature) {
+      features.add(feature);
+    }
+  }
+
+
+  /**
+   * Collects the 64-bit FNV-1a hash of each feature's text without
+   * building the text.  The hash of a feature collected piece by
+   * piece is the same as {@link #hash(String)} of the whole String,
+   * so these hashes can be looked up in a table built from the
+   * String features of a trained model.
+   */
+  public static class HashedFeatureCollector extends FeatureCollector {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long[] hashes;
+    private int size;
+    private long current;
+
+    public HashedFeatureCollector() {
+      this(200);
+    }
+
+    public HashedFeatureCollector(int initialCapacity) {
+      hashes = new long[initialCapacity];
+    }
+
+    /** The hash {@link HashedFeatureCollector} produces for the given feature */
+    public static long hash(String feature) {
+      return extend(FNV_OFFSET_BASIS, feature);
+    }
+
+    private static long extend(long hash, String piece) {
+      for (int i = 0, length = piece.length(); i < length; ++i) {
+        hash = (hash ^ piece.charAt(i)) * FNV_PRIME;
+      }
+      return hash;
+    }
+
+    @Override
+    public FeatureCollector start(String prefix) {
+      current = extend(FNV_OFFSET_BASIS, prefix);
+      return this;
+    }
+
+    @Override
+    public FeatureCollector append(String piece) {
+      current = extend(current, piece);
+      return this;
+    }
+
+    @Override
+    public FeatureCollector append(char c) {
+      current = (current ^ c) * FNV_PRIME;
+      return this;
+    }
+
+    @Override
+    public void finish() {
+      if (size == hashes.length) {
+        long[] newHashes = new long[hashes.length * 2];
+        System.arraycopy(hashes, 0, newHashes, 0, size);
+        hashes = newHashes;
+      }
+      hashes[size++] = current;
+    }
+
+    /** Number of features collected so far */
+    public int size() {
+      return size;
+    }
+
+    /** The hash of the i-th feature collected */
+    public long get(int i) {
+      return hashes[i];
+    }
+
+    /** Forgets all collected features so that the collector can be reused */
+    public void clear() {
+      size = 0;
+    }
+  }
+}
@@ -14,7 +14,18 @@ public abstract class FeatureFactory implements Serializable {
     return featurize(state, Generics.<String>newArrayList(200));
   }
 
-  abstract public List<String> featurize(State state, List<String> features);
+  public List<String> featurize(State state, List<String> features) {
+    featurize(state, new FeatureCollector.StringFeatureCollector(features));
+    return features;
+  }
+
+  /**
+   * Describes the features of the given state to the collector.
+   * Subclasses should pass features to the collector in pieces
+   * rather than concatenating them, since the parser only needs
+   * hashes of the features and will not build the Strings.
+   */
+  abstract public void featurize(State state, FeatureCollector features);
 
   enum Transition {
     LEFT, RIGHT, UNARY
@@ -0,0 +1,70 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import java.util.Map;
+
+/**
+ * A read-only view of a perceptron's feature weights keyed by the
+ * 64-bit hash of each feature (see
+ * {@link FeatureCollector.HashedFeatureCollector}) instead of the
+ * feature String.  The table uses open addressing with linear
+ * probing over parallel arrays, so a lookup costs no allocation and
+ * no String hashing or comparison.
+ * <br>
+ * The Weight objects are shared with the map the table was built
+ * from, so updates to existing weights are visible here, but
+ * features added to or removed from the map are not.
+ * <br>
+ * Two different features with the same 64-bit hash would share a
+ * weight; with the few million features of even a large model this
+ * is vanishingly unlikely.
+ */
+class HashedWeights {
+  private final long[] keys;
+  private final Weight[] values;
+  private final int mask;
+
+  /** The map this table was built from, and its size at the time */
+  final Map<String, Weight> source;
+  final int sourceSize;
+
+  HashedWeights(Map<String, Weight> featureWeights) {
+    int capacity = Integer.highestOneBit(Math.max(featureWeights.size(), 1) * 2 - 1) << 1;
+    keys = new long[capacity];
+    values = new Weight[capacity];
+    mask = capacity - 1;
+
+    for (Map.Entry<String, Weight> entry : featureWeights.entrySet()) {
+      long key = FeatureCollector.HashedFeatureCollector.hash(entry.getKey());
+      int slot = slot(key);
+      while (values[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      values[slot] = entry.getValue();
+    }
+
+    this.source = featureWeights;
+    this.sourceSize = featureWeights.size();
+  }
+
+  private int slot(long key) {
+    // the low bits of FNV are weak, so mix the high bits in
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return (int) key & mask;
+  }
+
+  /** The weight of the feature with the given hash, or null if the feature is unknown */
+  Weight get(long key) {
+    int slot = slot(key);
+    Weight value;
+    while ((value = values[slot]) != null) {
+      if (keys[slot] == key) {
+        return value;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+}
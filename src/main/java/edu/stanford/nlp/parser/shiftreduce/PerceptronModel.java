@@ -35,6 +35,13 @@ public class PerceptronModel extends BaseModel { // Serializable
   Map<String, Weight> featureWeights;
   final FeatureFactory featureFactory;
 
+  /**
+   * The feature weights keyed by feature hash, used when parsing.
+   * Built lazily, and rebuilt whenever featureWeights is replaced or
+   * changes size, as happens during training.
+   */
+  private transient volatile HashedWeights hashedWeights;
+
   public PerceptronModel(ShiftReduceOptions op, Index<Transition> transitionIndex,
                          Set<String> knownStates, Set<String> rootStates, Set<String> rootOnlyStates) {
     super(op, transitionIndex, knownStates, rootStates, rootOnlyStates);
@@ -195,10 +202,37 @@ public class PerceptronModel extends BaseModel { // Serializable
     return transitions.iterator().next();
   }
 
+  private HashedWeights hashedWeights() {
+    HashedWeights weights = hashedWeights;
+    if (weights == null || weights.source != featureWeights || weights.sourceSize != featureWeights.size()) {
+      weights = new HashedWeights(featureWeights);
+      hashedWeights = weights;
+    }
+    return weights;
+  }
+
+  /**
+   * Scores the transitions from the given state using hashed
+   * features, so that no feature Strings are built or hashed.  This
+   * is the path used when parsing; training needs the feature
+   * Strings for its updates and so featurizes them explicitly.
+   */
   @Override
   public Collection<ScoredObject<Integer>> findHighestScoringTransitions(State state, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints) {
-    List<String> features = featureFactory.featurize(state);
-    return findHighestScoringTransitions(state, features, requireLegal, numTransitions, constraints);
+    FeatureCollector.HashedFeatureCollector features = new FeatureCollector.HashedFeatureCollector();
+    featureFactory.featurize(state, features);
+
+    HashedWeights weights = hashedWeights();
+    float[] scores = new float[transitionIndex.size()];
+    for (int i = 0; i < features.size(); ++i) {
+      Weight weight = weights.get(features.get(i));
+      if (weight == null) {
+        // Features not in our index are ignored
+        continue;
+      }
+      weight.score(scores);
+    }
+    return bestTransitions(state, scores, requireLegal, numTransitions, constraints);
   }
 
   private Collection<ScoredObject<Integer>> findHighestScoringTransitions(State state, List<String> features, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints) {
@@ -211,7 +245,10 @@ public class PerceptronModel extends BaseModel { // Serializable
       }
       weight.score(scores);
     }
+    return bestTransitions(state, scores, requireLegal, numTransitions, constraints);
+  }
 
+  private Collection<ScoredObject<Integer>> bestTransitions(State state, float[] scores, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints) {
     PriorityQueue<ScoredObject<Integer>> queue = new PriorityQueue<ScoredObject<Integer>>(numTransitions + 1, ScoredComparator.ASCENDING_COMPARATOR);
     for (int i = 0; i < scores.length; ++i) {
       if (!requireLegal || transitionIndex.get(i).isLegal(state, constraints)) {
@@ -27,16 +27,13 @@ public class AnnotationPipeline implements Annotator {
   protected static final boolean TIME = true;
 
   private final List<Annotator> annotators;
-  private List<MutableLong> accumulatedTime;
+  private final PipelineMetrics metrics = new PipelineMetrics();
+  private final List<AnnotatorMetrics> annotatorMetrics = new ArrayList<AnnotatorMetrics>();
 
   public AnnotationPipeline(List<Annotator> annotators) {
     this.annotators = annotators;
-    if (TIME) {
-      int num = annotators.size();
-      accumulatedTime = new ArrayList<MutableLong>(num);
-      for (int i = 0; i < num; i++) {
-        accumulatedTime.add(new MutableLong());
-      }
+    for (Annotator annotator : annotators) {
+      annotatorMetrics.add(metrics.add(StringUtils.getShortClassName(annotator)));
     }
   }
 
@@ -45,10 +42,26 @@ public class AnnotationPipeline implements Annotator {
   }
 
   public void addAnnotator(Annotator annotator) {
+    addAnnotator(StringUtils.getShortClassName(annotator), annotator);
+  }
+
+  /**
+   * Adds an annotator to the end of the pipeline.
+   *
+   * @param name The name its {@link AnnotatorMetrics} are reported under
+   * @param annotator The annotator
+   */
+  public void addAnnotator(String name, Annotator annotator) {
     annotators.add(annotator);
-    if (TIME) {
-      accumulatedTime.add(new MutableLong());
-    }
+    annotatorMetrics.add(metrics.add(name));
+  }
+
+  /**
+   * Returns the running documents, sentences, tokens, time, allocation and
+   * failure counts of each annotator in this pipeline.
+   */
+  public PipelineMetrics metrics() {
+    return metrics;
   }
 
   /**
@@ -56,20 +69,19 @@ public class AnnotationPipeline implements Annotator {
    * The annotation is modified in place.
    *
    * @param annotation The input annotation, usually a raw document
+   * @throws RuntimeInterruptedException If the thread is interrupted; the
+   *     annotation is then left with the annotators run so far
    */
   @Override
   public void annotate(Annotation annotation) {
-    Iterator<MutableLong> it = accumulatedTime.iterator();
-    Timing t = new Timing();
-    for (Annotator annotator : annotators) {
-      if (TIME) {
-        t.start();
+    for (int i = 0, sz = annotators.size(); i < sz; i++) {
+      if (Thread.interrupted()) {
+        throw new RuntimeInterruptedException();
       }
-      annotator.annotate(annotation);
       if (TIME) {
-        long elapsed = t.stop();
-        MutableLong m = it.next();
-        m.incValue(elapsed);
+        annotatorMetrics.get(i).annotate(annotators.get(i), annotation);
+      } else {
+        annotators.get(i).annotate(annotation);
       }
     }
   }
@@ -168,10 +180,10 @@ public class AnnotationPipeline implements Annotator {
    */
   protected long getTotalTime() {
     long total = 0;
-    for (MutableLong m: accumulatedTime) {
-      total += m.longValue();
+    for (AnnotatorMetrics m : annotatorMetrics) {
+      total += m.getTotalTimeNanos();
     }
-    return total;
+    return total / 1000000;
   }
 
   /** Return a String that gives detailed human-readable information about
@@ -186,13 +198,12 @@ public class AnnotationPipeline implements Annotator {
     StringBuilder sb = new StringBuilder();
     if (TIME) {
       sb.append("Annotation pipeline timing information:\n");
-      Iterator<MutableLong> it = accumulatedTime.iterator();
       long total = 0;
-      for (Annotator annotator : annotators) {
-        MutableLong m = it.next();
-        sb.append(StringUtils.getShortClassName(annotator)).append(": ");
-        sb.append(Timing.toSecondsString(m.longValue())).append(" sec.\n");
-        total += m.longValue();
+      for (int i = 0, sz = annotators.size(); i < sz; i++) {
+        long millis = annotatorMetrics.get(i).getTotalTimeNanos() / 1000000;
+        sb.append(StringUtils.getShortClassName(annotators.get(i))).append(": ");
+        sb.append(Timing.toSecondsString(millis)).append(" sec.\n");
+        total += millis;
       }
       sb.append("TOTAL: ").append(Timing.toSecondsString(total)).append(" sec.");
     }
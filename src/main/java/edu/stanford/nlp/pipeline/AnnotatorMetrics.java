@@ -0,0 +1,272 @@
+package edu.stanford.nlp.pipeline;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+
+/**
+ * Running counters for one annotator in an {@link AnnotationPipeline}:
+ * documents, sentences and tokens processed, wall time (total, maximum and a
+ * histogram), bytes allocated, calls that threw, and sentences that a
+ * {@link SentenceAnnotator} had to give up on.
+ * <p>
+ * All counters are updated without locking and may be read at any time while
+ * the pipeline is running, either directly, through {@link #snapshot()}, or
+ * over JMX (see {@link PipelineMetrics#registerMBeans(String)}).  Allocation is
+ * measured for the thread that calls the annotator, so the work of worker
+ * threads started by multithreaded annotators is not included.
+ *
+ * @see PipelineMetrics
+ */
+public class AnnotatorMetrics implements AnnotatorMetricsMXBean {
+
+  /** Upper bounds, in milliseconds, of all but the last wall time histogram bucket. */
+  private static final long[] HISTOGRAM_BOUNDS_MILLIS =
+      { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000 };
+
+  private static final ThreadLocal<AnnotatorMetrics> current = new ThreadLocal<AnnotatorMetrics>();
+
+  private static final com.sun.management.ThreadMXBean allocationBean = allocationBean();
+
+  private final String name;
+
+  private final LongAdder documents = new LongAdder();
+  private final LongAdder sentences = new LongAdder();
+  private final LongAdder tokens = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder failedSentences = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final LongAdder allocatedBytes = new LongAdder();
+  private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BOUNDS_MILLIS.length + 1);
+
+  public AnnotatorMetrics(String name) {
+    this.name = name;
+  }
+
+  private static com.sun.management.ThreadMXBean allocationBean() {
+    try {
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+          return sunBean;
+        }
+      }
+    } catch (LinkageError e) {
+      // not a HotSpot-compatible JVM: allocation is not measured
+    }
+    return null;
+  }
+
+  /** Bytes allocated so far by the current thread, or -1 if unavailable. */
+  static long currentThreadAllocatedBytes() {
+    return allocationBean == null ? -1 : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Runs {@code annotator} on {@code annotation}, recording it against these
+   * metrics.  While it runs, these metrics are the current thread's
+   * {@linkplain #recordFailedSentence() failure target}.
+   */
+  void annotate(Annotator annotator, Annotation annotation) {
+    AnnotatorMetrics outer = current.get();
+    current.set(this);
+    long startBytes = currentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    boolean ok = false;
+    try {
+      annotator.annotate(annotation);
+      ok = true;
+    } finally {
+      long elapsed = System.nanoTime() - start;
+      long endBytes = currentThreadAllocatedBytes();
+      current.set(outer);
+      record(annotation, elapsed, startBytes >= 0 ? endBytes - startBytes : -1, ok);
+    }
+  }
+
+  private void record(CoreMap annotation, long elapsedNanos, long bytes, boolean ok) {
+    documents.increment();
+    if ( ! ok) {
+      failures.increment();
+    }
+    List<CoreMap> sentenceList = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+    if (sentenceList != null) {
+      sentences.add(sentenceList.size());
+    }
+    List<?> tokenList = annotation.get(CoreAnnotations.TokensAnnotation.class);
+    if (tokenList != null) {
+      tokens.add(tokenList.size());
+    }
+    totalNanos.add(elapsedNanos);
+    long max;
+    while (elapsedNanos > (max = maxNanos.get()) && ! maxNanos.compareAndSet(max, elapsedNanos)) {
+      // retry until we have set a new maximum or another thread set a larger one
+    }
+    if (bytes >= 0) {
+      allocatedBytes.add(bytes);
+    }
+    histogram.incrementAndGet(bucket(elapsedNanos / 1000000));
+  }
+
+  /** The histogram bucket of a wall time. */
+  static int bucket(long millis) {
+    int i = Arrays.binarySearch(HISTOGRAM_BOUNDS_MILLIS, millis);
+    return i >= 0 ? i : -i - 1;
+  }
+
+  /**
+   * Counts a sentence that the annotator currently running on this thread
+   * could not process, e.g. because it timed out.  Called by
+   * {@link SentenceAnnotator}; does nothing outside a metered pipeline.
+   */
+  static void recordFailedSentence() {
+    AnnotatorMetrics metrics = current.get();
+    if (metrics != null) {
+      metrics.failedSentences.increment();
+    }
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public long getDocuments() {
+    return documents.sum();
+  }
+
+  @Override
+  public long getSentences() {
+    return sentences.sum();
+  }
+
+  @Override
+  public long getTokens() {
+    return tokens.sum();
+  }
+
+  @Override
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  @Override
+  public long getFailedSentences() {
+    return failedSentences.sum();
+  }
+
+  /** Total wall time in nanoseconds. */
+  public long getTotalTimeNanos() {
+    return totalNanos.sum();
+  }
+
+  @Override
+  public double getTotalTimeMillis() {
+    return totalNanos.sum() / 1e6;
+  }
+
+  @Override
+  public double getMeanTimeMillis() {
+    long docs = documents.sum();
+    return docs == 0 ? 0.0 : totalNanos.sum() / 1e6 / docs;
+  }
+
+  @Override
+  public double getMaxTimeMillis() {
+    return maxNanos.get() / 1e6;
+  }
+
+  @Override
+  public long getAllocatedBytes() {
+    return allocationBean == null ? -1 : allocatedBytes.sum();
+  }
+
+  @Override
+  public long[] getTimeHistogramBoundsMillis() {
+    return HISTOGRAM_BOUNDS_MILLIS.clone();
+  }
+
+  @Override
+  public long[] getTimeHistogram() {
+    long[] counts = new long[histogram.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = histogram.get(i);
+    }
+    return counts;
+  }
+
+  /** Zeroes all counters.  Updates racing with the reset may be partly lost. */
+  @Override
+  public void reset() {
+    documents.reset();
+    sentences.reset();
+    tokens.reset();
+    failures.reset();
+    failedSentences.reset();
+    totalNanos.reset();
+    maxNanos.set(0);
+    allocatedBytes.reset();
+    for (int i = 0; i < histogram.length(); i++) {
+      histogram.set(i, 0);
+    }
+  }
+
+  /** Returns a consistent-enough copy of the current values, for pushing to a {@link PipelineMetrics.Sink}. */
+  public Snapshot snapshot() {
+    return new Snapshot(this);
+  }
+
+  @Override
+  public String toString() {
+    return name + ": " + getDocuments() + " docs, " + getSentences() + " sentences, " + getTokens() + " tokens in " +
+        String.format("%.1f", getTotalTimeMillis()) + " ms (max " + String.format("%.1f", getMaxTimeMillis()) + " ms), " +
+        getFailures() + " failures, " + getFailedSentences() + " failed sentences";
+  }
+
+
+  /** An immutable copy of an {@link AnnotatorMetrics}. */
+  public static class Snapshot {
+
+    public final String name;
+    public final long timestamp;
+    public final long documents;
+    public final long sentences;
+    public final long tokens;
+    public final long failures;
+    public final long failedSentences;
+    public final long totalTimeNanos;
+    public final long maxTimeNanos;
+    public final long allocatedBytes;
+    public final long[] timeHistogram;
+
+    private Snapshot(AnnotatorMetrics metrics) {
+      name = metrics.name;
+      timestamp = System.currentTimeMillis();
+      documents = metrics.getDocuments();
+      sentences = metrics.getSentences();
+      tokens = metrics.getTokens();
+      failures = metrics.getFailures();
+      failedSentences = metrics.getFailedSentences();
+      totalTimeNanos = metrics.getTotalTimeNanos();
+      maxTimeNanos = metrics.maxNanos.get();
+      allocatedBytes = metrics.getAllocatedBytes();
+      timeHistogram = metrics.getTimeHistogram();
+    }
+
+    /** Upper bounds of the {@link #timeHistogram} buckets; the last bucket is unbounded. */
+    public static long[] timeHistogramBoundsMillis() {
+      return HISTOGRAM_BOUNDS_MILLIS.clone();
+    }
+
+  }
+
+}
@@ -0,0 +1,41 @@
+package edu.stanford.nlp.pipeline;
+
+/**
+ * The JMX view of one annotator's {@link AnnotatorMetrics}.
+ *
+ * @see PipelineMetrics#registerMBeans(String)
+ */
+public interface AnnotatorMetricsMXBean {
+
+  String getName();
+
+  long getDocuments();
+
+  long getSentences();
+
+  long getTokens();
+
+  /** Calls to the annotator that threw an exception. */
+  long getFailures();
+
+  /** Sentences that a {@link SentenceAnnotator} gave up on, usually because they timed out. */
+  long getFailedSentences();
+
+  double getTotalTimeMillis();
+
+  double getMeanTimeMillis();
+
+  double getMaxTimeMillis();
+
+  /** Bytes allocated by the annotating threads, or -1 if the JVM cannot measure it. */
+  long getAllocatedBytes();
+
+  /** Upper bounds of the wall time histogram buckets; the last bucket is unbounded. */
+  long[] getTimeHistogramBoundsMillis();
+
+  /** Number of documents whose wall time fell in each histogram bucket. */
+  long[] getTimeHistogram();
+
+  void reset();
+
+}
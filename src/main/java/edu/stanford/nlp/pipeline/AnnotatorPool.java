@@ -39,7 +39,7 @@ public class AnnotatorPool {
    * @param factory A factory that creates an instance of the desired Annotator.
    * @return true if a new annotator was created; false if we reuse an existing one
    */
-  public boolean register(String name, AnnotatorFactory factory) {
+  public synchronized boolean register(String name, AnnotatorFactory factory) {
     boolean newAnnotator = false;
     if (this.factories.containsKey(name)) {
       AnnotatorFactory oldFactory = this.factories.get(name);
@@ -67,6 +67,14 @@ public class AnnotatorPool {
     return newAnnotator;
   }
 
+  /**
+   * Whether an Annotator of this name has been registered, so that it can be
+   * retrieved with {@link #get(String)}.
+   */
+  public synchronized boolean hasAnnotator(String name) {
+    return factories.containsKey(name);
+  }
+
   /**
    * Retrieve an Annotator from the pool. If the named Annotator has not yet
    * been requested, it will be created. Otherwise, the existing instance of
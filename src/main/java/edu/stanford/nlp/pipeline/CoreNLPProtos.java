@@ -321,8 +321,16 @@ public final class CoreNLPProtos {
     // Use Document.newBuilder() to construct.
     private Document(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Document(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Document(boolean noInit) {}
     
     private static final Document defaultInstance;
     public static Document getDefaultInstance() {
@@ -2008,8 +2016,16 @@ public final class CoreNLPProtos {
     // Use Sentence.newBuilder() to construct.
     private Sentence(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Sentence(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Sentence(boolean noInit) {}
     
     private static final Sentence defaultInstance;
     public static Sentence getDefaultInstance() {
@@ -5147,8 +5163,16 @@ public final class CoreNLPProtos {
     // Use Token.newBuilder() to construct.
     private Token(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Token(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Token(boolean noInit) {}
     
     private static final Token defaultInstance;
     public static Token getDefaultInstance() {
@@ -8203,8 +8227,16 @@ public final class CoreNLPProtos {
     // Use Quote.newBuilder() to construct.
     private Quote(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Quote(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Quote(boolean noInit) {}
     
     private static final Quote defaultInstance;
     public static Quote getDefaultInstance() {
@@ -9065,8 +9097,16 @@ public final class CoreNLPProtos {
     // Use ParseTree.newBuilder() to construct.
     private ParseTree(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private ParseTree(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private ParseTree(boolean noInit) {}
     
     private static final ParseTree defaultInstance;
     public static ParseTree getDefaultInstance() {
@@ -9945,8 +9985,16 @@ public final class CoreNLPProtos {
     // Use DependencyGraph.newBuilder() to construct.
     private DependencyGraph(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private DependencyGraph(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private DependencyGraph(boolean noInit) {}
     
     private static final DependencyGraph defaultInstance;
     public static DependencyGraph getDefaultInstance() {
@@ -9988,8 +10036,16 @@ public final class CoreNLPProtos {
       // Use Node.newBuilder() to construct.
       private Node(Builder builder) {
         super(builder);
+        this.unknownFields = builder.getUnknownFields();
+      }
+      private Node(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+      
+      private final com.google.protobuf.UnknownFieldSet unknownFields;
+      @java.lang.Override
+      public final com.google.protobuf.UnknownFieldSet
+          getUnknownFields() {
+        return this.unknownFields;
       }
-      private Node(boolean noInit) {}
       
       private static final Node defaultInstance;
       public static Node getDefaultInstance() {
@@ -10472,8 +10528,16 @@ public final class CoreNLPProtos {
       // Use Edge.newBuilder() to construct.
       private Edge(Builder builder) {
         super(builder);
+        this.unknownFields = builder.getUnknownFields();
+      }
+      private Edge(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+      
+      private final com.google.protobuf.UnknownFieldSet unknownFields;
+      @java.lang.Override
+      public final com.google.protobuf.UnknownFieldSet
+          getUnknownFields() {
+        return this.unknownFields;
       }
-      private Edge(boolean noInit) {}
       
       private static final Edge defaultInstance;
       public static Edge getDefaultInstance() {
@@ -12114,8 +12178,16 @@ public final class CoreNLPProtos {
     // Use CorefChain.newBuilder() to construct.
     private CorefChain(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private CorefChain(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private CorefChain(boolean noInit) {}
     
     private static final CorefChain defaultInstance;
     public static CorefChain getDefaultInstance() {
@@ -12185,8 +12257,16 @@ public final class CoreNLPProtos {
       // Use CorefMention.newBuilder() to construct.
       private CorefMention(Builder builder) {
         super(builder);
+        this.unknownFields = builder.getUnknownFields();
+      }
+      private CorefMention(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+      
+      private final com.google.protobuf.UnknownFieldSet unknownFields;
+      @java.lang.Override
+      public final com.google.protobuf.UnknownFieldSet
+          getUnknownFields() {
+        return this.unknownFields;
       }
-      private CorefMention(boolean noInit) {}
       
       private static final CorefMention defaultInstance;
       public static CorefMention getDefaultInstance() {
@@ -13787,8 +13867,16 @@ public final class CoreNLPProtos {
     // Use Span.newBuilder() to construct.
     private Span(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Span(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Span(boolean noInit) {}
     
     private static final Span defaultInstance;
     public static Span getDefaultInstance() {
@@ -14218,8 +14306,16 @@ public final class CoreNLPProtos {
     // Use Timex.newBuilder() to construct.
     private Timex(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Timex(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Timex(boolean noInit) {}
     
     private static final Timex defaultInstance;
     public static Timex getDefaultInstance() {
@@ -15099,8 +15195,16 @@ public final class CoreNLPProtos {
     // Use Entity.newBuilder() to construct.
     private Entity(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Entity(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Entity(boolean noInit) {}
     
     private static final Entity defaultInstance;
     public static Entity getDefaultInstance() {
@@ -16224,8 +16328,16 @@ public final class CoreNLPProtos {
     // Use Relation.newBuilder() to construct.
     private Relation(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Relation(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Relation(boolean noInit) {}
     
     private static final Relation defaultInstance;
     public static Relation getDefaultInstance() {
@@ -17368,8 +17480,16 @@ public final class CoreNLPProtos {
     // Use Operator.newBuilder() to construct.
     private Operator(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Operator(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Operator(boolean noInit) {}
     
     private static final Operator defaultInstance;
     public static Operator getDefaultInstance() {
@@ -18141,8 +18261,16 @@ public final class CoreNLPProtos {
     // Use Polarity.newBuilder() to construct.
     private Polarity(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private Polarity(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private Polarity(boolean noInit) {}
     
     private static final Polarity defaultInstance;
     public static Polarity getDefaultInstance() {
@@ -18941,8 +19069,16 @@ public final class CoreNLPProtos {
     // Use NERMention.newBuilder() to construct.
     private NERMention(Builder builder) {
       super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private NERMention(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
     }
-    private NERMention(boolean noInit) {}
     
     private static final NERMention defaultInstance;
     public static NERMention getDefaultInstance() {
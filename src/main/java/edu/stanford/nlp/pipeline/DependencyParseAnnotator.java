@@ -1,5 +1,6 @@
 package edu.stanford.nlp.pipeline;
 
+import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.parser.nndep.DependencyParser;
 import edu.stanford.nlp.semgraph.SemanticGraph;
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
@@ -37,6 +38,15 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
    */
   private final GrammaticalStructure.Extras extraDependencies;
 
+  /**
+   * Number of sentences which are parsed together, sharing each pass
+   * through the parser's network.  A batch size of 1 parses sentences
+   * one at a time, which is the only mode that honors
+   * <code>testThreads</code> and <code>sentenceTimeout</code>.
+   */
+  private final int batchSize;
+  private static final int DEFAULT_BATCH_SIZE = 1;
+
   public DependencyParseAnnotator() {
     this(new Properties());
   }
@@ -48,6 +58,21 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
     nThreads = PropertiesUtils.getInt(properties, "testThreads", DEFAULT_NTHREADS);
     maxTime = PropertiesUtils.getLong(properties, "sentenceTimeout", DEFAULT_MAXTIME);
     extraDependencies = MetaClass.cast(properties.getProperty("extradependencies", "NONE"), GrammaticalStructure.Extras.class);
+    batchSize = PropertiesUtils.getInt(properties, "batchSize", DEFAULT_BATCH_SIZE);
+  }
+
+  @Override
+  public void annotate(Annotation annotation) {
+    if (batchSize <= 1 || ! annotation.containsKey(CoreAnnotations.SentencesAnnotation.class)) {
+      super.annotate(annotation);
+      return;
+    }
+
+    List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+    List<GrammaticalStructure> parses = parser.predictAll(sentences, batchSize);
+    for (int i = 0; i < sentences.size(); i++) {
+      setDependencies(sentences.get(i), parses.get(i));
+    }
   }
 
   @Override
@@ -62,8 +87,15 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
 
   @Override
   protected void doOneSentence(Annotation annotation, CoreMap sentence) {
-    GrammaticalStructure gs = parser.predict(sentence);
+    setDependencies(sentence, parser.predict(sentence));
+  }
 
+  private void setDependencies(CoreMap sentence, GrammaticalStructure gs) {
+    setDependencies(sentence, gs, extraDependencies);
+  }
+
+  /** Puts the dependency graphs of a parse in the CoreMap for the sentence. */
+  static void setDependencies(CoreMap sentence, GrammaticalStructure gs, GrammaticalStructure.Extras extraDependencies) {
     SemanticGraph deps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.COLLAPSED, extraDependencies, true, null),
                   uncollapsedDeps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.BASIC, extraDependencies, true, null),
                   ccDeps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.CCPROCESSED, extraDependencies, true, null);
@@ -71,7 +103,6 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
     sentence.set(SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation.class, deps);
     sentence.set(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class, uncollapsedDeps);
     sentence.set(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class, ccDeps);
-
   }
 
   @Override
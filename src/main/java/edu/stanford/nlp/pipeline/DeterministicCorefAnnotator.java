@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import edu.stanford.nlp.dcoref.Constants;
 import edu.stanford.nlp.dcoref.CorefChain;
@@ -31,6 +32,7 @@ import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.IntTuple;
 import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.PropertiesUtils;
+import edu.stanford.nlp.util.concurrent.ParallelLoop;
 
 /**
  * Implements the Annotator for the new deterministic coreference resolution system.
@@ -52,12 +54,17 @@ public class DeterministicCorefAnnotator implements Annotator {
 
   private final boolean allowReparsing;
 
+  /** The pool in which the sentences of a document are processed, or null to process them serially */
+  private final ForkJoinPool pool;
+
   public DeterministicCorefAnnotator(Properties props) {
     try {
       corefSystem = new SieveCoreferenceSystem(props);
       mentionExtractor = new MentionExtractor(corefSystem.dictionaries(), corefSystem.semantics());
       OLD_FORMAT = Boolean.parseBoolean(props.getProperty("oldCorefFormat", "false"));
       allowReparsing = PropertiesUtils.getBool(props, Constants.ALLOW_REPARSING_PROP, Constants.ALLOW_REPARSING);
+      pool = ParallelLoop.sharedPool(PropertiesUtils.getInt(props, Constants.THREADS_PROP, 1));
+      mentionExtractor.setThreadPool(pool);
     } catch (Exception e) {
       System.err.println("ERROR: cannot create DeterministicCorefAnnotator!");
       e.printStackTrace();
@@ -112,7 +119,7 @@ public class DeterministicCorefAnnotator implements Annotator {
 
       // extract all possible mentions
       // this is created for each new annotation because it is not threadsafe
-      RuleBasedCorefMentionFinder finder = new RuleBasedCorefMentionFinder(allowReparsing);
+      RuleBasedCorefMentionFinder finder = new RuleBasedCorefMentionFinder(allowReparsing, pool);
       List<List<Mention>> allUnprocessedMentions = finder.extractPredictedMentions(annotation, 0, corefSystem.dictionaries());
 
       // add the relevant info to mentions and order them for coref
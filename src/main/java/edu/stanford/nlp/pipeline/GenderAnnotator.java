@@ -10,6 +10,7 @@ import edu.stanford.nlp.ie.machinereading.structure.MachineReadingAnnotations;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.SharedResources;
 import edu.stanford.nlp.util.Timing;
 
 /**
@@ -29,8 +30,12 @@ public class GenderAnnotator implements Annotator {
     this(false, DefaultPaths.DEFAULT_GENDER_FIRST_NAMES);
   }
 
+  /**
+   * The classifier for a mapping is loaded once and shared by all
+   * GenderAnnotators using that mapping.
+   */
   public GenderAnnotator(boolean verbose, String mapping) {
-    classifier = new RegexNERSequenceClassifier(mapping, true, true);
+    classifier = SharedResources.get("gender.mapping", mapping, path -> new RegexNERSequenceClassifier(path, true, true));
     this.verbose = verbose;
   }
 
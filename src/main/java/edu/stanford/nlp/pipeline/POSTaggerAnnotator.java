@@ -78,6 +78,13 @@ public class POSTaggerAnnotator implements Annotator {
     this.maxSentenceLength = PropertiesUtils.getInt(props, annotatorName + ".maxlen", Integer.MAX_VALUE);
     this.nThreads = PropertiesUtils.getInt(props, annotatorName + ".nthreads", PropertiesUtils.getInt(props, "nthreads", 1));
     this.reuseTags = PropertiesUtils.getBool(props, annotatorName + ".reuseTags", false);
+    // Share local word scores across sentences and documents, optionally
+    // precomputing them for the most frequent words in the tagger's dictionary
+    int cacheSize = PropertiesUtils.getInt(props, annotatorName + ".sharedCache", 0);
+    if (cacheSize > 0) {
+      pos.enableLocalScoreCache(cacheSize);
+      pos.warmUpLocalScoreCache(PropertiesUtils.getInt(props, annotatorName + ".cacheWarmup", 0));
+    }
   }
 
   public static String signature(Properties props) {
@@ -85,7 +92,9 @@ public class POSTaggerAnnotator implements Annotator {
             "pos.verbose:" + PropertiesUtils.getBool(props, "pos.verbose") + 
             "pos.reuseTags:" + PropertiesUtils.getBool(props, "pos.reuseTags") + 
             "pos.model:" + props.getProperty("pos.model", DefaultPaths.DEFAULT_POS_MODEL) +
-            "pos.nthreads:" + props.getProperty("pos.nthreads", props.getProperty("nthreads", "")));
+            "pos.nthreads:" + props.getProperty("pos.nthreads", props.getProperty("nthreads", "")) +
+            "pos.sharedCache:" + props.getProperty("pos.sharedCache", "") +
+            "pos.cacheWarmup:" + props.getProperty("pos.cacheWarmup", ""));
   }
 
   private static MaxentTagger loadModel(String loc, boolean verbose) {
@@ -1,8 +1,11 @@
 package edu.stanford.nlp.pipeline;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
@@ -14,7 +17,10 @@ import edu.stanford.nlp.parser.common.ParserGrammar;
 import edu.stanford.nlp.parser.common.ParserQuery;
 import edu.stanford.nlp.parser.common.ParserUtils;
 import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParserQuery;
+import edu.stanford.nlp.parser.lexparser.ParserQueryPool;
 import edu.stanford.nlp.parser.lexparser.TreeBinarizer;
+import edu.stanford.nlp.parser.nndep.DependencyParser;
 import edu.stanford.nlp.trees.*;
 import edu.stanford.nlp.util.*;
 
@@ -30,6 +36,30 @@ import java.util.function.Function;
  * Parse trees are added to each sentence's CoreMap (get with
  * {@code CoreAnnotations.SentencesAnnotation}) under
  * {@code CoreAnnotations.TreeAnnotation}).
+ * <br>
+ * If the .routes property is set, each sentence is parsed by one of
+ * several parsers, chosen by the length of the sentence and the
+ * .timeBudget property (in milliseconds) by a {@link ParserRouter}.
+ * For instance, with
+ * <pre>
+ * parse.routes = pcfg,sr,nndep
+ * parse.route.pcfg.maxlen = 40
+ * parse.route.sr.model = edu/stanford/nlp/models/srparser/englishSR.ser.gz
+ * parse.route.sr.maxlen = 100
+ * parse.route.nndep.type = dependency
+ * parse.timeBudget = 500
+ * </pre>
+ * sentences of up to 40 words are parsed with the parser of the .model
+ * property, if it is expected to take at most 500 ms, longer ones (or
+ * ones the first parser is too slow for) of up to 100 words with the
+ * shift-reduce parser, and the rest only get dependencies, from the
+ * neural dependency parser.  Each route has .model, .flags and .maxlen
+ * properties, which default to the annotator's model and flags and no
+ * limit, and a .type of constituency (the default) or dependency.
+ * Other properties of a dependency route are given to its parser.
+ * The annotator's own model is only loaded if a route uses it; otherwise
+ * the first constituency route's parser gives the language pack for the
+ * grammatical structures.
  *
  * @author Jenny Finkel
  */
@@ -37,7 +67,14 @@ public class ParserAnnotator extends SentenceAnnotator {
 
   private final boolean VERBOSE;
   private final boolean BUILD_GRAPHS;
+  /** The parser of the .model property.  Null if there are routes and none of them uses it. */
   private final ParserGrammar parser;
+  /**
+   * The parser whose language pack makes the grammatical structures, and
+   * binarizes the flat trees of sentences no parser parsed: {@link #parser},
+   * or without it the first constituency route's.  Null if there is none.
+   */
+  private final ParserGrammar grammarParser;
 
   private final Function<Tree, Tree> treeMap;
 
@@ -60,6 +97,16 @@ public class ParserAnnotator extends SentenceAnnotator {
   private final boolean noSquash;
   private final GrammaticalStructure.Extras extraDependencies;
 
+  /**
+   * Queries whose charts are reused between sentences, keeping at most
+   * the .chartMemory property's megabytes of charts while idle.
+   * Null if the parser's queries aren't pooled.
+   */
+  private final ParserQueryPool queryPool;
+
+  /** Picks the parser for each sentence.  Null if the .routes property isn't set. */
+  private final ParserRouter router;
+
   public ParserAnnotator(boolean verbose, int maxSent) {
     this(System.getProperty("parse.model", LexicalizedParser.DEFAULT_PARSER_LOC), verbose, maxSent, StringUtils.EMPTY_STRING_ARRAY);
   }
@@ -79,6 +126,7 @@ public class ParserAnnotator extends SentenceAnnotator {
     VERBOSE = verbose;
     this.BUILD_GRAPHS = parser.getTLPParams().supportsBasicDependencies();
     this.parser = parser;
+    this.grammarParser = parser;
     this.maxSentenceLength = maxSent;
     this.treeMap = treeMap;
     this.maxParseTime = 0;
@@ -93,6 +141,8 @@ public class ParserAnnotator extends SentenceAnnotator {
     this.saveBinaryTrees = false;
     this.noSquash = false;
     this.extraDependencies = GrammaticalStructure.Extras.NONE;
+    this.queryPool = queryPool(parser, ParserQueryPool.DEFAULT_MEMORY_BUDGET);
+    this.router = null;
   }
 
 
@@ -103,8 +153,19 @@ public class ParserAnnotator extends SentenceAnnotator {
     }
     this.VERBOSE = PropertiesUtils.getBool(props, annotatorName + ".debug", false);
 
-    String[] flags = convertFlagsToArray(props.getProperty(annotatorName + ".flags"));
-    this.parser = loadModel(model, VERBOSE, flags);
+    String flagsProperty = props.getProperty(annotatorName + ".flags");
+    long chartMemory = PropertiesUtils.getLong(props, annotatorName + ".chartMemory", ParserQueryPool.DEFAULT_MEMORY_BUDGET >> 20);
+    String[] routeNames = routeNames(annotatorName, props);
+    // with routes, the model is only loaded if one of them parses with it
+    if (routeNames.length == 0 || routesUseModel(annotatorName, props, routeNames, model, flagsProperty)) {
+      this.parser = loadModel(model, VERBOSE, convertFlagsToArray(flagsProperty));
+      this.queryPool = queryPool(parser, chartMemory << 20);
+    } else {
+      this.parser = null;
+      this.queryPool = null;
+    }
+    this.router = (routeNames.length == 0) ? null : router(annotatorName, props, routeNames, model, flagsProperty, chartMemory << 20);
+    this.grammarParser = (parser != null) ? parser : firstConstituencyParser(router);
     this.maxSentenceLength = PropertiesUtils.getInt(props, annotatorName + ".maxlen", -1);
 
     String treeMapClass = props.getProperty(annotatorName + ".treemap");
@@ -117,9 +178,12 @@ public class ParserAnnotator extends SentenceAnnotator {
     this.maxParseTime = PropertiesUtils.getLong(props, annotatorName + ".maxtime", -1);
 
     String buildGraphsProperty = annotatorName + ".buildgraphs";
-    if (!this.parser.getTLPParams().supportsBasicDependencies()) {
+    if (grammarParser == null) {
+      // only dependency routes, which give their own dependencies
+      this.BUILD_GRAPHS = false;
+    } else if (!this.grammarParser.getTLPParams().supportsBasicDependencies()) {
       if (props.getProperty(buildGraphsProperty) != null && PropertiesUtils.getBool(props, buildGraphsProperty)) {
-        System.err.println("WARNING: " + buildGraphsProperty + " set to true, but " + this.parser.getTLPParams().getClass() + " does not support dependencies");
+        System.err.println("WARNING: " + buildGraphsProperty + " set to true, but " + this.grammarParser.getTLPParams().getClass() + " does not support dependencies");
       }
       this.BUILD_GRAPHS = false;
     } else {
@@ -128,10 +192,10 @@ public class ParserAnnotator extends SentenceAnnotator {
 
     if (this.BUILD_GRAPHS) {
       boolean generateOriginalDependencies = PropertiesUtils.getBool(props, annotatorName + ".originalDependencies", false);
-      parser.getTLPParams().setGenerateOriginalDependencies(generateOriginalDependencies);
-      TreebankLanguagePack tlp = parser.getTLPParams().treebankLanguagePack();
+      grammarParser.getTLPParams().setGenerateOriginalDependencies(generateOriginalDependencies);
+      TreebankLanguagePack tlp = grammarParser.getTLPParams().treebankLanguagePack();
       // TODO: expose keeping punctuation as an option to the user?
-      this.gsf = tlp.grammaticalStructureFactory(tlp.punctuationWordRejectFilter(), parser.getTLPParams().typedDependencyHeadFinder());
+      this.gsf = tlp.grammaticalStructureFactory(tlp.punctuationWordRejectFilter(), grammarParser.getTLPParams().typedDependencyHeadFinder());
     } else {
       this.gsf = null;
     }
@@ -139,10 +203,83 @@ public class ParserAnnotator extends SentenceAnnotator {
     this.nThreads = PropertiesUtils.getInt(props, annotatorName + ".nthreads", PropertiesUtils.getInt(props, "nthreads", 1));
     boolean usesBinary = StanfordCoreNLP.usesBinaryTrees(props);
     this.saveBinaryTrees = PropertiesUtils.getBool(props, annotatorName + ".binaryTrees", usesBinary);
+    if (saveBinaryTrees && grammarParser == null) {
+      throw new IllegalArgumentException("Annotator " + annotatorName + " can't make binary trees without a constituency parser route");
+    }
     this.noSquash = PropertiesUtils.getBool(props, annotatorName + ".nosquash", false);
     this.extraDependencies = MetaClass.cast(props.getProperty(annotatorName + ".extradependencies", "NONE"), GrammaticalStructure.Extras.class);
   }
 
+  /** The names of the routes of the .routes property, or none if it isn't set. */
+  private static String[] routeNames(String annotatorName, Properties props) {
+    String routeNames = props.getProperty(annotatorName + ".routes");
+    if (routeNames == null || routeNames.trim().isEmpty()) {
+      return StringUtils.EMPTY_STRING_ARRAY;
+    }
+    return routeNames.trim().split("[\\s,]+");
+  }
+
+  /** Whether a constituency route parses with the annotator's own model and flags. */
+  private static boolean routesUseModel(String annotatorName, Properties props, String[] routeNames, String model, String flagsProperty) {
+    for (String name : routeNames) {
+      String prefix = annotatorName + ".route." + name + '.';
+      if (props.getProperty(prefix + "type", "constituency").equalsIgnoreCase("constituency") &&
+          props.getProperty(prefix + "model", model).equals(model) &&
+          Objects.equals(props.getProperty(prefix + "flags", flagsProperty), flagsProperty)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ParserGrammar firstConstituencyParser(ParserRouter router) {
+    for (ParserRouter.Route route : router.routes()) {
+      if (route.parser() != null) {
+        return route.parser();
+      }
+    }
+    return null;
+  }
+
+  private ParserRouter router(String annotatorName, Properties props, String[] routeNames, String model, String flagsProperty, long chartMemory) {
+    List<ParserRouter.Route> routes = new ArrayList<ParserRouter.Route>();
+    for (String name : routeNames) {
+      String prefix = annotatorName + ".route." + name + '.';
+      int maxLength = PropertiesUtils.getInt(props, prefix + "maxlen", -1);
+      String type = props.getProperty(prefix + "type", "constituency");
+      if (type.equalsIgnoreCase("dependency")) {
+        String routeModel = props.getProperty(prefix + "model", DependencyParser.DEFAULT_MODEL);
+        DependencyParser dependencyParser = DependencyParser.loadFromModelFile(routeModel, PropertiesUtils.extractPrefixedProperties(props, prefix));
+        routes.add(new ParserRouter.Route(name, maxLength, dependencyParser));
+      } else if (type.equalsIgnoreCase("constituency")) {
+        String routeModel = props.getProperty(prefix + "model", model);
+        String routeFlags = props.getProperty(prefix + "flags", flagsProperty);
+        if (routeModel.equals(model) && Objects.equals(routeFlags, flagsProperty)) {
+          // loaded by the constructor, as routesUseModel found this route
+          routes.add(new ParserRouter.Route(name, maxLength, parser, queryPool));
+        } else {
+          ParserGrammar routeParser = loadModel(routeModel, VERBOSE, convertFlagsToArray(routeFlags));
+          routes.add(new ParserRouter.Route(name, maxLength, routeParser, queryPool(routeParser, chartMemory)));
+        }
+      } else {
+        throw new IllegalArgumentException("Unknown type " + type + " for parser route " + name + " of annotator " + annotatorName);
+      }
+    }
+    return new ParserRouter(routes, PropertiesUtils.getLong(props, annotatorName + ".timeBudget", 0));
+  }
+
+  /** The router that picks the parser for each sentence, with the latency statistics of each parser, or null if there is only one parser. */
+  public ParserRouter getRouter() {
+    return router;
+  }
+
+  private static ParserQueryPool queryPool(ParserGrammar parser, long memoryBudget) {
+    if (parser instanceof LexicalizedParser && ((LexicalizedParser) parser).reranker == null) {
+      return new ParserQueryPool((LexicalizedParser) parser, memoryBudget);
+    }
+    return null;
+  }
+
   public static String signature(String annotatorName, Properties props) {
     StringBuilder os = new StringBuilder();
     os.append(annotatorName + ".model:" +
@@ -168,6 +305,17 @@ public class ParserAnnotator extends SentenceAnnotator {
       props.getProperty(annotatorName + ".nosquash", "false"));
     os.append(annotatorName + ".extradependencies:" +
         props.getProperty(annotatorName + ".extradependences", "NONE").toLowerCase());
+    os.append(annotatorName + ".chartMemory:" +
+        props.getProperty(annotatorName + ".chartMemory", ""));
+    os.append(annotatorName + ".routes:" +
+        props.getProperty(annotatorName + ".routes", ""));
+    os.append(annotatorName + ".timeBudget:" +
+        props.getProperty(annotatorName + ".timeBudget", "0"));
+    for (String key : new TreeSet<String>(props.stringPropertyNames())) {
+      if (key.startsWith(annotatorName + ".route.")) {
+        os.append(key + ':' + props.getProperty(key));
+      }
+    }
     boolean usesBinary = StanfordCoreNLP.usesBinaryTrees(props);
     boolean saveBinaryTrees = PropertiesUtils.getBool(props, annotatorName + ".binaryTrees", usesBinary);
     os.append(annotatorName + ".binaryTrees:" + saveBinaryTrees);
@@ -229,7 +377,11 @@ public class ParserAnnotator extends SentenceAnnotator {
     if (maxSentenceLength <= 0 || words.size() <= maxSentenceLength) {
       try {
         final List<ParserConstraint> constraints = sentence.get(ParserAnnotations.ConstraintAnnotation.class);
-        tree = doOneSentence(constraints, words);
+        if (router == null) {
+          tree = doOneSentence(constraints, words, parser, queryPool);
+        } else if (doRoutedSentence(sentence, constraints, words)) {
+          return;
+        }
       } catch (RuntimeInterruptedException e) {
         if (VERBOSE) {
           System.err.println("Took too long parsing: " + words);
@@ -242,7 +394,7 @@ public class ParserAnnotator extends SentenceAnnotator {
     if (tree == null) {
       doOneFailedSentence(annotation, sentence);
     } else {
-      finishSentence(sentence, tree);
+      finishSentence(sentence, tree, parser, BUILD_GRAPHS);
     }
   }
 
@@ -255,27 +407,85 @@ public class ParserAnnotator extends SentenceAnnotator {
         word.setTag("XX");
       }
     }
-    finishSentence(sentence, tree);
+    finishSentence(sentence, tree, grammarParser, BUILD_GRAPHS);
+  }
+
+  /**
+   * Parses a sentence with the parsers the router picks for it, until one
+   * of them gives a parse.
+   *
+   * @return Whether the sentence was annotated
+   */
+  private boolean doRoutedSentence(CoreMap sentence,
+                                   List<ParserConstraint> constraints,
+                                   List<CoreLabel> words) {
+    for (ParserRouter.Route route : router.routesFor(words.size())) {
+      if (VERBOSE) {
+        System.err.println("Parsing with route " + route.getName());
+      }
+      Tree tree = null;
+      GrammaticalStructure dependencies = null;
+      long start = System.nanoTime();
+      try {
+        if (route.dependencyParser() != null) {
+          dependencies = route.dependencyParser().predict(sentence);
+        } else {
+          tree = doOneSentence(constraints, words, route.parser(), route.queryPool());
+        }
+      } finally {
+        route.record(words.size(), System.nanoTime() - start, tree != null || dependencies != null);
+      }
+      if (tree != null) {
+        finishSentence(sentence, tree, route.parser(), BUILD_GRAPHS);
+        return true;
+      } else if (dependencies != null) {
+        // a dependency parser gives no tree, so the sentence gets a flat one
+        finishSentence(sentence, ParserUtils.xTree(words), grammarParser, false);
+        DependencyParseAnnotator.setDependencies(sentence, dependencies, extraDependencies);
+        return true;
+      }
+    }
+    return false;
   }
 
-  private void finishSentence(CoreMap sentence, Tree tree) {
+  /**
+   * Adds the annotations of a tree to a sentence.
+   *
+   * @param treeParser The parser the tree is binarized for: the one that made it
+   */
+  private void finishSentence(CoreMap sentence, Tree tree, ParserGrammar treeParser, boolean buildGraphs) {
     if (treeMap != null) {
       tree = treeMap.apply(tree);
     }
     
-    ParserAnnotatorUtils.fillInParseAnnotations(VERBOSE, BUILD_GRAPHS, gsf, sentence, tree, extraDependencies);
+    ParserAnnotatorUtils.fillInParseAnnotations(VERBOSE, buildGraphs, gsf, sentence, tree, extraDependencies);
 
     if (saveBinaryTrees) {
-      TreeBinarizer binarizer = TreeBinarizer.simpleTreeBinarizer(parser.getTLPParams().headFinder(), parser.treebankLanguagePack());
+      TreeBinarizer binarizer = TreeBinarizer.simpleTreeBinarizer(treeParser.getTLPParams().headFinder(), treeParser.treebankLanguagePack());
       Tree binarized = binarizer.transformTree(tree);
       Trees.convertToCoreLabels(binarized);
       sentence.set(TreeCoreAnnotations.BinarizedTreeAnnotation.class, binarized);
     }
   }
 
-  private Tree doOneSentence(List<ParserConstraint> constraints,
-                             List<CoreLabel> words) {
-    ParserQuery pq = parser.parserQuery();
+  private static Tree doOneSentence(List<ParserConstraint> constraints,
+                                    List<CoreLabel> words,
+                                    ParserGrammar parser,
+                                    ParserQueryPool queryPool) {
+    if (queryPool == null) {
+      return doOneSentence(constraints, words, parser.parserQuery());
+    }
+    LexicalizedParserQuery pq = queryPool.acquire(words.size());
+    try {
+      return doOneSentence(constraints, words, pq);
+    } finally {
+      queryPool.release(pq);
+    }
+  }
+
+  private static Tree doOneSentence(List<ParserConstraint> constraints,
+                                    List<CoreLabel> words,
+                                    ParserQuery pq) {
     pq.setConstraints(constraints);
     pq.parse(words);
     Tree tree = null;
@@ -303,7 +513,8 @@ public class ParserAnnotator extends SentenceAnnotator {
 
   @Override
   public Set<Requirement> requires() {
-    return parser.requiresTags() ? TOKENIZE_SSPLIT_POS : TOKENIZE_AND_SSPLIT;
+    boolean requiresTags = (router == null) ? parser.requiresTags() : router.requiresTags();
+    return requiresTags ? TOKENIZE_SSPLIT_POS : TOKENIZE_AND_SSPLIT;
   }
 
   @Override
@@ -0,0 +1,319 @@
+package edu.stanford.nlp.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.stanford.nlp.parser.common.ParserGrammar;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import edu.stanford.nlp.parser.lexparser.ParserQueryPool;
+import edu.stanford.nlp.parser.nndep.DependencyParser;
+
+/**
+ * Chooses which of several parsers a {@link ParserAnnotator} uses for each
+ * sentence, by the length of the sentence and a time budget, and keeps
+ * latency statistics for each parser.
+ * <p>
+ * The routes are considered in the order given.  A sentence goes to the first
+ * route whose maximum length it is within and whose expected time for a
+ * sentence of its length is within the budget.  The expected time is
+ * extrapolated from the sentences the route has parsed so far, as growing
+ * with the cube of the sentence length for exhaustive chart parsers (a
+ * {@link LexicalizedParser}) and linearly for the others (such as the
+ * shift-reduce parser and the neural dependency parser).  Until a route has
+ * parsed a sentence, it is taken to be within the budget.  If no route is
+ * within the budget, the sentence goes to the route with the least expected
+ * time.  If the parser of a route fails on a sentence, the later routes that
+ * accept its length are tried in turn.
+ * <p>
+ * So routes are best listed from the most accurate to the fastest, e.g. the
+ * PCFG for sentences of up to 40 words, then the shift-reduce parser for up
+ * to 100 words, then the neural dependency parser with no limit.  A route
+ * with a dependency parser only gives dependencies: the sentence gets a flat
+ * X tree, as for a sentence that couldn't be parsed.
+ */
+public class ParserRouter {
+
+  /** One parser a sentence can be sent to, with its latency statistics. */
+  public static class Route {
+
+    private final String name;
+    private final int maxLength;
+    private final ParserGrammar parser;
+    private final ParserQueryPool queryPool;
+    private final DependencyParser dependencyParser;
+    /** The exponent of the sentence length that parsing time is taken to grow with */
+    private final int costExponent;
+
+    private final LongAdder sentences = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    /** Sum of the costs of the sentences parsed, from which time per unit cost is estimated */
+    private final DoubleAdder totalCost = new DoubleAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(AnnotatorMetrics.Snapshot.timeHistogramBoundsMillis().length + 1);
+
+    /**
+     * A route to a constituency parser.
+     *
+     * @param maxLength The longest sentence to send to the parser, or 0 or less for no limit
+     * @param queryPool The pool to take queries of the parser from, or null to make a query for each sentence
+     */
+    public Route(String name, int maxLength, ParserGrammar parser, ParserQueryPool queryPool) {
+      this.name = name;
+      this.maxLength = maxLength;
+      this.parser = parser;
+      this.queryPool = queryPool;
+      this.dependencyParser = null;
+      this.costExponent = (parser instanceof LexicalizedParser) ? 3 : 1;
+    }
+
+    /**
+     * A route to a dependency parser.
+     *
+     * @param maxLength The longest sentence to send to the parser, or 0 or less for no limit
+     */
+    public Route(String name, int maxLength, DependencyParser dependencyParser) {
+      this.name = name;
+      this.maxLength = maxLength;
+      this.parser = null;
+      this.queryPool = null;
+      this.dependencyParser = dependencyParser;
+      this.costExponent = 1;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getMaxLength() {
+      return maxLength;
+    }
+
+    /** The constituency parser of this route, or null if it is a dependency parser route. */
+    public ParserGrammar parser() {
+      return parser;
+    }
+
+    /** The pool of queries of {@link #parser()}, or null if queries aren't pooled. */
+    public ParserQueryPool queryPool() {
+      return queryPool;
+    }
+
+    /** The dependency parser of this route, or null if it is a constituency parser route. */
+    public DependencyParser dependencyParser() {
+      return dependencyParser;
+    }
+
+    public boolean requiresTags() {
+      return dependencyParser != null || parser.requiresTags();
+    }
+
+    boolean accepts(int length) {
+      return maxLength <= 0 || length <= maxLength;
+    }
+
+    private double cost(int length) {
+      double cost = length;
+      for (int i = 1; i < costExponent; i++) {
+        cost *= length;
+      }
+      return cost;
+    }
+
+    /** The expected time to parse a sentence of this length, or 0 if no sentence has been parsed yet. */
+    public double expectedNanos(int length) {
+      double costs = totalCost.sum();
+      if (costs <= 0.0) {
+        return 0.0;
+      }
+      return totalNanos.sum() / costs * cost(length);
+    }
+
+    /** Records the time taken by the parser on a sentence, and whether it gave a parse. */
+    public void record(int length, long elapsedNanos, boolean ok) {
+      sentences.increment();
+      tokens.add(length);
+      if ( ! ok) {
+        failures.increment();
+      }
+      totalNanos.add(elapsedNanos);
+      totalCost.add(cost(length));
+      long max;
+      while (elapsedNanos > (max = maxNanos.get()) && ! maxNanos.compareAndSet(max, elapsedNanos)) {
+        // retry until we have set a new maximum or another thread set a larger one
+      }
+      histogram.incrementAndGet(AnnotatorMetrics.bucket(elapsedNanos / 1000000));
+    }
+
+    public long getSentences() {
+      return sentences.sum();
+    }
+
+    public long getTokens() {
+      return tokens.sum();
+    }
+
+    /** The number of sentences the parser gave no parse for. */
+    public long getFailures() {
+      return failures.sum();
+    }
+
+    public double getTotalTimeMillis() {
+      return totalNanos.sum() / 1e6;
+    }
+
+    public double getMeanTimeMillis() {
+      long n = sentences.sum();
+      return n == 0 ? 0.0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    public double getMaxTimeMillis() {
+      return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Counts of sentences by parsing time, in the buckets of
+     * {@link AnnotatorMetrics.Snapshot#timeHistogramBoundsMillis()}.
+     */
+    public long[] getTimeHistogram() {
+      long[] counts = new long[histogram.length()];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = histogram.get(i);
+      }
+      return counts;
+    }
+
+    /** The smallest time within which this fraction of the sentences were parsed, as a histogram bucket bound. */
+    public long getTimePercentileMillis(double fraction) {
+      long[] counts = getTimeHistogram();
+      long total = 0;
+      for (long count : counts) {
+        total += count;
+      }
+      long[] bounds = AnnotatorMetrics.Snapshot.timeHistogramBoundsMillis();
+      long seen = 0;
+      for (int i = 0; i < bounds.length; i++) {
+        seen += counts[i];
+        if (seen >= fraction * total) {
+          return bounds[i];
+        }
+      }
+      return Long.MAX_VALUE;
+    }
+
+    /** Zeroes the statistics, which also forgets the expected times. */
+    public void reset() {
+      sentences.reset();
+      tokens.reset();
+      failures.reset();
+      totalNanos.reset();
+      maxNanos.set(0);
+      totalCost.reset();
+      for (int i = 0; i < histogram.length(); i++) {
+        histogram.set(i, 0);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return name + ": " + getSentences() + " sentences, " + getTokens() + " tokens in " +
+          String.format("%.1f", getTotalTimeMillis()) + " ms (mean " + String.format("%.1f", getMeanTimeMillis()) +
+          " ms, max " + String.format("%.1f", getMaxTimeMillis()) + " ms), " + getFailures() + " failures";
+    }
+
+  }
+
+
+  private final List<Route> routes;
+
+  /** The time budget for a sentence in nanoseconds, or 0 or less for none */
+  private final long timeBudgetNanos;
+
+  /**
+   * @param routes The routes, from the first choice to the last
+   * @param timeBudgetMillis The time to aim to parse each sentence within, or 0 or less for no budget,
+   *     in which case sentences go to the first route that accepts their length
+   */
+  public ParserRouter(List<Route> routes, long timeBudgetMillis) {
+    if (routes.isEmpty()) {
+      throw new IllegalArgumentException("A parser router needs at least one route");
+    }
+    this.routes = Collections.unmodifiableList(new ArrayList<Route>(routes));
+    this.timeBudgetNanos = timeBudgetMillis * 1000000;
+  }
+
+  public List<Route> routes() {
+    return routes;
+  }
+
+  /**
+   * The routes to try for a sentence of this length: the chosen route, then
+   * the later routes that accept the length.  Empty if no route accepts it.
+   */
+  public List<Route> routesFor(int length) {
+    int chosen = -1;
+    int fastest = -1;
+    double fastestNanos = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < routes.size(); i++) {
+      Route route = routes.get(i);
+      if ( ! route.accepts(length)) {
+        continue;
+      }
+      if (timeBudgetNanos <= 0) {
+        chosen = i;
+        break;
+      }
+      double expected = route.expectedNanos(length);
+      if (expected <= timeBudgetNanos) {
+        chosen = i;
+        break;
+      }
+      if (expected < fastestNanos) {
+        fastest = i;
+        fastestNanos = expected;
+      }
+    }
+    if (chosen < 0) {
+      chosen = fastest;
+    }
+    if (chosen < 0) {
+      return Collections.emptyList();
+    }
+    List<Route> result = new ArrayList<Route>();
+    result.add(routes.get(chosen));
+    for (int i = chosen + 1; i < routes.size(); i++) {
+      if (routes.get(i).accepts(length)) {
+        result.add(routes.get(i));
+      }
+    }
+    return result;
+  }
+
+  public boolean requiresTags() {
+    for (Route route : routes) {
+      if (route.requiresTags()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Route route : routes) {
+      if (sb.length() > 0) {
+        sb.append('\n');
+      }
+      sb.append(route);
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,156 @@
+package edu.stanford.nlp.pipeline;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.stanford.nlp.util.logging.Redwood;
+
+/**
+ * The {@link AnnotatorMetrics} of every annotator in an
+ * {@link AnnotationPipeline}, in pipeline order.
+ * <p>
+ * Metrics can be polled with {@link #annotators()} or {@link #snapshot()},
+ * pushed periodically to a {@link Sink} with {@link #reportEvery}, or
+ * exported as MXBeans with {@link #registerMBeans(String)}, under names of
+ * the form
+ * {@code edu.stanford.nlp.pipeline:type=AnnotatorMetrics,pipeline=NAME,position=N,annotator=ANNOTATOR}.
+ * {@link StanfordCoreNLP} registers its metrics when the {@code metrics.jmx}
+ * property is set to the pipeline name to use (or {@code true}, for "default").
+ */
+public class PipelineMetrics {
+
+  public static final String JMX_DOMAIN = "edu.stanford.nlp.pipeline";
+
+  /** Receives periodic snapshots of a pipeline's metrics. */
+  @FunctionalInterface
+  public interface Sink {
+
+    /**
+     * Called from a background thread with one snapshot per annotator, in
+     * pipeline order.  Counters are cumulative since the pipeline was built
+     * or last reset.
+     */
+    void report(List<AnnotatorMetrics.Snapshot> snapshots);
+
+  }
+
+  private static ScheduledExecutorService reporter; // created lazily, shared by all pipelines
+
+  private final List<AnnotatorMetrics> annotators = new CopyOnWriteArrayList<AnnotatorMetrics>();
+  private final List<ObjectName> registered = new ArrayList<ObjectName>();
+
+  AnnotatorMetrics add(String name) {
+    AnnotatorMetrics metrics = new AnnotatorMetrics(name);
+    annotators.add(metrics);
+    return metrics;
+  }
+
+  /** The live metrics of each annotator, in pipeline order. */
+  public List<AnnotatorMetrics> annotators() {
+    return Collections.unmodifiableList(annotators);
+  }
+
+  public List<AnnotatorMetrics.Snapshot> snapshot() {
+    List<AnnotatorMetrics.Snapshot> snapshots = new ArrayList<AnnotatorMetrics.Snapshot>(annotators.size());
+    for (AnnotatorMetrics metrics : annotators) {
+      snapshots.add(metrics.snapshot());
+    }
+    return snapshots;
+  }
+
+  public void reset() {
+    for (AnnotatorMetrics metrics : annotators) {
+      metrics.reset();
+    }
+  }
+
+  /**
+   * Pushes a snapshot to {@code sink} every {@code period} units, from a
+   * shared daemon thread, until the returned future is cancelled.  Exceptions
+   * thrown by the sink are logged and do not stop later reports.
+   */
+  public ScheduledFuture<?> reportEvery(Sink sink, long period, TimeUnit unit) {
+    return reporter().scheduleAtFixedRate(() -> {
+      try {
+        sink.report(snapshot());
+      } catch (RuntimeException e) {
+        Redwood.Util.warn("Pipeline metrics sink failed: " + e);
+      }
+    }, period, period, unit);
+  }
+
+  private static synchronized ScheduledExecutorService reporter() {
+    if (reporter == null) {
+      reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "PipelineMetrics reporter");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return reporter;
+  }
+
+  /**
+   * Registers one MXBean per annotator with the platform MBean server.
+   * Any beans already registered under the same names are replaced.
+   *
+   * @param pipelineName Distinguishes this pipeline from others in the same JVM
+   */
+  public synchronized void registerMBeans(String pipelineName) {
+    unregisterMBeans();
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      for (int i = 0; i < annotators.size(); i++) {
+        AnnotatorMetrics metrics = annotators.get(i);
+        ObjectName name = new ObjectName(JMX_DOMAIN + ":type=AnnotatorMetrics,pipeline=" + ObjectName.quote(pipelineName) +
+            ",position=" + i + ",annotator=" + ObjectName.quote(metrics.getName()));
+        if (server.isRegistered(name)) {
+          server.unregisterMBean(name);
+        }
+        server.registerMBean(metrics, name);
+        registered.add(name);
+      }
+    } catch (JMException e) {
+      throw new RuntimeException("Cannot register pipeline metrics with JMX", e);
+    }
+  }
+
+  /** Removes the MXBeans added by {@link #registerMBeans(String)}, if any. */
+  public synchronized void unregisterMBeans() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName name : registered) {
+      try {
+        if (server.isRegistered(name)) {
+          server.unregisterMBean(name);
+        }
+      } catch (JMException e) {
+        Redwood.Util.warn("Cannot unregister " + name + ": " + e);
+      }
+    }
+    registered.clear();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (AnnotatorMetrics metrics : annotators) {
+      if (sb.length() > 0) {
+        sb.append('\n');
+      }
+      sb.append(metrics);
+    }
+    return sb.toString();
+  }
+
+}
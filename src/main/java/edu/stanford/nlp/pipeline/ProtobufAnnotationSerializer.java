@@ -0,0 +1,528 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.*;
+import java.util.*;
+
+import edu.stanford.nlp.dcoref.CorefChain;
+import edu.stanford.nlp.dcoref.CorefCoreAnnotations;
+import edu.stanford.nlp.dcoref.Dictionaries;
+import edu.stanford.nlp.ie.machinereading.structure.MachineReadingAnnotations;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
+import edu.stanford.nlp.semgraph.SemanticGraphEdge;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
+import edu.stanford.nlp.time.TimeAnnotations;
+import edu.stanford.nlp.time.Timex;
+import edu.stanford.nlp.trees.LabeledScoredTreeFactory;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.trees.TreeFactory;
+import edu.stanford.nlp.util.*;
+
+/**
+ * Serializes Annotation objects as the protocol buffer messages defined in
+ * {@link edu.stanford.nlp.pipeline.CoreNLPProtos}.
+ * Each document is written length-delimited
+ * (see {@link com.google.protobuf.MessageLite#writeDelimitedTo(OutputStream)}),
+ * so any number of documents can be appended to, and streamed back from,
+ * a single file or socket:
+ * <pre>
+ *   ProtobufAnnotationSerializer serializer = new ProtobufAnnotationSerializer();
+ *   OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+ *   for (Annotation doc : docs) { os = serializer.write(doc, os); }
+ *   os.close();
+ *
+ *   InputStream is = new BufferedInputStream(new FileInputStream(file));
+ *   Pair&lt;Annotation, InputStream&gt; pair;
+ *   while ((pair = serializer.read(is)) != null) { is = pair.second; ... }
+ * </pre>
+ *
+ * The following is round-tripped: the document text and id; sentence offsets,
+ * text and paragraph; the tokens' words, tags, lemmas, named entities (including Timex values),
+ * offsets and whitespace; constituency trees (plain and binarized); basic, collapsed and
+ * CC-processed dependencies; sentiment labels; and dcoref chains.
+ * Anything else on the Annotation is silently dropped, so this is lossy in
+ * the same sense as {@link edu.stanford.nlp.pipeline.CustomAnnotationSerializer},
+ * though much less so.
+ */
+public class ProtobufAnnotationSerializer extends AnnotationSerializer {
+
+  private static final TreeFactory TREE_FACTORY = new LabeledScoredTreeFactory(CoreLabel.factory());
+
+  public ProtobufAnnotationSerializer() { }
+
+  @Override
+  public OutputStream write(Annotation corpus, OutputStream os) throws IOException {
+    toProto(corpus).writeDelimitedTo(os);
+    os.flush();
+    return os;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @return The next document on the stream, or null if the stream is exhausted.
+   */
+  @Override
+  public Pair<Annotation, InputStream> read(InputStream is) throws IOException, ClassNotFoundException, ClassCastException {
+    CoreNLPProtos.Document doc = CoreNLPProtos.Document.parseDelimitedFrom(is);
+    if (doc == null) return null;
+    return Pair.makePair(fromProto(doc), is);
+  }
+
+  //
+  // Annotation -> proto
+  //
+
+  /**
+   * Create a Document proto from an Annotation.
+   * @param doc The annotated document to convert.
+   * @return A protocol buffer message corresponding to this document.
+   */
+  public CoreNLPProtos.Document toProto(Annotation doc) {
+    CoreNLPProtos.Document.Builder builder = CoreNLPProtos.Document.newBuilder();
+    String text = doc.get(CoreAnnotations.TextAnnotation.class);
+    builder.setText(text == null ? "" : text);
+    String docId = doc.get(CoreAnnotations.DocIDAnnotation.class);
+    if (docId != null) builder.setDocID(docId);
+
+    List<CoreMap> sentences = doc.get(CoreAnnotations.SentencesAnnotation.class);
+    if (sentences != null) {
+      for (CoreMap sentence : sentences) {
+        builder.addSentence(toProtoSentence(sentence));
+      }
+    } else if (doc.containsKey(CoreAnnotations.TokensAnnotation.class)) {
+      // tokenized, but not sentence split
+      for (CoreLabel token : doc.get(CoreAnnotations.TokensAnnotation.class)) {
+        builder.addSentencelessToken(toProto(token));
+      }
+    }
+
+    Map<Integer, CorefChain> chains = doc.get(CorefCoreAnnotations.CorefChainAnnotation.class);
+    if (chains != null) {
+      for (CorefChain chain : chains.values()) {
+        builder.addCorefChain(toProto(chain));
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Create a Sentence proto from a sentence CoreMap.
+   */
+  public CoreNLPProtos.Sentence toProtoSentence(CoreMap sentence) {
+    CoreNLPProtos.Sentence.Builder builder = CoreNLPProtos.Sentence.newBuilder();
+    List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+    if (tokens == null) tokens = Collections.emptyList();
+    for (CoreLabel token : tokens) {
+      builder.addToken(toProto(token));
+    }
+    // the token offsets are required fields
+    Integer tokenBegin = sentence.get(CoreAnnotations.TokenBeginAnnotation.class);
+    Integer tokenEnd = sentence.get(CoreAnnotations.TokenEndAnnotation.class);
+    builder.setTokenOffsetBegin(tokenBegin == null ? 0 : tokenBegin);
+    builder.setTokenOffsetEnd(tokenEnd == null ? builder.getTokenOffsetBegin() + tokens.size() : tokenEnd);
+
+    Integer sentenceIndex = sentence.get(CoreAnnotations.SentenceIndexAnnotation.class);
+    if (sentenceIndex != null) builder.setSentenceIndex(sentenceIndex);
+    Integer charBegin = sentence.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
+    if (charBegin != null) builder.setCharacterOffsetBegin(charBegin);
+    Integer charEnd = sentence.get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
+    if (charEnd != null) builder.setCharacterOffsetEnd(charEnd);
+    Integer paragraph = sentence.get(CoreAnnotations.ParagraphAnnotation.class);
+    if (paragraph != null) builder.setParagraph(paragraph);
+    String text = sentence.get(CoreAnnotations.TextAnnotation.class);
+    if (text != null) builder.setText(text);
+    String sentiment = sentence.get(SentimentCoreAnnotations.SentimentClass.class);
+    if (sentiment != null) builder.setSentiment(sentiment);
+
+    Tree tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
+    if (tree != null) builder.setParseTree(toProto(tree));
+    Tree binarizedTree = sentence.get(TreeCoreAnnotations.BinarizedTreeAnnotation.class);
+    if (binarizedTree != null) builder.setBinarizedParseTree(toProto(binarizedTree));
+
+    int index = (sentenceIndex == null) ? 0 : sentenceIndex;
+    SemanticGraph basicDeps = sentence.get(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class);
+    if (basicDeps != null) builder.setBasicDependencies(toProto(basicDeps, index));
+    SemanticGraph collapsedDeps = sentence.get(SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation.class);
+    if (collapsedDeps != null) builder.setCollapsedDependencies(toProto(collapsedDeps, index));
+    SemanticGraph ccDeps = sentence.get(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class);
+    if (ccDeps != null) builder.setCollapsedCCProcessedDependencies(toProto(ccDeps, index));
+    return builder.build();
+  }
+
+  /**
+   * Create a Token proto from a CoreLabel.
+   */
+  public CoreNLPProtos.Token toProto(CoreLabel token) {
+    CoreNLPProtos.Token.Builder builder = CoreNLPProtos.Token.newBuilder();
+    String word = token.get(CoreAnnotations.TextAnnotation.class);
+    if (word == null) word = token.get(CoreAnnotations.ValueAnnotation.class);
+    builder.setWord(word == null ? "" : word);  // required
+    String value = token.get(CoreAnnotations.ValueAnnotation.class);
+    if (value != null) builder.setValue(value);
+    String pos = token.get(CoreAnnotations.PartOfSpeechAnnotation.class);
+    if (pos != null) builder.setPos(pos);
+    String category = token.get(CoreAnnotations.CategoryAnnotation.class);
+    if (category != null) builder.setCategory(category);
+    String before = token.get(CoreAnnotations.BeforeAnnotation.class);
+    if (before != null) builder.setBefore(before);
+    String after = token.get(CoreAnnotations.AfterAnnotation.class);
+    if (after != null) builder.setAfter(after);
+    String originalText = token.get(CoreAnnotations.OriginalTextAnnotation.class);
+    if (originalText != null) builder.setOriginalText(originalText);
+    String ner = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
+    if (ner != null) builder.setNer(ner);
+    String normalizedNer = token.get(CoreAnnotations.NormalizedNamedEntityTagAnnotation.class);
+    if (normalizedNer != null) builder.setNormalizedNER(normalizedNer);
+    String lemma = token.get(CoreAnnotations.LemmaAnnotation.class);
+    if (lemma != null) builder.setLemma(lemma);
+    Integer beginChar = token.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
+    if (beginChar != null) builder.setBeginChar(beginChar);
+    Integer endChar = token.get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
+    if (endChar != null) builder.setEndChar(endChar);
+    Integer utterance = token.get(CoreAnnotations.UtteranceAnnotation.class);
+    if (utterance != null) builder.setUtterance(utterance);
+    String speaker = token.get(CoreAnnotations.SpeakerAnnotation.class);
+    if (speaker != null) builder.setSpeaker(speaker);
+    Integer beginIndex = token.get(CoreAnnotations.BeginIndexAnnotation.class);
+    if (beginIndex != null) builder.setBeginIndex(beginIndex);
+    Integer endIndex = token.get(CoreAnnotations.EndIndexAnnotation.class);
+    if (endIndex != null) builder.setEndIndex(endIndex);
+    Integer tokenBegin = token.get(CoreAnnotations.TokenBeginAnnotation.class);
+    if (tokenBegin != null) builder.setTokenBeginIndex(tokenBegin);
+    Integer tokenEnd = token.get(CoreAnnotations.TokenEndAnnotation.class);
+    if (tokenEnd != null) builder.setTokenEndIndex(tokenEnd);
+    Timex timex = token.get(TimeAnnotations.TimexAnnotation.class);
+    if (timex != null) builder.setTimexValue(toProto(timex));
+    List<String> xmlContext = token.get(CoreAnnotations.XmlContextAnnotation.class);
+    if (xmlContext != null) {
+      builder.setHasXmlContext(true);
+      builder.addAllXmlContext(xmlContext);
+    }
+    Integer corefClusterId = token.get(CorefCoreAnnotations.CorefClusterIdAnnotation.class);
+    if (corefClusterId != null) builder.setCorefClusterID(corefClusterId);
+    String answer = token.get(CoreAnnotations.AnswerAnnotation.class);
+    if (answer != null) builder.setAnswer(answer);
+    String sentiment = token.get(SentimentCoreAnnotations.SentimentClass.class);
+    if (sentiment != null) builder.setSentiment(sentiment);
+    Integer quotationIndex = token.get(CoreAnnotations.QuotationIndexAnnotation.class);
+    if (quotationIndex != null) builder.setQuotationIndex(quotationIndex);
+    String gender = token.get(MachineReadingAnnotations.GenderAnnotation.class);
+    if (gender != null) builder.setGender(gender);
+    String trueCase = token.get(CoreAnnotations.TrueCaseAnnotation.class);
+    if (trueCase != null) builder.setTrueCase(trueCase);
+    String trueCaseText = token.get(CoreAnnotations.TrueCaseTextAnnotation.class);
+    if (trueCaseText != null) builder.setTrueCaseText(trueCaseText);
+    return builder.build();
+  }
+
+  /**
+   * Create a ParseTree proto from a Tree.
+   */
+  public CoreNLPProtos.ParseTree toProto(Tree tree) {
+    CoreNLPProtos.ParseTree.Builder builder = CoreNLPProtos.ParseTree.newBuilder();
+    if (tree.label() != null && tree.label().value() != null) {
+      builder.setValue(tree.label().value());
+    }
+    if ( ! Double.isNaN(tree.score())) {
+      builder.setScore(tree.score());
+    }
+    for (Tree child : tree.children()) {
+      builder.addChild(toProto(child));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Create a DependencyGraph proto from a SemanticGraph.
+   *
+   * @param graph The graph to convert.
+   * @param sentenceIndex The index of the sentence, used for nodes which do not carry their own.
+   */
+  public CoreNLPProtos.DependencyGraph toProto(SemanticGraph graph, int sentenceIndex) {
+    CoreNLPProtos.DependencyGraph.Builder builder = CoreNLPProtos.DependencyGraph.newBuilder();
+    for (IndexedWord node : graph.vertexSet()) {
+      CoreNLPProtos.DependencyGraph.Node.Builder nodeBuilder = CoreNLPProtos.DependencyGraph.Node.newBuilder()
+          .setSentenceIndex(node.sentIndex() >= 0 ? node.sentIndex() : sentenceIndex)
+          .setIndex(node.index());
+      if (node.copyCount() > 0) {
+        nodeBuilder.setCopyAnnotation(node.copyCount());
+      }
+      builder.addNode(nodeBuilder.build());
+    }
+    for (IndexedWord root : graph.getRoots()) {
+      builder.addRoot(root.index());
+    }
+    for (SemanticGraphEdge edge : graph.edgeIterable()) {
+      CoreNLPProtos.DependencyGraph.Edge.Builder edgeBuilder = CoreNLPProtos.DependencyGraph.Edge.newBuilder()
+          .setSource(edge.getSource().index())
+          .setTarget(edge.getTarget().index())
+          .setDep(edge.getRelation().toString())
+          .setIsExtra(edge.isExtra());
+      if (edge.getSource().copyCount() > 0) edgeBuilder.setSourceCopy(edge.getSource().copyCount());
+      if (edge.getTarget().copyCount() > 0) edgeBuilder.setTargetCopy(edge.getTarget().copyCount());
+      builder.addEdge(edgeBuilder.build());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Create a CorefChain proto from a dcoref CorefChain.
+   * The mention spans are not stored; they are recovered from the tokens when reading.
+   */
+  public CoreNLPProtos.CorefChain toProto(CorefChain chain) {
+    CoreNLPProtos.CorefChain.Builder builder = CoreNLPProtos.CorefChain.newBuilder();
+    builder.setChainID(chain.getChainID());
+    int representative = 0;
+    int i = 0;
+    for (CorefChain.CorefMention mention : chain.getMentionsInTextualOrder()) {
+      if (mention == chain.getRepresentativeMention()) representative = i;
+      CoreNLPProtos.CorefChain.CorefMention.Builder mentionBuilder = CoreNLPProtos.CorefChain.CorefMention.newBuilder()
+          .setMentionID(mention.mentionID)
+          .setBeginIndex(mention.startIndex)
+          .setEndIndex(mention.endIndex)
+          .setHeadIndex(mention.headIndex)
+          .setSentenceIndex(mention.sentNum)
+          .setPosition(mention.position.get(1));
+      if (mention.mentionType != null) mentionBuilder.setMentionType(mention.mentionType.name());
+      if (mention.number != null) mentionBuilder.setNumber(mention.number.name());
+      if (mention.gender != null) mentionBuilder.setGender(mention.gender.name());
+      if (mention.animacy != null) mentionBuilder.setAnimacy(mention.animacy.name());
+      builder.addMention(mentionBuilder.build());
+      i += 1;
+    }
+    builder.setRepresentative(representative);
+    return builder.build();
+  }
+
+  /**
+   * Create a Timex proto from a Timex.
+   */
+  public CoreNLPProtos.Timex toProto(Timex timex) {
+    CoreNLPProtos.Timex.Builder builder = CoreNLPProtos.Timex.newBuilder();
+    if (timex.value() != null) builder.setValue(timex.value());
+    if (timex.altVal() != null) builder.setAltValue(timex.altVal());
+    if (timex.text() != null) builder.setText(timex.text());
+    if (timex.timexType() != null) builder.setType(timex.timexType());
+    if (timex.tid() != null) builder.setTid(timex.tid());
+    if (timex.beginPoint() >= 0) builder.setBeginPoint(timex.beginPoint());
+    if (timex.endPoint() >= 0) builder.setEndPoint(timex.endPoint());
+    return builder.build();
+  }
+
+  //
+  // proto -> Annotation
+  //
+
+  /**
+   * Read an Annotation from a Document proto.
+   * Token indices, sentence indices and document ids are restored on every token,
+   * and the document-level token list is rebuilt from the sentences.
+   */
+  public Annotation fromProto(CoreNLPProtos.Document proto) {
+    Annotation doc = new Annotation(proto.getText());
+    String docId = proto.hasDocID() ? proto.getDocID() : null;
+    if (docId != null) doc.set(CoreAnnotations.DocIDAnnotation.class, docId);
+
+    if (proto.getSentenceCount() > 0) {
+      List<CoreMap> sentences = new ArrayList<CoreMap>(proto.getSentenceCount());
+      List<CoreLabel> allTokens = new ArrayList<CoreLabel>();
+      for (int i = 0; i < proto.getSentenceCount(); i++) {
+        CoreMap sentence = fromProto(proto.getSentence(i), i, docId);
+        allTokens.addAll(sentence.get(CoreAnnotations.TokensAnnotation.class));
+        sentences.add(sentence);
+      }
+      doc.set(CoreAnnotations.SentencesAnnotation.class, sentences);
+      doc.set(CoreAnnotations.TokensAnnotation.class, allTokens);
+
+      if (proto.getCorefChainCount() > 0) {
+        Map<Integer, CorefChain> chains = Generics.newHashMap();
+        for (CoreNLPProtos.CorefChain chain : proto.getCorefChainList()) {
+          chains.put(chain.getChainID(), fromProto(chain, sentences));
+        }
+        doc.set(CorefCoreAnnotations.CorefChainAnnotation.class, chains);
+      }
+    } else if (proto.getSentencelessTokenCount() > 0) {
+      List<CoreLabel> tokens = new ArrayList<CoreLabel>(proto.getSentencelessTokenCount());
+      for (CoreNLPProtos.Token token : proto.getSentencelessTokenList()) {
+        tokens.add(fromProto(token));
+      }
+      doc.set(CoreAnnotations.TokensAnnotation.class, tokens);
+    }
+    return doc;
+  }
+
+  private CoreMap fromProto(CoreNLPProtos.Sentence proto, int defaultSentenceIndex, String docId) {
+    int sentenceIndex = proto.hasSentenceIndex() ? proto.getSentenceIndex() : defaultSentenceIndex;
+    CoreMap sentence = new ArrayCoreMap();
+    List<CoreLabel> tokens = new ArrayList<CoreLabel>(proto.getTokenCount());
+    for (int i = 0; i < proto.getTokenCount(); i++) {
+      CoreLabel token = fromProto(proto.getToken(i));
+      // these are implied by the token's position rather than stored
+      token.setIndex(i + 1);
+      token.setSentIndex(sentenceIndex);
+      if (docId != null) token.setDocID(docId);
+      tokens.add(token);
+    }
+    sentence.set(CoreAnnotations.TokensAnnotation.class, tokens);
+    sentence.set(CoreAnnotations.TokenBeginAnnotation.class, proto.getTokenOffsetBegin());
+    sentence.set(CoreAnnotations.TokenEndAnnotation.class, proto.getTokenOffsetEnd());
+    sentence.set(CoreAnnotations.SentenceIndexAnnotation.class, sentenceIndex);
+    if (proto.hasCharacterOffsetBegin()) sentence.set(CoreAnnotations.CharacterOffsetBeginAnnotation.class, proto.getCharacterOffsetBegin());
+    if (proto.hasCharacterOffsetEnd()) sentence.set(CoreAnnotations.CharacterOffsetEndAnnotation.class, proto.getCharacterOffsetEnd());
+    if (proto.hasParagraph()) sentence.set(CoreAnnotations.ParagraphAnnotation.class, proto.getParagraph());
+    if (proto.hasText()) sentence.set(CoreAnnotations.TextAnnotation.class, proto.getText());
+    if (proto.hasSentiment()) sentence.set(SentimentCoreAnnotations.SentimentClass.class, proto.getSentiment());
+    if (docId != null) sentence.set(CoreAnnotations.DocIDAnnotation.class, docId);
+
+    if (proto.hasParseTree()) sentence.set(TreeCoreAnnotations.TreeAnnotation.class, fromProto(proto.getParseTree()));
+    if (proto.hasBinarizedParseTree()) sentence.set(TreeCoreAnnotations.BinarizedTreeAnnotation.class, fromProto(proto.getBinarizedParseTree()));
+
+    if (proto.hasBasicDependencies()) {
+      sentence.set(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class, fromProto(proto.getBasicDependencies(), tokens, docId));
+    }
+    if (proto.hasCollapsedDependencies()) {
+      sentence.set(SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation.class, fromProto(proto.getCollapsedDependencies(), tokens, docId));
+    }
+    if (proto.hasCollapsedCCProcessedDependencies()) {
+      sentence.set(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class, fromProto(proto.getCollapsedCCProcessedDependencies(), tokens, docId));
+    }
+    return sentence;
+  }
+
+  /**
+   * Read a CoreLabel from a Token proto.
+   */
+  public CoreLabel fromProto(CoreNLPProtos.Token proto) {
+    CoreLabel token = new CoreLabel();
+    token.setWord(proto.getWord());
+    if (proto.hasValue()) token.setValue(proto.getValue());
+    if (proto.hasPos()) token.setTag(proto.getPos());
+    if (proto.hasCategory()) token.setCategory(proto.getCategory());
+    if (proto.hasBefore()) token.setBefore(proto.getBefore());
+    if (proto.hasAfter()) token.setAfter(proto.getAfter());
+    if (proto.hasOriginalText()) token.setOriginalText(proto.getOriginalText());
+    if (proto.hasNer()) token.setNER(proto.getNer());
+    if (proto.hasNormalizedNER()) token.set(CoreAnnotations.NormalizedNamedEntityTagAnnotation.class, proto.getNormalizedNER());
+    if (proto.hasLemma()) token.setLemma(proto.getLemma());
+    if (proto.hasBeginChar()) token.setBeginPosition(proto.getBeginChar());
+    if (proto.hasEndChar()) token.setEndPosition(proto.getEndChar());
+    if (proto.hasUtterance()) token.set(CoreAnnotations.UtteranceAnnotation.class, proto.getUtterance());
+    if (proto.hasSpeaker()) token.set(CoreAnnotations.SpeakerAnnotation.class, proto.getSpeaker());
+    if (proto.hasBeginIndex()) token.set(CoreAnnotations.BeginIndexAnnotation.class, proto.getBeginIndex());
+    if (proto.hasEndIndex()) token.set(CoreAnnotations.EndIndexAnnotation.class, proto.getEndIndex());
+    if (proto.hasTokenBeginIndex()) token.set(CoreAnnotations.TokenBeginAnnotation.class, proto.getTokenBeginIndex());
+    if (proto.hasTokenEndIndex()) token.set(CoreAnnotations.TokenEndAnnotation.class, proto.getTokenEndIndex());
+    if (proto.hasTimexValue()) token.set(TimeAnnotations.TimexAnnotation.class, fromProto(proto.getTimexValue()));
+    if (proto.hasHasXmlContext() && proto.getHasXmlContext()) {
+      token.set(CoreAnnotations.XmlContextAnnotation.class, new ArrayList<String>(proto.getXmlContextList()));
+    }
+    if (proto.hasCorefClusterID()) token.set(CorefCoreAnnotations.CorefClusterIdAnnotation.class, proto.getCorefClusterID());
+    if (proto.hasAnswer()) token.set(CoreAnnotations.AnswerAnnotation.class, proto.getAnswer());
+    if (proto.hasSentiment()) token.set(SentimentCoreAnnotations.SentimentClass.class, proto.getSentiment());
+    if (proto.hasQuotationIndex()) token.set(CoreAnnotations.QuotationIndexAnnotation.class, proto.getQuotationIndex());
+    if (proto.hasGender()) token.set(MachineReadingAnnotations.GenderAnnotation.class, proto.getGender());
+    if (proto.hasTrueCase()) token.set(CoreAnnotations.TrueCaseAnnotation.class, proto.getTrueCase());
+    if (proto.hasTrueCaseText()) token.set(CoreAnnotations.TrueCaseTextAnnotation.class, proto.getTrueCaseText());
+    return token;
+  }
+
+  /**
+   * Read a Tree from a ParseTree proto.  The nodes are labeled with CoreLabels.
+   */
+  public Tree fromProto(CoreNLPProtos.ParseTree proto) {
+    CoreLabel label = new CoreLabel();
+    if (proto.hasValue()) label.setValue(proto.getValue());
+    Tree tree;
+    if (proto.getChildCount() == 0) {
+      tree = TREE_FACTORY.newLeaf(label);
+    } else {
+      List<Tree> children = new ArrayList<Tree>(proto.getChildCount());
+      for (CoreNLPProtos.ParseTree child : proto.getChildList()) {
+        children.add(fromProto(child));
+      }
+      tree = TREE_FACTORY.newTreeNode(label, children);
+    }
+    if (proto.hasScore()) tree.setScore(proto.getScore());
+    return tree;
+  }
+
+  private static SemanticGraph fromProto(CoreNLPProtos.DependencyGraph proto, List<CoreLabel> sentence, String docId) {
+    Set<Integer> roots = Generics.newHashSet(proto.getRootList());
+    IntermediateSemanticGraph graph = new IntermediateSemanticGraph();
+    for (CoreNLPProtos.DependencyGraph.Node node : proto.getNodeList()) {
+      int copy = node.hasCopyAnnotation() ? node.getCopyAnnotation() : 0;
+      graph.nodes.add(new IntermediateNode(docId, node.getSentenceIndex(), node.getIndex(), copy,
+          copy == 0 && roots.contains(node.getIndex())));
+    }
+    for (CoreNLPProtos.DependencyGraph.Edge edge : proto.getEdgeList()) {
+      graph.edges.add(new IntermediateEdge(edge.getDep(), edge.getSource(), edge.getSourceCopy(),
+          edge.getTarget(), edge.getTargetCopy(), edge.getIsExtra()));
+    }
+    return graph.convertIntermediateGraph(sentence);
+  }
+
+  private static CorefChain fromProto(CoreNLPProtos.CorefChain proto, List<CoreMap> sentences) {
+    Map<IntPair, Set<CorefChain.CorefMention>> mentionMap = Generics.newHashMap();
+    CorefChain.CorefMention representative = null;
+    for (int i = 0; i < proto.getMentionCount(); i++) {
+      CoreNLPProtos.CorefChain.CorefMention mentionProto = proto.getMention(i);
+      int sentNum = mentionProto.getSentenceIndex();
+      IntTuple position = new IntTuple(2);
+      position.set(0, sentNum);
+      position.set(1, mentionProto.getPosition());
+      CorefChain.CorefMention mention = new CorefChain.CorefMention(
+          mentionProto.hasMentionType() ? Dictionaries.MentionType.valueOf(mentionProto.getMentionType()) : null,
+          mentionProto.hasNumber() ? Dictionaries.Number.valueOf(mentionProto.getNumber()) : null,
+          mentionProto.hasGender() ? Dictionaries.Gender.valueOf(mentionProto.getGender()) : null,
+          mentionProto.hasAnimacy() ? Dictionaries.Animacy.valueOf(mentionProto.getAnimacy()) : null,
+          mentionProto.getBeginIndex(),
+          mentionProto.getEndIndex(),
+          mentionProto.getHeadIndex(),
+          proto.getChainID(),
+          mentionProto.getMentionID(),
+          sentNum,
+          position,
+          recoverMentionSpan(sentences, sentNum, mentionProto.getBeginIndex(), mentionProto.getEndIndex()));
+      IntPair key = new IntPair(sentNum, mention.headIndex);
+      Set<CorefChain.CorefMention> mentionsWithThisHead = mentionMap.get(key);
+      if (mentionsWithThisHead == null) {
+        mentionsWithThisHead = Generics.newHashSet();
+        mentionMap.put(key, mentionsWithThisHead);
+      }
+      mentionsWithThisHead.add(mention);
+      if (i == proto.getRepresentative()) representative = mention;
+    }
+    return new CorefChain(proto.getChainID(), mentionMap, representative);
+  }
+
+  /** Rebuilds the mention span the same way dcoref's Mention.spanToString() does */
+  private static String recoverMentionSpan(List<CoreMap> sentences, int sentNum, int startIndex, int endIndex) {
+    List<CoreLabel> tokens = sentences.get(sentNum - 1).get(CoreAnnotations.TokensAnnotation.class);
+    StringBuilder span = new StringBuilder();
+    for (int i = startIndex - 1; i < endIndex - 1; i++) {
+      if (i > startIndex - 1) span.append(' ');
+      span.append(tokens.get(i).word());
+    }
+    return span.toString();
+  }
+
+  /**
+   * Read a Timex from a Timex proto.
+   */
+  public Timex fromProto(CoreNLPProtos.Timex proto) {
+    return new Timex(
+        proto.hasType() ? proto.getType() : null,
+        proto.hasValue() ? proto.getValue() : null,
+        proto.hasAltValue() ? proto.getAltValue() : null,
+        proto.hasTid() ? proto.getTid() : null,
+        proto.hasText() ? proto.getText() : null,
+        proto.hasBeginPoint() ? proto.getBeginPoint() : -1,
+        proto.hasEndPoint() ? proto.getEndPoint() : -1);
+  }
+
+}
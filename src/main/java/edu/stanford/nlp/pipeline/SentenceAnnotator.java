@@ -62,7 +62,7 @@ public abstract class SentenceAnnotator implements Annotator {
               // Note that in order for this to be useful, the underlying job needs to handle Thread.interrupted()
               List<CoreMap> failedSentences = wrapper.joinWithTimeout();
               for (CoreMap failed : failedSentences) {
-                doOneFailedSentence(annotation, failed);
+                failSentence(annotation, failed);
               }
               // We don't wait for termination here, and perhaps this
               // is a mistake.  If the processor used does not respect
@@ -76,7 +76,7 @@ public abstract class SentenceAnnotator implements Annotator {
             }
           }
           if (!success) {
-            doOneFailedSentence(annotation, sentence);
+            failSentence(annotation, sentence);
           }
           while (wrapper.peek()) {
             wrapper.poll();
@@ -88,7 +88,7 @@ public abstract class SentenceAnnotator implements Annotator {
         }
         if (failedSentences != null) {
           for (CoreMap failed : failedSentences) {
-            doOneFailedSentence(annotation, failed);
+            failSentence(annotation, failed);
           }
         }
       } else {
@@ -101,6 +101,11 @@ public abstract class SentenceAnnotator implements Annotator {
     }
   }
 
+  private void failSentence(Annotation annotation, CoreMap sentence) {
+    AnnotatorMetrics.recordFailedSentence();
+    doOneFailedSentence(annotation, sentence);
+  }
+
   protected abstract int nThreads();
 
   protected abstract long maxTime();
@@ -34,6 +34,8 @@ import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.objectbank.ObjectBank;
 import edu.stanford.nlp.trees.TreePrint;
 import edu.stanford.nlp.util.*;
+import edu.stanford.nlp.util.concurrent.MulticoreWrapper;
+import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
 import edu.stanford.nlp.util.logging.Redwood;
 import edu.stanford.nlp.util.logging.StanfordRedwoodConfiguration;
 
@@ -91,6 +93,9 @@ public class StanfordCoreNLP extends AnnotationPipeline {
 
   public static final String DEFAULT_OUTPUT_FORMAT = isXMLOutputPresent() ? "xml" : "text";
 
+  /** How many documents per thread {@link #processDocuments} reads ahead of the next one to write, when keeping order */
+  public static final int STREAM_PENDING_PER_THREAD = 4;
+
   /** Formats the constituent parse trees for display */
   private TreePrint constituentTreePrinter;
   /** Formats the dependency parse trees for human-readable display */
@@ -287,7 +292,7 @@ public class StanfordCoreNLP extends AnnotationPipeline {
       System.err.println("Adding annotator " + name);
 
       Annotator an = pool.get(name);
-      this.addAnnotator(an);
+      this.addAnnotator(name, an);
 
       if (enforceRequirements) {
         Set<Requirement> allRequirements = an.requires();
@@ -308,6 +313,11 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     if (! alreadyAddedAnnoNames.contains(STANFORD_SSPLIT)) {
       System.setProperty(NEWLINE_SPLITTER_PROPERTY, "false");
     }
+
+    String jmxName = props.getProperty("metrics.jmx");
+    if (jmxName != null && ! jmxName.equalsIgnoreCase("false")) {
+      metrics().registerMBeans(jmxName.equalsIgnoreCase("true") ? "default" : jmxName);
+    }
   }
 
   /**
@@ -585,6 +595,8 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     os.println("\tIf annotator \"pos\" is defined:");
     os.println("\t\"pos.maxlen\" - maximum length of sentence to POS tag");
     os.println("\t\"pos.model\" - path towards the POS tagger model");
+    os.println("\t\"pos.sharedCache\" - number of words whose local scores are cached across sentences (default 0, off)");
+    os.println("\t\"pos.cacheWarmup\" - number of frequent dictionary words to precompute in that cache");
 
     os.println();
     os.println("\tIf annotator \"ner\" is defined:");
@@ -628,8 +640,16 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     os.println("\t\"outputExtension\" - extension to use for the output file (defaults to \".xml\" for XML, \".ser.gz\" for serialized).  Don't forget the dot!");
     os.println("\t\"outputFormat\" - \"xml\" to output XML (default), \"serialized\" to output serialized Java objects, \"text\" to output text");
     os.println("\t\"serializer\" - Class of annotation serializer to use when outputFormat is \"serialized\".  By default, uses Java serialization.");
+    os.println("\t               e.g., edu.stanford.nlp.pipeline.ProtobufAnnotationSerializer for compact, streamable protocol buffers.");
     os.println("\t\"replaceExtension\" - flag to chop off the last extension before adding outputExtension to file");
     os.println("\t\"noClobber\" - don't automatically override (clobber) output files that already exist");
+    os.println("\t\"stream\" - run the pipeline on the documents in this file, or in the files under this directory,");
+    os.println("\t           parallelizing across documents and writing all output to one place");
+    os.println("\t\"stream.split\" - how \"stream\" files are split into documents: \"line\" (one per line; the default for a file),");
+    os.println("\t                 \"delimiter\" (separated by lines matching stream.delimiter), or \"file\" (the default for a directory)");
+    os.println("\t\"stream.delimiter\" - regular expression for lines separating documents (defaults to blank lines)");
+    os.println("\t\"stream.ordered\" - if false, write \"stream\" documents as they finish rather than in input order (defaults to true)");
+    os.println("\t\"outputFile\" - where to write \"stream\" output (defaults to stdout)");
 		os.println("\t\"threads\" - multithread on this number of threads");
     os.println();
     os.println("If none of the above are present, run the pipeline in an interactive shell (default properties will be loaded from the classpath).");
@@ -734,8 +754,6 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     }
 
     //(file info)
-//    final OutputFormat outputFormat =
-//            OutputFormat.valueOf(properties.getProperty("outputFormat", DEFAULT_OUTPUT_FORMAT).toUpperCase());
     final OutputFormat outputFormat =
             OutputFormat.valueOf(properties.getProperty("outputFormat", "conll").toUpperCase());
     String defaultExtension;
@@ -966,6 +984,249 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     processFiles(files, 1);
   }
 
+  /**
+   * Annotates all the documents in a single large input, writing every result to one output stream.
+   * Unlike {@link #processFiles(String, Collection, int)}, which parallelizes across whole files,
+   * this splits each input file into documents (see the <code>stream.split</code> property) and
+   * parallelizes across documents, so one huge file can keep every thread busy and
+   * millions of tiny documents do not each pay for opening an output file.
+   * If <code>input</code> is a directory, it is walked lazily, as are the files themselves.
+   *
+   * @param input A file, or a directory tree of files, to read documents from
+   * @param os Where to write the annotated documents, in the configured <code>outputFormat</code>
+   * @param numThreads The number of documents to annotate in parallel
+   */
+  public void processStream(File input, OutputStream os, int numThreads) throws IOException {
+    String defaultSplit = input.isDirectory() ? "file" : "line";
+    StreamSplit split = StreamSplit.valueOf(properties.getProperty("stream.split", defaultSplit).toUpperCase());
+    Pattern delimiter = Pattern.compile(properties.getProperty("stream.delimiter", "\\s*"));
+    boolean orderResults = PropertiesUtils.getBool(properties, "stream.ordered", true);
+    Iterator<File> files = new FileSequentialCollection(input, properties.getProperty("extension"), true).iterator();
+    processDocuments(new StreamedDocumentIterator(files, split, delimiter, getEncoding()), os, numThreads, orderResults);
+  }
+
+  /**
+   * Annotates the given documents on <code>numThreads</code> threads, writing every result to one output stream.
+   * At most <code>numThreads</code> documents are being annotated at any time, and documents are only
+   * taken from the iterator as threads become free, so the iterator may be arbitrarily long.
+   *
+   * @param documents The documents to annotate.  These are consumed lazily.
+   * @param os Where to write the annotated documents, in the configured <code>outputFormat</code>
+   * @param numThreads The number of documents to annotate in parallel
+   * @param orderResults If true, documents are written in the order they were read, and no more
+   *                     than {@link #STREAM_PENDING_PER_THREAD} documents per thread are read ahead
+   *                     of the next one to write, so a slow document holds back the reading rather than
+   *                     letting the finished documents after it pile up.  Otherwise, documents are
+   *                     written as soon as they are done.
+   */
+  public void processDocuments(Iterator<Annotation> documents, OutputStream os, int numThreads, boolean orderResults) throws IOException {
+    final OutputFormat outputFormat =
+            OutputFormat.valueOf(properties.getProperty("outputFormat", DEFAULT_OUTPUT_FORMAT).toUpperCase());
+    final boolean continueOnAnnotateError = Boolean.parseBoolean(properties.getProperty("continueOnAnnotateError", "false"));
+    AnnotationSerializer serializer = null;
+    if (outputFormat == OutputFormat.SERIALIZED) {
+      String serializerClass = properties.getProperty("serializer", GenericAnnotationSerializer.class.getName());
+      String outputSerializerClass = properties.getProperty("outputSerializer", serializerClass);
+      String outputSerializerName = (serializerClass.equals(outputSerializerClass))? "serializer":"outputSerializer";
+      serializer = loadSerializer(outputSerializerClass, outputSerializerName, properties);
+    }
+
+    // Exceptions are returned rather than thrown: MulticoreWrapper cannot pass a failed job on to us
+    MulticoreWrapper<Annotation, Pair<Annotation, Exception>> wrapper =
+        new MulticoreWrapper<Annotation, Pair<Annotation, Exception>>(numThreads, new ThreadsafeProcessor<Annotation, Pair<Annotation, Exception>>() {
+          @Override
+          public Pair<Annotation, Exception> process(Annotation document) {
+            try {
+              annotate(document);
+              return Pair.makePair(document, null);
+            } catch (Exception ex) {
+              return Pair.makePair(document, ex);
+            }
+          }
+          @Override
+          public ThreadsafeProcessor<Annotation, Pair<Annotation, Exception>> newInstance() {
+            return this;
+          }
+        }, orderResults);
+
+    int maxPending = STREAM_PENDING_PER_THREAD * (numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors());
+    int submitted = 0;
+    int returned = 0;
+    int totalProcessed = 0;
+    int totalErrorAnnotating = 0;
+    try {
+      boolean done = false;
+      while ( ! done) {
+        if (orderResults && submitted - returned >= maxPending) {
+          // too many documents are waiting on the one to write next
+          try {
+            wrapper.awaitResult();
+          } catch (InterruptedException e) {
+            throw new RuntimeInterruptedException(e);
+          }
+        } else if (documents.hasNext()) {
+          wrapper.put(documents.next());
+          submitted += 1;
+        } else {
+          wrapper.join();
+          done = true;
+        }
+        // write out whatever has finished, on this thread, so the output needs no locking
+        while (wrapper.peek()) {
+          Pair<Annotation, Exception> result = wrapper.poll();
+          returned += 1;
+          Annotation annotation = result.first;
+          if (result.second != null) {
+            String docId = annotation.get(CoreAnnotations.DocIDAnnotation.class);
+            if ( ! continueOnAnnotateError) {
+              throw new RuntimeException("Error annotating document " + docId, result.second);
+            }
+            err("Error annotating document " + docId, result.second);
+            totalErrorAnnotating += 1;
+            continue;
+          }
+          os = writeStreamedDocument(annotation, os, outputFormat, serializer);
+          totalProcessed += 1;
+          if (totalProcessed % 1000 == 0) {
+            log("Processed " + totalProcessed + " documents");
+          }
+        }
+      }
+    } finally {
+      // make sure the worker threads exit, even if we bailed out above
+      wrapper.join();
+      os.flush();
+    }
+    log("Processed " + totalProcessed + " documents");
+    log("Error annotating " + totalErrorAnnotating + " documents");
+  }
+
+  private OutputStream writeStreamedDocument(Annotation annotation, OutputStream os,
+                                             OutputFormat outputFormat, AnnotationSerializer serializer) throws IOException {
+    switch (outputFormat) {
+      case XML:
+        xmlPrint(annotation, os);
+        break;
+      case JSON:
+        new JSONOutputter().print(annotation, os, this);
+        os.write('\n');
+        break;
+      case CONLL:
+        new CoNLLOutputter().print(annotation, os, this);
+        break;
+      case TEXT:
+        prettyPrint(annotation, os);
+        break;
+      case SERIALIZED:
+        // serializers may wrap the stream; they expect to be handed back what they returned
+        os = serializer.write(annotation, os);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown output format " + outputFormat);
+    }
+    return os;
+  }
+
+  /** How {@link #processStream} splits each input file into documents */
+  enum StreamSplit { LINE, DELIMITER, FILE }
+
+  /**
+   * Lazily reads documents out of a sequence of files.  Each file is either one
+   * document, one document per line, or split into documents at lines matching a delimiter.
+   * Every document gets a DocIDAnnotation naming the file it came from and its position there.
+   */
+  private static class StreamedDocumentIterator extends AbstractIterator<Annotation> {
+    private final Iterator<File> files;
+    private final StreamSplit split;
+    private final Pattern delimiter;
+    private final String encoding;
+
+    private File currentFile;
+    private BufferedReader reader;
+    private int documentInFile;
+    /** Whether the current file has already been returned as a whole (for StreamSplit.FILE) */
+    private boolean fileRead;
+    private Annotation nextDocument;
+
+    StreamedDocumentIterator(Iterator<File> files, StreamSplit split, Pattern delimiter, String encoding) {
+      this.files = files;
+      this.split = split;
+      this.delimiter = delimiter;
+      this.encoding = encoding;
+      this.nextDocument = readDocument();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextDocument != null;
+    }
+
+    @Override
+    public Annotation next() {
+      if (nextDocument == null) {
+        throw new NoSuchElementException();
+      }
+      Annotation document = nextDocument;
+      nextDocument = readDocument();
+      return document;
+    }
+
+    /** Returns the next non-empty document, or null when all the files are used up */
+    private Annotation readDocument() {
+      try {
+        while (true) {
+          if (reader == null) {
+            if ( ! files.hasNext()) {
+              return null;
+            }
+            currentFile = files.next();
+            reader = IOUtils.readerFromFile(currentFile, encoding);
+            documentInFile = 0;
+            fileRead = false;
+          }
+          String text = readText();
+          if (text == null) {
+            reader.close();
+            reader = null;
+          } else if ( ! text.trim().isEmpty()) {
+            documentInFile += 1;
+            Annotation document = new Annotation(text);
+            String docId = (split == StreamSplit.FILE) ? currentFile.getPath() : currentFile.getPath() + '-' + documentInFile;
+            document.set(CoreAnnotations.DocIDAnnotation.class, docId);
+            return document;
+          }
+        }
+      } catch (IOException e) {
+        throw new RuntimeIOException(e);
+      }
+    }
+
+    /** Returns the text of the next document in the current file, or null at the end of the file */
+    private String readText() throws IOException {
+      switch (split) {
+        case LINE:
+          return reader.readLine();
+        case FILE:
+          if (fileRead) return null;
+          fileRead = true;
+          return IOUtils.slurpReader(reader);
+        case DELIMITER:
+          StringBuilder sb = null;
+          for (String line; (line = reader.readLine()) != null; ) {
+            if (delimiter.matcher(line).matches()) {
+              if (sb != null) break;
+              continue;  // skip leading delimiters
+            }
+            if (sb == null) sb = new StringBuilder();
+            sb.append(line).append('\n');
+          }
+          return (sb == null) ? null : sb.toString();
+        default:
+          throw new IllegalArgumentException("Unknown split mode " + split);
+      }
+    }
+  }
+
   public void run() throws IOException {
     Timing tim = new Timing();
     StanfordRedwoodConfiguration.minimalSetup();
@@ -1012,6 +1273,21 @@ public class StanfordCoreNLP extends AnnotationPipeline {
       this.processFiles(null, files, numThreads);
     }
 
+    //
+    // Process a stream of documents from one big file or a directory tree
+    //
+    else if (properties.containsKey("stream")) {
+      File input = new File(properties.getProperty("stream"));
+      String outputFile = properties.getProperty("outputFile");
+      if (outputFile == null) {
+        this.processStream(input, System.out, numThreads);
+      } else {
+        OutputStream os = new BufferedOutputStream(IOUtils.getFileOutputStream(outputFile));
+        this.processStream(input, os, numThreads);
+        os.close();
+      }
+    }
+
     //
     // Run the interactive shell
     //
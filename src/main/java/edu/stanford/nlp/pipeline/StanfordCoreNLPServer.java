@@ -0,0 +1,420 @@
+package edu.stanford.nlp.pipeline;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.PropertiesUtils;
+import edu.stanford.nlp.util.RuntimeInterruptedException;
+import edu.stanford.nlp.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static edu.stanford.nlp.util.logging.Redwood.Util.*;
+
+/**
+ * An HTTP front end for the full {@link StanfordCoreNLP} pipeline.
+ * Unlike the single-purpose socket servers (e.g., {@link edu.stanford.nlp.ie.NERServer}),
+ * this server keeps one warm copy of every annotator in the shared
+ * {@link AnnotatorPool}, so models are loaded once per JVM rather than once
+ * per request or per configuration.
+ * <p>
+ * Text is POSTed as the request body.  The query string may carry
+ * <code>annotators</code> (a comma separated list; defaults to the server's
+ * <code>annotators</code> property) and <code>outputFormat</code>
+ * (one of xml, json, conll or text; defaults to json).  For example:
+ * <br/><pre>
+ * curl --data 'The quick brown fox jumped.' 'http://localhost:9000/?annotators=tokenize,ssplit,pos&outputFormat=conll'
+ * </pre><br/>
+ * <p>
+ * Annotation, including loading the models of a new annotator list, is done
+ * on a bounded worker pool.  Requests which cannot be queued are refused with
+ * 503 (Service Unavailable) rather than piling up, and requests which take
+ * longer than <code>server.timeout</code> milliseconds are interrupted and
+ * answered with 504 (Gateway Timeout).  An interrupted request stops before
+ * the next annotator of its pipeline (or sooner, for annotators which check
+ * for interruption, like the parser), so its worker is only freed once the
+ * annotator it is running returns.  The queue should be sized with this in mind.
+ * <p>
+ * Annotator lists are normalized (spaces and repeated annotators are
+ * dropped; order is kept, since it matters to the pipeline) and must only
+ * name annotators the server knows.  At most <code>server.maxPipelines</code>
+ * distinct lists are loaded; requests for further lists are refused with 400.
+ * <p>
+ * Server properties (all other properties are passed to the pipelines):
+ * <ul>
+ *   <li><code>server.port</code> - port to listen on (default 9000)</li>
+ *   <li><code>server.threads</code> - number of annotation worker threads (default: number of processors)</li>
+ *   <li><code>server.queueSize</code> - number of requests which may wait for a worker (default 4 * threads)</li>
+ *   <li><code>server.timeout</code> - per-request timeout in milliseconds; non-positive means none (default 15000)</li>
+ *   <li><code>server.maxChars</code> - largest document accepted, in characters; non-positive means no limit (default 100000).
+ *       Larger documents are refused with 413 (Payload Too Large) without being read in full.</li>
+ *   <li><code>server.maxPipelines</code> - most distinct annotator lists loaded (default 16)</li>
+ * </ul>
+ *
+ * Example usage:<br>
+ * java -mx4g edu.stanford.nlp.pipeline.StanfordCoreNLPServer -annotators tokenize,ssplit,pos,lemma,ner -server.port 9000
+ */
+public class StanfordCoreNLPServer {
+
+  public static final int DEFAULT_PORT = 9000;
+  public static final long DEFAULT_TIMEOUT = 15000;
+  public static final int DEFAULT_MAX_CHARS = 100000;
+  public static final int DEFAULT_MAX_PIPELINES = 16;
+
+  /** The most bytes a character can take in the supported encodings, for checking Content-Length */
+  private static final int MAX_BYTES_PER_CHAR = 4;
+
+  private final Properties defaultProps;
+  private final int port;
+  private final long timeoutMilliseconds;
+  private final int maxChars;
+  private final int maxPipelines;
+
+  /** Bounded pool on which all annotation happens */
+  private final ThreadPoolExecutor workers;
+
+  /**
+   * One pipeline per distinct normalized annotator list; the annotators themselves are shared
+   * through the AnnotatorPool.  A pipeline is built by the first request to run its task.
+   */
+  private final ConcurrentHashMap<String, FutureTask<StanfordCoreNLP>> pipelines = new ConcurrentHashMap<String, FutureTask<StanfordCoreNLP>>();
+
+  /** Building pipelines is serialized, since the shared AnnotatorPool is not thread safe */
+  private final Object pipelineBuildLock = new Object();
+
+  private HttpServer server;
+
+
+  public StanfordCoreNLPServer(Properties props) {
+    this.defaultProps = props;
+    this.port = PropertiesUtils.getInt(props, "server.port", DEFAULT_PORT);
+    this.timeoutMilliseconds = PropertiesUtils.getLong(props, "server.timeout", DEFAULT_TIMEOUT);
+    this.maxChars = PropertiesUtils.getInt(props, "server.maxChars", DEFAULT_MAX_CHARS);
+    this.maxPipelines = PropertiesUtils.getInt(props, "server.maxPipelines", DEFAULT_MAX_PIPELINES);
+    int numThreads = PropertiesUtils.getInt(props, "server.threads", Runtime.getRuntime().availableProcessors());
+    int queueSize = PropertiesUtils.getInt(props, "server.queueSize", 4 * numThreads);
+    // AbortPolicy: a full queue surfaces as a RejectedExecutionException, which we turn into a 503
+    this.workers = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize), new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Returns the normalized form of an annotator list: the annotators separated
+   * by single commas, without spaces or repeats, in the order given.
+   *
+   * @param annotators A comma separated list of annotators, or null for the server default
+   * @throws IllegalArgumentException If the list is empty or names an annotator the server doesn't know
+   */
+  String pipelineKey(String annotators) {
+    if (annotators == null || annotators.trim().isEmpty()) {
+      annotators = defaultProps.getProperty("annotators", "");
+    }
+    Set<String> names = new LinkedHashSet<String>();
+    for (String name : annotators.split("[, \t]+")) {
+      name = name.trim();
+      if ( ! name.isEmpty()) {
+        names.add(name);
+      }
+    }
+    if (names.isEmpty()) {
+      throw new IllegalArgumentException("No annotators given");
+    }
+    AnnotatorPool pool = StanfordCoreNLP.pool;
+    if (pool != null) {
+      for (String name : names) {
+        if ( ! pool.hasAnnotator(name)) {
+          throw new IllegalArgumentException("No annotator named " + name);
+        }
+      }
+    }
+    return StringUtils.join(names, ",");
+  }
+
+  /**
+   * Returns the task which builds the pipeline for a normalized annotator list,
+   * without running it.
+   *
+   * @throws IllegalArgumentException If the list is new and the server already has its most pipelines
+   */
+  private FutureTask<StanfordCoreNLP> pipelineTask(String key) {
+    return pipelines.computeIfAbsent(key, k -> {
+      if (maxPipelines > 0 && pipelines.size() >= maxPipelines) {
+        throw new IllegalArgumentException("The server already has its limit of " + maxPipelines + " annotator lists");
+      }
+      return new FutureTask<StanfordCoreNLP>(() -> {
+        Properties props = new Properties();
+        props.putAll(defaultProps);
+        props.setProperty("annotators", k);
+        synchronized (pipelineBuildLock) {
+          return new StanfordCoreNLP(props);
+        }
+      });
+    });
+  }
+
+  /** Builds the pipeline of a task, if no other thread has, and returns it. */
+  private StanfordCoreNLP getPipeline(String key, FutureTask<StanfordCoreNLP> task) throws InterruptedException {
+    task.run();
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      // let a later request try again
+      pipelines.remove(key, task);
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  /**
+   * Returns the pipeline for the given annotators, creating it on first use.
+   * Other pipelines can be used while it is created.
+   *
+   * @param annotators A comma separated list of annotators, or null for the server default
+   * @return A pipeline running exactly those annotators
+   * @throws IllegalArgumentException If the annotators are unknown or there are too many pipelines
+   */
+  public StanfordCoreNLP getPipeline(String annotators) {
+    String key = pipelineKey(annotators);
+    try {
+      return getPipeline(key, pipelineTask(key));
+    } catch (InterruptedException e) {
+      throw new RuntimeInterruptedException(e);
+    }
+  }
+
+  /**
+   * Binds the server to its port and starts serving requests.
+   * The default pipeline is loaded before the port is opened, so the first
+   * request does not pay for model loading.
+   *
+   * @throws IOException If the port cannot be bound
+   */
+  public void start() throws IOException {
+    forceTrack("Starting server");
+    getPipeline(defaultProps.getProperty("annotators"));
+    server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.createContext("/", new CoreNLPHandler());
+    // exchanges only parse the request and wait on the workers, so they need not be bounded themselves
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    log("StanfordCoreNLPServer listening at port " + port);
+    endTrack("Starting server");
+  }
+
+  /**
+   * Stops accepting requests, waits up to <code>delaySeconds</code> for
+   * exchanges in progress, and shuts down the worker pool.
+   */
+  public void stop(int delaySeconds) {
+    if (server != null) {
+      server.stop(delaySeconds);
+      server = null;
+    }
+    workers.shutdownNow();
+  }
+
+  /**
+   * Reads the text of a request, up to a limit.
+   *
+   * @param limit The most characters to read, or 0 or less for no limit
+   * @return The text, or null if it is longer than the limit
+   */
+  private static String readText(Reader reader, int limit) throws IOException {
+    StringBuilder text = new StringBuilder();
+    char[] buffer = new char[8192];
+    for (int n; (n = reader.read(buffer)) >= 0; ) {
+      if (limit > 0 && text.length() + n > limit) {
+        return null;
+      }
+      text.append(buffer, 0, n);
+    }
+    return text.toString();
+  }
+
+  /**
+   * Annotates the given text and renders it in the given format.
+   * This runs on a worker thread.
+   */
+  private static byte[] annotateAndPrint(StanfordCoreNLP pipeline, String text,
+                                         StanfordCoreNLP.OutputFormat outputFormat) throws IOException {
+    Annotation annotation = new Annotation(text);
+    pipeline.annotate(annotation);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    switch (outputFormat) {
+      case XML:
+        pipeline.xmlPrint(annotation, os);
+        break;
+      case JSON:
+        new JSONOutputter().print(annotation, os, pipeline);
+        break;
+      case CONLL:
+        new CoNLLOutputter().print(annotation, os, pipeline);
+        break;
+      case TEXT:
+        pipeline.prettyPrint(annotation, os);
+        break;
+      default:
+        throw new IllegalArgumentException("Cannot output in format " + outputFormat + " from the server");
+    }
+    os.close();
+    return os.toByteArray();
+  }
+
+  private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+    Map<String, String> params = Generics.newHashMap();
+    if (query == null) {
+      return params;
+    }
+    for (String param : query.split("&")) {
+      if (param.isEmpty()) { continue; }
+      int eq = param.indexOf('=');
+      if (eq < 0) {
+        params.put(URLDecoder.decode(param, "UTF-8"), "");
+      } else {
+        params.put(URLDecoder.decode(param.substring(0, eq), "UTF-8"),
+            URLDecoder.decode(param.substring(eq + 1), "UTF-8"));
+      }
+    }
+    return params;
+  }
+
+  private static String contentType(StanfordCoreNLP.OutputFormat outputFormat, String encoding) {
+    switch (outputFormat) {
+      case XML: return "application/xml; charset=" + encoding;
+      case JSON: return "application/json; charset=" + encoding;
+      default: return "text/plain; charset=" + encoding;
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    OutputStream os = exchange.getResponseBody();
+    os.write(body);
+    os.close();
+  }
+
+  private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+    respond(exchange, status, "text/plain; charset=UTF-8", (message + '\n').getBytes("UTF-8"));
+  }
+
+
+  private class CoreNLPHandler implements HttpHandler {
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        if ( ! "POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+          exchange.getResponseHeaders().set("Allow", "POST");
+          respondError(exchange, 405, "Text to annotate must be POSTed as the request body");
+          return;
+        }
+
+        // Parse the request
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        final StanfordCoreNLP.OutputFormat outputFormat;
+        final String pipelineKey;
+        final FutureTask<StanfordCoreNLP> pipelineTask;
+        try {
+          outputFormat = StanfordCoreNLP.OutputFormat.valueOf(params.getOrDefault("outputFormat", "json").toUpperCase());
+          if (outputFormat == StanfordCoreNLP.OutputFormat.SERIALIZED) {
+            throw new IllegalArgumentException("Cannot output in format " + outputFormat + " from the server");
+          }
+          pipelineKey = pipelineKey(params.get("annotators"));
+          pipelineTask = pipelineTask(pipelineKey);
+        } catch (IllegalArgumentException e) {
+          respondError(exchange, 400, e.getMessage());
+          return;
+        }
+        if (maxChars > 0) {
+          // refuse what is surely too long before reading any of it; the limit is checked exactly when reading
+          String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+          if (contentLength != null && contentLength.trim().matches("\\d{1,18}") &&
+              Long.parseLong(contentLength.trim()) > (long) maxChars * MAX_BYTES_PER_CHAR) {
+            respondError(exchange, 413, "Document is " + contentLength.trim() + " bytes; the limit is " + maxChars + " characters");
+            return;
+          }
+        }
+        // all pipelines are made from the server properties, so they have the same encoding
+        String encoding = defaultProps.getProperty("encoding", "UTF-8");
+        final String text = readText(IOUtils.encodedInputStreamReader(exchange.getRequestBody(), encoding), maxChars);
+        if (text == null) {
+          respondError(exchange, 413, "Document is longer than the limit of " + maxChars + " characters");
+          return;
+        }
+
+        // Queue the annotation, refusing work we have no room for.
+        // Loading the pipeline's models, if it is new, is part of the job.
+        Future<byte[]> result;
+        try {
+          result = workers.submit(() -> annotateAndPrint(getPipeline(pipelineKey, pipelineTask), text, outputFormat));
+        } catch (RejectedExecutionException e) {
+          respondError(exchange, 503, "Server is busy; try again later");
+          return;
+        }
+
+        byte[] output;
+        try {
+          output = (timeoutMilliseconds > 0) ? result.get(timeoutMilliseconds, TimeUnit.MILLISECONDS) : result.get();
+        } catch (TimeoutException e) {
+          result.cancel(true);
+          respondError(exchange, 504, "Annotation timed out after " + timeoutMilliseconds + " ms");
+          return;
+        } catch (InterruptedException e) {
+          result.cancel(true);
+          respondError(exchange, 503, "Server is shutting down");
+          return;
+        } catch (ExecutionException e) {
+          err("Error annotating request", e.getCause());
+          respondError(exchange, 500, String.valueOf(e.getCause()));
+          return;
+        }
+        respond(exchange, 200, contentType(outputFormat, encoding), output);
+      } catch (RuntimeException e) {
+        // e.g., a failure loading the models for a new annotator list
+        err("Error handling request", e);
+        respondError(exchange, 500, String.valueOf(e));
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+
+
+  /**
+   * Starts a server with the properties given on the command line.
+   *
+   * @param args Properties for the server and the default pipeline, e.g. -server.port 9000 -annotators tokenize,ssplit
+   * @throws IOException If the server cannot be started
+   */
+  public static void main(String[] args) throws IOException {
+    Properties props = StringUtils.argsToProperties(args);
+    new StanfordCoreNLPServer(props).start();
+  }
+
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Properties;
 
+import edu.stanford.nlp.ling.CompactTokens;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.process.TokenizerFactory;
@@ -119,8 +120,12 @@ public class TokenizerAnnotator implements Annotator {
 
   public static final String EOL_PROPERTY = "tokenize.keepeol";
 
+  /** If true, tokens are stored column-wise in a {@link CompactTokens}, to save memory */
+  public static final String COMPACT_PROPERTY = "tokenize.compact";
+
   private final boolean VERBOSE;
   private final TokenizerFactory<CoreLabel> factory;
+  private final boolean compact;
 
   // CONSTRUCTORS
 
@@ -153,6 +158,7 @@ public class TokenizerAnnotator implements Annotator {
 
     TokenizerType type = TokenizerType.getTokenizerType(props);
     factory = initFactory(type, props, options);
+    compact = false;
   }
 
   public TokenizerAnnotator(boolean verbose, Properties props) {
@@ -167,6 +173,7 @@ public class TokenizerAnnotator implements Annotator {
 
     TokenizerType type = TokenizerType.getTokenizerType(props);
     factory = initFactory(type, props, options);
+    compact = Boolean.valueOf(props.getProperty(COMPACT_PROPERTY, "false"));
   }
 
   /**
@@ -256,6 +263,9 @@ public class TokenizerAnnotator implements Annotator {
       // don't wrap in BufferedReader.  It gives you nothing for in-memory String unless you need the readLine() method!
 
       List<CoreLabel> tokens = getTokenizer(r).tokenize();
+      if (compact) {
+        tokens = CompactTokens.compact(tokens);
+      }
       // cdm 2010-05-15: This is now unnecessary, as it is done in CoreLabelTokenFactory
       // for (CoreLabel token: tokens) {
       // token.set(CoreAnnotations.TextAnnotation.class, token.get(CoreAnnotations.TextAnnotation.class));
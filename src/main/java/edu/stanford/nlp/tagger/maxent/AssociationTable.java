@@ -0,0 +1,149 @@
+package edu.stanford.nlp.tagger.maxent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only, tagging-time form of {@link MaxentTagger}'s
+ * {@code fAssociations}.  For each extractor there is an open-addressing
+ * table keyed by a 64-bit hash of the extracted feature value, and each
+ * feature value maps to a {@link TagWeights} which has both the original
+ * per-tag association array and a sparse list of the (tag, lambda) pairs that
+ * actually have a weight.  Scoring a feature then touches only those pairs,
+ * rather than looping over every tag and indirecting through the lambda array.
+ * <p>
+ * Keys are compared by hash first and then by value, so lookups give exactly
+ * the same results as the maps they were built from.  The table is a snapshot:
+ * it must be rebuilt if the associations or the lambdas change.
+ */
+class AssociationTable {
+
+  /** The associations and weights for one extracted feature value. */
+  static class TagWeights {
+    /** For each tag, the index of the feature in the lambda array, or -1. */
+    final int[] associations;
+    /** The tags which have a feature for this value, in increasing order. */
+    final int[] tags;
+    /** The lambda of the feature for each of {@code tags}. */
+    final double[] weights;
+
+    TagWeights(int[] associations, double[] lambda) {
+      this.associations = associations;
+      int n = 0;
+      for (int fNum : associations) {
+        if (fNum > -1) {
+          n++;
+        }
+      }
+      tags = new int[n];
+      weights = new double[n];
+      for (int i = 0, k = 0; i < associations.length; i++) {
+        int fNum = associations[i];
+        if (fNum > -1) {
+          tags[k] = i;
+          weights[k] = lambda[fNum];
+          k++;
+        }
+      }
+    }
+
+    /** Adds this feature's weight to the score of each tag it fires for. */
+    void addTo(double[] scores) {
+      for (int k = 0; k < tags.length; k++) {
+        scores[tags[k]] += weights[k];
+      }
+    }
+  }
+
+  private final Table[] tables;
+  private final List<Map<String, int[]>> source;
+  private final double[] sourceLambda;
+
+  AssociationTable(List<Map<String, int[]>> fAssociations, double[] lambda) {
+    source = fAssociations;
+    sourceLambda = lambda;
+    tables = new Table[fAssociations.size()];
+    for (int i = 0; i < tables.length; i++) {
+      tables[i] = new Table(fAssociations.get(i), lambda);
+    }
+  }
+
+  /** Whether this table was built from exactly these associations and lambdas. */
+  boolean isFor(List<Map<String, int[]>> fAssociations, double[] lambda) {
+    return source == fAssociations && sourceLambda == lambda && tables.length == fAssociations.size();
+  }
+
+  /**
+   * Returns the weights for {@code value} as extracted by extractor number
+   * {@code extractor} (counting the rare extractors after the common ones),
+   * or null if the tagger has no feature for it.
+   */
+  TagWeights get(int extractor, String value) {
+    return tables[extractor].get(value);
+  }
+
+  /** 64-bit FNV-1a hash of the chars of a String. */
+  static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0, len = value.length(); i < len; i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    return h;
+  }
+
+  private static class Table {
+    private final long[] hashes;
+    private final String[] keys;
+    private final TagWeights[] values;
+    private final int mask;
+    private TagWeights nullValue; // HashMap allows a null key
+
+    Table(Map<String, int[]> associations, double[] lambda) {
+      int capacity = 4;
+      while (capacity < associations.size() * 2) {
+        capacity <<= 1;
+      }
+      hashes = new long[capacity];
+      keys = new String[capacity];
+      values = new TagWeights[capacity];
+      mask = capacity - 1;
+      for (Map.Entry<String, int[]> entry : associations.entrySet()) {
+        String key = entry.getKey();
+        if (key == null) {
+          nullValue = new TagWeights(entry.getValue(), lambda);
+          continue;
+        }
+        long h = hash(key);
+        int slot = slot(h);
+        while (keys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        hashes[slot] = h;
+        keys[slot] = key;
+        values[slot] = new TagWeights(entry.getValue(), lambda);
+      }
+    }
+
+    private int slot(long h) {
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    TagWeights get(String value) {
+      if (value == null) {
+        return nullValue;
+      }
+      long h = hash(value);
+      for (int slot = slot(h); ; slot = (slot + 1) & mask) {
+        String key = keys[slot];
+        if (key == null) {
+          return null;
+        }
+        if (hashes[slot] == h && key.equals(value)) {
+          return values[slot];
+        }
+      }
+    }
+  }
+
+}
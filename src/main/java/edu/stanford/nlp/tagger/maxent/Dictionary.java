@@ -13,6 +13,9 @@ import edu.stanford.nlp.util.Generics;
 import java.io.IOException;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 
@@ -161,6 +164,23 @@ public class Dictionary {
     return ! dict.containsKey(word);
   }
 
+  /**
+   * Returns up to {@code n} words of the dictionary, most frequent first.
+   * Words with the same count are in alphabetical order.
+   */
+  List<String> mostFrequentWords(int n) {
+    List<Map.Entry<String,TagCount>> entries = new ArrayList<Map.Entry<String,TagCount>>(dict.entrySet());
+    Collections.sort(entries, (a, b) -> {
+      int cmp = Integer.compare(b.getValue().sum(), a.getValue().sum());
+      return cmp != 0 ? cmp : a.getKey().compareTo(b.getKey());
+    });
+    List<String> words = new ArrayList<String>(Math.min(n, entries.size()));
+    for (int i = 0; i < n && i < entries.size(); i++) {
+      words.add(entries.get(i).getKey());
+    }
+    return words;
+  }
+
 
   /*
   public void save(String filename) {
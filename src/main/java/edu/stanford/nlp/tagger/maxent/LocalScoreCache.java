@@ -0,0 +1,80 @@
+package edu.stanford.nlp.tagger.maxent;
+
+import edu.stanford.nlp.util.CacheMap;
+
+/**
+ * A bounded, thread-safe LRU cache of the scores of a tagger's local
+ * (current word only) features, keyed by word.  Each {@link MaxentTagger}
+ * has at most one, shared by all the sentences it tags on every thread,
+ * so the scores of frequent words are computed once rather than once per
+ * sentence.
+ * <p>
+ * The cache is split into independently locked segments, each an
+ * access-ordered {@link CacheMap}, so that concurrent taggers rarely contend.
+ * Cached arrays are shared and must not be modified.
+ */
+public class LocalScoreCache {
+
+  private static final int SEGMENTS = 16;
+
+  private final CacheMap<String, double[]>[] segments;
+
+  private final int capacity;
+
+  @SuppressWarnings("unchecked")
+  LocalScoreCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    int perSegment = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+    segments = new CacheMap[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new CacheMap<String, double[]>(perSegment, 0.75f, true);
+    }
+  }
+
+  private CacheMap<String, double[]> segment(String word) {
+    int h = word.hashCode();
+    return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  double[] get(String word) {
+    CacheMap<String, double[]> segment = segment(word);
+    synchronized (segment) {
+      return segment.get(word);
+    }
+  }
+
+  void put(String word, double[] scores) {
+    CacheMap<String, double[]> segment = segment(word);
+    synchronized (segment) {
+      segment.put(word, scores);
+    }
+  }
+
+  /** The maximum number of words kept. */
+  public int capacity() {
+    return capacity;
+  }
+
+  /** The number of words currently cached. */
+  public int size() {
+    int size = 0;
+    for (CacheMap<String, double[]> segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  public void clear() {
+    for (CacheMap<String, double[]> segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+}
@@ -431,6 +431,90 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
     return prob;
   }
 
+  /** Tagging-time copy of fAssociations and the lambdas, built on first use. */
+  private transient volatile AssociationTable associationTable;
+
+  /**
+   * Returns the association table for the current fAssociations and
+   * lambdas, rebuilding it if either has been replaced since it was built.
+   */
+  AssociationTable associationTable() {
+    AssociationTable table = associationTable;
+    double[] lambda = getLambdaSolve().lambda;
+    if (table == null || ! table.isFor(fAssociations, lambda)) {
+      table = new AssociationTable(fAssociations, lambda);
+      associationTable = table;
+      LocalScoreCache cache = localScoreCache;
+      if (cache != null) {
+        cache.clear();
+      }
+    }
+    return table;
+  }
+
+  /** Local feature scores shared by all sentences and threads, or null if not enabled. */
+  private transient volatile LocalScoreCache localScoreCache;
+
+  /**
+   * Shares the scores of local (current word only) features between all the
+   * sentences this tagger tags, on all threads, keeping the most recently
+   * used {@code capacity} words.  Without this, scores are only reused within
+   * the sentences tagged by one thread.
+   *
+   * @param capacity The number of words to keep; 0 or less disables the cache
+   */
+  public void enableLocalScoreCache(int capacity) {
+    localScoreCache = capacity > 0 ? new LocalScoreCache(capacity) : null;
+  }
+
+  /** The shared local score cache, or null if it is not enabled. */
+  public LocalScoreCache localScoreCache() {
+    return localScoreCache;
+  }
+
+  /**
+   * Fills the shared local score cache with the {@code numWords} most
+   * frequent words in the tagger's dictionary, most frequent last so that
+   * they are the last to be evicted.  Does nothing if the cache is not enabled.
+   */
+  public void warmUpLocalScoreCache(int numWords) {
+    LocalScoreCache cache = localScoreCache;
+    if (cache == null || numWords <= 0) {
+      return;
+    }
+    List<String> words = dict.mostFrequentWords(Math.min(numWords, cache.capacity()));
+    TestSentence testSentence = testSentence();
+    for (int i = words.size() - 1; i >= 0; i--) {
+      testSentence.tagSentence(Collections.singletonList(new Word(words.get(i))), false);
+    }
+  }
+
+  /**
+   * One TestSentence per thread, reused from sentence to sentence so that
+   * its buffers and word score cache are not reallocated for every sentence.
+   */
+  private transient ThreadLocal<TestSentence> testSentences;
+
+  private TestSentence testSentence() {
+    ThreadLocal<TestSentence> local = testSentences;
+    if (local == null) {
+      synchronized (this) {
+        if (testSentences == null) {
+          testSentences = new ThreadLocal<TestSentence>();
+        }
+        local = testSentences;
+      }
+    }
+    TestSentence testSentence = local.get();
+    if (testSentence == null) {
+      testSentence = new TestSentence(this);
+      local.set(testSentence);
+    } else {
+      testSentence.recycle();
+    }
+    return testSentence;
+  }
+
   // TODO: make these constructors instead of init methods?
   void init(TaggerConfig config) {
     if (initted) return;  // TODO: why not reinit?
@@ -913,7 +997,7 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
    */
   public String tagTokenizedString(String toTag) {
     List<Word> sent = Sentence.toUntaggedList(Arrays.asList(toTag.split("\\s+")));
-    TestSentence testSentence = new TestSentence(this);
+    TestSentence testSentence = testSentence();
     testSentence.tagSentence(sent, false);
     return testSentence.getTaggedNice();
   }
@@ -941,7 +1025,7 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
    */
   @Override
   public List<TaggedWord> apply(List<? extends HasWord> in) {
-    TestSentence testSentence = new TestSentence(this);
+    TestSentence testSentence = testSentence();
     return testSentence.tagSentence(in, false);
   }
 
@@ -961,7 +1045,7 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
   public List<List<TaggedWord>> process(List<? extends List<? extends HasWord>> sentences) {
     List<List<TaggedWord>> taggedSentences = Generics.newArrayList();
 
-    TestSentence testSentence = new TestSentence(this);
+    TestSentence testSentence = testSentence();
     for (List<? extends HasWord> sentence : sentences) {
       taggedSentences.add(testSentence.tagSentence(sentence, false));
     }
@@ -977,7 +1061,7 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
    * @return tagged sentence
    */
   public List<TaggedWord> tagSentence(List<? extends HasWord> sentence) {
-    TestSentence testSentence = new TestSentence(this);
+    TestSentence testSentence = testSentence();
     return testSentence.tagSentence(sentence, false);
   }
 
@@ -994,7 +1078,7 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
    */
   public List<TaggedWord> tagSentence(List<? extends HasWord> sentence,
                                            boolean reuseTags) {
-    TestSentence testSentence = new TestSentence(this);
+    TestSentence testSentence = testSentence();
     return testSentence.tagSentence(sentence, reuseTags);
   }
 
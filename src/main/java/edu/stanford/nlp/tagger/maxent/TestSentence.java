@@ -70,6 +70,15 @@ public class TestSentence implements SequenceModel {
   protected volatile Map<String,double[]> localScores = Generics.newHashMap();
   protected volatile double[][] localContextScores;
 
+  /** The most words {@link #recycle()} keeps in localScores. */
+  private static final int MAX_CACHED_WORDS = 50000;
+
+  // Per-sentence scratch state, reused when this TestSentence is pooled by MaxentTagger
+  private AssociationTable associations;
+  private String[][] tagsAtPosition = new String[0][];
+  private int[][] tagIndicesAtPosition = new int[0][];
+  private double[] dynamicScores;
+
   protected final MaxentTagger maxentTagger;
 
   public TestSentence(MaxentTagger maxentTagger) {
@@ -88,6 +97,17 @@ public class TestSentence implements SequenceModel {
     history = new History(pairs, maxentTagger.extractors);
   }
 
+  /**
+   * Prepares this TestSentence to tag another sentence on behalf of a caller
+   * that has finished with the previous result.  Scores cached for words
+   * depend only on the word, so they are kept across sentences, up to a limit.
+   */
+  void recycle() {
+    if (localScores.size() > MAX_CACHED_WORDS) {
+      localScores.clear();
+    }
+  }
+
   public void setCorrectTags(List<? extends HasTag> sentence) {
     int len = sentence.size();
     correctTags = new String[len];
@@ -126,6 +146,8 @@ public class TestSentence implements SequenceModel {
         }
       }
       originalTags.add(Tagger.EOS_TAG);
+    } else {
+      this.originalTags = null;
     }
     size = sz + 1;
     if (VERBOSE) {
@@ -148,7 +170,28 @@ public class TestSentence implements SequenceModel {
 
   protected void init() {
     //the eos are assumed already there
-    localContextScores = new double[size][];
+    if (localContextScores == null || localContextScores.length < size) {
+      localContextScores = new double[size][];
+    } else {
+      Arrays.fill(localContextScores, 0, size, null);
+    }
+    int padded = size + leftWindow() + rightWindow();
+    if (tagsAtPosition.length < padded) {
+      tagsAtPosition = new String[padded][];
+      tagIndicesAtPosition = new int[padded][];
+    } else {
+      Arrays.fill(tagsAtPosition, 0, padded, null);
+      Arrays.fill(tagIndicesAtPosition, 0, padded, null);
+    }
+    associations = maxentTagger.associationTable();
+    if (dynamicScores == null || dynamicScores.length != maxentTagger.ySize) {
+      dynamicScores = new double[maxentTagger.ySize];
+    }
+    // the counts are per sentence, and a TestSentence may be reused
+    numUnknown = 0;
+    numRight = 0;
+    numWrong = 0;
+    numWrongUnknown = 0;
     for (int i = 0; i < size - 1; i++) {
       if (maxentTagger.dict.isUnknown(sent.get(i))) {
         numUnknown++;
@@ -219,7 +262,7 @@ public class TestSentence implements SequenceModel {
       // iterate over the sentence
       for (int current = 0; current < size; current++) {
         History h = new History(start, end, current + start, pairs, maxentTagger.extractors);
-        String[] tags = stringTagsAt(h.current - h.start + leftWindow());
+        String[] tags = tagsAt(h.current - h.start + leftWindow());
         double[] probs = getHistories(tags, h);
         ArrayMath.logNormalize(probs);
 
@@ -373,15 +416,15 @@ public class TestSentence implements SequenceModel {
   }
 
   private double[] getExactScores(History h) {
-    String[] tags = stringTagsAt(h.current - h.start + leftWindow());
-    double[] histories = getHistories(tags, h); // log score for each tag
+    int pos = h.current - h.start + leftWindow();
+    String[] tags = tagsAt(pos);
+    int[] tagIndices = tagIndicesAt(pos);
+    double[] histories = getHistories(tags, h, dynamicScores); // log score for each tag
     ArrayMath.logNormalize(histories);
     double[] scores = new double[tags.length];
     for (int j = 0; j < tags.length; j++) {
       // score the j-th tag
-      String tag = tags[j];
-      int tagindex = maxentTagger.tags.getIndex(tag);
-      scores[j] = histories[tagindex];
+      scores[j] = histories[tagIndices[j]];
     }
     return scores;
   }
@@ -390,8 +433,8 @@ public class TestSentence implements SequenceModel {
   // (e.g., apple_CC) gets a default (constant) score instead of its exact score.
   // The scores of all other tags are computed exactly.
   private double[] getApproximateScores(History h) {
-    String[] tags = stringTagsAt(h.current - h.start + leftWindow());
-    double[] scores = getHistories(tags, h); // log score for each active tag, unnormalized
+    String[] tags = tagsAt(h.current - h.start + leftWindow());
+    double[] scores = getHistories(tags, h, null); // log score for each active tag, unnormalized
 
     // Number of tags that get assigned a default score:
     int nDefault = maxentTagger.ySize - tags.length;
@@ -405,12 +448,27 @@ public class TestSentence implements SequenceModel {
 
   // This precomputes scores of local features (localScores).
   protected double[] getHistories(String[] tags, History h) {
+    return getHistories(tags, h, null);
+  }
+
+  /**
+   * As {@link #getHistories(String[], History)}, but if {@code scratch} is
+   * non-null the exact scores are written into it rather than a new array.
+   */
+  private double[] getHistories(String[] tags, History h, double[] scratch) {
     boolean rare = maxentTagger.isRare(ExtractorFrames.cWord.extract(h));
     Extractors ex = maxentTagger.extractors, exR = maxentTagger.extractorsRare;
     String w = pairs.getWord(h.current);
     double[] lS, lcS;
-    lS = localScores.get(w);
-    if (lS == null) {
+    LocalScoreCache sharedScores = maxentTagger.localScoreCache();
+    boolean forcedTag = originalTags != null && originalTags.get(h.current - h.start) != null;
+    if (sharedScores != null && ! forcedTag && w != null) {
+      lS = sharedScores.get(w);
+      if (lS == null) {
+        lS = getHistories(tags, h, ex.local, rare ? exR.local : null);
+        sharedScores.put(w, lS);
+      }
+    } else if ((lS = localScores.get(w)) == null) {
       lS = getHistories(tags, h, ex.local, rare ? exR.local : null);
       localScores.put(w,lS);
     } else if (lS.length != tags.length) {
@@ -429,33 +487,38 @@ public class TestSentence implements SequenceModel {
       localContextScores[h.current] = lcS;
       ArrayMath.pairwiseAddInPlace(lcS,lS);
     }
-    double[] totalS = getHistories(tags, h, ex.dynamic, rare ? exR.dynamic : null);
+    double[] totalS = getHistories(tags, h, ex.dynamic, rare ? exR.dynamic : null, scratch);
     ArrayMath.pairwiseAddInPlace(totalS,lcS);
     return totalS;
   }
 
   private double[] getHistories(String[] tags, History h, List<Pair<Integer,Extractor>> extractors, List<Pair<Integer,Extractor>> extractorsRare) {
+    return getHistories(tags, h, extractors, extractorsRare, null);
+  }
+
+  private double[] getHistories(String[] tags, History h, List<Pair<Integer,Extractor>> extractors, List<Pair<Integer,Extractor>> extractorsRare, double[] scratch) {
     if(maxentTagger.hasApproximateScoring())
       return getApproximateHistories(tags, h, extractors, extractorsRare);
-    return getExactHistories(h, extractors, extractorsRare);
+    double[] scores;
+    if (scratch == null) {
+      scores = new double[maxentTagger.ySize];
+    } else {
+      scores = scratch;
+      Arrays.fill(scores, 0.0);
+    }
+    return getExactHistories(h, extractors, extractorsRare, scores);
   }
 
-  private double[] getExactHistories(History h, List<Pair<Integer,Extractor>> extractors, List<Pair<Integer,Extractor>> extractorsRare) {
-    double[] scores = new double[maxentTagger.ySize];
+  private double[] getExactHistories(History h, List<Pair<Integer,Extractor>> extractors, List<Pair<Integer,Extractor>> extractorsRare, double[] scores) {
     int szCommon = maxentTagger.extractors.size();
 
     for (Pair<Integer,Extractor> e : extractors) {
       int kf = e.first();
       Extractor ex = e.second();
       String val = ex.extract(h);
-      int[] fAssociations = maxentTagger.fAssociations.get(kf).get(val);
-      if (fAssociations != null) {
-        for (int i = 0; i < maxentTagger.ySize; i++) {
-          int fNum = fAssociations[i];
-          if (fNum > -1) {
-            scores[i] += maxentTagger.getLambdaSolve().lambda[fNum];
-          }
-        }
+      AssociationTable.TagWeights weights = associations().get(kf, val);
+      if (weights != null) {
+        weights.addTo(scores);
       }
     }
     if (extractorsRare != null) {
@@ -463,38 +526,42 @@ public class TestSentence implements SequenceModel {
         int kf = e.first();
         Extractor ex = e.second();
         String val = ex.extract(h);
-        int[] fAssociations = maxentTagger.fAssociations.get(kf+szCommon).get(val);
-        if (fAssociations != null) {
-          for (int i = 0; i < maxentTagger.ySize; i++) {
-            int fNum = fAssociations[i];
-            if (fNum > -1) {
-              scores[i] += maxentTagger.getLambdaSolve().lambda[fNum];
-            }
-          }
+        AssociationTable.TagWeights weights = associations().get(kf+szCommon, val);
+        if (weights != null) {
+          weights.addTo(scores);
         }
       }
     }
     return scores;
   }
 
+  private AssociationTable associations() {
+    if (associations == null) {
+      associations = maxentTagger.associationTable();
+    }
+    return associations;
+  }
+
   // Returns an unnormalized score (in log space) for each tag
   private double[] getApproximateHistories(String[] tags, History h, List<Pair<Integer,Extractor>> extractors, List<Pair<Integer,Extractor>> extractorsRare) {
 
     double[] scores = new double[tags.length];
+    int pos = h.current - h.start + leftWindow();
+    int[] tagIndices = pos < tagsAtPosition.length && tags == tagsAtPosition[pos] ? tagIndicesAt(pos) : tagIndices(tags);
+    double[] lambda = maxentTagger.getLambdaSolve().lambda;
     int szCommon = maxentTagger.extractors.size();
 
     for (Pair<Integer,Extractor> e : extractors) {
       int kf = e.first();
       Extractor ex = e.second();
       String val = ex.extract(h);
-      int[] fAssociations = maxentTagger.fAssociations.get(kf).get(val);
-      if (fAssociations != null) {
+      AssociationTable.TagWeights weights = associations().get(kf, val);
+      if (weights != null) {
+        int[] fAssociations = weights.associations;
         for (int j = 0; j < tags.length; j++) {
-          String tag = tags[j];
-          int tagIndex = maxentTagger.tags.getIndex(tag);
-          int fNum = fAssociations[tagIndex];
+          int fNum = fAssociations[tagIndices[j]];
           if (fNum > -1) {
-            scores[j] += maxentTagger.getLambdaSolve().lambda[fNum];
+            scores[j] += lambda[fNum];
           }
         }
       }
@@ -504,14 +571,13 @@ public class TestSentence implements SequenceModel {
         int kf = e.first();
         Extractor ex = e.second();
         String val = ex.extract(h);
-        int[] fAssociations = maxentTagger.fAssociations.get(szCommon+kf).get(val);
-        if (fAssociations != null) {
+        AssociationTable.TagWeights weights = associations().get(szCommon+kf, val);
+        if (weights != null) {
+          int[] fAssociations = weights.associations;
           for (int j = 0; j < tags.length; j++) {
-            String tag = tags[j];
-            int tagIndex = maxentTagger.tags.getIndex(tag);
-            int fNum = fAssociations[tagIndex];
+            int fNum = fAssociations[tagIndices[j]];
             if (fNum > -1) {
-              scores[j] += maxentTagger.getLambdaSolve().lambda[fNum];
+              scores[j] += lambda[fNum];
             }
           }
         }
@@ -675,12 +741,40 @@ public class TestSentence implements SequenceModel {
 
   @Override
   public int[] getPossibleValues(int pos) {
-    String[] arr1 = stringTagsAt(pos);
-    int[] arr = new int[arr1.length];
-    for (int i = 0; i < arr.length; i++) {
-      arr[i] = maxentTagger.tags.getIndex(arr1[i]);
+    return tagIndicesAt(pos).clone();
+  }
+
+  /** stringTagsAt, computed once per position of the current sentence. */
+  private String[] tagsAt(int pos) {
+    if (pos < 0 || pos >= tagsAtPosition.length) {
+      return stringTagsAt(pos);
+    }
+    String[] tags = tagsAtPosition[pos];
+    if (tags == null) {
+      tags = stringTagsAt(pos);
+      tagsAtPosition[pos] = tags;
+    }
+    return tags;
+  }
+
+  /** The indices of the tags in tagsAt(pos). */
+  private int[] tagIndicesAt(int pos) {
+    if (pos < 0 || pos >= tagIndicesAtPosition.length) {
+      return tagIndices(stringTagsAt(pos));
+    }
+    int[] indices = tagIndicesAtPosition[pos];
+    if (indices == null) {
+      indices = tagIndices(tagsAt(pos));
+      tagIndicesAtPosition[pos] = indices;
     }
+    return indices;
+  }
 
+  private int[] tagIndices(String[] tags) {
+    int[] arr = new int[tags.length];
+    for (int i = 0; i < arr.length; i++) {
+      arr[i] = maxentTagger.tags.getIndex(tags[i]);
+    }
     return arr;
   }
 
@@ -159,6 +159,10 @@ public class SUTime {
 
     SUTime.Time docDate;
 
+    // Reference date last parsed for this document, so it is not parsed again for each sentence
+    String refDateString;
+    SUTime.Time refDate;
+
     public TimeIndex() {
       addTemporal(SUTime.TIME_REF);
     }
@@ -167,12 +167,18 @@ public class TimeExpressionExtractorImpl implements TimeExpressionExtractor {
   public List<TimeExpression> extractTimeExpressions(CoreMap annotation, String refDateStr, SUTime.TimeIndex timeIndex) {
     SUTime.Time refDate = null;
     if (refDateStr != null) {
-      try {
-        // TODO: have more robust parsing of document date?  docDate may not have century....
-        // TODO: if docDate didn't change, we can cache the parsing of the docDate and not repeat it for every sentence
-        refDate = SUTime.parseDateTime(refDateStr,true);
-      } catch (Exception e) {
-        throw new RuntimeException("Could not parse date string: [" + refDateStr + "]", e);
+      if (refDateStr.equals(timeIndex.refDateString)) {
+        // Same reference date as the previous sentence
+        refDate = timeIndex.refDate;
+      } else {
+        try {
+          // TODO: have more robust parsing of document date?  docDate may not have century....
+          refDate = SUTime.parseDateTime(refDateStr,true);
+        } catch (Exception e) {
+          throw new RuntimeException("Could not parse date string: [" + refDateStr + "]", e);
+        }
+        timeIndex.refDateString = refDateStr;
+        timeIndex.refDate = refDate;
       }
     }
     return extractTimeExpressions(annotation, refDate, timeIndex);
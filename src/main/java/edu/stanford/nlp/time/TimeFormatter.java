@@ -113,6 +113,7 @@ public class TimeFormatter {
               new SequenceMatchRules.StringPatternExtractRule<MatchedExpression>(pattern,
                       new SequenceMatchRules.StringMatchedExpressionExtractor( valueExtractor, r.matchedExpressionGroup)));
       r.filterRule = new SequenceMatchRules.AnnotationMatchedFilter(valueExtractor);
+      r.textPattern = pattern;
     }
 
     protected void updateExtractRule(SequenceMatchRules.AnnotationExtractRule r,
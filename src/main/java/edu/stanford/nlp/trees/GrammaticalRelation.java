@@ -350,24 +350,35 @@ public class GrammaticalRelation implements Comparable<GrammaticalRelation>, Ser
       // Initialize the TregexMatcher with the HeadFinder so that we
       // can use the same HeadFinder through the entire process of
       // building the dependencies
-      TregexMatcher m = p.matcher(root, headFinder);
-      while (m.findAt(t)) {
-        TreeGraphNode target = (TreeGraphNode) m.getNode("target");
-        if (target == null) {
-          throw new AssertionError("Expression has no target: " + p);
-        }
-        nodeList.add(target);
-        if (DEBUG) {
-          System.err.println("found " + this + "(" + t + "-" + t.headWordNode() + ", " + m.getNode("target") + "-" + ((TreeGraphNode) m.getNode("target")).headWordNode() + ") using pattern " + p);
-          for (String nodeName : m.getNodeNames()) {
-            if (nodeName.equals("target"))
-              continue;
-            System.err.println("  node " + nodeName + ": " + m.getNode(nodeName));
-          }
+      addRelatedNodes(t, p, p.matcher(root, headFinder), nodeList);
+    }
+    return nodeList;
+  }
+
+  /** Adds to {@code nodeList} the targets of all the matches of {@code p} at {@code t},
+   *  using {@code m}, a new or {@link TregexMatcher#reset() reset} matcher for {@code p}.
+   */
+  void addRelatedNodes(TreeGraphNode t, TregexPattern p, TregexMatcher m, Set<TreeGraphNode> nodeList) {
+    while (m.findAt(t)) {
+      TreeGraphNode target = (TreeGraphNode) m.getNode("target");
+      if (target == null) {
+        throw new AssertionError("Expression has no target: " + p);
+      }
+      nodeList.add(target);
+      if (DEBUG) {
+        System.err.println("found " + this + "(" + t + "-" + t.headWordNode() + ", " + m.getNode("target") + "-" + ((TreeGraphNode) m.getNode("target")).headWordNode() + ") using pattern " + p);
+        for (String nodeName : m.getNodeNames()) {
+          if (nodeName.equals("target"))
+            continue;
+          System.err.println("  node " + nodeName + ": " + m.getNode(nodeName));
         }
       }
     }
-    return nodeList;
+  }
+
+  /** The patterns which find the dependents of this relation, in the order they are tried. */
+  List<TregexPattern> targetPatterns() {
+    return Collections.unmodifiableList(targetPatterns);
   }
 
   /** Returns <code>true</code> iff the value of <code>Tree</code>
@@ -378,8 +389,13 @@ public class GrammaticalRelation implements Comparable<GrammaticalRelation>, Ser
    */
   public boolean isApplicable(Tree t) {
     // System.err.println("Testing whether " + sourcePattern + " matches " + ((TreeGraphNode) t).toOneLineString());
-    return (sourcePattern != null) && (t.value() != null) &&
-             sourcePattern.matcher(t.value()).matches();
+    return isApplicable(t.value());
+  }
+
+  /** Returns whether this relation can hold at a node whose value is {@code label}. */
+  boolean isApplicable(String label) {
+    return (sourcePattern != null) && (label != null) &&
+             sourcePattern.matcher(label).matches();
   }
 
   /** Returns whether this is equal to or an ancestor of gr in the grammatical relations hierarchy. */
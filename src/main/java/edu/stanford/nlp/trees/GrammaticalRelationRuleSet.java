@@ -0,0 +1,178 @@
+package edu.stanford.nlp.trees;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.stanford.nlp.trees.tregex.TregexMatcher;
+import edu.stanford.nlp.trees.tregex.TregexPattern;
+import edu.stanford.nlp.util.ArraySet;
+import edu.stanford.nlp.util.CacheMap;
+
+/**
+ * A set of {@link GrammaticalRelation}s compiled for use by
+ * {@link GrammaticalStructure}.  Finding the dependents of a node means
+ * trying the target patterns of every relation whose source pattern
+ * matches the node's label.  Here the relations applicable to each label
+ * are worked out once and remembered, so the nodes of a tree are only
+ * matched against the patterns that can hold there, and each target pattern
+ * gets one {@link TregexMatcher} per tree, which is reset at each node,
+ * rather than a new matcher per node.
+ * <p>
+ * The results are exactly those of calling
+ * {@link GrammaticalRelation#isApplicable(Tree)} and
+ * {@link GrammaticalRelation#getRelatedNodes} for each relation in order.
+ */
+class GrammaticalRelationRuleSet {
+
+  /** Past this many distinct labels, the rules for new labels are computed each time rather than stored. */
+  private static final int MAX_CACHED_LABELS = 10000;
+
+  private static final Rule[] NO_RULES = new Rule[0];
+
+  /** Rule sets for the relation collections seen recently, such as each language's {@code values()}. */
+  private static final Map<RelationsKey, GrammaticalRelationRuleSet> ruleSets =
+      Collections.synchronizedMap(new CacheMap<RelationsKey, GrammaticalRelationRuleSet>(16, 0.75f, true));
+
+  /**
+   * Identifies a relation collection by identity and size, which, unlike
+   * its contents, can be hashed while other threads add to it.  Relations
+   * are only ever appended, so a collection of the same size has the same
+   * relations; once it grows, the rule set for its old size ages out.
+   */
+  private static final class RelationsKey {
+    private final Collection<GrammaticalRelation> relations;
+    private final int size;
+
+    RelationsKey(Collection<GrammaticalRelation> relations) {
+      this.relations = relations;
+      this.size = relations.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if ( ! (o instanceof RelationsKey)) {
+        return false;
+      }
+      RelationsKey other = (RelationsKey) o;
+      return relations == other.relations && size == other.size;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(relations) * 31 + size;
+    }
+  }
+
+  /** A relation, and the position of its target patterns in a {@link Matchers}. */
+  static class Rule {
+    final GrammaticalRelation relation;
+    final TregexPattern[] patterns;
+    final int firstPattern;
+
+    Rule(GrammaticalRelation relation, int firstPattern) {
+      this.relation = relation;
+      this.patterns = relation.targetPatterns().toArray(new TregexPattern[0]);
+      this.firstPattern = firstPattern;
+    }
+  }
+
+  /** One rule per relation, in the order of the source collection. */
+  private final Rule[] rules;
+  private final int numPatterns;
+  private final Map<String, Rule[]> rulesByLabel = new ConcurrentHashMap<String, Rule[]>();
+
+  private GrammaticalRelationRuleSet(Collection<GrammaticalRelation> relations) {
+    List<Rule> ruleList = new ArrayList<Rule>();
+    int patterns = 0;
+    for (GrammaticalRelation relation : relations) {
+      Rule rule = new Rule(relation, patterns);
+      ruleList.add(rule);
+      patterns += rule.patterns.length;
+    }
+    rules = ruleList.toArray(NO_RULES);
+    numPatterns = patterns;
+  }
+
+  /**
+   * Returns the rule set for {@code relations}, building it if needed.
+   * The caller must hold any lock guarding {@code relations}.
+   */
+  static GrammaticalRelationRuleSet forRelations(Collection<GrammaticalRelation> relations) {
+    RelationsKey key = new RelationsKey(relations);
+    GrammaticalRelationRuleSet ruleSet = ruleSets.get(key);
+    if (ruleSet == null) {
+      ruleSet = new GrammaticalRelationRuleSet(relations);
+      ruleSets.put(key, ruleSet);
+    }
+    return ruleSet;
+  }
+
+  /** The rules whose relation is applicable at a node with value {@code label}, in order. */
+  Rule[] rulesFor(String label) {
+    if (label == null) {
+      return NO_RULES;
+    }
+    Rule[] applicable = rulesByLabel.get(label);
+    if (applicable == null) {
+      List<Rule> ruleList = new ArrayList<Rule>();
+      for (Rule rule : rules) {
+        if (rule.relation.isApplicable(label)) {
+          ruleList.add(rule);
+        }
+      }
+      applicable = ruleList.isEmpty() ? NO_RULES : ruleList.toArray(NO_RULES);
+      if (rulesByLabel.size() < MAX_CACHED_LABELS) {
+        rulesByLabel.put(label, applicable);
+      }
+    }
+    return applicable;
+  }
+
+  /** Returns matchers for this rule set over the tree {@code root}, for use by one thread. */
+  Matchers matchers(TreeGraphNode root, HeadFinder headFinder) {
+    return new Matchers(root, headFinder);
+  }
+
+
+  /** The target pattern matchers for one tree, created as they are first needed. */
+  class Matchers {
+
+    private final TreeGraphNode root;
+    private final HeadFinder headFinder;
+    private final TregexMatcher[] matchers = new TregexMatcher[numPatterns];
+
+    private Matchers(TreeGraphNode root, HeadFinder headFinder) {
+      this.root = root;
+      this.headFinder = headFinder;
+    }
+
+    /** The rules whose relation is applicable at node {@code t}, in order. */
+    Rule[] rulesFor(TreeGraphNode t) {
+      return GrammaticalRelationRuleSet.this.rulesFor(t.value());
+    }
+
+    /** The same nodes as {@code rule.relation.getRelatedNodes(t, root, headFinder)}. */
+    Set<TreeGraphNode> relatedNodes(Rule rule, TreeGraphNode t) {
+      Set<TreeGraphNode> nodeList = new ArraySet<TreeGraphNode>();
+      for (int i = 0; i < rule.patterns.length; i++) {
+        TregexPattern p = rule.patterns[i];
+        TregexMatcher m = matchers[rule.firstPattern + i];
+        if (m == null) {
+          m = p.matcher(root, headFinder);
+          matchers[rule.firstPattern + i] = m;
+        } else {
+          m.reset();
+        }
+        rule.relation.addRelatedNodes(t, p, m, nodeList);
+      }
+      return nodeList;
+    }
+
+  }
+
+}
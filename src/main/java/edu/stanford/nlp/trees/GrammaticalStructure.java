@@ -198,7 +198,8 @@ public abstract class GrammaticalStructure implements Serializable {
       relationsLock.lock();
     }
     try {
-      analyzeNode(root, root, relations, hf, puncFilter, tagFilter, basicGraph, completeGraph);
+      GrammaticalRelationRuleSet ruleSet = GrammaticalRelationRuleSet.forRelations(relations);
+      analyzeNode(root, ruleSet.matchers(root, hf), puncFilter, tagFilter, basicGraph, completeGraph);
     }
     finally {
       if (relationsLock != null) {
@@ -457,35 +458,35 @@ public abstract class GrammaticalStructure implements Serializable {
   }
 
   // cdm dec 2009: I changed this to automatically fail on preterminal nodes, since they shouldn't match for GR parent patterns.  Should speed it up.
-  private static void analyzeNode(TreeGraphNode t, TreeGraphNode root, Collection<GrammaticalRelation> relations, HeadFinder hf, Predicate<String> puncFilter, Predicate<String> tagFilter, DirectedMultiGraph<TreeGraphNode, GrammaticalRelation> basicGraph, DirectedMultiGraph<TreeGraphNode, GrammaticalRelation> completeGraph) {
+  // Only the relations applicable at t's label are tried, via the rule set's index (see GrammaticalRelationRuleSet).
+  private static void analyzeNode(TreeGraphNode t, GrammaticalRelationRuleSet.Matchers matchers, Predicate<String> puncFilter, Predicate<String> tagFilter, DirectedMultiGraph<TreeGraphNode, GrammaticalRelation> basicGraph, DirectedMultiGraph<TreeGraphNode, GrammaticalRelation> completeGraph) {
     if (t.isPhrasal()) {    // don't do leaves or preterminals!
       TreeGraphNode tHigh = t.highestNodeWithSameHead();
-      for (GrammaticalRelation egr : relations) {
-        if (egr.isApplicable(t)) {
-          for (TreeGraphNode u : egr.getRelatedNodes(t, root, hf)) {
-            TreeGraphNode uHigh = u.highestNodeWithSameHead();
-            if (uHigh == tHigh) {
-              continue;
-            }
-            if (!puncFilter.test(uHigh.headWordNode().label().value()) || 
-                ! tagFilter.test(uHigh.headWordNode().label().tag())) {
-              continue;
-            }
-            completeGraph.add(tHigh, uHigh, egr);
-            // If there are two patterns that add dependencies, X --> Z and Y --> Z, and X dominates Y, then the dependency Y --> Z is not added to the basic graph to prevent unwanted duplication.
-            // Similarly, if there is already a path from X --> Y, and an expression would trigger Y --> X somehow, we ignore that
-            Set<TreeGraphNode> parents = basicGraph.getParents(uHigh);
-            if ((parents == null || parents.size() == 0 || parents.contains(tHigh)) &&
-                basicGraph.getShortestPath(uHigh, tHigh, true) == null) {
-              // System.err.println("Adding " + egr.getShortName() + " from " + t + " to " + u + " tHigh=" + tHigh + "(" + tHigh.headWordNode() + ") uHigh=" + uHigh + "(" + uHigh.headWordNode() + ")");
-              basicGraph.add(tHigh, uHigh, egr);
-            }
+      for (GrammaticalRelationRuleSet.Rule rule : matchers.rulesFor(t)) {
+        GrammaticalRelation egr = rule.relation;
+        for (TreeGraphNode u : matchers.relatedNodes(rule, t)) {
+          TreeGraphNode uHigh = u.highestNodeWithSameHead();
+          if (uHigh == tHigh) {
+            continue;
+          }
+          if (!puncFilter.test(uHigh.headWordNode().label().value()) || 
+              ! tagFilter.test(uHigh.headWordNode().label().tag())) {
+            continue;
+          }
+          completeGraph.add(tHigh, uHigh, egr);
+          // If there are two patterns that add dependencies, X --> Z and Y --> Z, and X dominates Y, then the dependency Y --> Z is not added to the basic graph to prevent unwanted duplication.
+          // Similarly, if there is already a path from X --> Y, and an expression would trigger Y --> X somehow, we ignore that
+          Set<TreeGraphNode> parents = basicGraph.getParents(uHigh);
+          if ((parents == null || parents.size() == 0 || parents.contains(tHigh)) &&
+              basicGraph.getShortestPath(uHigh, tHigh, true) == null) {
+            // System.err.println("Adding " + egr.getShortName() + " from " + t + " to " + u + " tHigh=" + tHigh + "(" + tHigh.headWordNode() + ") uHigh=" + uHigh + "(" + uHigh.headWordNode() + ")");
+            basicGraph.add(tHigh, uHigh, egr);
           }
         }
       }
       // now recurse into children
       for (TreeGraphNode kid : t.children()) {
-        analyzeNode(kid, root, relations, hf, puncFilter, tagFilter, basicGraph, completeGraph);
+        analyzeNode(kid, matchers, puncFilter, tagFilter, basicGraph, completeGraph);
       }
     }
   }
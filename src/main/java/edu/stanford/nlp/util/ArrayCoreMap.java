@@ -41,6 +41,10 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
   /** Initial capacity of the array */
   private static final int INITIAL_CAPACITY = 4;
 
+  /** Arrays shared by maps made with no capacity, which are replaced when an entry is added */
+  private static final Class[] EMPTY_KEYS = new Class[0];
+  private static final Object[] EMPTY_VALUES = new Object[0];
+
   /** Array of keys */
   private Class<? extends Key<?>>[] keys;
 
@@ -65,8 +69,13 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
    * @param capacity Initial capacity of object in key,value pairs
    */
   public ArrayCoreMap(int capacity) {
-    keys = ErasureUtils.uncheckedCast(new Class[capacity]);
-    values = new Object[capacity];
+    if (capacity == 0) {
+      keys = ErasureUtils.uncheckedCast(EMPTY_KEYS);
+      values = EMPTY_VALUES;
+    } else {
+      keys = ErasureUtils.uncheckedCast(new Class[capacity]);
+      values = new Object[capacity];
+    }
     // size starts at 0
   }
 
@@ -74,10 +83,22 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
    * Copy constructor.
    * @param other The ArrayCoreMap to copy. It may not be null.
    */
+  @SuppressWarnings("unchecked")
   public ArrayCoreMap(ArrayCoreMap other) {
-    size = other.size;
-    keys = Arrays.copyOf(other.keys, size);
-    values = Arrays.copyOf(other.values, size);
+    if (other.entriesInArrays()) {
+      size = other.size;
+      keys = Arrays.copyOf(other.keys, size);
+      values = Arrays.copyOf(other.values, size);
+    } else {
+      Set<Class<?>> otherKeys = other.keySet();
+      keys = new Class[otherKeys.size()];
+      values = new Object[otherKeys.size()];
+      for (Class key : otherKeys) {
+        keys[size] = key;
+        values[size] = other.get(key);
+        size++;
+      }
+    }
   }
 
   /**
@@ -100,6 +121,16 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
     }
   }
 
+  /**
+   * Whether all the entries of this map are in its key and value arrays.
+   * A subclass that keeps some entries elsewhere, overriding the accessors
+   * of this class, returns false, so that it is copied and compared through
+   * its accessors.
+   */
+  protected boolean entriesInArrays() {
+    return true;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -481,7 +512,7 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
       return obj.equals(this);
     }
 
-    if (obj instanceof ArrayCoreMap) {
+    if (obj instanceof ArrayCoreMap && entriesInArrays() && ((ArrayCoreMap) obj).entriesInArrays()) {
       // specialized equals for ArrayCoreMap
       return equals((ArrayCoreMap)obj);
     }
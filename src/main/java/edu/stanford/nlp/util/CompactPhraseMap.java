@@ -0,0 +1,306 @@
+package edu.stanford.nlp.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable map from phrases (lists of Strings) to values, stored as a
+ * trie over integer word ids, for large dictionaries of multi-word keys such
+ * as the gender and number list used by coref.  Each distinct word is stored
+ * once, and each trie edge is one entry of an open-addressing table from a
+ * (node, word) pair packed into a long to the child node, so there are no
+ * per-key List or entry objects.
+ * <p>
+ * Lookups accept any List, and give the same results as the map the
+ * phrase map was copied from.  Null keys, null words and null values are not
+ * allowed.  Iterating over the entries rebuilds each key, so it is slow;
+ * the map is meant for {@link #get} and {@link #containsKey}.
+ *
+ * @param <V> The type of the values
+ */
+public class CompactPhraseMap<V> extends AbstractMap<List<String>, V> {
+
+  private static final long NO_EDGE = -1L;
+
+  /** Tables are grown past this load factor, and trimmed to just under it once built */
+  private static final double MAX_LOAD = 0.75;
+
+  // distinct words, by open-addressing slot
+  private String[] words;
+  private int[] wordIds;
+  private int numWords;
+
+  // trie edges (parent node << 32 | word id) -> child node, by open-addressing slot
+  private long[] edgeKeys;
+  private int[] edgeChildren;
+  private int numEdges;
+
+  // the value of each node, or null if no key ends there; node 0 is the root
+  private Object[] values;
+  private int numNodes;
+
+  private int size;
+
+  private CompactPhraseMap(int expectedSize) {
+    int capacity = tableSize(expectedSize);
+    words = new String[capacity];
+    wordIds = new int[capacity];
+    edgeKeys = new long[capacity];
+    Arrays.fill(edgeKeys, NO_EDGE);
+    edgeChildren = new int[capacity];
+    values = new Object[Math.max(16, expectedSize)];
+    numNodes = 1;
+  }
+
+  /** A phrase map with the same mappings as {@code map}. */
+  public static <V> CompactPhraseMap<V> copyOf(Map<? extends List<String>, ? extends V> map) {
+    CompactPhraseMap<V> phraseMap = new CompactPhraseMap<V>(map.size());
+    for (Map.Entry<? extends List<String>, ? extends V> entry : map.entrySet()) {
+      phraseMap.add(entry.getKey(), entry.getValue());
+    }
+    phraseMap.trim();
+    return phraseMap;
+  }
+
+  /** The smallest power of two table that holds {@code expected} entries within the maximum load. */
+  private static int tableSize(int expected) {
+    int capacity = 16;
+    while (capacity * MAX_LOAD < expected + 1) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /** Shrinks the arrays to the sizes needed, once all keys have been added. */
+  private void trim() {
+    values = Arrays.copyOf(values, numNodes);
+    if (tableSize(numWords) < words.length) {
+      resizeWords(tableSize(numWords));
+    }
+    if (tableSize(numEdges) < edgeKeys.length) {
+      resizeEdges(tableSize(numEdges));
+    }
+  }
+
+  private static int slot(long hash, int mask) {
+    hash *= 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void add(List<String> key, V value) {
+    if (key == null || value == null) {
+      throw new IllegalArgumentException("Null keys and values are not allowed");
+    }
+    int node = 0;
+    for (String word : key) {
+      if (word == null) {
+        throw new IllegalArgumentException("Null words are not allowed: " + key);
+      }
+      int wordId = wordId(word);
+      if (wordId < 0) {
+        wordId = addWord(word);
+      }
+      int next = child(node, wordId);
+      if (next < 0) {
+        next = addChild(node, wordId);
+      }
+      node = next;
+    }
+    if (values[node] == null) {
+      size++;
+    }
+    values[node] = value;
+  }
+
+  private int wordId(String word) {
+    int mask = words.length - 1;
+    for (int slot = slot(word.hashCode(), mask); ; slot = (slot + 1) & mask) {
+      String w = words[slot];
+      if (w == null) {
+        return -1;
+      }
+      if (w.equals(word)) {
+        return wordIds[slot];
+      }
+    }
+  }
+
+  private int addWord(String word) {
+    if (numWords + 1 > words.length * MAX_LOAD) {
+      resizeWords(words.length * 2);
+    }
+    int id = numWords++;
+    putWord(word, id);
+    return id;
+  }
+
+  private void resizeWords(int capacity) {
+    String[] oldWords = words;
+    int[] oldIds = wordIds;
+    words = new String[capacity];
+    wordIds = new int[capacity];
+    for (int i = 0; i < oldWords.length; i++) {
+      if (oldWords[i] != null) {
+        putWord(oldWords[i], oldIds[i]);
+      }
+    }
+  }
+
+  private void putWord(String word, int id) {
+    int mask = words.length - 1;
+    int slot = slot(word.hashCode(), mask);
+    while (words[slot] != null) {
+      slot = (slot + 1) & mask;
+    }
+    words[slot] = word;
+    wordIds[slot] = id;
+  }
+
+  private int child(int node, int wordId) {
+    long edge = ((long) node << 32) | wordId;
+    int mask = edgeKeys.length - 1;
+    for (int slot = slot(edge, mask); ; slot = (slot + 1) & mask) {
+      long e = edgeKeys[slot];
+      if (e == NO_EDGE) {
+        return -1;
+      }
+      if (e == edge) {
+        return edgeChildren[slot];
+      }
+    }
+  }
+
+  private int addChild(int node, int wordId) {
+    if (numEdges + 1 > edgeKeys.length * MAX_LOAD) {
+      resizeEdges(edgeKeys.length * 2);
+    }
+    if (numNodes == values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+    }
+    int child = numNodes++;
+    numEdges++;
+    putEdge(((long) node << 32) | wordId, child);
+    return child;
+  }
+
+  private void resizeEdges(int capacity) {
+    long[] oldKeys = edgeKeys;
+    int[] oldChildren = edgeChildren;
+    edgeKeys = new long[capacity];
+    Arrays.fill(edgeKeys, NO_EDGE);
+    edgeChildren = new int[capacity];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != NO_EDGE) {
+        putEdge(oldKeys[i], oldChildren[i]);
+      }
+    }
+  }
+
+  private void putEdge(long edge, int child) {
+    int mask = edgeKeys.length - 1;
+    int slot = slot(edge, mask);
+    while (edgeKeys[slot] != NO_EDGE) {
+      slot = (slot + 1) & mask;
+    }
+    edgeKeys[slot] = edge;
+    edgeChildren[slot] = child;
+  }
+
+  /** The node reached by following {@code key} from the root, or -1. */
+  private int find(Object key) {
+    if ( ! (key instanceof List)) {
+      return -1;
+    }
+    int node = 0;
+    for (Object word : (List<?>) key) {
+      if ( ! (word instanceof String)) {
+        return -1;
+      }
+      int wordId = wordId((String) word);
+      if (wordId < 0) {
+        return -1;
+      }
+      node = child(node, wordId);
+      if (node < 0) {
+        return -1;
+      }
+    }
+    return node;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    int node = find(key);
+    return node < 0 ? null : (V) values[node];
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** The number of distinct words in the keys. */
+  public int numWords() {
+    return numWords;
+  }
+
+  @Override
+  public Set<Map.Entry<List<String>, V>> entrySet() {
+    return new AbstractSet<Map.Entry<List<String>, V>>() {
+      @Override
+      public Iterator<Map.Entry<List<String>, V>> iterator() {
+        return entries().iterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /** Rebuilds every key from the edge table. */
+  @SuppressWarnings("unchecked")
+  private List<Map.Entry<List<String>, V>> entries() {
+    String[] wordsById = new String[numWords];
+    for (int i = 0; i < words.length; i++) {
+      if (words[i] != null) {
+        wordsById[wordIds[i]] = words[i];
+      }
+    }
+    int[] parents = new int[numNodes];
+    int[] nodeWords = new int[numNodes];
+    for (int i = 0; i < edgeKeys.length; i++) {
+      if (edgeKeys[i] != NO_EDGE) {
+        parents[edgeChildren[i]] = (int) (edgeKeys[i] >>> 32);
+        nodeWords[edgeChildren[i]] = (int) edgeKeys[i];
+      }
+    }
+    List<Map.Entry<List<String>, V>> entries = new ArrayList<Map.Entry<List<String>, V>>(size);
+    for (int node = 0; node < numNodes; node++) {
+      if (values[node] != null) {
+        List<String> key = new ArrayList<String>();
+        for (int n = node; n != 0; n = parents[n]) {
+          key.add(wordsById[nodeWords[n]]);
+        }
+        Collections.reverse(key);
+        entries.add(new SimpleImmutableEntry<List<String>, V>(key, (V) values[node]));
+      }
+    }
+    return entries;
+  }
+
+}
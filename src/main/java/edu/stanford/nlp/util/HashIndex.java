@@ -2,6 +2,8 @@ package edu.stanford.nlp.util;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.function.Supplier;
 
@@ -22,6 +24,16 @@ import edu.stanford.nlp.io.RuntimeIOException;
  * <p>{@code String s = index.get(i);}
  * <p>An Index can be locked or unlocked: a locked index cannot have new
  * items added to it.
+ * <p>An Index made with one of the usual constructors (or deserialized) can
+ * be shared by threads that add to it, as a parser's word index is: objects
+ * are looked up in a {@link ConcurrentHashMap} and by index in an array
+ * that is safely republished as it grows, both without locking, and only
+ * adding a new object waits for other threads adding objects.  So
+ * {@code get}, {@code size} and iterating are safe while another thread
+ * adds; an iterator sees the objects there when it gets to them.  Indices
+ * of objects added by another thread should be learnt from {@code indexOf}
+ * or {@code addToIndex} before calling {@code get} on them.  Clearing an
+ * Index is not safe while it is used by other threads.
  *
  * @author <a href="mailto:klein@cs.stanford.edu">Dan Klein</a>
  * @version 1.0
@@ -145,10 +157,24 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
     locked = false;
   }
 
+  /** Stands for null in a ConcurrentMap, which can't hold null keys */
+  private enum NullKey { INSTANCE }
+
+  /** The key of {@code o} in {@code indexes}. */
+  @SuppressWarnings("unchecked")
+  private E key(Object o) {
+    return (o == null && indexes instanceof ConcurrentMap) ? (E) NullKey.INSTANCE : (E) o;
+  }
+
+  /** The index of {@code o}, or null. */
+  private Integer lookup(Object o) {
+    return indexes.get(key(o));
+  }
+
   /** {@inheritDoc} */
   @Override
   public int indexOf(E o) {
-    Integer index = indexes.get(o);
+    Integer index = lookup(o);
     if (index == null) {
         return -1;
     }
@@ -157,20 +183,12 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
 
   @Override
   public int addToIndex(E o) {
-    Integer index = indexes.get(o);
+    Integer index = lookup(o);
     if (index == null) {
       if ( ! locked) {
-        try {
-          semaphore.acquire();
-          index = indexes.get(o);
-          if (index == null) {
-            index = objects.size();
-            objects.add(o);
-            indexes.put(o, index);
-          }
-          semaphore.release();
-        } catch (InterruptedException e) {
-          throw new RuntimeInterruptedException(e);
+        index = addNew(o);
+        if (index < 0) {
+          index = lookup(o);
         }
       } else {
         return -1;
@@ -179,6 +197,32 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
     return index;
   }
 
+  /**
+   * Adds {@code o} unless another thread has just added it.
+   * The object goes in the list before the map, so that anyone
+   * who finds its index can get it.
+   *
+   * @return The index of {@code o} if it was added, else -1
+   */
+  private int addNew(E o) {
+    try {
+      semaphore.acquire();
+    } catch (InterruptedException e) {
+      throw new RuntimeInterruptedException(e);
+    }
+    try {
+      if (lookup(o) != null) {
+        return -1;
+      }
+      int index = objects.size();
+      objects.add(o);
+      indexes.put(key(o), index);
+      return index;
+    } finally {
+      semaphore.release();
+    }
+  }
+
   /**
    * Takes an Object and returns the integer index of the Object,
    * perhaps adding it to the index first.
@@ -188,6 +232,7 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
    * the number(x) method in the old Numberer class.  This method now uses a
    * Semaphore object to make the index safe for concurrent multithreaded
    *  usage. (CDM: Is this better than using a synchronized block?)
+   *  Lookups of objects already in the index don't take the Semaphore.
    *
    * @param o the Object whose index is desired.
    * @param add Whether it is okay to add new items to the index
@@ -232,12 +277,9 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
    */
   @Override
   public boolean add(E o) {
-    Integer index = indexes.get(o);
+    Integer index = lookup(o);
     if (index == null && ! locked) {
-      index = objects.size();
-      objects.add(o);
-      indexes.put(o, index);
-      return true;
+      return addNew(o) >= 0;
     }
     return false;
   }
@@ -250,7 +292,7 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
   @SuppressWarnings({"SuspiciousMethodCalls"})
   @Override
   public boolean contains(Object o) {
-    return indexes.containsKey(o);
+    return lookup(o) != null;
   }
 
   /**
@@ -258,8 +300,8 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
    */
   public HashIndex() {
     super();
-    objects = new ArrayList<E>();
-    indexes = Generics.newHashMap();
+    objects = new AppendOnlyList<E>(10);
+    indexes = new ConcurrentHashMap<E,Integer>();
   }
 
   /**
@@ -268,8 +310,8 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
    */
   public HashIndex(int capacity) {
     super();
-    objects = new ArrayList<E>(capacity);
-    indexes = Generics.newHashMap(capacity);
+    objects = new AppendOnlyList<E>(capacity);
+    indexes = new ConcurrentHashMap<E,Integer>(capacity);
   }
 
   /**
@@ -506,6 +548,26 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
     return index;
   }
 
+  /**
+   * Indices serialized with a HashMap (as in older models) are read back
+   * with a ConcurrentHashMap, so that they too can be shared by threads.
+   * The objects are always serialized as an ArrayList.
+   */
+  private Object readResolve() {
+    boolean concurrentMap = indexes instanceof ConcurrentMap;
+    if ((concurrentMap || indexes instanceof HashMap) && objects instanceof ArrayList) {
+      HashIndex<E> index = new HashIndex<E>(new AppendOnlyList<E>(objects), concurrentMap ? indexes : new ConcurrentHashMap<E,Integer>());
+      if ( ! concurrentMap) {
+        for (Map.Entry<E,Integer> entry : indexes.entrySet()) {
+          index.indexes.put(index.key(entry.getKey()), entry.getValue());
+        }
+      }
+      index.locked = locked;
+      return index;
+    }
+    return this;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -523,4 +585,92 @@ public class HashIndex<E> extends AbstractCollection<E> implements Index<E>, Ran
     return result;
   }
 
+
+  /**
+   * The objects of an Index that can be read while one thread at a time
+   * appends to it.  The array and the size are volatile, and an object is
+   * stored before the size is increased, and an array before it replaces a
+   * smaller one, so a reader finds an object at every index below the size
+   * it reads.  Changes other than appending must not be concurrent with any
+   * other use.  Iterators don't fail on concurrent appends.
+   */
+  private static class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private volatile Object[] elements;
+    private volatile int size; // = 0;
+
+    AppendOnlyList(int capacity) {
+      elements = new Object[Math.max(capacity, 1)];
+    }
+
+    AppendOnlyList(Collection<? extends E> c) {
+      Object[] array = c.toArray();
+      elements = Arrays.copyOf(array, Math.max(array.length, 1), Object[].class);
+      size = array.length;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int i) {
+      // read the size first: the array read after it holds at least that many objects
+      int n = size;
+      if (i < 0 || i >= n) {
+        throw new IndexOutOfBoundsException("Index " + i + " outside the bounds [0," + n + ")");
+      }
+      return (E) elements[i];
+    }
+
+    @Override
+    public boolean add(E e) {
+      int n = size;
+      Object[] array = elements;
+      if (n == array.length) {
+        array = Arrays.copyOf(array, n + (n >> 1) + 1);
+        elements = array;
+      }
+      array[n] = e;
+      size = n + 1;
+      return true;
+    }
+
+    @Override
+    public E set(int i, E e) {
+      E old = get(i);
+      elements[i] = e;
+      return old;
+    }
+
+    @Override
+    public E remove(int i) {
+      E old = get(i);
+      Object[] array = elements;
+      int n = size;
+      System.arraycopy(array, i + 1, array, i, n - i - 1);
+      array[n - 1] = null;
+      size = n - 1;
+      modCount++;
+      return old;
+    }
+
+    @Override
+    public void clear() {
+      elements = new Object[elements.length];
+      size = 0;
+      modCount++;
+    }
+
+    /** Serialized as an ArrayList, as the objects of an Index always were. */
+    private Object writeReplace() {
+      return new ArrayList<E>(this);
+    }
+
+  }
+
 }
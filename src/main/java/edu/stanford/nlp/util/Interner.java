@@ -4,6 +4,8 @@ import java.lang.ref.WeakReference;
 import java.util.Map;
 import java.util.Set;
 
+import edu.stanford.nlp.util.concurrent.ConcurrentInterner;
+
 /**
  * For interning (canonicalizing) things.
  * <p/>
@@ -21,6 +23,8 @@ import java.util.Set;
  * Note that in general it is just as good or better to use the
  * static Interner.globalIntern() method rather than making an
  * instance of Interner and using the instance-level intern().
+ * The global interner is a {@link ConcurrentInterner}, so it can be used
+ * from many threads at once without them waiting on each other.
  * <p/>
  * Author: Dan Klein
  * Date: 9/28/03
@@ -29,7 +33,7 @@ import java.util.Set;
  */
 public class Interner<T> {
 
-  protected static Interner<Object> interner = Generics.newInterner();
+  protected static Interner<Object> interner = new ConcurrentInterner<Object>();
 
   /**
    * For getting the instance that global methods use.
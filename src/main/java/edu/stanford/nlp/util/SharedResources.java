@@ -0,0 +1,111 @@
+package edu.stanford.nlp.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.io.RuntimeIOException;
+
+/**
+ * A process-wide store of read-only resources, such as word lists and other
+ * dictionaries.  Each resource is loaded the first time it is asked for and is
+ * then shared by every caller asking for the same kind of resource from the
+ * same path, so that several annotators (or several pipelines) in one JVM hold
+ * one copy rather than one each.
+ * <p>
+ * A resource is loaded only once even if several threads ask for it at the
+ * same time; the others wait for it.  If loading fails, the exception is
+ * thrown to each waiting caller and the next request tries again.
+ * Shared resources must not be modified.
+ */
+public class SharedResources {
+
+  /** Loads a resource from a path (which may be null, if the loader allows it). */
+  @FunctionalInterface
+  public interface Loader<T> {
+    T load(String path) throws Exception;
+  }
+
+  private static final ConcurrentMap<String, FutureTask<Object>> resources = new ConcurrentHashMap<String, FutureTask<Object>>();
+
+  private SharedResources() {} // static methods only
+
+  /**
+   * Returns the resource of this kind loaded from {@code path}, loading it
+   * with {@code loader} if no one has yet.  {@code kind} distinguishes
+   * different resources made from the same file; callers using the same kind
+   * must load the same thing.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T get(String kind, String path, Loader<T> loader) {
+    String key = kind + '\t' + path;
+    FutureTask<Object> task = resources.get(key);
+    if (task == null) {
+      FutureTask<Object> newTask = new FutureTask<Object>(() -> loader.load(path));
+      task = resources.putIfAbsent(key, newTask);
+      if (task == null) {
+        task = newTask;
+        newTask.run();
+      }
+    }
+    try {
+      return (T) task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeInterruptedException(e);
+    } catch (ExecutionException e) {
+      resources.remove(key, task);
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof IOException) {
+        throw new RuntimeIOException("Couldn't load " + path, cause);
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException("Couldn't load " + path, cause);
+    }
+  }
+
+  /**
+   * The set of lines of a file, optionally lowercased, as an unmodifiable
+   * set of interned Strings.  A null path gives an empty set.
+   */
+  public static Set<String> wordSet(String path, boolean lowercase) {
+    if (path == null) {
+      return Collections.emptySet();
+    }
+    return get(lowercase ? "wordSet.lowercase" : "wordSet", path, file -> {
+      Set<String> words = Generics.newHashSet();
+      BufferedReader reader = IOUtils.readerFromString(file);
+      try {
+        for (String line; (line = reader.readLine()) != null; ) {
+          words.add((lowercase ? line.toLowerCase() : line).intern());
+        }
+      } finally {
+        IOUtils.closeIgnoringExceptions(reader);
+      }
+      return Collections.unmodifiableSet(words);
+    });
+  }
+
+  /** The number of resources loaded or being loaded. */
+  public static int size() {
+    return resources.size();
+  }
+
+  /**
+   * Forgets all resources, so that they are loaded again when next asked for.
+   * Callers that already have a resource keep their copy.
+   */
+  public static void clear() {
+    resources.clear();
+  }
+
+}
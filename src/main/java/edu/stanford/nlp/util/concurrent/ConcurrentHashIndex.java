@@ -20,6 +20,9 @@ import edu.stanford.nlp.util.Index;
 /**
  * A fast threadsafe index that supports constant-time lookup in both directions. This
  * index is tuned for circumstances in which readers significantly outnumber writers.
+ * Objects are only ever appended, and reads take no lock: an object is stored in the
+ * array and counted in the size before its index is put in the map, so an index
+ * found by {@link #indexOf} can always be looked up with {@link #get}.
  *
  * @author Spence Green
  *
@@ -33,7 +36,7 @@ public class ConcurrentHashIndex<E> extends AbstractCollection<E> implements Ind
   private static final int DEFAULT_INITIAL_CAPACITY = 100;
 
   private final ConcurrentHashMap<E,Integer> item2Index;
-  private int indexSize;
+  private volatile int indexSize;
   private final ReentrantLock lock;
   private final AtomicReference<Object[]> index2Item;
 
@@ -57,16 +60,26 @@ public class ConcurrentHashIndex<E> extends AbstractCollection<E> implements Ind
     index2Item = new AtomicReference<Object[]>(arr);
   }
 
+  /**
+   * Makes an index with the same objects at the same indices as {@code index}.
+   */
+  public ConcurrentHashIndex(Index<? extends E> index) {
+    this(Math.max(DEFAULT_INITIAL_CAPACITY, index.size()));
+    addAll(index.objectsList());
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public E get(int i) {
+    // Read the size first: the array is at least as new as the size
+    int size = indexSize;
     Object[] arr = index2Item.get();
-    if (i < indexSize) {
+    if (i >= 0 && i < size) {
       // arr.length guaranteed to be == to size() given the
       // implementation of indexOf below.
       return (E) arr[i];
     }
-    throw new ArrayIndexOutOfBoundsException(String.format("Out of bounds: %d >= %d", i, indexSize));
+    throw new ArrayIndexOutOfBoundsException(String.format("Out of bounds: %d >= %d", i, size));
   }
 
   @Override
@@ -89,17 +102,19 @@ public class ConcurrentHashIndex<E> extends AbstractCollection<E> implements Ind
         return item2Index.get(o);
 
       } else {
-        final int newIndex = indexSize++;
+        final int newIndex = indexSize;
         Object[] arr = index2Item.get();
         assert newIndex <= arr.length;
         if (newIndex == arr.length) {
           // Increase size of array if necessary
-          Object[] newArr = new Object[2*newIndex];
+          Object[] newArr = new Object[Math.max(1, 2*newIndex)];
           System.arraycopy(arr, 0, newArr, 0, arr.length);
           arr = newArr;
         }
+        // Publish the object before its index
         arr[newIndex] = o;
         index2Item.set(arr);
+        indexSize = newIndex + 1;
         item2Index.put(o, newIndex);
         return newIndex;
       }
@@ -134,7 +149,13 @@ public class ConcurrentHashIndex<E> extends AbstractCollection<E> implements Ind
 
   @Override
   public List<E> objectsList() {
-    return Generics.newArrayList(item2Index.keySet());
+    // In index order, as for other indices
+    int size = indexSize;
+    List<E> objects = Generics.newArrayList(size);
+    for (int i = 0; i < size; i++) {
+      objects.add(get(i));
+    }
+    return objects;
   }
 
   @Override
@@ -250,8 +271,8 @@ public class ConcurrentHashIndex<E> extends AbstractCollection<E> implements Ind
   public void clear() {
     lock.lock();
     try {
-      item2Index.clear();
       indexSize = 0;
+      item2Index.clear();
       Object[] arr = new Object[DEFAULT_INITIAL_CAPACITY];
       index2Item.set(arr);
     } finally {
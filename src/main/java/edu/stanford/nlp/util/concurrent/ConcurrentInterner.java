@@ -0,0 +1,136 @@
+package edu.stanford.nlp.util.concurrent;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.Interner;
+
+/**
+ * An {@link Interner} for many threads that does not lock.
+ * <p>
+ * Interned objects are held in a {@link ConcurrentHashMap} through weak
+ * references, so, as with {@link Interner}, an object that is only
+ * referenced by the interner can still be garbage collected.  Entries
+ * whose object has been collected are removed as later objects are
+ * interned.  Looking up an object that has already been interned takes no
+ * lock, and threads interning different new objects do not block each other.
+ * <p>
+ * This is the global interner used by {@link Interner#globalIntern}.
+ *
+ * @see SynchronizedInterner
+ */
+public class ConcurrentInterner<T> extends Interner<T> {
+
+  private final ConcurrentHashMap<Object, WeakKey<T>> entries = new ConcurrentHashMap<Object, WeakKey<T>>();
+  private final ReferenceQueue<T> collected = new ReferenceQueue<T>();
+
+  /**
+   * A weak reference that is equal to other keys (and lookups) for an equal object.
+   * Once its object is collected, it is only equal to itself.
+   */
+  private static class WeakKey<T> extends WeakReference<T> {
+    private final int hash;
+
+    WeakKey(T o, ReferenceQueue<T> queue) {
+      super(o, queue);
+      hash = o.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if ( ! (other instanceof WeakKey)) {
+        return false;
+      }
+      T o = get();
+      return o != null && o.equals(((WeakKey<?>) other).get());
+    }
+  }
+
+  /** A key for looking up an object, without making a reference to it. */
+  private static class Lookup {
+    private final Object o;
+
+    Lookup(Object o) {
+      this.o = o;
+    }
+
+    @Override
+    public int hashCode() {
+      return o.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof WeakKey && o.equals(((WeakKey<?>) other).get());
+    }
+  }
+
+  /**
+   * Returns a unique object o' that .equals the argument o.  If o
+   * itself is returned, this is the first request for an object
+   * .equals to o.
+   */
+  @Override
+  public T intern(T o) {
+    removeCollected();
+    WeakKey<T> key = entries.get(new Lookup(o));
+    if (key != null) {
+      T interned = key.get();
+      if (interned != null) {
+        return interned;
+      }
+    }
+    WeakKey<T> newKey = new WeakKey<T>(o, collected);
+    while (true) {
+      key = entries.putIfAbsent(newKey, newKey);
+      if (key == null) {
+        return o;
+      }
+      T interned = key.get();
+      if (interned != null) {
+        return interned;
+      }
+      // The object was collected, but its entry is still there
+      entries.remove(key, key);
+    }
+  }
+
+  /** Removes the entries of objects that have been garbage collected. */
+  private void removeCollected() {
+    for (Object key; (key = collected.poll()) != null; ) {
+      entries.remove(key, key);
+    }
+  }
+
+  @Override
+  public Set<T> internAll(Set<T> s) {
+    Set<T> result = Generics.newHashSet();
+    for (T o : s) {
+      result.add(intern(o));
+    }
+    return result;
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+  }
+
+  @Override
+  public int size() {
+    removeCollected();
+    return entries.size();
+  }
+
+}
@@ -43,6 +43,8 @@ public class MulticoreWrapper<I,O> {
   final BlockingQueue<Integer> idleProcessors;
   private final List<ThreadsafeProcessor<I,O>> processorList;
   private final JobCallback<O> callback;
+  /** Notified whenever a result is added to the output queue */
+  private final Object resultLock = new Object();
 
   /**
    * Constructor.
@@ -73,6 +75,9 @@ public class MulticoreWrapper<I,O> {
     idleProcessors = new ArrayBlockingQueue<Integer>(nThreads, false);
     callback = (result, processorId) -> {
       outputQueue.put(result.id, result.item);
+      synchronized (resultLock) {
+        resultLock.notifyAll();
+      }
       idleProcessors.add(processorId);
     };
 
@@ -195,6 +200,20 @@ public class MulticoreWrapper<I,O> {
     }
   }
 
+  /**
+   * Blocks until {@link #peek()} would return true.  There must be an item
+   * submitted whose result has not been returned, or this waits forever.
+   *
+   * @throws InterruptedException If the thread is interrupted while waiting
+   */
+  public void awaitResult() throws InterruptedException {
+    synchronized (resultLock) {
+      while ( ! peek()) {
+        resultLock.wait();
+      }
+    }
+  }
+
   /**
    * Returns the next available result.
    *
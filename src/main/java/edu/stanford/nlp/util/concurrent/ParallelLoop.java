@@ -0,0 +1,108 @@
+package edu.stanford.nlp.util.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the iterations of a loop over {@code 0 .. n-1} as tasks in a
+ * {@link ForkJoinPool}.  This is meant for work within one document, such as
+ * one iteration per sentence, which is too fine-grained to hand to a
+ * {@link MulticoreWrapper}.  The iterations must be independent of each
+ * other; a caller that needs their results in order should have iteration
+ * {@code i} write to slot {@code i} of an array or list.
+ * <p>
+ * With a null pool the loop simply runs in the calling thread, so callers can
+ * pass the result of {@link #sharedPool(int)} without checking it.
+ */
+public class ParallelLoop {
+
+  /** The body of a loop, run once for each index. */
+  @FunctionalInterface
+  public interface Body {
+    void apply(int i) throws Exception;
+  }
+
+  /** One pool per number of threads, shared by everything that asks for that many */
+  private static final Map<Integer, ForkJoinPool> pools = new ConcurrentHashMap<Integer, ForkJoinPool>();
+
+  private ParallelLoop() {} // static methods only
+
+  /**
+   * Returns a pool with {@code nThreads} worker threads, or null if
+   * {@code nThreads} is 1 or less, in which case loops run serially.
+   * The pool is shared by all callers asking for the same number of threads,
+   * so annotators that are made and dropped don't each leave a pool behind.
+   * It is never shut down: its workers are daemon threads, which exit when
+   * they have been idle for a while.
+   */
+  public static ForkJoinPool sharedPool(int nThreads) {
+    return nThreads > 1 ? pools.computeIfAbsent(nThreads, ForkJoinPool::new) : null;
+  }
+
+  /**
+   * Runs {@code body} for each index from 0 to {@code n-1}, in parallel if
+   * {@code pool} is not null, and returns once all of them have finished.
+   * If an iteration throws an exception, the first such exception is rethrown.
+   */
+  public static void run(ForkJoinPool pool, int n, Body body) throws Exception {
+    if (pool == null || n <= 1) {
+      for (int i = 0; i < n; i++) {
+        body.apply(i);
+      }
+      return;
+    }
+    try {
+      pool.invoke(new Range(body, 0, n));
+    } catch (RuntimeException e) {
+      // the pool may rethrow a copy of the exception, with the original as its cause
+      for (Throwable t = e; t != null; t = t.getCause()) {
+        if (t instanceof IterationException) {
+          throw (Exception) t.getCause();
+        }
+      }
+      throw e;
+    }
+  }
+
+  /** Carries a checked exception thrown by an iteration out of the pool. */
+  private static class IterationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    IterationException(Exception cause) {
+      super(cause);
+    }
+  }
+
+  private static class Range extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Body body;
+    private final int start;
+    private final int end;
+
+    Range(Body body, int start, int end) {
+      this.body = body;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start == 1) {
+        try {
+          body.apply(start);
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new IterationException(e);
+        }
+      } else {
+        int mid = (start + end) >>> 1;
+        invokeAll(new Range(body, start, mid), new Range(body, mid, end));
+      }
+    }
+  }
+
+}